@@ -28,6 +28,8 @@ import java.util.List;
 
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.AtomRelations;
+import org.atomify.model.AtomResolvedDocument;
+import org.atomify.model.common.AtomXmlBase;
 import org.atomify.model.syndication.AtomEntry;
 import org.atomify.model.syndication.AtomFeed;
 import org.atomify.model.syndication.AtomLink;
@@ -38,6 +40,7 @@ import com.sun.jersey.api.client.UniformInterfaceException;
 import com.sun.jersey.api.client.WebResource;
 
 public class AtomFeedClient extends RefreshableResourceClient<AtomFeed> {
+	private volatile AtomResolvedDocument resolved;
 
 	public AtomFeedClient(WebResource feedResource) {
 		super(feedResource, AtomFeed.MEDIA_TYPE);
@@ -98,7 +101,8 @@ public class AtomFeedClient extends RefreshableResourceClient<AtomFeed> {
 	}
 
 	public AtomEntryClient getEntry(int index) {
-		List<AtomEntry> entries = entity().getEntries();
+		AtomResolvedDocument feed = resolved();
+		List<AtomEntry> entries = ((AtomFeed) feed.delegate()).getEntries();
 		if (index < entries.size()) {
 			AtomEntry entry = entries.get(index);
 			AtomLink selfLink = null;
@@ -113,9 +117,9 @@ public class AtomFeedClient extends RefreshableResourceClient<AtomFeed> {
 				}
 			}
 			if (selfLink != null) {
-				return new AtomEntryClient(resource().uri(selfLink.getHref()), entry);
+				return new AtomEntryClient(resource().uri(feed.getResolvedHref(selfLink)), entry);
 			} else if (alternateLink != null) {
-				return new AtomEntryClient(resource().uri(alternateLink.getHref()), entry);
+				return new AtomEntryClient(resource().uri(feed.getResolvedHref(alternateLink)), entry);
 			}
 			// FIXME: Well how should we handle not to know where the entry URI is?
 			return new AtomEntryClient(resource(), entry);
@@ -131,8 +135,21 @@ public class AtomFeedClient extends RefreshableResourceClient<AtomFeed> {
 	private AtomFeedClient queryFeedLink(URI relation) {
 		AtomLink temp = getFirstLink(relation);
 		if (temp != null && (temp.getType() == null || temp.getType().equals(AtomFeed.MEDIA_TYPE))) {
-			return new AtomFeedClient(resource().uri(temp.getHref()));
+			return new AtomFeedClient(resource().uri(resolved().getResolvedHref(temp)));
 		}
 		throw new RuntimeException("No link with media type application/atom+xml;type=feed with rel " + relation + " available");
 	}
+
+	/**
+	 * Returns the view of the fetched feed resolving its relative URIs. The view is kept until the
+	 * feed is fetched again.
+	 */
+	private AtomResolvedDocument resolved() {
+		AtomFeed feed = entity();
+		AtomResolvedDocument result = this.resolved;
+		if (result == null || result.delegate() != feed) {
+			this.resolved = result = new AtomResolvedDocument(feed, AtomXmlBase.forLocation(resource().getURI().toString()));
+		}
+		return result;
+	}
 }
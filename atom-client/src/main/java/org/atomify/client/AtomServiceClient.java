@@ -25,6 +25,8 @@ package org.atomify.client;
 
 import java.net.URI;
 
+import org.atomify.model.AtomResolvedDocument;
+import org.atomify.model.common.AtomXmlBase;
 import org.atomify.model.publishing.AtomPubCollection;
 import org.atomify.model.publishing.AtomPubService;
 import org.jbasics.checker.ContractCheck;
@@ -37,6 +39,7 @@ import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
 
 public class AtomServiceClient extends RefreshableResourceClient<AtomPubService> {
+	private volatile AtomResolvedDocument resolved;
 
 	public AtomServiceClient(URI serviceUri) {
 		this(serviceUri, null, null, new DefaultClientConfig());
@@ -59,14 +62,13 @@ public class AtomServiceClient extends RefreshableResourceClient<AtomPubService>
 	}
 	
 	public WebResource getCollectionResource(String workspaceTitle, String collectionTitle, MediaType... mediaTypes) {
-		AtomPubCollection temp = entity().findCollection(workspaceTitle, collectionTitle, mediaTypes);
-		return temp != null ? resource().uri(temp.getHref()) : null; 
+		return findCollection(workspaceTitle, collectionTitle, mediaTypes);
 	}
 
 	public AtomFeedClient getCollection(String workspaceTitle, String collectionTitle, MediaType... mediaTypes) {
-		AtomPubCollection temp = entity().findCollection(workspaceTitle, collectionTitle, mediaTypes);
+		WebResource temp = findCollection(workspaceTitle, collectionTitle, mediaTypes);
 		if (temp != null) {
-			return new AtomFeedClient(resource().uri(temp.getHref()));
+			return new AtomFeedClient(temp);
 		}
 		return null;
 	}
@@ -76,4 +78,27 @@ public class AtomServiceClient extends RefreshableResourceClient<AtomPubService>
 		return response.getEntity(AtomPubService.class);
 	}
 
+	/**
+	 * Finds the collection the way {@link AtomPubService#findCollection(String, String, MediaType...)}
+	 * does and resolves its href against the workspace it is found in.
+	 */
+	private WebResource findCollection(String workspaceTitle, String collectionTitle, MediaType... mediaTypes) {
+		AtomResolvedDocument service = resolved();
+		AtomPubCollection collection = ((AtomPubService) service.delegate()).findCollection(workspaceTitle, collectionTitle, mediaTypes);
+		return collection != null ? resource().uri(service.getResolvedHref(collection)) : null;
+	}
+
+	/**
+	 * Returns the view of the fetched service document resolving its relative URIs. The view is
+	 * kept until the document is fetched again.
+	 */
+	private AtomResolvedDocument resolved() {
+		AtomPubService service = entity();
+		AtomResolvedDocument result = this.resolved;
+		if (result == null || result.delegate() != service) {
+			this.resolved = result = new AtomResolvedDocument(service, AtomXmlBase.forLocation(resource().getURI().toString()));
+		}
+		return result;
+	}
+
 }
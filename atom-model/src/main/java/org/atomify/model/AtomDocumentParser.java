@@ -23,17 +23,34 @@
  */
 package org.atomify.model;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.xml.stream.XMLStreamException;
+
+import org.atomify.model.common.AtomXmlBase;
+import org.atomify.model.extension.AtomExtensionRegistry;
+import org.atomify.model.parser.AtomProjection;
+import org.atomify.model.parser.AtomStreamParser;
+import org.atomify.model.parser.ElementBindings;
 import org.jbasics.parser.BuilderContentHandler;
 import org.jbasics.parser.BuilderParserContext;
 import org.xml.sax.InputSource;
@@ -46,35 +63,149 @@ public class AtomDocumentParser {
 	private static final BuilderParserContext<AtomDocument> ATOM_DOCUMENT_BUILDER_PARSER_CTX = new BuilderParserContext<AtomDocument>(
 			AtomDocument.class);
 
+	/**
+	 * The engine used to parse the documents.
+	 */
+	public enum Engine {
+		/**
+		 * SAX parser driving the builders reflectively through the builder parser context.
+		 */
+		SAX_BUILDER,
+		/**
+		 * StAX parser calling the builders directly through element bindings.
+		 */
+		STAX_STREAMING,
+		/**
+		 * StAX parser like {@link #STAX_STREAMING} keeping the content and summary of entries as raw
+		 * markup until they are accessed.
+		 */
+		STAX_LAZY_CONTENT,
+		/**
+		 * StAX parser like {@link #STAX_STREAMING} keeping the children of xhtml divs, structured
+		 * extensions and other foreign markup as raw markup until they are accessed.
+		 */
+		STAX_RAW_MARKUP;
+	}
+
+	/**
+	 * Callback receiving the documents parsed by
+	 * {@link AtomDocumentParser#parseDirectory(Path, String, BatchHandler)}.
+	 */
+	public interface BatchHandler {
+
+		/**
+		 * Handles a parsed document.
+		 * 
+		 * @param file The file parsed
+		 * @param document The document
+		 * @return True to continue with the next file or false to stop
+		 */
+		boolean handleDocument(Path file, AtomDocument document);
+
+		/**
+		 * Handles a file which could not be parsed.
+		 * 
+		 * @param file The file which failed
+		 * @param e The exception raised
+		 * @return True to continue with the next file or false to stop
+		 */
+		boolean handleFailure(Path file, RuntimeException e);
+
+	}
+
+	/**
+	 * Files up to this size are memory mapped, larger ones are read through a channel.
+	 */
+	private static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+	private static final int CHANNEL_BUFFER_SIZE = 256 * 1024;
+
+	private final Engine engine;
 	private final XMLReader reader;
 	private final BuilderContentHandler<AtomDocument> handler;
+	private final AtomStreamParser streamParser;
 	private final AtomicBoolean parsingInProgress;
 
 	public AtomDocumentParser() throws SAXException {
-		this.reader = XMLReaderFactory.createXMLReader();
-		this.handler = ATOM_DOCUMENT_BUILDER_PARSER_CTX.createContentHandler();
-		this.reader.setContentHandler(this.handler);
-		this.reader.setDTDHandler(this.handler);
-		this.reader.setEntityResolver(this.handler);
-		this.reader.setErrorHandler(this.handler);
-		try {
-			this.reader.setProperty("http://xml.org/sax/properties/lexical-handler", this.handler);
-		} catch(SAXNotRecognizedException e) {
-			// The parser does not understand the lexical handler so we work without
+		this(Engine.SAX_BUILDER);
+	}
+
+	public AtomDocumentParser(Engine engine) throws SAXException {
+		this.engine = AtomContractConstraint.notNull("engine", engine);
+		if (engine != Engine.SAX_BUILDER) {
+			this.reader = null;
+			this.handler = null;
+			this.streamParser = new AtomStreamParser(ElementBindings.getDefault(), engine == Engine.STAX_LAZY_CONTENT,
+					engine == Engine.STAX_RAW_MARKUP);
+		} else {
+			this.reader = XMLReaderFactory.createXMLReader();
+			this.handler = ATOM_DOCUMENT_BUILDER_PARSER_CTX.createContentHandler();
+			this.reader.setContentHandler(this.handler);
+			this.reader.setDTDHandler(this.handler);
+			this.reader.setEntityResolver(this.handler);
+			this.reader.setErrorHandler(this.handler);
+			try {
+				this.reader.setProperty("http://xml.org/sax/properties/lexical-handler", this.handler);
+			} catch(SAXNotRecognizedException e) {
+				// The parser does not understand the lexical handler so we work without
+			}
+			this.streamParser = null;
 		}
 		this.parsingInProgress = new AtomicBoolean(false);
 	}
 
+	/**
+	 * Creates a parser reading only the elements of feeds, entries and sources selected by the
+	 * projection using the {@link Engine#STAX_STREAMING} engine. The documents parsed are partial
+	 * and cannot be serialized.
+	 * 
+	 * @param projection The elements to read (must not be null)
+	 */
+	public AtomDocumentParser(AtomProjection projection) {
+		this.engine = Engine.STAX_STREAMING;
+		this.reader = null;
+		this.handler = null;
+		this.streamParser = new AtomStreamParser(ElementBindings.getDefault(), projection);
+		this.parsingInProgress = new AtomicBoolean(false);
+	}
+
+	/**
+	 * Creates a parser building the extensions registered in the given registry as typed
+	 * extensions. Only the StAX engines dispatch to the registry.
+	 * 
+	 * @param engine The engine to use (any but {@link Engine#SAX_BUILDER})
+	 * @param extensions The registry of typed extensions (must not be null)
+	 */
+	public AtomDocumentParser(Engine engine, AtomExtensionRegistry extensions) {
+		if (AtomContractConstraint.notNull("engine", engine) == Engine.SAX_BUILDER) {
+			throw new IllegalArgumentException("[AtomDocumentParser] The engine " + engine + " does not support typed extensions");
+		}
+		this.engine = engine;
+		this.reader = null;
+		this.handler = null;
+		this.streamParser = new AtomStreamParser(ElementBindings.getDefault(), engine == Engine.STAX_LAZY_CONTENT,
+				engine == Engine.STAX_RAW_MARKUP, extensions);
+		this.parsingInProgress = new AtomicBoolean(false);
+	}
+
+	public Engine getEngine() {
+		return this.engine;
+	}
+
 	public AtomDocument parse(InputSource source) {
 		AtomContractConstraint.notNull("source", source);
 		if (this.parsingInProgress.compareAndSet(false, true)) {
 			try {
+				if (this.streamParser != null) {
+					return this.streamParser.parse(source);
+				}
 				this.reader.parse(source);
 				return this.handler.getParsingResult();
 			} catch (IOException e) {
 				throw createRuntimeException(e);
 			} catch (SAXException e) {
 				throw createRuntimeException(e);
+			} catch (XMLStreamException e) {
+				throw createRuntimeException(e);
 			} finally {
 				this.parsingInProgress.set(false);
 			}
@@ -103,7 +234,9 @@ public class AtomDocumentParser {
 		InputStream in = null;
 		try {
 			in = AtomContractConstraint.notNull("url", url).openStream();
-			return parse(new InputSource(in));
+			InputSource source = new InputSource(in);
+			source.setSystemId(url.toExternalForm());
+			return parse(source);
 		} catch (IOException e) {
 			throw createRuntimeException(e);
 		} finally {
@@ -117,17 +250,60 @@ public class AtomDocumentParser {
 		}
 	}
 
+	/**
+	 * Parses the source and resolves the relative URIs of the document against the system id of
+	 * the source and the xml:base attributes.
+	 * 
+	 * @param source The source to parse (must not be null)
+	 * @return The resolved view of the parsed document
+	 */
+	public AtomResolvedDocument parseResolved(InputSource source) {
+		return new AtomResolvedDocument(parse(source), AtomXmlBase.forLocation(source.getSystemId()));
+	}
+
+	/**
+	 * Parses the document at the URL and resolves its relative URIs against the URL and the
+	 * xml:base attributes.
+	 * 
+	 * @param url The location of the document (must not be null)
+	 * @return The resolved view of the parsed document
+	 */
+	public AtomResolvedDocument parseResolved(URL url) {
+		return new AtomResolvedDocument(parse(url), AtomXmlBase.forLocation(url.toExternalForm()));
+	}
+
 	public AtomDocument parse(File file) {
-		FileReader f = null;
+		return parse(AtomContractConstraint.notNull("file", file).toPath());
+	}
+
+	/**
+	 * Parses the given file. The file is memory mapped and the bytes are handed to the XML parser
+	 * which detects the encoding from the byte order mark and the XML declaration.
+	 * 
+	 * @param path The file to parse (must not be null)
+	 * @return The parsed document
+	 */
+	public AtomDocument parse(Path path) {
+		AtomContractConstraint.notNull("path", path);
+		FileChannel channel = null;
 		try {
-			f = new FileReader(AtomContractConstraint.notNull("file", file));
-			return parse(f);
-		} catch (FileNotFoundException e) {
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			long size = channel.size();
+			InputStream in;
+			if (size <= MAX_MAPPED_SIZE) {
+				in = new ByteBufferInputStream(channel.map(MapMode.READ_ONLY, 0, size));
+			} else {
+				in = new BufferedInputStream(Channels.newInputStream(channel), CHANNEL_BUFFER_SIZE);
+			}
+			InputSource source = new InputSource(in);
+			source.setSystemId(path.toUri().toString());
+			return parse(source);
+		} catch (IOException e) {
 			throw createRuntimeException(e);
 		} finally {
-			if (f != null) {
+			if (channel != null) {
 				try {
-					f.close();
+					channel.close();
 				} catch (IOException e) {
 					// silently ignoring close problems
 				}
@@ -135,6 +311,44 @@ public class AtomDocumentParser {
 		}
 	}
 
+	/**
+	 * Parses all files below the given directory whose name matches the glob pattern one after
+	 * the other. Files failing to parse are reported to the handler and do not stop the batch
+	 * unless the handler says so.
+	 * 
+	 * @param directory The directory to walk recursively (must not be null)
+	 * @param glob The glob pattern the file names must match like *.xml (must not be null)
+	 * @param handler The handler receiving the documents (must not be null)
+	 * @return The number of documents parsed successfully
+	 */
+	public long parseDirectory(Path directory, String glob, final BatchHandler handler) {
+		AtomContractConstraint.notNull("directory", directory);
+		AtomContractConstraint.notNull("handler", handler);
+		final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + AtomContractConstraint.notNull("glob", glob));
+		final long[] count = new long[1];
+		try {
+			Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					if (!attrs.isRegularFile() || !matcher.matches(file.getFileName())) {
+						return FileVisitResult.CONTINUE;
+					}
+					AtomDocument document;
+					try {
+						document = parse(file);
+					} catch (RuntimeException e) {
+						return handler.handleFailure(file, e) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+					}
+					count[0]++;
+					return handler.handleDocument(file, document) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+				}
+			});
+		} catch (IOException e) {
+			throw createRuntimeException(e);
+		}
+		return count[0];
+	}
+
 	private RuntimeException createRuntimeException(Throwable t) {
 		assert t != null;
 		RuntimeException result = new RuntimeException("[" + t.getClass().getSimpleName() + "] " + t.getMessage());
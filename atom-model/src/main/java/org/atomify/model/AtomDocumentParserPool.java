@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Thread safe facade for the {@link AtomDocumentParser} backed by a bounded pool of parsers. Each
+ * parse call borrows a parser, parses the document and returns the parser to the pool. Parsers
+ * are created lazily up to the maximum size of the pool. If all parsers are in use the caller waits
+ * up to the borrow timeout before an {@link IllegalStateException} is thrown. A parser which
+ * failed to parse a document is discarded since its handler state is undefined afterwards.
+ * <p>
+ * The shared pool returned by {@link #getDefault()} is configured with the system properties
+ * {@value #MAX_SIZE_PROPERTY}, {@value #BORROW_TIMEOUT_PROPERTY} (milliseconds) and
+ * {@value #ENGINE_PROPERTY}.
+ * </p>
+ */
+public class AtomDocumentParserPool {
+	public static final String MAX_SIZE_PROPERTY = "org.atomify.model.parserPool.maxSize";
+	public static final String BORROW_TIMEOUT_PROPERTY = "org.atomify.model.parserPool.borrowTimeout";
+	public static final String ENGINE_PROPERTY = "org.atomify.model.parserPool.engine";
+	public static final int DEFAULT_MAX_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+	public static final long DEFAULT_BORROW_TIMEOUT = 5000;
+
+	private static AtomDocumentParserPool defaultPool;
+
+	private final AtomDocumentParser.Engine engine;
+	private final int maxSize;
+	private final long borrowTimeoutNanos;
+	private final BlockingQueue<AtomDocumentParser> idleParsers;
+	private final Semaphore permits;
+
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong borrowed = new AtomicLong();
+	private final AtomicLong discarded = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong waitNanos = new AtomicLong();
+
+	public AtomDocumentParserPool(int maxSize) {
+		this(maxSize, DEFAULT_BORROW_TIMEOUT, TimeUnit.MILLISECONDS, AtomDocumentParser.Engine.SAX_BUILDER);
+	}
+
+	public AtomDocumentParserPool(int maxSize, long borrowTimeout, TimeUnit unit, AtomDocumentParser.Engine engine) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Pool size must be greater than zero: " + maxSize);
+		}
+		if (borrowTimeout < 0) {
+			throw new IllegalArgumentException("Borrow timeout must not be negative: " + borrowTimeout);
+		}
+		this.maxSize = maxSize;
+		this.borrowTimeoutNanos = AtomContractConstraint.notNull("unit", unit).toNanos(borrowTimeout);
+		this.engine = AtomContractConstraint.notNull("engine", engine);
+		this.idleParsers = new LinkedBlockingQueue<AtomDocumentParser>(maxSize);
+		this.permits = new Semaphore(maxSize, true);
+	}
+
+	/**
+	 * Returns the shared pool configured by the system properties.
+	 * 
+	 * @return The shared pool
+	 */
+	public static synchronized AtomDocumentParserPool getDefault() {
+		if (defaultPool == null) {
+			String engineName = System.getProperty(ENGINE_PROPERTY);
+			defaultPool = new AtomDocumentParserPool(Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE).intValue(), Long.getLong(
+					BORROW_TIMEOUT_PROPERTY, DEFAULT_BORROW_TIMEOUT).longValue(), TimeUnit.MILLISECONDS,
+					engineName == null ? AtomDocumentParser.Engine.SAX_BUILDER : AtomDocumentParser.Engine.valueOf(engineName));
+		}
+		return defaultPool;
+	}
+
+	public AtomDocument parse(InputSource source) {
+		AtomDocumentParser parser = borrow();
+		boolean failed = true;
+		try {
+			AtomDocument result = parser.parse(source);
+			failed = false;
+			return result;
+		} finally {
+			release(parser, failed);
+		}
+	}
+
+	public AtomDocument parse(Reader reader) {
+		return parse(new InputSource(AtomContractConstraint.notNull("reader", reader)));
+	}
+
+	public AtomDocument parse(InputStream stream) {
+		return parse(new InputSource(AtomContractConstraint.notNull("stream", stream)));
+	}
+
+	public AtomDocument parse(URI uri) {
+		AtomDocumentParser parser = borrow();
+		boolean failed = true;
+		try {
+			AtomDocument result = parser.parse(uri);
+			failed = false;
+			return result;
+		} finally {
+			release(parser, failed);
+		}
+	}
+
+	public AtomDocument parse(URL url) {
+		AtomDocumentParser parser = borrow();
+		boolean failed = true;
+		try {
+			AtomDocument result = parser.parse(url);
+			failed = false;
+			return result;
+		} finally {
+			release(parser, failed);
+		}
+	}
+
+	public AtomDocument parse(File file) {
+		return parse(AtomContractConstraint.notNull("file", file).toPath());
+	}
+
+	public AtomDocument parse(Path path) {
+		AtomDocumentParser parser = borrow();
+		boolean failed = true;
+		try {
+			AtomDocument result = parser.parse(path);
+			failed = false;
+			return result;
+		} finally {
+			release(parser, failed);
+		}
+	}
+
+	private AtomDocumentParser borrow() {
+		long start = System.nanoTime();
+		try {
+			if (!this.permits.tryAcquire(this.borrowTimeoutNanos, TimeUnit.NANOSECONDS)) {
+				this.timeouts.incrementAndGet();
+				throw new IllegalStateException("No AtomDocumentParser available within " + TimeUnit.NANOSECONDS.toMillis(this.borrowTimeoutNanos)
+						+ "ms (pool size " + this.maxSize + ")");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for an AtomDocumentParser", e);
+		} finally {
+			this.waitNanos.addAndGet(System.nanoTime() - start);
+		}
+		AtomDocumentParser parser = this.idleParsers.poll();
+		if (parser == null) {
+			try {
+				parser = new AtomDocumentParser(this.engine);
+				this.created.incrementAndGet();
+			} catch (SAXException e) {
+				this.permits.release();
+				throw new RuntimeException("[" + e.getClass().getSimpleName() + "] " + e.getMessage(), e);
+			} catch (RuntimeException e) {
+				this.permits.release();
+				throw e;
+			}
+		}
+		this.borrowed.incrementAndGet();
+		return parser;
+	}
+
+	private void release(AtomDocumentParser parser, boolean failed) {
+		if (failed || !this.idleParsers.offer(parser)) {
+			this.discarded.incrementAndGet();
+		}
+		this.permits.release();
+	}
+
+	public AtomDocumentParser.Engine getEngine() {
+		return this.engine;
+	}
+
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	public long getBorrowTimeout(TimeUnit unit) {
+		return unit.convert(this.borrowTimeoutNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the number of parsers currently idle in the pool.
+	 */
+	public int getIdleCount() {
+		return this.idleParsers.size();
+	}
+
+	/**
+	 * Returns the number of parsers currently borrowed.
+	 */
+	public int getActiveCount() {
+		return this.maxSize - this.permits.availablePermits();
+	}
+
+	public long getCreatedCount() {
+		return this.created.get();
+	}
+
+	public long getBorrowedCount() {
+		return this.borrowed.get();
+	}
+
+	/**
+	 * Returns the number of parsers thrown away because parsing failed.
+	 */
+	public long getDiscardedCount() {
+		return this.discarded.get();
+	}
+
+	public long getTimeoutCount() {
+		return this.timeouts.get();
+	}
+
+	/**
+	 * Returns the total time callers waited to borrow a parser.
+	 */
+	public long getTotalWaitTime(TimeUnit unit) {
+		return unit.convert(this.waitNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return "AtomDocumentParserPool [engine=" + this.engine + ", maxSize=" + this.maxSize + ", idle=" + getIdleCount() + ", active="
+				+ getActiveCount() + ", created=" + this.created + ", borrowed=" + this.borrowed + ", discarded=" + this.discarded
+				+ ", timeouts=" + this.timeouts + ", waitMillis=" + TimeUnit.NANOSECONDS.toMillis(this.waitNanos.get()) + "]";
+	}
+
+}
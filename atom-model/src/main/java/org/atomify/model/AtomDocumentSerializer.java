@@ -23,7 +23,8 @@
  */
 package org.atomify.model;
 
-import java.net.URI;
+import java.io.OutputStream;
+import java.io.Writer;
 
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Result;
@@ -33,36 +34,148 @@ import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.atomify.model.serializer.AtomContentDigest;
+import org.atomify.model.serializer.AtomEntryCache;
+import org.atomify.model.serializer.AtomXmlWriter;
 
 import org.jbasics.xml.XmlStylesheetLinks;
 import org.jbasics.xml.types.XmlStylesheetProcessInstruction;
 import org.xml.sax.SAXException;
 
+/**
+ * Serializes atom documents as XML. Documents written to a {@link StreamResult} with an output
+ * stream or writer are written directly by an {@link AtomXmlWriter}. A JAXP transformer is only
+ * used if an XSLT {@link Templates} is applied or the result is no stream. Serializers created with
+ * an {@link AtomEntryCache} copy unchanged entries from the cache.
+ */
 public class AtomDocumentSerializer {
+	/**
+	 * The default number of spaces each level is indented.
+	 */
+	public static final int DEFAULT_INDENT = 2;
+
+	private static final String INDENT_AMOUNT = "{http://xml.apache.org/xslt}indent-amount";
+
 	private final String encoding;
+	private final int indent;
+	private final AtomEntryCache entryCache;
 
 	public AtomDocumentSerializer() {
 		this("UTF-8");
 	}
 
 	public AtomDocumentSerializer(String encoding) {
+		this(encoding, DEFAULT_INDENT);
+	}
+
+	/**
+	 * Creates a serializer writing with the given encoding and indentation.
+	 * 
+	 * @param encoding The encoding of the output (must not be null or empty)
+	 * @param indent The number of spaces to indent each level or {@link AtomXmlWriter#NO_INDENT}
+	 *            to write the document on a single line
+	 */
+	public AtomDocumentSerializer(String encoding, int indent) {
 		this.encoding = AtomContractConstraint.mustNotBeEmptyString(encoding, "encoding");
+		this.indent = indent < 0 ? AtomXmlWriter.NO_INDENT : indent;
+		this.entryCache = null;
+	}
+
+	/**
+	 * Creates a serializer copying entries from the given cache. The document is written with the
+	 * encoding and indentation of the cache.
+	 * 
+	 * @param entryCache The cache of serialized entries (must not be null)
+	 */
+	public AtomDocumentSerializer(AtomEntryCache entryCache) {
+		this.entryCache = AtomContractConstraint.notNull("entryCache", entryCache);
+		this.encoding = entryCache.getCharset().name();
+		this.indent = entryCache.getIndent();
+	}
+
+	public String getEncoding() {
+		return this.encoding;
+	}
+
+	public int getIndent() {
+		return this.indent;
+	}
+
+	public AtomEntryCache getEntryCache() {
+		return this.entryCache;
 	}
 
 	public void serialize(AtomDocument document, Result result) {
 		serialize(document, result, null);
 	}
 
+	public void serialize(AtomDocument document, OutputStream out) {
+		AtomContractConstraint.notNull("document", document);
+		serialize(document, new AtomXmlWriter(AtomContractConstraint.notNull("out", out), this.encoding, this.indent));
+	}
+
+	public void serialize(AtomDocument document, Writer out) {
+		AtomContractConstraint.notNull("document", document);
+		serialize(document, new AtomXmlWriter(AtomContractConstraint.notNull("out", out), this.encoding, this.indent));
+	}
+
+	/**
+	 * Serializes the document and computes its strong entity tag in the same pass. The entity tag
+	 * is the one {@link AtomContentDigest#etag(org.jbasics.xml.XmlSerializable)} returns for the
+	 * document. Entries are not copied from the entry cache since their events are digested.
+	 * 
+	 * @param document The document to serialize (must not be null)
+	 * @param out The stream to write to (must not be null)
+	 * @return The quoted entity tag of the document
+	 */
+	public String serializeWithETag(AtomDocument document, OutputStream out) {
+		AtomContractConstraint.notNull("document", document);
+		AtomXmlWriter writer = new AtomXmlWriter(AtomContractConstraint.notNull("out", out), this.encoding, this.indent);
+		AtomContentDigest digest = new AtomContentDigest(writer);
+		try {
+			writer.startDocument();
+			if (document instanceof XmlStylesheetLinks) {
+				for (XmlStylesheetProcessInstruction stylesheet : ((XmlStylesheetLinks) document).getStylesheetLinks()) {
+					stylesheet.serialize(writer, null);
+				}
+			}
+			document.serialize(digest, null);
+			writer.endDocument();
+		} catch (SAXException e) {
+			throw createRuntimeException(e);
+		}
+		return digest.getETag();
+	}
+
 	protected void serialize(AtomDocument document, Result result, Templates templates) {
 		AtomContractConstraint.notNull("document", document);
 		AtomContractConstraint.notNull("result", result);
+		if (templates == null && result instanceof StreamResult) {
+			StreamResult stream = (StreamResult) result;
+			if (stream.getOutputStream() != null) {
+				serialize(document, stream.getOutputStream());
+				return;
+			} else if (stream.getWriter() != null) {
+				serialize(document, stream.getWriter());
+				return;
+			}
+		}
 		try {
 			SAXTransformerFactory factory = (SAXTransformerFactory) TransformerFactory.newInstance();
 			TransformerHandler handler = templates == null ? factory.newTransformerHandler() : factory.newTransformerHandler(templates);
 			Transformer serializer = handler.getTransformer();
 			serializer.setOutputProperty(OutputKeys.METHOD, "xml");
 			serializer.setOutputProperty(OutputKeys.ENCODING, this.encoding);
-			serializer.setOutputProperty(OutputKeys.INDENT, "yes");
+			serializer.setOutputProperty(OutputKeys.INDENT, this.indent == AtomXmlWriter.NO_INDENT ? "no" : "yes");
+			if (this.indent != AtomXmlWriter.NO_INDENT) {
+				try {
+					serializer.setOutputProperty(INDENT_AMOUNT, Integer.toString(this.indent));
+				} catch (IllegalArgumentException e) {
+					// the transformer does not support setting the indent amount
+				}
+			}
 			serializer.setOutputProperty(OutputKeys.VERSION, "1.0");
 			serializer.setOutputProperty(OutputKeys.STANDALONE, "yes");
 			handler.setResult(result);
@@ -75,13 +188,32 @@ public class AtomDocumentSerializer {
 			document.serialize(handler, null);
 			handler.endDocument();
 		} catch (SAXException e) {
-			RuntimeException er = new RuntimeException("[" + e.getClass().getSimpleName() + "] " + e.getMessage(), e);
-			er.setStackTrace(e.getStackTrace());
-			throw er;
+			throw createRuntimeException(e);
 		} catch (TransformerConfigurationException e) {
-			RuntimeException er = new RuntimeException("[" + e.getClass().getSimpleName() + "] " + e.getMessage(), e);
-			er.setStackTrace(e.getStackTrace());
-			throw er;
+			throw createRuntimeException(e);
 		}
 	}
+
+	private void serialize(AtomDocument document, AtomXmlWriter writer) {
+		writer.setEntryCache(this.entryCache);
+		try {
+			writer.startDocument();
+			if (document instanceof XmlStylesheetLinks) {
+				for (XmlStylesheetProcessInstruction stylesheet : ((XmlStylesheetLinks) document).getStylesheetLinks()) {
+					stylesheet.serialize(writer, null);
+				}
+			}
+			writer.writeDocument(document);
+			writer.endDocument();
+		} catch (SAXException e) {
+			throw createRuntimeException(e);
+		}
+	}
+
+	private RuntimeException createRuntimeException(Exception e) {
+		RuntimeException er = new RuntimeException("[" + e.getClass().getSimpleName() + "] " + e.getMessage(), e);
+		er.setStackTrace(e.getStackTrace());
+		return er;
+	}
+
 }
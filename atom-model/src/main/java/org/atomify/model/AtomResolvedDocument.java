@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model;
+
+import java.net.URI;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.atomify.model.common.AtomCommonAttributes;
+import org.atomify.model.common.AtomXmlBase;
+import org.atomify.model.publishing.AtomPubCollection;
+import org.atomify.model.syndication.AtomContentLink;
+import org.atomify.model.syndication.AtomLink;
+import org.atomify.model.syndication.AtomPerson;
+import org.jbasics.pattern.delegation.Delegate;
+
+/**
+ * A document with the relative URIs of its elements resolved against the xml:base attributes in
+ * effect. The chains of xml:base attributes are collected once on first use. Elements without an
+ * xml:base share the chain of their parent and each chain resolves its effective base once. A
+ * resolved URI is cached on first access. The elements are looked up by identity, so an element
+ * shared with another document resolves against the view of the document it is read from.
+ */
+public final class AtomResolvedDocument implements Delegate<AtomDocument> {
+	private final AtomDocument document;
+	private final AtomXmlBase parent;
+	private final Map<AtomCommonAttributes, URI> resolved;
+	private Map<AtomCommonAttributes, AtomXmlBase> chains;
+
+	/**
+	 * Creates the view of the document.
+	 * 
+	 * @param document The document (must not be null)
+	 * @param parent The chain in effect for the root element. The location of the document (see
+	 *            {@link AtomXmlBase#forLocation(String)}), the chain of the feed for an entry read
+	 *            from a feed or null if no base is known.
+	 */
+	public AtomResolvedDocument(AtomDocument document, AtomXmlBase parent) {
+		this.document = AtomContractConstraint.notNull("document", document);
+		this.parent = parent;
+		this.resolved = new IdentityHashMap<AtomCommonAttributes, URI>();
+	}
+
+	public AtomDocument delegate() {
+		return this.document;
+	}
+
+	/**
+	 * Returns the chain of xml:base attributes in effect for the given element.
+	 * 
+	 * @param element The element of the document (must not be null)
+	 * @return The chain or null if no base is in effect
+	 * @throws IllegalArgumentException If the element is not part of the document or has no URIs to
+	 *             resolve
+	 */
+	public synchronized AtomXmlBase getXmlBaseChain(AtomCommonAttributes element) {
+		if (this.chains == null) {
+			this.chains = new IdentityHashMap<AtomCommonAttributes, AtomXmlBase>();
+			if (this.document instanceof AtomCommonAttributes) {
+				((AtomCommonAttributes) this.document).collectXmlBases(this.parent, this.chains);
+			}
+		}
+		AtomXmlBase result = this.chains.get(AtomContractConstraint.notNull("element", element));
+		if (result == null && !this.chains.containsKey(element)) {
+			throw new IllegalArgumentException("[AtomResolvedDocument] Element is not part of the document: " + element);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the base of the given element resolved against all bases of its parent elements.
+	 * 
+	 * @param element The element of the document (must not be null)
+	 * @return The effective base or null if no base is in effect
+	 */
+	public URI getEffectiveXmlBase(AtomCommonAttributes element) {
+		AtomXmlBase chain = getXmlBaseChain(element);
+		return chain == null ? null : chain.getEffectiveBase();
+	}
+
+	public URI getResolvedHref(AtomLink link) {
+		return resolve(link, AtomContractConstraint.notNull("link", link).getHref());
+	}
+
+	public URI getResolvedSource(AtomContentLink content) {
+		return resolve(content, AtomContractConstraint.notNull("content", content).getSource());
+	}
+
+	public URI getResolvedUri(AtomPerson person) {
+		return resolve(person, AtomContractConstraint.notNull("person", person).getUri());
+	}
+
+	public URI getResolvedHref(AtomPubCollection collection) {
+		return resolve(collection, AtomContractConstraint.notNull("collection", collection).getHref());
+	}
+
+	private synchronized URI resolve(AtomCommonAttributes element, URI uri) {
+		URI result = this.resolved.get(element);
+		if (result == null && uri != null) {
+			result = AtomXmlBase.resolve(getEffectiveXmlBase(element), uri);
+			this.resolved.put(element, result);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.QName;
+
+import org.jbasics.net.mediatype.MediaType;
+
+/**
+ * Bounded interning cache for immutable leaf values which repeat throughout parsed documents like
+ * link relation URIs, media types, languages and qualified names. Returning the same instance
+ * for equal values avoids keeping thousands of equal objects when many documents are held in
+ * memory and skips parsing the value again on a hit.
+ * <p>
+ * Each cache is a fixed size table indexed by the hash of the key. A value replaces whatever was
+ * stored in its slot so the cache never grows beyond its size and lookups need no locking. Races
+ * between threads can only cause a value to be created more than once which is harmless for
+ * immutable values.
+ * </p>
+ * <p>
+ * All caches are switched on or off together with {@link #setEnabled(boolean)}. The initial state
+ * and the size of each cache are taken from the system properties {@value #ENABLED_PROPERTY} and
+ * {@value #SIZE_PROPERTY}. The hit and miss counts of all caches are available through
+ * {@link #getCaches()}.
+ * </p>
+ * 
+ * @param <K> The type of the key
+ * @param <V> The type of the value
+ */
+public abstract class AtomValueCache<K, V> {
+	public static final String ENABLED_PROPERTY = "org.atomify.model.valueCache.enabled";
+	public static final String SIZE_PROPERTY = "org.atomify.model.valueCache.size";
+	public static final int DEFAULT_SIZE = 1024;
+
+	private static final List<AtomValueCache<?, ?>> CACHES = new CopyOnWriteArrayList<AtomValueCache<?, ?>>();
+	private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+
+	/**
+	 * The cache for URI references like link relations, schemes and hrefs.
+	 */
+	public static final AtomValueCache<String, URI> URIS = new AtomValueCache<String, URI>("URI") {
+		@Override
+		protected URI create(String key) {
+			return URI.create(key);
+		}
+	};
+
+	/**
+	 * The cache for media types of links and content.
+	 */
+	public static final AtomValueCache<String, MediaType> MEDIA_TYPES = new AtomValueCache<String, MediaType>("MediaType") {
+		@Override
+		protected MediaType create(String key) {
+			return MediaType.valueOf(key);
+		}
+	};
+
+	private static final QNameCache QNAMES = new QNameCache();
+
+	private final String name;
+	private final Entry<K, V>[] table;
+	private final int mask;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates the cache with the size configured by the system property {@value #SIZE_PROPERTY}.
+	 * 
+	 * @param name The name of the cache used in the statistics (must not be null)
+	 */
+	protected AtomValueCache(String name) {
+		this(name, Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE).intValue());
+	}
+
+	/**
+	 * Creates the cache with the given size rounded up to the next power of two.
+	 * 
+	 * @param name The name of the cache used in the statistics (must not be null)
+	 * @param size The number of values the cache can hold at most (must be greater than zero)
+	 */
+	protected AtomValueCache(String name, int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Cache size must be greater than zero: " + size);
+		}
+		this.name = AtomContractConstraint.notNull("name", name);
+		int capacity = Integer.highestOneBit(size);
+		if (capacity < size) {
+			capacity <<= 1;
+		}
+		@SuppressWarnings("unchecked")
+		Entry<K, V>[] temp = (Entry<K, V>[]) new Entry<?, ?>[capacity];
+		this.table = temp;
+		this.mask = capacity - 1;
+		CACHES.add(this);
+	}
+
+	/**
+	 * Returns true if the caches are used.
+	 * 
+	 * @return True if the caches are used
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Switches all caches on or off. Switching the caches off clears them.
+	 * 
+	 * @param enabled True to use the caches
+	 */
+	public static void setEnabled(boolean enabled) {
+		AtomValueCache.enabled = enabled;
+		if (!enabled) {
+			clearAll();
+		}
+	}
+
+	/**
+	 * Returns all caches created so far.
+	 * 
+	 * @return The caches
+	 */
+	public static List<AtomValueCache<?, ?>> getCaches() {
+		return Collections.unmodifiableList(new ArrayList<AtomValueCache<?, ?>>(CACHES));
+	}
+
+	/**
+	 * Clears all caches and resets their statistics.
+	 */
+	public static void clearAll() {
+		for (AtomValueCache<?, ?> cache : CACHES) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the interned qualified name for the given parts. No {@link QName} is created if an
+	 * equal one is cached.
+	 * 
+	 * @param namespace The namespace URI
+	 * @param localName The local name (must not be null)
+	 * @param prefix The prefix or null
+	 * @return The qualified name
+	 */
+	public static QName qualifiedName(String namespace, String localName, String prefix) {
+		return QNAMES.valueOf(namespace == null ? "" : namespace, localName, prefix == null ? "" : prefix);
+	}
+
+	/**
+	 * Returns the value for the given key. The cached value is returned if the cache holds the key
+	 * otherwise the value is created and cached.
+	 * 
+	 * @param key The key
+	 * @return The value for the key
+	 */
+	public V valueOf(K key) {
+		if (key == null || !enabled) {
+			return create(key);
+		}
+		int index = index(key.hashCode());
+		Entry<K, V> entry = this.table[index];
+		if (entry != null && entry.key.equals(key)) {
+			this.hits.incrementAndGet();
+			return entry.value;
+		}
+		this.misses.incrementAndGet();
+		V value = create(key);
+		this.table[index] = new Entry<K, V>(key, value);
+		return value;
+	}
+
+	/**
+	 * Creates the value for the given key on a cache miss.
+	 * 
+	 * @param key The key
+	 * @return The value
+	 */
+	protected abstract V create(K key);
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Returns the number of values the cache can hold.
+	 */
+	public int getSize() {
+		return this.table.length;
+	}
+
+	public long getHitCount() {
+		return this.hits.get();
+	}
+
+	public long getMissCount() {
+		return this.misses.get();
+	}
+
+	/**
+	 * Returns the ratio of lookups answered from the cache or zero if nothing was looked up yet.
+	 */
+	public double getHitRate() {
+		long temp = this.hits.get();
+		long total = temp + this.misses.get();
+		return total == 0 ? 0.0 : (double) temp / total;
+	}
+
+	/**
+	 * Removes all values and resets the statistics.
+	 */
+	public void clear() {
+		for (int i = 0; i < this.table.length; i++) {
+			this.table[i] = null;
+		}
+		this.hits.set(0);
+		this.misses.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "AtomValueCache [name=" + this.name + ", size=" + this.table.length + ", hits=" + this.hits + ", misses=" + this.misses + "]";
+	}
+
+	final int index(int hash) {
+		return (hash ^ (hash >>> 16)) & this.mask;
+	}
+
+	final void hit() {
+		this.hits.incrementAndGet();
+	}
+
+	final void miss() {
+		this.misses.incrementAndGet();
+	}
+
+	final Entry<K, V> entry(int index) {
+		return this.table[index];
+	}
+
+	final void store(int index, K key, V value) {
+		this.table[index] = new Entry<K, V>(key, value);
+	}
+
+	/**
+	 * Immutable slot of the table so a racy read always sees a matching key and value.
+	 */
+	static final class Entry<K, V> {
+		final K key;
+		final V value;
+
+		Entry(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Cache of qualified names looked up by their parts so no key has to be created.
+	 */
+	private static final class QNameCache extends AtomValueCache<QName, QName> {
+
+		QNameCache() {
+			super("QName");
+		}
+
+		QName valueOf(String namespace, String localName, String prefix) {
+			if (!enabled) {
+				return new QName(namespace, localName, prefix);
+			}
+			int index = index(31 * namespace.hashCode() + localName.hashCode());
+			Entry<QName, QName> entry = entry(index);
+			if (entry != null && entry.value.getLocalPart().equals(localName) && entry.value.getNamespaceURI().equals(namespace)
+					&& entry.value.getPrefix().equals(prefix)) {
+				hit();
+				return entry.value;
+			}
+			miss();
+			QName value = new QName(namespace, localName, prefix);
+			store(index, value, value);
+			return value;
+		}
+
+		@Override
+		public QName valueOf(QName key) {
+			return key == null ? null : valueOf(key.getNamespaceURI(), key.getLocalPart(), key.getPrefix());
+		}
+
+		@Override
+		protected QName create(QName key) {
+			return key;
+		}
+
+	}
+
+}
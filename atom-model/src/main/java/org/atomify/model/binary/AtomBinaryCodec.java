@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.AtomDocument;
+import org.atomify.model.parser.AtomStreamParser;
+import org.atomify.model.parser.ElementBindings;
+import org.xml.sax.SAXException;
+
+/**
+ * Encodes atom documents in a compact binary form to keep them in caches or replicate them
+ * between nodes. The encoding is the stream of events the document serializes to with every
+ * string and qualified name written only once and referenced by its index afterwards. Decoding
+ * replays the events to the {@link AtomStreamParser} so a decoded document is equal to the
+ * encoded one including extensions, foreign markup, common attributes and xhtml content while no
+ * text needs to be scanned, unescaped or split into names.
+ * <p>
+ * An encoded document starts with the bytes {@code ATOM} followed by the {@link #VERSION} of the
+ * format. Documents encoded with another version are rejected. Stylesheets attached to a document
+ * are no part of the encoding as they are no part of a parsed document either.
+ * </p>
+ */
+public final class AtomBinaryCodec {
+	/**
+	 * The version of the encoding written.
+	 */
+	public static final int VERSION = 1;
+
+	static final byte[] MAGIC = { 'A', 'T', 'O', 'M' };
+
+	static final int END_DOCUMENT = 0;
+	static final int START_ELEMENT = 1;
+	static final int END_ELEMENT = 2;
+	static final int CHARACTERS = 3;
+	static final int COMMENT = 4;
+	static final int PROCESSING_INSTRUCTION = 5;
+
+	static final int NEW_STRING = 0;
+	static final int LITERAL_STRING = 1;
+	static final int FIRST_STRING_INDEX = 2;
+	static final int MAX_TABLE_STRING_LENGTH = 64;
+
+	private final ElementBindings bindings;
+
+	/**
+	 * Creates a codec decoding with the default {@link ElementBindings}.
+	 */
+	public AtomBinaryCodec() {
+		this(ElementBindings.getDefault());
+	}
+
+	/**
+	 * Creates a codec decoding with the given bindings.
+	 * 
+	 * @param bindings The bindings to create the decoded documents (must not be null)
+	 */
+	public AtomBinaryCodec(ElementBindings bindings) {
+		this.bindings = AtomContractConstraint.notNull("bindings", bindings);
+	}
+
+	/**
+	 * Encodes the given document.
+	 * 
+	 * @param document The document to encode (must not be null)
+	 * @return The encoded document
+	 */
+	public byte[] encode(AtomDocument document) {
+		AtomContractConstraint.notNull("document", document);
+		BinaryEventWriter writer = new BinaryEventWriter();
+		try {
+			writer.startDocument();
+			document.serialize(writer, null);
+			writer.endDocument();
+		} catch (SAXException e) {
+			throw createRuntimeException(e);
+		}
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Encodes the given document to the output stream. The stream is not closed.
+	 * 
+	 * @param document The document to encode (must not be null)
+	 * @param out The stream to write to (must not be null)
+	 * @throws IOException If writing to the stream fails
+	 */
+	public void encode(AtomDocument document, OutputStream out) throws IOException {
+		AtomContractConstraint.notNull("out", out).write(encode(document));
+	}
+
+	/**
+	 * Decodes a document encoded by {@link #encode(AtomDocument)}.
+	 * 
+	 * @param data The encoded document (must not be null)
+	 * @return The decoded document
+	 */
+	public AtomDocument decode(byte[] data) {
+		try {
+			return parse(AtomContractConstraint.notNull("data", data));
+		} catch (XMLStreamException e) {
+			throw createRuntimeException(e);
+		}
+	}
+
+	/**
+	 * Decodes a document from the input stream reading it up to its end. The stream is not closed.
+	 * 
+	 * @param in The stream to read the encoded document from (must not be null)
+	 * @return The decoded document
+	 * @throws IOException If reading the stream fails or the encoded document is corrupt
+	 */
+	public AtomDocument decode(InputStream in) throws IOException {
+		AtomContractConstraint.notNull("in", in);
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			data.write(buffer, 0, read);
+		}
+		try {
+			return parse(data.toByteArray());
+		} catch (XMLStreamException e) {
+			throw new IOException("[AtomBinaryCodec] Corrupt encoded document: " + e.getMessage(), e);
+		}
+	}
+
+	private AtomDocument parse(byte[] data) throws XMLStreamException {
+		if (data.length <= MAGIC.length || data[0] != MAGIC[0] || data[1] != MAGIC[1] || data[2] != MAGIC[2] || data[3] != MAGIC[3]) {
+			throw new IllegalArgumentException("[AtomBinaryCodec] Data is no encoded atom document");
+		}
+		if (data[MAGIC.length] != VERSION) {
+			throw new IllegalArgumentException("[AtomBinaryCodec] Unsupported encoding version " + data[MAGIC.length] + " (supported is "
+					+ VERSION + ")");
+		}
+		return new AtomStreamParser(this.bindings).parse(new BinaryStreamReader(data, MAGIC.length + 1));
+	}
+
+	private RuntimeException createRuntimeException(Exception e) {
+		RuntimeException er = new RuntimeException("[" + e.getClass().getSimpleName() + "] " + e.getMessage(), e);
+		er.setStackTrace(e.getStackTrace());
+		return er;
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.binary;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+import java.util.Arrays;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.AtomDocument;
+
+/**
+ * Serialized form of the atom documents. Feeds, entries, service and categories documents replace
+ * themselves by this proxy when written by Java serialization so the whole document is written
+ * in the compact encoding of the {@link AtomBinaryCodec} instead of the object graph with class
+ * descriptors, collections and the wrappers around them. The proxy resolves to the decoded
+ * document when read.
+ * <p>
+ * The length of an encoded document read is limited by the system property
+ * {@value #MAX_LENGTH_PROPERTY} ({@value #DEFAULT_MAX_LENGTH} bytes by default). The buffer for the
+ * document grows with the bytes actually read so a corrupt length does not allocate more than the
+ * stream holds.
+ * </p>
+ */
+public final class AtomDocumentProxy implements Externalizable {
+	public static final String MAX_LENGTH_PROPERTY = "org.atomify.model.binary.maxLength";
+	public static final int DEFAULT_MAX_LENGTH = 64 * 1024 * 1024;
+
+	private static final long serialVersionUID = 2849154613580431970L;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final AtomBinaryCodec CODEC = new AtomBinaryCodec();
+
+	private byte[] data;
+
+	/**
+	 * Creates an empty proxy. Only used by Java serialization to read the proxy.
+	 */
+	public AtomDocumentProxy() {
+		// filled by readExternal
+	}
+
+	/**
+	 * Creates the proxy written in place of the given document.
+	 * 
+	 * @param document The document to write (must not be null)
+	 */
+	public AtomDocumentProxy(AtomDocument document) {
+		this.data = CODEC.encode(AtomContractConstraint.notNull("document", document));
+	}
+
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeInt(this.data.length);
+		out.write(this.data);
+	}
+
+	public void readExternal(ObjectInput in) throws IOException {
+		int length = in.readInt();
+		int maxLength = Integer.getInteger(MAX_LENGTH_PROPERTY, DEFAULT_MAX_LENGTH).intValue();
+		if (length < 0 || length > maxLength) {
+			throw new InvalidObjectException("[AtomDocumentProxy] Invalid length " + length + " of the encoded document (maximum is "
+					+ maxLength + ")");
+		}
+		byte[] result = new byte[Math.min(length, BUFFER_SIZE)];
+		in.readFully(result);
+		while (result.length < length) {
+			int count = result.length;
+			result = Arrays.copyOf(result, (int) Math.min(length, 2L * count));
+			in.readFully(result, count, result.length - count);
+		}
+		this.data = result;
+	}
+
+	private Object readResolve() throws ObjectStreamException {
+		try {
+			return CODEC.decode(this.data);
+		} catch (RuntimeException e) {
+			InvalidObjectException result = new InvalidObjectException("[AtomDocumentProxy] Corrupt encoded document: " + e.getMessage());
+			result.initCause(e);
+			throw result;
+		}
+	}
+
+}
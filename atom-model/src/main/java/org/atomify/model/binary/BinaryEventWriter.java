@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.binary;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+
+/**
+ * Content handler encoding the events of a serialized document in the binary format of the
+ * {@link AtomBinaryCodec}. Strings and names are written once and referenced by their index
+ * afterwards. Namespaces used by elements and attributes but not declared are declared on the
+ * element so the decoded stream has a consistent namespace context.
+ */
+final class BinaryEventWriter implements ContentHandler, LexicalHandler {
+	private final Map<String, Integer> strings = new HashMap<String, Integer>();
+	private final Map<NameKey, Integer> names = new HashMap<NameKey, Integer>();
+	private final NameKey lookupKey = new NameKey();
+	private final StringBuilder text = new StringBuilder();
+	private byte[] data = new byte[4096];
+	private int position;
+
+	private String[] prefixes = new String[16];
+	private String[] uris = new String[16];
+	private int namespaceCount;
+	private int pendingCount;
+	private int[] scopes = new int[16];
+	private int depth;
+
+	BinaryEventWriter() {
+		writeByte(AtomBinaryCodec.MAGIC[0]);
+		writeByte(AtomBinaryCodec.MAGIC[1]);
+		writeByte(AtomBinaryCodec.MAGIC[2]);
+		writeByte(AtomBinaryCodec.MAGIC[3]);
+		writeByte(AtomBinaryCodec.VERSION);
+	}
+
+	byte[] toByteArray() {
+		return Arrays.copyOf(this.data, this.position);
+	}
+
+	public void setDocumentLocator(Locator locator) {
+		// not needed
+	}
+
+	public void startDocument() {
+		// the header is written on creation
+	}
+
+	public void endDocument() {
+		flushText();
+		writeByte(AtomBinaryCodec.END_DOCUMENT);
+	}
+
+	public void startPrefixMapping(String prefix, String uri) {
+		declare(prefix == null ? "" : prefix, uri == null ? "" : uri);
+	}
+
+	public void endPrefixMapping(String prefix) {
+		// the mappings go out of scope with the element they are declared on
+	}
+
+	public void startElement(String uri, String localName, String qName, Attributes atts) {
+		flushText();
+		if (this.depth == this.scopes.length) {
+			this.scopes = Arrays.copyOf(this.scopes, this.depth * 2);
+		}
+		this.scopes[this.depth++] = this.namespaceCount - this.pendingCount;
+		String elementPrefix = prefixOf(qName, localName);
+		declareUsed(elementPrefix, uri == null ? "" : uri);
+		int attributeCount = 0;
+		for (int i = 0, count = atts.getLength(); i < count; i++) {
+			String attributeName = atts.getQName(i);
+			if (attributeName == null || attributeName.length() == 0) {
+				attributeName = atts.getLocalName(i);
+			}
+			if ("xmlns".equals(attributeName)) {
+				declare("", atts.getValue(i));
+			} else if (attributeName.startsWith("xmlns:")) {
+				declare(attributeName.substring(6), atts.getValue(i));
+			} else {
+				String prefix = prefixOf(attributeName, null);
+				if (prefix.length() > 0) {
+					declareUsed(prefix, atts.getURI(i));
+				}
+				attributeCount++;
+			}
+		}
+		writeByte(AtomBinaryCodec.START_ELEMENT);
+		writeName(uri == null ? "" : uri, localName(qName, localName), elementPrefix);
+		writeInt(this.pendingCount);
+		for (int i = this.namespaceCount - this.pendingCount; i < this.namespaceCount; i++) {
+			writeString(this.prefixes[i]);
+			writeString(this.uris[i]);
+		}
+		this.pendingCount = 0;
+		writeInt(attributeCount);
+		for (int i = 0, count = atts.getLength(); i < count; i++) {
+			String attributeName = atts.getQName(i);
+			if (attributeName == null || attributeName.length() == 0) {
+				attributeName = atts.getLocalName(i);
+			}
+			if ("xmlns".equals(attributeName) || attributeName.startsWith("xmlns:")) {
+				continue;
+			}
+			String attributeUri = atts.getURI(i);
+			writeName(attributeUri == null ? "" : attributeUri, localName(attributeName, atts.getLocalName(i)), prefixOf(attributeName, null));
+			writeString(atts.getValue(i));
+		}
+	}
+
+	public void endElement(String uri, String localName, String qName) {
+		flushText();
+		writeByte(AtomBinaryCodec.END_ELEMENT);
+		this.namespaceCount = this.scopes[--this.depth];
+	}
+
+	public void characters(char[] ch, int start, int length) {
+		this.text.append(ch, start, length);
+	}
+
+	public void ignorableWhitespace(char[] ch, int start, int length) {
+		this.text.append(ch, start, length);
+	}
+
+	public void processingInstruction(String target, String data) {
+		flushText();
+		writeByte(AtomBinaryCodec.PROCESSING_INSTRUCTION);
+		writeString(target);
+		writeString(data == null ? "" : data);
+	}
+
+	public void skippedEntity(String name) {
+		// not produced by the model
+	}
+
+	public void startDTD(String name, String publicId, String systemId) {
+		// not produced by the model
+	}
+
+	public void endDTD() {
+		// not produced by the model
+	}
+
+	public void startEntity(String name) {
+		// not produced by the model
+	}
+
+	public void endEntity(String name) {
+		// not produced by the model
+	}
+
+	public void startCDATA() {
+		// written as characters
+	}
+
+	public void endCDATA() {
+		// written as characters
+	}
+
+	public void comment(char[] ch, int start, int length) throws SAXException {
+		flushText();
+		writeByte(AtomBinaryCodec.COMMENT);
+		writeText(new String(ch, start, length));
+	}
+
+	private void flushText() {
+		if (this.text.length() > 0) {
+			writeByte(AtomBinaryCodec.CHARACTERS);
+			writeText(this.text.toString());
+			this.text.setLength(0);
+		}
+	}
+
+	private void declare(String prefix, String uri) {
+		if ("xml".equals(prefix) || uri.equals(lookup(prefix))) {
+			return;
+		}
+		if (this.namespaceCount == this.prefixes.length) {
+			this.prefixes = Arrays.copyOf(this.prefixes, this.namespaceCount * 2);
+			this.uris = Arrays.copyOf(this.uris, this.namespaceCount * 2);
+		}
+		this.prefixes[this.namespaceCount] = prefix;
+		this.uris[this.namespaceCount] = uri;
+		this.namespaceCount++;
+		this.pendingCount++;
+	}
+
+	private void declareUsed(String prefix, String uri) {
+		if (uri == null || XMLConstants.XML_NS_URI.equals(uri)) {
+			return;
+		}
+		if (!uri.equals(lookup(prefix)) && (uri.length() > 0 || lookup(prefix) != null)) {
+			declare(prefix, uri);
+		}
+	}
+
+	private String lookup(String prefix) {
+		for (int i = this.namespaceCount - 1; i >= 0; i--) {
+			if (this.prefixes[i].equals(prefix)) {
+				return this.uris[i];
+			}
+		}
+		return null;
+	}
+
+	private static String prefixOf(String qName, String localName) {
+		if (qName == null || qName.length() == 0) {
+			return "";
+		}
+		int index = qName.indexOf(':');
+		return index < 0 ? "" : qName.substring(0, index);
+	}
+
+	private static String localName(String qName, String localName) {
+		if (localName != null && localName.length() > 0) {
+			return localName;
+		}
+		int index = qName.indexOf(':');
+		return index < 0 ? qName : qName.substring(index + 1);
+	}
+
+	private void writeName(String uri, String localName, String prefix) {
+		this.lookupKey.set(uri, localName, prefix);
+		Integer index = this.names.get(this.lookupKey);
+		if (index != null) {
+			writeInt(index.intValue() + 1);
+		} else {
+			this.names.put(new NameKey(uri, localName, prefix), Integer.valueOf(this.names.size()));
+			writeInt(0);
+			writeString(uri);
+			writeString(localName);
+			writeString(prefix);
+		}
+	}
+
+	/**
+	 * Writes a string always kept in the string table.
+	 */
+	private void writeString(String value) {
+		Integer index = this.strings.get(value);
+		if (index != null) {
+			writeInt(index.intValue() + AtomBinaryCodec.FIRST_STRING_INDEX);
+		} else {
+			this.strings.put(value, Integer.valueOf(this.strings.size()));
+			writeInt(AtomBinaryCodec.NEW_STRING);
+			writeChars(value);
+		}
+	}
+
+	/**
+	 * Writes text content which is only put into the string table if it is short enough to be
+	 * likely repeated.
+	 */
+	private void writeText(String value) {
+		if (value.length() > AtomBinaryCodec.MAX_TABLE_STRING_LENGTH) {
+			writeInt(AtomBinaryCodec.LITERAL_STRING);
+			writeChars(value);
+		} else {
+			writeString(value);
+		}
+	}
+
+	private void writeChars(String value) {
+		int length = value.length();
+		writeInt(length);
+		ensureCapacity(length * 3);
+		byte[] buffer = this.data;
+		int pos = this.position;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				buffer[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[pos++] = (byte) (0xC0 | c >> 6);
+				buffer[pos++] = (byte) (0x80 | c & 0x3F);
+			} else {
+				// surrogates are written one by one and joined again when read
+				buffer[pos++] = (byte) (0xE0 | c >> 12);
+				buffer[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+				buffer[pos++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		this.position = pos;
+	}
+
+	private void writeInt(int value) {
+		ensureCapacity(5);
+		while ((value & ~0x7F) != 0) {
+			this.data[this.position++] = (byte) (value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		this.data[this.position++] = (byte) value;
+	}
+
+	private void writeByte(int value) {
+		ensureCapacity(1);
+		this.data[this.position++] = (byte) value;
+	}
+
+	private void ensureCapacity(int length) {
+		if (this.position + length > this.data.length) {
+			this.data = Arrays.copyOf(this.data, Math.max(this.data.length * 2, this.position + length));
+		}
+	}
+
+	/**
+	 * Key of the name table. The prefix is part of the key since it is kept by the encoding.
+	 */
+	private static final class NameKey {
+		private String uri;
+		private String localName;
+		private String prefix;
+
+		NameKey() {
+			// the lookup key set before each use
+		}
+
+		NameKey(String uri, String localName, String prefix) {
+			set(uri, localName, prefix);
+		}
+
+		void set(String uri, String localName, String prefix) {
+			this.uri = uri;
+			this.localName = localName;
+			this.prefix = prefix;
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.uri.hashCode() * 31 + this.localName.hashCode()) * 31 + this.prefix.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof NameKey)) {
+				return false;
+			}
+			NameKey other = (NameKey) obj;
+			return this.localName.equals(other.localName) && this.uri.equals(other.uri) && this.prefix.equals(other.prefix);
+		}
+	}
+
+}
@@ -0,0 +1,563 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.binary;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Stream reader over a document encoded by the {@link AtomBinaryCodec}. The reader reports the
+ * events written by the {@link BinaryEventWriter} so any stream parser can read the encoded
+ * document as if it were XML. Names and strings are decoded once and shared by all their
+ * occurrences.
+ */
+final class BinaryStreamReader implements XMLStreamReader, NamespaceContext, Location {
+	private final byte[] data;
+	private int position;
+
+	private String[] strings = new String[64];
+	private int stringCount;
+	private QName[] names = new QName[32];
+	private int nameCount;
+
+	private int event = XMLStreamConstants.START_DOCUMENT;
+	private QName name;
+	private String text;
+	private char[] textCharacters = new char[256];
+	private int textLength = -1;
+	private String piTarget;
+	private String piData;
+
+	private QName[] attributeNames = new QName[8];
+	private String[] attributeValues = new String[8];
+	private int attributeCount;
+
+	private String[] namespacePrefixes = new String[16];
+	private String[] namespaceUris = new String[16];
+	private int namespaceCount;
+	private int[] scopes = new int[16];
+	private QName[] elements = new QName[16];
+	private int depth;
+
+	BinaryStreamReader(byte[] data, int offset) {
+		this.data = data;
+		this.position = offset;
+	}
+
+	public int next() throws XMLStreamException {
+		if (this.event == XMLStreamConstants.END_DOCUMENT) {
+			throw new IllegalStateException("No more events in the encoded document");
+		}
+		if (this.event == XMLStreamConstants.END_ELEMENT) {
+			this.namespaceCount = this.scopes[--this.depth];
+		}
+		this.attributeCount = 0;
+		this.text = null;
+		this.textLength = -1;
+		int tag = readByte();
+		switch (tag) {
+			case AtomBinaryCodec.START_ELEMENT:
+				readStartElement();
+				return this.event = XMLStreamConstants.START_ELEMENT;
+			case AtomBinaryCodec.END_ELEMENT:
+				if (this.depth == 0) {
+					throw new XMLStreamException("Unbalanced end element in encoded document", this);
+				}
+				this.name = this.elements[this.depth - 1];
+				return this.event = XMLStreamConstants.END_ELEMENT;
+			case AtomBinaryCodec.CHARACTERS:
+				this.text = readString();
+				return this.event = XMLStreamConstants.CHARACTERS;
+			case AtomBinaryCodec.COMMENT:
+				this.text = readString();
+				return this.event = XMLStreamConstants.COMMENT;
+			case AtomBinaryCodec.PROCESSING_INSTRUCTION:
+				this.piTarget = readString();
+				this.piData = readString();
+				return this.event = XMLStreamConstants.PROCESSING_INSTRUCTION;
+			case AtomBinaryCodec.END_DOCUMENT:
+				if (this.depth != 0) {
+					throw new XMLStreamException("Encoded document ends within an element", this);
+				}
+				return this.event = XMLStreamConstants.END_DOCUMENT;
+			default:
+				throw new XMLStreamException("Unknown event " + tag + " in encoded document", this);
+		}
+	}
+
+	private void readStartElement() throws XMLStreamException {
+		if (this.depth == this.scopes.length) {
+			this.scopes = Arrays.copyOf(this.scopes, this.depth * 2);
+			this.elements = Arrays.copyOf(this.elements, this.depth * 2);
+		}
+		this.name = readName();
+		this.scopes[this.depth] = this.namespaceCount;
+		this.elements[this.depth++] = this.name;
+		int declared = readCount("namespace count");
+		if (this.namespaceCount + declared > this.namespacePrefixes.length) {
+			int capacity = Math.max(this.namespacePrefixes.length * 2, this.namespaceCount + declared);
+			this.namespacePrefixes = Arrays.copyOf(this.namespacePrefixes, capacity);
+			this.namespaceUris = Arrays.copyOf(this.namespaceUris, capacity);
+		}
+		for (int i = 0; i < declared; i++) {
+			this.namespacePrefixes[this.namespaceCount] = readString();
+			this.namespaceUris[this.namespaceCount++] = readString();
+		}
+		int count = readCount("attribute count");
+		if (count > this.attributeNames.length) {
+			this.attributeNames = new QName[count];
+			this.attributeValues = new String[count];
+		}
+		for (int i = 0; i < count; i++) {
+			this.attributeNames[i] = readName();
+			this.attributeValues[i] = readString();
+		}
+		this.attributeCount = count;
+	}
+
+	private QName readName() throws XMLStreamException {
+		int index = readInt();
+		if (index != 0) {
+			if (index > this.nameCount) {
+				throw new XMLStreamException("Invalid name reference " + index + " in encoded document", this);
+			}
+			return this.names[index - 1];
+		}
+		QName result = new QName(readString(), readString(), readString());
+		if (this.nameCount == this.names.length) {
+			this.names = Arrays.copyOf(this.names, this.nameCount * 2);
+		}
+		this.names[this.nameCount++] = result;
+		return result;
+	}
+
+	private String readString() throws XMLStreamException {
+		int index = readInt();
+		if (index >= AtomBinaryCodec.FIRST_STRING_INDEX) {
+			index -= AtomBinaryCodec.FIRST_STRING_INDEX;
+			if (index >= this.stringCount) {
+				throw new XMLStreamException("Invalid string reference " + index + " in encoded document", this);
+			}
+			return this.strings[index];
+		}
+		String result = readChars();
+		if (index == AtomBinaryCodec.NEW_STRING) {
+			if (this.stringCount == this.strings.length) {
+				this.strings = Arrays.copyOf(this.strings, this.stringCount * 2);
+			}
+			this.strings[this.stringCount++] = result;
+		}
+		return result;
+	}
+
+	private String readChars() throws XMLStreamException {
+		int length = readCount("string length");
+		if (length > this.textCharacters.length) {
+			this.textCharacters = new char[Math.max(length, this.textCharacters.length * 2)];
+		}
+		char[] chars = this.textCharacters;
+		byte[] buffer = this.data;
+		int pos = this.position;
+		try {
+			for (int i = 0; i < length; i++) {
+				int b = buffer[pos++];
+				if (b >= 0) {
+					chars[i] = (char) b;
+				} else if ((b & 0xE0) == 0xC0) {
+					chars[i] = (char) ((b & 0x1F) << 6 | buffer[pos++] & 0x3F);
+				} else {
+					chars[i] = (char) ((b & 0x0F) << 12 | (buffer[pos++] & 0x3F) << 6 | buffer[pos++] & 0x3F);
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new XMLStreamException("Truncated string in encoded document", this, e);
+		}
+		this.position = pos;
+		return new String(chars, 0, length);
+	}
+
+	/**
+	 * Reads the number of items following. Each item takes at least one byte so a count beyond the
+	 * remaining data is rejected before anything is allocated for it.
+	 */
+	private int readCount(String what) throws XMLStreamException {
+		int result = readInt();
+		if (result > this.data.length - this.position) {
+			throw new XMLStreamException("Invalid " + what + " " + result + " exceeds the " + (this.data.length - this.position)
+					+ " remaining bytes of the encoded document", this);
+		}
+		return result;
+	}
+
+	private int readInt() throws XMLStreamException {
+		int result = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = readByte();
+			result |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				// only non negative numbers are written
+				if (result < 0 || shift == 28 && (b & 0x70) != 0) {
+					break;
+				}
+				return result;
+			}
+		}
+		throw new XMLStreamException("Malformed number in encoded document", this);
+	}
+
+	private int readByte() throws XMLStreamException {
+		if (this.position >= this.data.length) {
+			throw new XMLStreamException("Unexpected end of encoded document", this);
+		}
+		return this.data[this.position++] & 0xFF;
+	}
+
+	private void requireEvent(int expected, String method) {
+		if (this.event != expected) {
+			throw new IllegalStateException(method + " is not valid for event " + this.event);
+		}
+	}
+
+	private void requireElement(String method) {
+		if (this.event != XMLStreamConstants.START_ELEMENT && this.event != XMLStreamConstants.END_ELEMENT) {
+			throw new IllegalStateException(method + " is not valid for event " + this.event);
+		}
+	}
+
+	public Object getProperty(String name) {
+		return null;
+	}
+
+	public void require(int type, String namespaceURI, String localName) throws XMLStreamException {
+		if (type != this.event || namespaceURI != null && !namespaceURI.equals(getNamespaceURI()) || localName != null
+				&& !localName.equals(getLocalName())) {
+			throw new XMLStreamException("Expected event " + type + " but was " + this.event, this);
+		}
+	}
+
+	public String getElementText() throws XMLStreamException {
+		requireEvent(XMLStreamConstants.START_ELEMENT, "getElementText");
+		StringBuilder result = new StringBuilder();
+		while (true) {
+			int current = next();
+			if (current == XMLStreamConstants.CHARACTERS) {
+				result.append(this.text);
+			} else if (current == XMLStreamConstants.END_ELEMENT) {
+				return result.toString();
+			} else if (current != XMLStreamConstants.COMMENT && current != XMLStreamConstants.PROCESSING_INSTRUCTION) {
+				throw new XMLStreamException("Element text must not contain child elements", this);
+			}
+		}
+	}
+
+	public int nextTag() throws XMLStreamException {
+		while (true) {
+			int current = next();
+			if (current == XMLStreamConstants.START_ELEMENT || current == XMLStreamConstants.END_ELEMENT) {
+				return current;
+			} else if (current == XMLStreamConstants.CHARACTERS && !isWhiteSpace() || current == XMLStreamConstants.END_DOCUMENT) {
+				throw new XMLStreamException("Expected start or end element but was " + current, this);
+			}
+		}
+	}
+
+	public boolean hasNext() {
+		return this.event != XMLStreamConstants.END_DOCUMENT;
+	}
+
+	public void close() {
+		// nothing to release
+	}
+
+	public String getNamespaceURI(String prefix) {
+		if (prefix == null) {
+			throw new IllegalArgumentException("Prefix must not be null");
+		}
+		for (int i = this.namespaceCount - 1; i >= 0; i--) {
+			if (this.namespacePrefixes[i].equals(prefix)) {
+				return this.namespaceUris[i];
+			}
+		}
+		if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+			return XMLConstants.XML_NS_URI;
+		} else if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+			return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+		}
+		return null;
+	}
+
+	public String getPrefix(String namespaceURI) {
+		for (int i = this.namespaceCount - 1; i >= 0; i--) {
+			if (this.namespaceUris[i].equals(namespaceURI) && this.namespaceUris[i].equals(getNamespaceURI(this.namespacePrefixes[i]))) {
+				return this.namespacePrefixes[i];
+			}
+		}
+		return XMLConstants.XML_NS_URI.equals(namespaceURI) ? XMLConstants.XML_NS_PREFIX : null;
+	}
+
+	public Iterator<String> getPrefixes(String namespaceURI) {
+		String prefix = getPrefix(namespaceURI);
+		return prefix == null ? Collections.<String> emptyList().iterator() : Collections.singletonList(prefix).iterator();
+	}
+
+	public boolean isStartElement() {
+		return this.event == XMLStreamConstants.START_ELEMENT;
+	}
+
+	public boolean isEndElement() {
+		return this.event == XMLStreamConstants.END_ELEMENT;
+	}
+
+	public boolean isCharacters() {
+		return this.event == XMLStreamConstants.CHARACTERS;
+	}
+
+	public boolean isWhiteSpace() {
+		if (this.event != XMLStreamConstants.CHARACTERS) {
+			return false;
+		}
+		for (int i = 0, length = this.text.length(); i < length; i++) {
+			if (!Character.isWhitespace(this.text.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public String getAttributeValue(String namespaceURI, String localName) {
+		requireEvent(XMLStreamConstants.START_ELEMENT, "getAttributeValue");
+		for (int i = 0; i < this.attributeCount; i++) {
+			QName attributeName = this.attributeNames[i];
+			if (attributeName.getLocalPart().equals(localName)
+					&& (namespaceURI == null || namespaceURI.equals(attributeName.getNamespaceURI()))) {
+				return this.attributeValues[i];
+			}
+		}
+		return null;
+	}
+
+	public int getAttributeCount() {
+		requireEvent(XMLStreamConstants.START_ELEMENT, "getAttributeCount");
+		return this.attributeCount;
+	}
+
+	public QName getAttributeName(int index) {
+		return attribute(index);
+	}
+
+	public String getAttributeNamespace(int index) {
+		String uri = attribute(index).getNamespaceURI();
+		return uri.length() == 0 ? null : uri;
+	}
+
+	public String getAttributeLocalName(int index) {
+		return attribute(index).getLocalPart();
+	}
+
+	public String getAttributePrefix(int index) {
+		return attribute(index).getPrefix();
+	}
+
+	public String getAttributeType(int index) {
+		attribute(index);
+		return "CDATA";
+	}
+
+	public String getAttributeValue(int index) {
+		attribute(index);
+		return this.attributeValues[index];
+	}
+
+	public boolean isAttributeSpecified(int index) {
+		attribute(index);
+		return true;
+	}
+
+	private QName attribute(int index) {
+		requireEvent(XMLStreamConstants.START_ELEMENT, "Attribute access");
+		if (index < 0 || index >= this.attributeCount) {
+			throw new IndexOutOfBoundsException("Attribute index " + index + " out of range [0, " + this.attributeCount + ")");
+		}
+		return this.attributeNames[index];
+	}
+
+	public int getNamespaceCount() {
+		requireElement("getNamespaceCount");
+		return this.namespaceCount - this.scopes[this.depth - 1];
+	}
+
+	public String getNamespacePrefix(int index) {
+		String prefix = this.namespacePrefixes[namespaceIndex(index)];
+		return prefix.length() == 0 ? null : prefix;
+	}
+
+	public String getNamespaceURI(int index) {
+		return this.namespaceUris[namespaceIndex(index)];
+	}
+
+	private int namespaceIndex(int index) {
+		int count = getNamespaceCount();
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("Namespace index " + index + " out of range [0, " + count + ")");
+		}
+		return this.scopes[this.depth - 1] + index;
+	}
+
+	public NamespaceContext getNamespaceContext() {
+		return this;
+	}
+
+	public int getEventType() {
+		return this.event;
+	}
+
+	public String getText() {
+		if (this.text == null) {
+			throw new IllegalStateException("getText is not valid for event " + this.event);
+		}
+		return this.text;
+	}
+
+	public char[] getTextCharacters() {
+		if (this.textLength < 0) {
+			this.textLength = getText().length();
+			if (this.textLength > this.textCharacters.length) {
+				this.textCharacters = new char[this.textLength];
+			}
+			this.text.getChars(0, this.textLength, this.textCharacters, 0);
+		}
+		return this.textCharacters;
+	}
+
+	public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) {
+		int count = Math.min(length, getText().length() - sourceStart);
+		if (count <= 0) {
+			return 0;
+		}
+		this.text.getChars(sourceStart, sourceStart + count, target, targetStart);
+		return count;
+	}
+
+	public int getTextStart() {
+		getText();
+		return 0;
+	}
+
+	public int getTextLength() {
+		return getText().length();
+	}
+
+	public String getEncoding() {
+		return null;
+	}
+
+	public boolean hasText() {
+		return this.text != null;
+	}
+
+	public Location getLocation() {
+		return this;
+	}
+
+	public QName getName() {
+		requireElement("getName");
+		return this.name;
+	}
+
+	public String getLocalName() {
+		requireElement("getLocalName");
+		return this.name.getLocalPart();
+	}
+
+	public boolean hasName() {
+		return this.event == XMLStreamConstants.START_ELEMENT || this.event == XMLStreamConstants.END_ELEMENT;
+	}
+
+	public String getNamespaceURI() {
+		requireElement("getNamespaceURI");
+		String uri = this.name.getNamespaceURI();
+		return uri.length() == 0 ? null : uri;
+	}
+
+	public String getPrefix() {
+		requireElement("getPrefix");
+		return this.name.getPrefix();
+	}
+
+	public String getVersion() {
+		return "1.0";
+	}
+
+	public boolean isStandalone() {
+		return true;
+	}
+
+	public boolean standaloneSet() {
+		return false;
+	}
+
+	public String getCharacterEncodingScheme() {
+		return null;
+	}
+
+	public String getPITarget() {
+		requireEvent(XMLStreamConstants.PROCESSING_INSTRUCTION, "getPITarget");
+		return this.piTarget;
+	}
+
+	public String getPIData() {
+		requireEvent(XMLStreamConstants.PROCESSING_INSTRUCTION, "getPIData");
+		return this.piData;
+	}
+
+	public int getLineNumber() {
+		return -1;
+	}
+
+	public int getColumnNumber() {
+		return -1;
+	}
+
+	public int getCharacterOffset() {
+		return this.position;
+	}
+
+	public String getPublicId() {
+		return null;
+	}
+
+	public String getSystemId() {
+		return null;
+	}
+
+}
@@ -23,6 +23,9 @@
  */
 package org.atomify.model.common;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.URI;
 import java.util.*;
@@ -30,6 +33,8 @@ import java.util.*;
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 
+import org.atomify.model.AtomConstants;
+import org.atomify.model.serializer.SerializationSupport;
 import org.jbasics.xml.types.XmlSpaceType;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -51,19 +56,19 @@ public abstract class AtomCommonAttributes implements Serializable {
 	/**
 	 * <b>Optional:</b> xml:base attribute.
 	 */
-	private URI xmlBase;
+	private transient URI xmlBase;
 	/**
 	 * <b>Optional:</b> xml:lang attribute.
 	 */
-	private AtomLanguage xmlLang;
+	private transient AtomLanguage xmlLang;
 	/**
 	 * <b>Optional:</b> xml:space attribute.
 	 */
-	private XmlSpaceType xmlSpace;
+	private transient XmlSpaceType xmlSpace;
 	/**
 	 * <b>Optional</b> any other attribute which is NOT local:*.
 	 */
-	private Map<QName, String> undefinedAttributes;
+	private transient Map<QName, String> undefinedAttributes;
 
 	/**
 	 * Returns the xml:base element.
@@ -145,10 +150,38 @@ public abstract class AtomCommonAttributes implements Serializable {
 		if (attributes == null || attributes.isEmpty()) {
 			this.undefinedAttributes = Collections.emptyMap();
 		} else {
-			this.undefinedAttributes = Collections.unmodifiableMap(new HashMap<QName, String>(attributes));
+			// kept modifiable internally so serializing iterates without wrapping each entry
+			this.undefinedAttributes = new HashMap<QName, String>(attributes);
 		}
 	}
 
+	/**
+	 * Takes the undefined attributes of a builder without copying them. The builder must not
+	 * modify the map afterwards.
+	 * 
+	 * @param attributes The attributes to take
+	 */
+	protected void adoptUndefinedAttributes(Map<QName, String> attributes) {
+		if (attributes == null || attributes.isEmpty()) {
+			this.undefinedAttributes = Collections.emptyMap();
+		} else {
+			this.undefinedAttributes = attributes;
+		}
+	}
+
+	/**
+	 * Wraps a list taken from a builder without copying it.
+	 * 
+	 * @param list The list to take
+	 * @return The unmodifiable view of the list or the empty list
+	 */
+	protected static <E> List<E> adopt(List<E> list) {
+		if (list == null || list.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(list);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see java.lang.Object#hashCode()
@@ -202,6 +235,44 @@ public abstract class AtomCommonAttributes implements Serializable {
 		return builder.toString();
 	}
 	
+	/**
+	 * Writes the common attributes as plain strings instead of the default serialized form of the
+	 * URI, the language and the map of undefined attributes.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeObject(this.xmlBase == null ? null : this.xmlBase.toString());
+		out.writeObject(this.xmlLang == null ? null : this.xmlLang.getLanguage());
+		out.writeObject(this.xmlSpace);
+		Map<QName, String> attributes = this.undefinedAttributes == null ? Collections.<QName, String> emptyMap() : this.undefinedAttributes;
+		out.writeInt(attributes.size());
+		for (Map.Entry<QName, String> attr : attributes.entrySet()) {
+			out.writeObject(attr.getKey().getNamespaceURI());
+			out.writeObject(attr.getKey().getLocalPart());
+			out.writeObject(attr.getKey().getPrefix());
+			out.writeObject(attr.getValue());
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		String temp = (String) in.readObject();
+		this.xmlBase = temp == null ? null : URI.create(temp);
+		temp = (String) in.readObject();
+		this.xmlLang = temp == null ? null : AtomLanguage.valueOf(temp);
+		this.xmlSpace = (XmlSpaceType) in.readObject();
+		int count = in.readInt();
+		if (count == 0) {
+			this.undefinedAttributes = Collections.emptyMap();
+		} else {
+			this.undefinedAttributes = new HashMap<QName, String>(count * 2);
+			for (int i = 0; i < count; i++) {
+				QName name = new QName((String) in.readObject(), (String) in.readObject(), (String) in.readObject());
+				this.undefinedAttributes.put(name, (String) in.readObject());
+			}
+		}
+	}
+
 	// --- From here all is serialization. We Still need to think about a good way to do so.
 
 	@SuppressWarnings("all")
@@ -221,28 +292,110 @@ public abstract class AtomCommonAttributes implements Serializable {
 		if (this.xmlSpace != null) {
 			addAttribute(attributes, XML_SPACE, this.xmlSpace.toXmlString());
 		}
-		Set<String> prefixes = new HashSet<>();
+		if (this.undefinedAttributes.isEmpty()) {
+			return attributes;
+		}
+		// the mappings only announce the prefixes of the next element so each ends right away
 		for (Map.Entry<QName, String> attr : this.undefinedAttributes.entrySet()) {
 			QName qName = attr.getKey();
-			String prefix = qName.getPrefix();
-			if (prefix != null && !prefix.isEmpty() && !prefixes.contains(prefix)) {
+			String prefix = SerializationSupport.prefix(qName);
+			if (prefix != null && !prefix.isEmpty()) {
 				handler.startPrefixMapping(prefix, qName.getNamespaceURI());
-				prefixes.add(prefix);
+				handler.endPrefixMapping(prefix);
 			}
 			addAttribute(attributes, qName, attr.getValue());
 		}
-		for(String prefix : prefixes) {
+		return attributes;
+	}
+
+	/**
+	 * Adds the chain of xml:base attributes in effect for this element and for its children with
+	 * URIs to resolve to the given map. An element without xml:base shares the chain of its
+	 * parent so the map holds one link per xml:base attribute. Elements with such children
+	 * override this and call the super implementation.
+	 * 
+	 * @param parent The chain of the parent element or null if no base is in effect
+	 * @param chains The map of elements to their chains to add to
+	 * @return The chain of this element or null if no base is in effect
+	 */
+	public AtomXmlBase collectXmlBases(AtomXmlBase parent, Map<AtomCommonAttributes, AtomXmlBase> chains) {
+		AtomXmlBase chain = this.xmlBase == null ? parent : new AtomXmlBase(parent, this.xmlBase);
+		chains.put(this, chain);
+		return chain;
+	}
+
+	protected static void collectXmlBases(AtomXmlBase parent, Map<AtomCommonAttributes, AtomXmlBase> chains, AtomCommonAttributes element) {
+		if (element != null) {
+			element.collectXmlBases(parent, chains);
+		}
+	}
+
+	protected static void collectXmlBases(AtomXmlBase parent, Map<AtomCommonAttributes, AtomXmlBase> chains,
+			List<? extends AtomCommonAttributes> elements) {
+		for (int i = 0, n = elements.size(); i < n; i++) {
+			elements.get(i).collectXmlBases(parent, chains);
+		}
+	}
+
+	/**
+	 * Adds the prefixes and namespaces used by the undefined attributes and the extensions of this
+	 * element and its children to the given map. Serializing a document declares these namespaces
+	 * once on the root element instead of on every element using them. A prefix already in the map
+	 * is kept so a prefix bound to another namespace further down is declared where it is used.
+	 * 
+	 * @param namespaces The map of prefixes to namespaces to add to
+	 */
+	public void collectNamespaces(Map<String, String> namespaces) {
+		for (QName name : this.undefinedAttributes.keySet()) {
+			addNamespace(namespaces, name);
+		}
+	}
+
+	protected static void collectNamespaces(Map<String, String> namespaces, AtomCommonAttributes element) {
+		if (element != null) {
+			element.collectNamespaces(namespaces);
+		}
+	}
+
+	protected static void collectNamespaces(Map<String, String> namespaces, List<? extends AtomCommonAttributes> elements) {
+		for (int i = 0, n = elements.size(); i < n; i++) {
+			elements.get(i).collectNamespaces(namespaces);
+		}
+	}
+
+	/**
+	 * Starts the prefix mappings for the namespaces collected from the given element.
+	 * 
+	 * @return The namespaces mapped to end with {@link #endPrefixMappings(ContentHandler, Map)}
+	 */
+	protected static Map<String, String> startPrefixMappings(ContentHandler handler, AtomCommonAttributes element) throws SAXException {
+		Map<String, String> namespaces = new LinkedHashMap<String, String>();
+		element.collectNamespaces(namespaces);
+		for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+			handler.startPrefixMapping(namespace.getKey(), namespace.getValue());
+		}
+		return namespaces;
+	}
+
+	protected static void endPrefixMappings(ContentHandler handler, Map<String, String> namespaces) throws SAXException {
+		for (String prefix : namespaces.keySet()) {
 			handler.endPrefixMapping(prefix);
 		}
-		return attributes;
+	}
+
+	protected static void addNamespace(Map<String, String> namespaces, QName name) {
+		// the atom prefix is declared by the root element itself
+		String prefix = SerializationSupport.prefix(name);
+		if (prefix != null && prefix.length() > 0 && !AtomConstants.ATOM_NS_PREFIX.equals(prefix) && !namespaces.containsKey(prefix)
+				&& !XMLConstants.XML_NS_URI.equals(name.getNamespaceURI())) {
+			namespaces.put(prefix, name.getNamespaceURI());
+		}
 	}
 
 	protected static void addAttribute(AttributesImpl attributes, QName name, String value) throws SAXException {
 		if (value != null) {
-			attributes.addAttribute(name.getNamespaceURI(), name.getLocalPart(), (name.getPrefix() != null && name.getPrefix().length() > 0 ? name
-					.getPrefix()
-					+ ":" : "")
-					+ name.getLocalPart(), "CDATA", value.toString());
+			attributes.addAttribute(name.getNamespaceURI(), name.getLocalPart(), SerializationSupport.qualifiedName(name), "CDATA",
+					value.toString());
 		}
 	}
 
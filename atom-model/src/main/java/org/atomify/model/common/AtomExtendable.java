@@ -24,6 +24,10 @@
 package org.atomify.model.common;
 
 import org.atomify.model.extension.AtomExtension;
+import org.atomify.model.extension.AtomExtensionIndex;
+import org.atomify.model.extension.AtomForeignElementContent;
+import org.atomify.model.extension.AtomForeignMarkup;
+import org.atomify.model.extension.AtomStructuredExtension;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -31,6 +35,9 @@ import org.xml.sax.helpers.AttributesImpl;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
 
 /**
  * Created by stephan on 03.06.16.
@@ -40,6 +47,7 @@ public class AtomExtendable extends AtomCommonAttributes  {
      * <b>Optional:</b> atom extensions.
      */
     private List<AtomExtension> extensions;
+    private transient volatile AtomExtensionIndex extensionIndex;
 
     public AtomExtendable() {
         this.extensions = Collections.emptyList();
@@ -54,12 +62,63 @@ public class AtomExtendable extends AtomCommonAttributes  {
         return this.extensions;
     }
 
+    /**
+     * Returns the first extension of the given type like a typed extension built through an
+     * {@link org.atomify.model.extension.AtomExtensionRegistry}.
+     *
+     * @param type The type of the extension (must not be null)
+     * @return The extension or null if there is no extension of the type
+     */
+    public <T extends AtomExtension> T getExtension(Class<T> type) {
+        return extensionIndex().get(type);
+    }
+
+    /**
+     * Returns the first extension with the given qualified name.
+     *
+     * @param name The qualified name of the extension element (must not be null)
+     * @return The extension or null if there is no extension with the name
+     */
+    public AtomExtension getExtension(QName name) {
+        return extensionIndex().get(name);
+    }
+
+    /**
+     * Returns all extensions of the given type.
+     *
+     * @param type The type of the extensions (must not be null)
+     * @return The extensions of the type in document order
+     */
+    public <T extends AtomExtension> List<T> getExtensions(Class<T> type) {
+        return extensionIndex().getAll(type);
+    }
+
+    private AtomExtensionIndex extensionIndex() {
+        AtomExtensionIndex result = this.extensionIndex;
+        if (result == null) {
+            this.extensionIndex = result = AtomExtensionIndex.valueOf(this.extensions);
+        }
+        return result;
+    }
+
     protected void setExtensions(List<AtomExtension> extensions) {
         if (extensions == null || extensions.isEmpty()) {
             this.extensions = Collections.emptyList();
         } else {
             this.extensions = Collections.unmodifiableList(new ArrayList<AtomExtension>(extensions));
         }
+        this.extensionIndex = null;
+    }
+
+    /**
+     * Takes the extensions of a builder without copying them. The builder must not modify the
+     * list afterwards.
+     *
+     * @param extensions The extensions to take
+     */
+    protected void adoptExtensions(List<AtomExtension> extensions) {
+        this.extensions = adopt(extensions);
+        this.extensionIndex = null;
     }
 
     @Override
@@ -82,9 +141,36 @@ public class AtomExtendable extends AtomCommonAttributes  {
         return "extensions=" + this.extensions;
     }
 
+    @Override
+    public void collectNamespaces(Map<String, String> namespaces) {
+        super.collectNamespaces(namespaces);
+        for (int i = 0, n = this.extensions.size(); i < n; i++) {
+            collectNamespaces(namespaces, this.extensions.get(i));
+        }
+    }
+
+    private static void collectNamespaces(Map<String, String> namespaces, AtomForeignMarkup markup) {
+        if (markup.getQualifiedName() == null) {
+            // text or comment
+            return;
+        }
+        if (markup instanceof AtomStructuredExtension && ((AtomStructuredExtension) markup).isRawMarkup()
+                || markup instanceof AtomForeignElementContent && ((AtomForeignElementContent) markup).isRawMarkup()) {
+            // raw markup declares its namespaces itself
+            return;
+        }
+        addNamespace(namespaces, markup.getQualifiedName());
+        for (QName name : markup.getAttributes().keySet()) {
+            addNamespace(namespaces, name);
+        }
+        for (AtomForeignMarkup child : markup.getComplexContent()) {
+            collectNamespaces(namespaces, child);
+        }
+    }
+
     protected void serializeExtensions(ContentHandler handler, AttributesImpl attributes) throws SAXException {
-        for (AtomExtension extension : this.extensions) {
-            extension.serialize(handler, attributes);
+        for (int i = 0, n = this.extensions.size(); i < n; i++) {
+            this.extensions.get(i).serialize(handler, attributes);
         }
     }
 }
@@ -44,6 +44,7 @@ public class AtomExtendableBuilder<T extends AtomExtendableBuilder<?>> extends A
     @AnyElement
     @SuppressWarnings("unchecked")
     public T addExtension(AtomExtension extension) {
+        beforeModify();
         if (this.extensions == null) {
             this.extensions = new ArrayList<AtomExtension>();
         }
@@ -53,6 +54,7 @@ public class AtomExtendableBuilder<T extends AtomExtendableBuilder<?>> extends A
 
     @SuppressWarnings("unchecked")
     public T addExtensions(Collection<AtomExtension> extensions) {
+        beforeModify();
         if (this.extensions == null) {
             this.extensions = new ArrayList<AtomExtension>();
         }
@@ -61,8 +63,20 @@ public class AtomExtendableBuilder<T extends AtomExtendableBuilder<?>> extends A
     }
 
     protected final <AT extends AtomExtendable> AT attachParentBuilder(AT instance) {
-        super.attachParentBuilder(instance).setExtensions(this.extensions);
-        return instance;
+        instance.adoptExtensions(this.extensions);
+        return super.attachParentBuilder(instance);
+    }
+
+    @Override
+    protected void copyCollections() {
+        super.copyCollections();
+        this.extensions = copy(this.extensions);
+    }
+
+    @Override
+    protected void recycleCollections() {
+        super.recycleCollections();
+        this.extensions = recycle(this.extensions);
     }
 
 }
@@ -27,6 +27,7 @@ import java.util.Locale;
 import java.util.regex.Pattern;
 
 import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.AtomValueCache;
 
 /**
  * The {@link AtomLanguage} is the representation for any xml:lang attribute in the atom protocols
@@ -49,6 +50,13 @@ public class AtomLanguage {
 	 */
 	public static final Pattern LANGUAGE_PATTERN = Pattern.compile("^([A-Za-z]{1,8}(-[A-Za-z0-9]{1,8})*)?$");
 
+	private static final AtomValueCache<String, AtomLanguage> CACHE = new AtomValueCache<String, AtomLanguage>("AtomLanguage") {
+		@Override
+		protected AtomLanguage create(String key) {
+			return new AtomLanguage(key);
+		}
+	};
+
 	private final String language;
 
 	private AtomLanguage(String language) {
@@ -65,13 +73,14 @@ public class AtomLanguage {
 	}
 
 	/**
-	 * Creates an AtomLanguage.
+	 * Creates an AtomLanguage. Languages are interned with the {@link AtomValueCache} so the
+	 * pattern is only checked the first time a language is seen.
 	 * 
 	 * @param language The language string
 	 * @return The AtomLanguage
 	 */
 	public static AtomLanguage valueOf(String language) {
-		return new AtomLanguage(language);
+		return CACHE.valueOf(language);
 	}
 
 	/**
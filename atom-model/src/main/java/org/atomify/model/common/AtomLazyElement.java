@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.common;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * An element kept in the raw form it was read in. The model object is only built when it is
+ * requested with {@link #materialize()} while serializing writes the raw form straight through.
+ * 
+ * @param <T> The type of the model object
+ */
+public interface AtomLazyElement<T> {
+
+	/**
+	 * Builds the model object from the raw form. Each call builds a new object so the caller
+	 * should keep the result.
+	 * 
+	 * @return The model object
+	 */
+	T materialize();
+
+	/**
+	 * Serializes the element unchanged to the given content handler without building the model
+	 * object.
+	 * 
+	 * @param handler The handler to serialize to
+	 * @throws SAXException If the handler fails
+	 */
+	void serialize(ContentHandler handler) throws SAXException;
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.common;
+
+/**
+ * A builder which can take its text content in pieces as it is read instead of as one string.
+ * The streaming parser hands the characters of an element directly to the builder as long as
+ * {@link #isStreamingContent()} returns true.
+ */
+public interface AtomStreamingContentBuilder {
+
+	/**
+	 * Returns true if the builder currently wants its content in pieces. This is checked after the
+	 * attributes of the element are set.
+	 * 
+	 * @return True to receive the content with {@link #appendContent(char[], int, int)}
+	 */
+	boolean isStreamingContent();
+
+	/**
+	 * Appends the next piece of the content. The array is reused by the parser after the call.
+	 * 
+	 * @param ch The characters
+	 * @param start The offset of the first character
+	 * @param length The number of characters
+	 */
+	void appendContent(char[] ch, int start, int length);
+
+}
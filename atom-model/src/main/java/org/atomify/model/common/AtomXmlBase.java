@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.common;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import org.atomify.model.AtomContractConstraint;
+
+/**
+ * One link of the chain of xml:base attributes in effect for an element. Elements without an
+ * xml:base attribute share the link of their parent so a document holds one link per xml:base
+ * attribute (plus one for the location of the document) instead of a base on every element. The
+ * effective base of a link is resolved against its parent once on first use.
+ */
+public final class AtomXmlBase {
+	private final AtomXmlBase parent;
+	private final URI base;
+	private volatile URI effectiveBase;
+
+	/**
+	 * Creates a link of the chain.
+	 * 
+	 * @param parent The link in effect for the parent element or null if the base is the first one
+	 * @param base The base as given on the element or the location of the document (must not be
+	 *            null)
+	 */
+	public AtomXmlBase(AtomXmlBase parent, URI base) {
+		this.parent = parent;
+		this.base = AtomContractConstraint.notNull("base", base);
+	}
+
+	public AtomXmlBase getParent() {
+		return this.parent;
+	}
+
+	/**
+	 * Returns the base as written on the element.
+	 * 
+	 * @return The base which may be relative to the parent
+	 */
+	public URI getBase() {
+		return this.base;
+	}
+
+	/**
+	 * Returns the base resolved against all bases of the parent elements.
+	 * 
+	 * @return The effective base which is absolute if any of the bases in the chain is absolute
+	 */
+	public URI getEffectiveBase() {
+		URI result = this.effectiveBase;
+		if (result == null) {
+			this.effectiveBase = result = this.parent == null ? this.base : resolve(this.parent.getEffectiveBase(), this.base);
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the given URI against the effective base.
+	 * 
+	 * @param uri The URI to resolve
+	 * @return The resolved URI or null if the URI is null
+	 */
+	public URI resolve(URI uri) {
+		return resolve(getEffectiveBase(), uri);
+	}
+
+	/**
+	 * Resolves the URI against the base. Unlike {@link URI#resolve(URI)} a base without a path
+	 * (like http://example.org) is treated as having the root path.
+	 * 
+	 * @param base The base to resolve against or null if none is known
+	 * @param uri The URI to resolve
+	 * @return The resolved URI or null if the URI is null
+	 */
+	public static URI resolve(URI base, URI uri) {
+		if (uri == null || base == null || uri.isAbsolute()) {
+			return uri;
+		}
+		if (base.getRawAuthority() != null && (base.getRawPath() == null || base.getRawPath().length() == 0)) {
+			base = base.resolve("/");
+		}
+		return base.resolve(uri);
+	}
+
+	/**
+	 * Creates the root of a chain for a document read from the given location.
+	 * 
+	 * @param systemId The system id of the document or null if it is not known
+	 * @return The chain with the location as base or null if the location is not known or no URI
+	 */
+	public static AtomXmlBase forLocation(String systemId) {
+		if (systemId == null || systemId.length() == 0) {
+			return null;
+		}
+		try {
+			return new AtomXmlBase(null, new URI(systemId));
+		} catch (URISyntaxException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "AtomXmlBase [base=" + this.base + ", effectiveBase=" + getEffectiveBase() + "]";
+	}
+
+}
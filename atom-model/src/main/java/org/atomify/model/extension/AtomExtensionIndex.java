@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.extension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.atomify.model.AtomContractConstraint;
+
+/**
+ * Index over the extensions of an element finding an extension by its type or qualified name. A
+ * few extensions are simply scanned. Longer lists are indexed by the qualified name and the class
+ * hierarchy of each extension so the lookup takes constant time. If several extensions match the
+ * first one wins.
+ */
+public final class AtomExtensionIndex {
+	/**
+	 * Lists up to this size are scanned instead of building an index.
+	 */
+	static final int SCAN_LIMIT = 8;
+
+	private static final AtomExtensionIndex EMPTY = new AtomExtensionIndex(Collections.<AtomExtension> emptyList());
+
+	private final List<AtomExtension> extensions;
+	private final Map<Object, AtomExtension> index;
+
+	private AtomExtensionIndex(List<AtomExtension> extensions) {
+		this.extensions = extensions;
+		if (extensions.size() > SCAN_LIMIT) {
+			this.index = new HashMap<Object, AtomExtension>(extensions.size() * 4);
+			for (int i = 0, n = extensions.size(); i < n; i++) {
+				AtomExtension extension = extensions.get(i);
+				putIfAbsent(extension.getQualifiedName(), extension);
+				for (Class<?> type = extension.getClass(); type != Object.class; type = type.getSuperclass()) {
+					putIfAbsent(type, extension);
+				}
+			}
+		} else {
+			this.index = null;
+		}
+	}
+
+	/**
+	 * Creates the index over the given extensions. The list must not change afterwards.
+	 * 
+	 * @param extensions The extensions of an element (must not be null)
+	 * @return The index
+	 */
+	public static AtomExtensionIndex valueOf(List<AtomExtension> extensions) {
+		return AtomContractConstraint.notNull("extensions", extensions).isEmpty() ? EMPTY : new AtomExtensionIndex(extensions);
+	}
+
+	/**
+	 * Returns the first extension of the given type.
+	 * 
+	 * @param type The type of the extension (must not be null)
+	 * @return The extension or null if there is no extension of the type
+	 */
+	public <T extends AtomExtension> T get(Class<T> type) {
+		AtomContractConstraint.notNull("type", type);
+		if (this.index != null && !type.isInterface()) {
+			return type.cast(this.index.get(type));
+		}
+		for (int i = 0, n = this.extensions.size(); i < n; i++) {
+			AtomExtension extension = this.extensions.get(i);
+			if (type.isInstance(extension)) {
+				return type.cast(extension);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the first extension with the given qualified name.
+	 * 
+	 * @param name The qualified name of the extension element (must not be null)
+	 * @return The extension or null if there is no extension with the name
+	 */
+	public AtomExtension get(QName name) {
+		AtomContractConstraint.notNull("name", name);
+		if (this.index != null) {
+			return this.index.get(name);
+		}
+		for (int i = 0, n = this.extensions.size(); i < n; i++) {
+			AtomExtension extension = this.extensions.get(i);
+			if (name.equals(extension.getQualifiedName())) {
+				return extension;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns all extensions of the given type in document order.
+	 * 
+	 * @param type The type of the extensions (must not be null)
+	 * @return The extensions of the type which is empty if there are none
+	 */
+	public <T extends AtomExtension> List<T> getAll(Class<T> type) {
+		AtomContractConstraint.notNull("type", type);
+		List<T> result = null;
+		for (int i = 0, n = this.extensions.size(); i < n; i++) {
+			AtomExtension extension = this.extensions.get(i);
+			if (type.isInstance(extension)) {
+				if (result == null) {
+					result = new ArrayList<T>();
+				}
+				result.add(type.cast(extension));
+			}
+		}
+		return result == null ? Collections.<T> emptyList() : result;
+	}
+
+	private void putIfAbsent(Object key, AtomExtension extension) {
+		if (key != null && !this.index.containsKey(key)) {
+			this.index.put(key, extension);
+		}
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.extension;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.parser.ElementBinding;
+import org.atomify.model.parser.ElementBindings;
+
+/**
+ * Registry of typed extensions. An application registers the binding building its extension type
+ * for the qualified name of the extension element and the parent elements it can appear in. The
+ * {@link org.atomify.model.parser.AtomStreamParser} looks up each foreign element of a registered
+ * parent in a hash table and builds the typed extension directly instead of the generic
+ * {@link AtomSimpleExtension} or {@link AtomStructuredExtension}. Typed extensions are found on
+ * the parent with {@link org.atomify.model.common.AtomExtendable#getExtension(Class)}.
+ * <p>
+ * Registering is synchronized and replaces the tables so lookups never lock. A registry is
+ * usually set up once and shared by all parsers.
+ * </p>
+ */
+public final class AtomExtensionRegistry {
+	private static final AtomExtensionContext[] CONTEXTS = AtomExtensionContext.values();
+
+	private volatile Map<QName, ElementBinding<?, ? extends AtomExtension>>[] tables;
+
+	public AtomExtensionRegistry() {
+		@SuppressWarnings("unchecked")
+		Map<QName, ElementBinding<?, ? extends AtomExtension>>[] temp = (Map<QName, ElementBinding<?, ? extends AtomExtension>>[]) new Map<?, ?>[CONTEXTS.length];
+		this.tables = temp;
+	}
+
+	/**
+	 * Registers the extension type for the element name in the given contexts. The type is built
+	 * by the builder found through its {@link org.jbasics.parser.annotations.ElementBuilder}
+	 * annotation or static newBuilder() method.
+	 * 
+	 * @param name The qualified name of the extension element (must not be null)
+	 * @param type The type of the extension (must not be null)
+	 * @param contexts The parent elements the extension is read in (must not be empty)
+	 * @return This registry
+	 */
+	public <T extends AtomExtension> AtomExtensionRegistry register(QName name, Class<T> type, AtomExtensionContext... contexts) {
+		return register(name, ElementBindings.getDefault().forType(AtomContractConstraint.notNull("type", type)), contexts);
+	}
+
+	/**
+	 * Registers the binding building the extension for the element name in the given contexts. A
+	 * binding registered earlier for the same name and context is replaced.
+	 * 
+	 * @param name The qualified name of the extension element (must not be null)
+	 * @param binding The binding building the extension (must not be null)
+	 * @param contexts The parent elements the extension is read in (must not be empty)
+	 * @return This registry
+	 */
+	public synchronized AtomExtensionRegistry register(QName name, ElementBinding<?, ? extends AtomExtension> binding,
+			AtomExtensionContext... contexts) {
+		AtomContractConstraint.notNull("name", name);
+		AtomContractConstraint.notNull("binding", binding);
+		if (contexts == null || contexts.length == 0) {
+			throw new IllegalArgumentException("[AtomExtensionRegistry] At least one context is required to register " + name);
+		}
+		Map<QName, ElementBinding<?, ? extends AtomExtension>>[] temp = this.tables.clone();
+		for (AtomExtensionContext context : contexts) {
+			int index = AtomContractConstraint.notNull("context", context).ordinal();
+			Map<QName, ElementBinding<?, ? extends AtomExtension>> table = temp[index] == null
+					? new HashMap<QName, ElementBinding<?, ? extends AtomExtension>>()
+					: new HashMap<QName, ElementBinding<?, ? extends AtomExtension>>(temp[index]);
+			table.put(name, binding);
+			temp[index] = table;
+		}
+		this.tables = temp;
+		return this;
+	}
+
+	/**
+	 * Returns the binding registered for the element name in the given context.
+	 * 
+	 * @param context The parent element (must not be null)
+	 * @param name The qualified name of the extension element
+	 * @return The binding or null if no extension is registered for the name in the context
+	 */
+	public ElementBinding<?, ? extends AtomExtension> lookup(AtomExtensionContext context, QName name) {
+		Map<QName, ElementBinding<?, ? extends AtomExtension>> table = this.tables[context.ordinal()];
+		return table == null ? null : table.get(name);
+	}
+
+	/**
+	 * Returns true if any extension is registered for the given context.
+	 * 
+	 * @param context The parent element (must not be null)
+	 * @return True if extensions are registered for the context
+	 */
+	public boolean hasExtensions(AtomExtensionContext context) {
+		return this.tables[context.ordinal()] != null;
+	}
+
+}
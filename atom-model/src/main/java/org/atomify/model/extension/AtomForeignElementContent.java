@@ -23,6 +23,8 @@
  */
 package org.atomify.model.extension;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,6 +34,8 @@ import java.util.Map;
 import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.common.AtomLazyElement;
+import org.atomify.model.serializer.SerializationSupport;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -39,7 +43,8 @@ import org.xml.sax.helpers.AttributesImpl;
 public class AtomForeignElementContent implements AtomForeignMarkup {
 	private final QName qualifiedName;
 	private final Map<QName, String> attributes;
-	private final List<AtomForeignMarkup> childrean;
+	private volatile List<AtomForeignMarkup> childrean;
+	private final transient AtomLazyElement<? extends AtomForeignMarkup> lazyContent;
 
 	public AtomForeignElementContent(QName name, Map<QName, String> attributes, List<AtomForeignMarkup> childrean) {
 		this.qualifiedName = AtomContractConstraint.notNull("name", name);
@@ -53,6 +58,25 @@ public class AtomForeignElementContent implements AtomForeignMarkup {
 		} else {
 			this.childrean = Collections.emptyList();
 		}
+		this.lazyContent = null;
+	}
+
+	/**
+	 * Creates an element keeping its children as raw markup. The children are built on the first
+	 * call of {@link #getComplexContent()} and serializing writes the markup without building them.
+	 * 
+	 * @param name The name of the element (must not be null)
+	 * @param attributes The attributes of the element
+	 * @param lazyContent The raw markup of the element (must not be null)
+	 */
+	public AtomForeignElementContent(QName name, Map<QName, String> attributes, AtomLazyElement<? extends AtomForeignMarkup> lazyContent) {
+		this.qualifiedName = AtomContractConstraint.notNull("name", name);
+		if (attributes != null && attributes.size() > 0) {
+			this.attributes = Collections.unmodifiableMap(new HashMap<QName, String>(attributes));
+		} else {
+			this.attributes = Collections.emptyMap();
+		}
+		this.lazyContent = AtomContractConstraint.notNull("lazyContent", lazyContent);
 	}
 
 	public Map<QName, String> getAttributes() {
@@ -60,7 +84,21 @@ public class AtomForeignElementContent implements AtomForeignMarkup {
 	}
 
 	public List<AtomForeignMarkup> getComplexContent() {
-		return this.childrean;
+		List<AtomForeignMarkup> result = this.childrean;
+		if (result == null) {
+			this.childrean = result = materialize(this.lazyContent);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true if the children are kept as raw markup. The markup declares all namespaces it
+	 * uses.
+	 * 
+	 * @return True if the children are kept as raw markup
+	 */
+	public boolean isRawMarkup() {
+		return this.lazyContent != null;
 	}
 
 	public QName getQualifiedName() {
@@ -85,7 +123,7 @@ public class AtomForeignElementContent implements AtomForeignMarkup {
 		int result = 1;
 		result = prime * result + this.qualifiedName.hashCode();
 		result = prime * result + this.attributes.hashCode();
-		result = prime * result + this.childrean.hashCode();
+		result = prime * result + getComplexContent().hashCode();
 		return result;
 	}
 
@@ -102,7 +140,7 @@ public class AtomForeignElementContent implements AtomForeignMarkup {
 			return false;
 		}
 		AtomForeignElementContent other = (AtomForeignElementContent) obj;
-		return this.qualifiedName.equals(other.qualifiedName) && this.attributes.equals(other.attributes) && this.childrean.equals(other.childrean);
+		return this.qualifiedName.equals(other.qualifiedName) && this.attributes.equals(other.attributes) && getComplexContent().equals(other.getComplexContent());
 	}
 
 	/*
@@ -112,13 +150,17 @@ public class AtomForeignElementContent implements AtomForeignMarkup {
 	@Override
 	public String toString() {
 		return new StringBuilder().append("AtomForeignElementContent [qualifiedName=").append(this.qualifiedName).append(", attributes=").append(
-				this.attributes).append(", childrean=").append(this.childrean).append("]").toString();
+				this.attributes).append(", childrean=").append(getComplexContent()).append("]").toString();
 	}
 
 	// --- FIXME: From here all is serialization. We Still need to think about a good way to do so.
 
 	@SuppressWarnings("all")
 	public void serialize(ContentHandler handler, AttributesImpl attributes) throws SAXException {
+		if (this.lazyContent != null) {
+			this.lazyContent.serialize(handler);
+			return;
+		}
 		if (attributes == null) {
 			attributes = new AttributesImpl();
 		} else {
@@ -126,15 +168,13 @@ public class AtomForeignElementContent implements AtomForeignMarkup {
 		}
 		for (Map.Entry<QName, String> attr : this.attributes.entrySet()) {
 			QName name = attr.getKey();
-			attributes.addAttribute(name.getNamespaceURI(), name.getLocalPart(), (name.getPrefix() != null && name.getPrefix().length() > 0 ? name
-					.getPrefix()
-					+ ":" : "")
-					+ name.getLocalPart(), "CDATA", attr.getValue().toString());
+			attributes.addAttribute(name.getNamespaceURI(), name.getLocalPart(), SerializationSupport.qualifiedName(name), "CDATA",
+					attr.getValue().toString());
 		}
 		QName name = this.qualifiedName;
 		String namespace = name.getNamespaceURI();
 		String local = name.getLocalPart();
-		String qName = (name.getPrefix() != null && name.getPrefix().length() > 0 ? name.getPrefix() + ":" : "") + local;
+		String qName = SerializationSupport.qualifiedName(name);
 		handler.startElement(namespace, local, qName, attributes);
 		for (AtomForeignMarkup child : this.childrean) {
 			child.serialize(handler, attributes);
@@ -142,4 +182,14 @@ public class AtomForeignElementContent implements AtomForeignMarkup {
 		handler.endElement(namespace, local, qName);
 	}
 
+	private static List<AtomForeignMarkup> materialize(AtomLazyElement<? extends AtomForeignMarkup> lazyContent) {
+		List<? extends AtomForeignMarkup> temp = lazyContent.materialize().getComplexContent();
+		return temp.isEmpty() ? Collections.<AtomForeignMarkup> emptyList() : Collections.<AtomForeignMarkup> unmodifiableList(temp);
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getComplexContent();
+		out.defaultWriteObject();
+	}
+
 }
@@ -30,6 +30,7 @@ import java.util.Map;
 import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.serializer.SerializationSupport;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -96,8 +97,7 @@ public class AtomForeignTextContent implements AtomForeignMarkup {
 	// --- FIXME: From here all is serialization. We Still need to think about a good way to do so.
 
 	public void serialize(ContentHandler handler, AttributesImpl attributes) throws SAXException {
-		char[] temp = this.text.toCharArray();
-		handler.characters(temp, 0, temp.length);
+		SerializationSupport.characters(handler, this.text);
 	}
 
 }
@@ -30,6 +30,7 @@ import java.util.Map;
 import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.serializer.SerializationSupport;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -147,10 +148,9 @@ public class AtomSimpleExtension implements AtomExtension {
 		}
 		String namespace = this.extensionName.getNamespaceURI();
 		String local = this.extensionName.getLocalPart();
-		String qName = (this.extensionName.getPrefix() != null && this.extensionName.getPrefix().length() > 0 ? this.extensionName.getPrefix() + ":" : "") + local;
+		String qName = SerializationSupport.qualifiedName(this.extensionName);
 		handler.startElement(namespace, local, qName, attributes);
-		char[] data = this.value.toCharArray();
-		handler.characters(data, 0, data.length);
+		SerializationSupport.characters(handler, this.value);
 		handler.endElement(namespace, local, qName);
 	}
 
@@ -23,6 +23,8 @@
  */
 package org.atomify.model.extension;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,6 +34,8 @@ import java.util.Map;
 import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.common.AtomLazyElement;
+import org.atomify.model.serializer.SerializationSupport;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -55,7 +59,8 @@ public class AtomStructuredExtension implements AtomExtension {
 	/**
 	 * <b>Optional:</b> the mixed content.
 	 */
-	private final List<AtomForeignMarkup> childrean;
+	private volatile List<AtomForeignMarkup> childrean;
+	private final transient AtomLazyElement<? extends AtomForeignMarkup> lazyContent;
 
 	/**
 	 * Creates a structure extension with the given name.
@@ -75,6 +80,27 @@ public class AtomStructuredExtension implements AtomExtension {
 		} else {
 			this.childrean = Collections.unmodifiableList(new ArrayList<AtomForeignMarkup>(chlidrean));
 		}
+		this.lazyContent = null;
+	}
+
+	/**
+	 * Creates a structured extension keeping its children as raw markup. The children are built on
+	 * the first call of {@link #getComplexContent()} and serializing writes the markup without
+	 * building them.
+	 * 
+	 * @param extensionName The name of the extension (must not be null)
+	 * @param attributes The attributes of the extension
+	 * @param lazyContent The raw markup of the extension (must not be null)
+	 */
+	public AtomStructuredExtension(final QName extensionName, Map<QName, String> attributes,
+			AtomLazyElement<? extends AtomForeignMarkup> lazyContent) {
+		this.extensionName = AtomContractConstraint.notNull("extensionName", extensionName);
+		if (attributes == null || attributes.isEmpty()) {
+			this.attributes = Collections.emptyMap();
+		} else {
+			this.attributes = Collections.unmodifiableMap(new HashMap<QName, String>(attributes));
+		}
+		this.lazyContent = AtomContractConstraint.notNull("lazyContent", lazyContent);
 	}
 
 	public QName getQualifiedName() {
@@ -94,7 +120,21 @@ public class AtomStructuredExtension implements AtomExtension {
 	}
 
 	public List<AtomForeignMarkup> getComplexContent() {
-		return this.childrean;
+		List<AtomForeignMarkup> result = this.childrean;
+		if (result == null) {
+			this.childrean = result = materialize(this.lazyContent);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true if the children are kept as raw markup. The markup declares all namespaces it
+	 * uses.
+	 * 
+	 * @return True if the children are kept as raw markup
+	 */
+	public boolean isRawMarkup() {
+		return this.lazyContent != null;
 	}
 
 	
@@ -107,7 +147,7 @@ public class AtomStructuredExtension implements AtomExtension {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((this.attributes == null) ? 0 : this.attributes.hashCode());
-		result = prime * result + ((this.childrean == null) ? 0 : this.childrean.hashCode());
+		result = prime * result + getComplexContent().hashCode();
 		result = prime * result + ((this.extensionName == null) ? 0 : this.extensionName.hashCode());
 		return result;
 	}
@@ -134,11 +174,7 @@ public class AtomStructuredExtension implements AtomExtension {
 		} else if (!this.attributes.equals(other.attributes)) {
 			return false;
 		}
-		if (this.childrean == null) {
-			if (other.childrean != null) {
-				return false;
-			}
-		} else if (!this.childrean.equals(other.childrean)) {
+		if (!getComplexContent().equals(other.getComplexContent())) {
 			return false;
 		}
 		if (this.extensionName == null) {
@@ -158,7 +194,7 @@ public class AtomStructuredExtension implements AtomExtension {
 	@Override
 	public String toString() {
 		return new StringBuilder().append("AtomStructuredExtension [extensionName=").append(this.extensionName).append(
-				", attributes=").append(this.attributes).append(", chlidrean=").append(this.childrean).append("]")
+				", attributes=").append(this.attributes).append(", chlidrean=").append(getComplexContent()).append("]")
 				.toString();
 	}
 
@@ -166,6 +202,10 @@ public class AtomStructuredExtension implements AtomExtension {
 
 	@SuppressWarnings("all")
 	public void serialize(ContentHandler handler, AttributesImpl attributes) throws SAXException {
+		if (this.lazyContent != null) {
+			this.lazyContent.serialize(handler);
+			return;
+		}
 		if (attributes == null) {
 			attributes = new AttributesImpl();
 		} else {
@@ -173,18 +213,13 @@ public class AtomStructuredExtension implements AtomExtension {
 		}
 		for (Map.Entry<QName, String> attr : this.attributes.entrySet()) {
 			QName name = attr.getKey();
-			attributes.addAttribute(name.getNamespaceURI(), name.getLocalPart(), (name.getPrefix() != null
-					&& name.getPrefix().length() > 0 ? name.getPrefix() + ":" : "")
-					+ name.getLocalPart(), "CDATA", attr.getValue().toString());
+			attributes.addAttribute(name.getNamespaceURI(), name.getLocalPart(), SerializationSupport.qualifiedName(name), "CDATA", attr.getValue()
+					.toString());
 		}
 		QName name = this.extensionName;
 		String namespace = name.getNamespaceURI();
 		String local = name.getLocalPart();
-		String qName = (name.getPrefix() != null && name.getPrefix().length() > 0 ? name
-				.getPrefix()
-				+ ":"
-				: "")
-				+ local;
+		String qName = SerializationSupport.qualifiedName(name);
 		handler.startElement(namespace, local, qName, attributes);
 		for(AtomForeignMarkup child : this.childrean) {
 			child.serialize(handler, attributes);
@@ -192,4 +227,14 @@ public class AtomStructuredExtension implements AtomExtension {
 		handler.endElement(namespace, local, qName);
 	}
 
+	private static List<AtomForeignMarkup> materialize(AtomLazyElement<? extends AtomForeignMarkup> lazyContent) {
+		List<? extends AtomForeignMarkup> temp = lazyContent.materialize().getComplexContent();
+		return temp.isEmpty() ? Collections.<AtomForeignMarkup> emptyList() : Collections.<AtomForeignMarkup> unmodifiableList(temp);
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getComplexContent();
+		out.defaultWriteObject();
+	}
+
 }
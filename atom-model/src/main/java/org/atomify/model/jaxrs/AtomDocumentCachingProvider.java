@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.jaxrs;
+
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.AtomDocumentParserPool;
+
+/**
+ * Server side {@link AtomDocumentProvider} writing documents from an
+ * {@link AtomDocumentResponseCache}. The headers of the current request are injected so clients
+ * accepting gzip get the compressed bytes from the cache. Register an instance of this provider
+ * with the application to use it in place of the provider registered by the service loader.
+ */
+public class AtomDocumentCachingProvider extends AtomDocumentProvider {
+	@Context
+	private HttpHeaders requestHeaders;
+
+	public AtomDocumentCachingProvider() {
+		this(new AtomDocumentResponseCache());
+	}
+
+	public AtomDocumentCachingProvider(AtomDocumentResponseCache responseCache) {
+		this(AtomDocumentParserPool.getDefault(), responseCache);
+	}
+
+	/**
+	 * Creates a provider writing the documents from the given cache.
+	 * 
+	 * @param parserPool The pool of parsers to read documents (must not be null)
+	 * @param responseCache The cache of serialized documents (must not be null)
+	 */
+	public AtomDocumentCachingProvider(AtomDocumentParserPool parserPool, AtomDocumentResponseCache responseCache) {
+		super(parserPool, AtomContractConstraint.notNull("responseCache", responseCache));
+	}
+
+	@Override
+	protected HttpHeaders getRequestHeaders() {
+		return this.requestHeaders;
+	}
+
+}
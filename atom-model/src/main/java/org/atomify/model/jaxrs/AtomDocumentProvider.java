@@ -29,8 +29,10 @@ import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
+import java.util.List;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response.Status;
@@ -38,12 +40,45 @@ import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.xml.transform.stream.StreamResult;
 
+import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.AtomDocument;
-import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentParserPool;
 import org.atomify.model.AtomDocumentSerializer;
-import org.xml.sax.SAXException;
 
+/**
+ * JAX-RS provider reading and writing atom documents. A provider created with an
+ * {@link AtomDocumentResponseCache} writes documents from the cache. Responses are written gzip
+ * compressed if the {@link #getRequestHeaders() request headers} accept it and no other filter
+ * encodes the response already (see {@link AtomDocumentCachingProvider}).
+ */
 public class AtomDocumentProvider implements MessageBodyReader<AtomDocument>, MessageBodyWriter<AtomDocument> {
+	private static final String GZIP = "gzip";
+
+	private final AtomDocumentParserPool parserPool;
+	private final AtomDocumentResponseCache responseCache;
+
+	public AtomDocumentProvider() {
+		this(AtomDocumentParserPool.getDefault());
+	}
+
+	public AtomDocumentProvider(AtomDocumentParserPool parserPool) {
+		this(parserPool, null);
+	}
+
+	/**
+	 * Creates a provider writing the documents from the given cache.
+	 * 
+	 * @param parserPool The pool of parsers to read documents (must not be null)
+	 * @param responseCache The cache of serialized documents or null to serialize every response
+	 */
+	public AtomDocumentProvider(AtomDocumentParserPool parserPool, AtomDocumentResponseCache responseCache) {
+		this.parserPool = AtomContractConstraint.notNull("parserPool", parserPool);
+		this.responseCache = responseCache;
+	}
+
+	public AtomDocumentResponseCache getResponseCache() {
+		return this.responseCache;
+	}
 
 	// Reader Area
 
@@ -53,11 +88,7 @@ public class AtomDocumentProvider implements MessageBodyReader<AtomDocument>, Me
 
 	public AtomDocument readFrom(Class<AtomDocument> type, Type genericType, Annotation[] annotations, MediaType mediaType,
 			MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException, WebApplicationException {
-		try {
-			return new AtomDocumentParser().parse(entityStream);
-		} catch (SAXException e) {
-			throw new RuntimeException("Could not parse AtomDocument: "+e.getMessage(), e);
-		}
+		return this.parserPool.parse(entityStream);
 	}
 
 	// Writer Area
@@ -67,13 +98,70 @@ public class AtomDocumentProvider implements MessageBodyReader<AtomDocument>, Me
 	}
 
 	public long getSize(AtomDocument t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-		return -1;
+		if (this.responseCache == null || acceptsGzip()) {
+			// the compressed length is set by writeTo since a filter might compress the response instead
+			return -1;
+		}
+		AtomDocumentResponseCache.Representation cached = this.responseCache.find(t, getCharset(mediaType));
+		return cached == null ? -1 : cached.identity.length;
 	}
 
 	public void writeTo(AtomDocument t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
 			MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
 		Charset outputCharset = getCharset(mediaType);
-		new AtomDocumentSerializer(outputCharset.name()).serialize(t, new StreamResult(entityStream));
+		if (this.responseCache == null) {
+			new AtomDocumentSerializer(outputCharset.name()).serialize(t, new StreamResult(entityStream));
+			return;
+		}
+		AtomDocumentResponseCache.Representation cached = this.responseCache.get(t, outputCharset);
+		byte[] data = cached.identity;
+		if (!httpHeaders.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+			if (!httpHeaders.containsKey(HttpHeaders.VARY)) {
+				httpHeaders.putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			}
+			if (acceptsGzip()) {
+				data = this.responseCache.gzip(cached);
+				httpHeaders.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+			}
+			httpHeaders.putSingle(HttpHeaders.CONTENT_LENGTH, Integer.toString(data.length));
+		}
+		entityStream.write(data);
+	}
+
+	/**
+	 * Returns the headers of the request the response is written for. The provider registered by
+	 * the service loader is used by clients as well so it does not know the request.
+	 * 
+	 * @return The request headers or null if not known
+	 */
+	protected HttpHeaders getRequestHeaders() {
+		return null;
+	}
+
+	/**
+	 * Returns true if the request accepts a gzip encoded response.
+	 */
+	private boolean acceptsGzip() {
+		HttpHeaders headers = getRequestHeaders();
+		List<String> values = headers == null ? null : headers.getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+		if (values == null) {
+			return false;
+		}
+		boolean result = false;
+		for (String value : values) {
+			for (String coding : value.split(",")) {
+				int index = coding.indexOf(';');
+				String name = (index < 0 ? coding : coding.substring(0, index)).trim();
+				if (GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name) || "*".equals(name)) {
+					boolean accepted = index < 0 || !coding.substring(index + 1).trim().matches("q\\s*=\\s*0(\\.0*)?");
+					if (!"*".equals(name)) {
+						return accepted;
+					}
+					result = accepted;
+				}
+			}
+		}
+		return result;
 	}
 
 	private final Charset getCharset(MediaType m) {
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.jaxrs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.AtomDocument;
+import org.atomify.model.AtomDocumentSerializer;
+import org.atomify.model.serializer.AtomContentDigest;
+import org.atomify.model.serializer.AtomXmlWriter;
+import org.jbasics.xml.XmlStylesheetLinks;
+
+/**
+ * Cache of serialized documents for the {@link AtomDocumentProvider}. Hot documents like service
+ * documents, first feed pages or popular entries are written from the cache instead of being
+ * serialized and compressed for every response. Each document is kept as serialized bytes and,
+ * once requested by a client accepting gzip, in gzip compressed form. The cache is bounded by the
+ * number of bytes it holds and evicts the least recently used documents first.
+ * <p>
+ * Documents are cached by identity or by their content digest (see {@link KeyMode}) together with
+ * the charset they are written in. Documents are only referenced weakly so a cached document no
+ * longer used elsewhere is garbage collected and its representations are dropped.
+ * </p>
+ */
+public class AtomDocumentResponseCache {
+	public static final long DEFAULT_MAX_BYTES = 16L * 1024L * 1024L;
+
+	/**
+	 * The way documents are identified in the cache.
+	 */
+	public enum KeyMode {
+		/**
+		 * The document object itself is the key. Documents are immutable so a document always
+		 * serializes the same way.
+		 */
+		IDENTITY,
+		/**
+		 * The {@link AtomContentDigest} of the document is the key. Documents created again with the
+		 * same content are found in the cache at the cost of computing the digest once for each
+		 * document instance.
+		 */
+		DIGEST;
+	}
+
+	private final int indent;
+	private final long maxBytes;
+	private final KeyMode keyMode;
+	private final LinkedHashMap<Object, Representation> representations;
+	private final Map<IdentityKey, Object> digests;
+	private final ReferenceQueue<AtomDocument> collected;
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public AtomDocumentResponseCache() {
+		this(AtomDocumentSerializer.DEFAULT_INDENT, DEFAULT_MAX_BYTES, KeyMode.IDENTITY);
+	}
+
+	/**
+	 * Creates a document cache.
+	 * 
+	 * @param indent The number of spaces to indent each level or {@link AtomXmlWriter#NO_INDENT}
+	 * @param maxBytes The maximum number of bytes cached (must be greater than zero)
+	 * @param keyMode The way documents are identified (must not be null)
+	 */
+	public AtomDocumentResponseCache(int indent, long maxBytes, KeyMode keyMode) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("Cache size must be greater than zero: " + maxBytes);
+		}
+		this.indent = indent < 0 ? AtomXmlWriter.NO_INDENT : indent;
+		this.maxBytes = maxBytes;
+		this.keyMode = AtomContractConstraint.notNull("keyMode", keyMode);
+		this.representations = new LinkedHashMap<Object, Representation>(64, 0.75f, true);
+		this.digests = new HashMap<IdentityKey, Object>();
+		this.collected = new ReferenceQueue<AtomDocument>();
+	}
+
+	public int getIndent() {
+		return this.indent;
+	}
+
+	public long getMaxBytes() {
+		return this.maxBytes;
+	}
+
+	public KeyMode getKeyMode() {
+		return this.keyMode;
+	}
+
+	/**
+	 * Returns the serialized document from the cache or serializes and caches it.
+	 */
+	Representation get(AtomDocument document, Charset charset) {
+		Object key = key(document, charset);
+		synchronized (this) {
+			expungeCollected();
+			Representation result = this.representations.get(key);
+			if (result != null) {
+				this.hits++;
+				return result;
+			}
+			this.misses++;
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+		new AtomDocumentSerializer(charset.name(), this.indent).serialize(document, out);
+		Representation result = new Representation(key, out.toByteArray());
+		synchronized (this) {
+			Representation previous = this.representations.put(key, result);
+			if (previous != null) {
+				this.bytes -= previous.size();
+			}
+			this.bytes += result.size();
+			evict(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the serialized document if it is cached without counting the lookup.
+	 */
+	Representation find(AtomDocument document, Charset charset) {
+		Object key = key(document, charset);
+		synchronized (this) {
+			return this.representations.get(key);
+		}
+	}
+
+	/**
+	 * Returns the gzip compressed bytes of the representation compressing them on first use.
+	 */
+	byte[] gzip(Representation representation) throws IOException {
+		byte[] result = representation.gzip;
+		if (result == null) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(representation.identity.length / 4 + 64);
+			GZIPOutputStream gzip = new GZIPOutputStream(out);
+			gzip.write(representation.identity);
+			gzip.close();
+			result = out.toByteArray();
+			synchronized (this) {
+				if (representation.gzip == null) {
+					representation.gzip = result;
+					if (this.representations.get(representation.key) == representation) {
+						this.bytes += result.length;
+						evict(representation);
+					}
+				} else {
+					result = representation.gzip;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the given document from the cache in all charsets.
+	 * 
+	 * @param document The document to remove (must not be null)
+	 */
+	public void invalidate(AtomDocument document) {
+		Object content = content(AtomContractConstraint.notNull("document", document));
+		synchronized (this) {
+			remove(content);
+		}
+	}
+
+	/**
+	 * Removes all documents from the cache and resets the statistics.
+	 */
+	public synchronized void clear() {
+		this.representations.clear();
+		this.digests.clear();
+		this.bytes = 0;
+		this.hits = 0;
+		this.misses = 0;
+		this.evictions = 0;
+	}
+
+	public synchronized int getDocumentCount() {
+		return this.representations.size();
+	}
+
+	public synchronized long getByteCount() {
+		return this.bytes;
+	}
+
+	public synchronized long getHitCount() {
+		return this.hits;
+	}
+
+	public synchronized long getMissCount() {
+		return this.misses;
+	}
+
+	public synchronized long getEvictionCount() {
+		return this.evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "AtomDocumentResponseCache [keyMode=" + this.keyMode + ", documents=" + this.representations.size() + ", bytes="
+				+ this.bytes + ", maxBytes=" + this.maxBytes + ", hits=" + this.hits + ", misses=" + this.misses + ", evictions="
+				+ this.evictions + "]";
+	}
+
+	private void evict(Representation keep) {
+		Iterator<Representation> it = this.representations.values().iterator();
+		while (this.bytes > this.maxBytes && it.hasNext()) {
+			Representation eldest = it.next();
+			if (eldest == keep) {
+				// keep the document just used even if it is larger than the cache
+				continue;
+			}
+			it.remove();
+			this.bytes -= eldest.size();
+			this.evictions++;
+		}
+	}
+
+	private Object key(AtomDocument document, Charset charset) {
+		return new CacheKey(content(document), charset);
+	}
+
+	private Object content(AtomDocument document) {
+		IdentityKey identity = new IdentityKey(document, this.collected);
+		if (this.keyMode == KeyMode.IDENTITY) {
+			return identity;
+		}
+		synchronized (this) {
+			Object result = this.digests.get(identity);
+			if (result != null) {
+				return result;
+			}
+		}
+		Object result = AtomContentDigest.etag(document);
+		if (document instanceof XmlStylesheetLinks) {
+			// stylesheets are written with the document but are no part of the digest
+			result = Arrays.asList(result, ((XmlStylesheetLinks) document).getStylesheetLinks());
+		}
+		synchronized (this) {
+			this.digests.put(identity, result);
+		}
+		return result;
+	}
+
+	private void remove(Object content) {
+		Iterator<Representation> it = this.representations.values().iterator();
+		while (it.hasNext()) {
+			Representation representation = it.next();
+			if (((CacheKey) representation.key).content.equals(content)) {
+				this.bytes -= representation.size();
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drops the digests and the representations cached by identity of garbage collected documents.
+	 */
+	private void expungeCollected() {
+		Object collectedKey;
+		while ((collectedKey = this.collected.poll()) != null) {
+			if (this.keyMode == KeyMode.IDENTITY) {
+				remove(collectedKey);
+			} else {
+				this.digests.remove(collectedKey);
+			}
+		}
+	}
+
+	/**
+	 * A serialized document with its compressed form once computed.
+	 */
+	static final class Representation {
+		final Object key;
+		final byte[] identity;
+		volatile byte[] gzip;
+
+		Representation(Object key, byte[] identity) {
+			this.key = key;
+			this.identity = identity;
+		}
+
+		int size() {
+			byte[] temp = this.gzip;
+			return this.identity.length + (temp == null ? 0 : temp.length);
+		}
+	}
+
+	/**
+	 * Key of a document in a charset.
+	 */
+	private static final class CacheKey {
+		final Object content;
+		final Charset charset;
+
+		CacheKey(Object content, Charset charset) {
+			this.content = content;
+			this.charset = charset;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.content.hashCode() * 31 + this.charset.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return this.content.equals(other.content) && this.charset.equals(other.charset);
+		}
+	}
+
+	/**
+	 * Key comparing the document by identity without keeping it alive. A key of a collected
+	 * document only equals itself.
+	 */
+	private static final class IdentityKey extends WeakReference<AtomDocument> {
+		private final int hashCode;
+
+		IdentityKey(AtomDocument document, ReferenceQueue<AtomDocument> queue) {
+			super(document, queue);
+			this.hashCode = System.identityHashCode(document);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			AtomDocument document = get();
+			return document != null && obj instanceof IdentityKey && ((IdentityKey) obj).get() == document;
+		}
+	}
+
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.atomify.model.AtomConstants;
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.AtomResolvedDocument;
+import org.atomify.model.common.AtomXmlBase;
+import org.atomify.model.extension.AtomExtensionRegistry;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.xml.sax.InputSource;
+
+/**
+ * Reads an atom feed document entry by entry without ever holding the whole feed in memory. The
+ * feed level metadata (id, title, links and so on) is available through {@link #getFeed()} as an
+ * {@link AtomFeed} without entries. The entries are handed out one at a time either through the
+ * {@link Iterator} interface or with a callback by {@link #readEntries(EntryHandler)}. Each entry
+ * is built when requested and not referenced by the reader afterwards so memory stays bounded by
+ * the size of a single entry.
+ * <p>
+ * The metadata returned by {@link #getFeed()} contains all elements read so far. Usually all
+ * metadata comes before the first entry. Metadata elements following entries are picked up as
+ * they are read and are complete once all entries are consumed.
+ * </p>
+ */
+public class AtomFeedReader implements Iterator<AtomEntry>, Closeable {
+	private static final QName FEED_QNAME = new QName(AtomConstants.ATOM_NS_URI, "feed");
+	private static final QName ENTRY_QNAME = new QName(AtomConstants.ATOM_NS_URI, "entry");
+
+	/**
+	 * Callback receiving the entries of a feed.
+	 */
+	public interface EntryHandler {
+
+		/**
+		 * Handles the next entry of the feed.
+		 * 
+		 * @param feed The feed metadata read so far
+		 * @param entry The entry
+		 * @return True to continue reading entries or false to stop
+		 */
+		boolean handleEntry(AtomFeed feed, AtomEntry entry);
+
+	}
+
+	private final XMLStreamReader reader;
+	private final boolean closeReader;
+	private final AtomStreamParser parser;
+	private final ElementBinding<Object, AtomFeed> feedBinding;
+	private final ElementBinding<?, AtomEntry> entryBinding;
+	private final Object feedBuilder;
+	private final AtomXmlBase location;
+	private AtomFeed feed;
+	private AtomResolvedDocument resolvedFeed;
+	private AtomEntry nextEntry;
+	private boolean finished;
+
+	public AtomFeedReader(InputSource source) throws XMLStreamException {
+		this(source, false);
+	}
+
+	/**
+	 * Creates a feed reader for the given source. With lazy content the content and summary of
+	 * the entries are kept as raw markup until they are accessed.
+	 * 
+	 * @param source The source to read the feed from (must not be null)
+	 * @param lazyContent True to keep content and summary as raw markup
+	 * @throws XMLStreamException If the document is no feed or the metadata cannot be read
+	 */
+	public AtomFeedReader(InputSource source, boolean lazyContent) throws XMLStreamException {
+		this(AtomStreamParser.createStreamReader(source), true, new AtomStreamParser(ElementBindings.getDefault(), lazyContent));
+	}
+
+	/**
+	 * Creates a feed reader for the given source reading only the elements selected by the
+	 * projection. The feed metadata and the entries are partial.
+	 * 
+	 * @param source The source to read the feed from (must not be null)
+	 * @param projection The elements to read (must not be null)
+	 * @throws XMLStreamException If the document is no feed or the metadata cannot be read
+	 */
+	public AtomFeedReader(InputSource source, AtomProjection projection) throws XMLStreamException {
+		this(AtomStreamParser.createStreamReader(source), true, new AtomStreamParser(ElementBindings.getDefault(), projection));
+	}
+
+	/**
+	 * Creates a feed reader for the given source building the extensions registered in the given
+	 * registry as typed extensions.
+	 * 
+	 * @param source The source to read the feed from (must not be null)
+	 * @param extensions The registry of typed extensions (must not be null)
+	 * @throws XMLStreamException If the document is no feed or the metadata cannot be read
+	 */
+	public AtomFeedReader(InputSource source, AtomExtensionRegistry extensions) throws XMLStreamException {
+		this(AtomStreamParser.createStreamReader(source), true, new AtomStreamParser(ElementBindings.getDefault(), false, extensions));
+	}
+
+	public AtomFeedReader(InputStream stream) throws XMLStreamException {
+		this(new InputSource(AtomContractConstraint.notNull("stream", stream)));
+	}
+
+	public AtomFeedReader(Reader reader) throws XMLStreamException {
+		this(new InputSource(AtomContractConstraint.notNull("reader", reader)));
+	}
+
+	/**
+	 * Creates a feed reader reading from the given stream reader positioned before the root
+	 * element. The stream reader is not closed by this feed reader.
+	 * 
+	 * @param reader The reader to read the feed from (must not be null)
+	 * @throws XMLStreamException If the document is no feed or the metadata cannot be read
+	 */
+	public AtomFeedReader(XMLStreamReader reader) throws XMLStreamException {
+		this(reader, false, new AtomStreamParser());
+	}
+
+	@SuppressWarnings("unchecked")
+	private AtomFeedReader(XMLStreamReader reader, boolean closeReader, AtomStreamParser parser) throws XMLStreamException {
+		this.reader = AtomContractConstraint.notNull("reader", reader);
+		this.closeReader = closeReader;
+		this.parser = parser;
+		this.feedBinding = parser.substitute((ElementBinding<Object, AtomFeed>) ElementBindings.getDefault().forType(AtomFeed.class));
+		this.entryBinding = ElementBindings.getDefault().forType(AtomEntry.class);
+		this.location = AtomXmlBase.forLocation(reader.getLocation().getSystemId());
+		boolean success = false;
+		try {
+			QName name = this.parser.begin(reader);
+			if (!FEED_QNAME.equals(name)) {
+				throw new XMLStreamException("Root element " + name + " is not an atom:feed", reader.getLocation());
+			}
+			this.feedBuilder = this.parser.start(this.feedBinding, name);
+			readNextEntry();
+			success = true;
+		} catch (RuntimeException e) {
+			throw this.parser.createParseException(e);
+		} finally {
+			if (!success) {
+				close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the feed metadata without any entries.
+	 * 
+	 * @return The feed metadata read so far
+	 */
+	public AtomFeed getFeed() {
+		if (this.feed == null) {
+			this.feed = this.feedBinding.build(this.feedBuilder);
+		}
+		return this.feed;
+	}
+
+	/**
+	 * Returns the feed metadata with its relative URIs resolved against the location of the
+	 * document (if the system id of the stream is known) and the xml:base attributes.
+	 * 
+	 * @return The resolved view of the feed metadata
+	 */
+	public AtomResolvedDocument getResolvedFeed() {
+		if (this.resolvedFeed == null) {
+			this.resolvedFeed = new AtomResolvedDocument(getFeed(), this.location);
+		}
+		return this.resolvedFeed;
+	}
+
+	/**
+	 * Returns the chain of xml:base attributes in effect for the entries. The chain starts with
+	 * the location of the document if the system id of the stream is known.
+	 * 
+	 * @return The chain to resolve the relative URIs of the entries or null if no base is in effect
+	 */
+	public AtomXmlBase getXmlBaseChain() {
+		return getResolvedFeed().getXmlBaseChain(getFeed());
+	}
+
+	/**
+	 * Returns the given entry read from this feed with its relative URIs resolved against the
+	 * {@link #getXmlBaseChain() chain of the feed}.
+	 * 
+	 * @param entry The entry read from this feed (must not be null)
+	 * @return The resolved view of the entry
+	 */
+	public AtomResolvedDocument resolve(AtomEntry entry) {
+		return new AtomResolvedDocument(entry, getXmlBaseChain());
+	}
+
+	public boolean hasNext() {
+		if (this.nextEntry == null && !this.finished) {
+			try {
+				readNextEntry();
+			} catch (XMLStreamException e) {
+				throw createRuntimeException(e);
+			} catch (RuntimeException e) {
+				throw createRuntimeException(this.parser.createParseException(e));
+			}
+		}
+		return this.nextEntry != null;
+	}
+
+	public AtomEntry next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		AtomEntry result = this.nextEntry;
+		this.nextEntry = null;
+		return result;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException("Entries cannot be removed from a feed reader");
+	}
+
+	/**
+	 * Hands all remaining entries to the given handler until the feed ends or the handler
+	 * returns false.
+	 * 
+	 * @param handler The handler to call for each entry (must not be null)
+	 * @return The number of entries handed to the handler
+	 */
+	public long readEntries(EntryHandler handler) {
+		AtomContractConstraint.notNull("handler", handler);
+		long count = 0;
+		while (hasNext()) {
+			count++;
+			if (!handler.handleEntry(getFeed(), next())) {
+				break;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Closes the reader. The underlying stream reader is only closed if it was created by this feed
+	 * reader. The input stream or reader of an input source is never closed.
+	 */
+	public void close() {
+		this.finished = true;
+		this.nextEntry = null;
+		this.parser.end();
+		if (this.closeReader) {
+			try {
+				this.reader.close();
+			} catch (XMLStreamException e) {
+				// silently ignoring close problems
+			}
+		}
+	}
+
+	private void readNextEntry() throws XMLStreamException {
+		QName name;
+		while ((name = this.parser.nextChild(this.feedBinding, this.feedBuilder)) != null) {
+			if (ENTRY_QNAME.equals(name)) {
+				this.nextEntry = this.parser.read(this.entryBinding, name);
+				return;
+			}
+			if (!this.feedBinding.element(this.feedBuilder, name, this.parser)) {
+				throw new XMLStreamException("Unrecognized element " + name, this.reader.getLocation());
+			}
+			this.feed = null;
+		}
+		close();
+	}
+
+	private RuntimeException createRuntimeException(Throwable t) {
+		assert t != null;
+		RuntimeException result = new RuntimeException("[" + t.getClass().getSimpleName() + "] " + t.getMessage());
+		result.setStackTrace(t.getStackTrace());
+		return result;
+	}
+
+}
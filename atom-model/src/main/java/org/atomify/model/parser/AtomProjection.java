@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.atomify.model.AtomConstants;
+import org.atomify.model.AtomContractConstraint;
+
+/**
+ * Selects the atom elements of feeds, entries and sources the {@link AtomStreamParser} builds.
+ * All other child elements of a feed, entry or source including extensions are skipped without
+ * building anything. The entries of a feed are always read. Feeds and entries read with a
+ * projection are partial, elements not selected are null or empty.
+ * <p>
+ * A projection is created from element selectors: the local name of an atom element like
+ * <code>id</code> or <code>updated</code>. Links can be restricted to relations with
+ * <code>link[rel=alternate]</code> (a link without rel attribute is an alternate link).
+ * </p>
+ */
+public final class AtomProjection {
+	private static final String LINK = "link";
+	private static final String DEFAULT_REL = "alternate";
+
+	private final Set<String> elements;
+	private final Set<String> linkRelations;
+
+	private AtomProjection(Set<String> elements, Set<String> linkRelations) {
+		this.elements = elements;
+		this.linkRelations = linkRelations;
+	}
+
+	/**
+	 * Creates the projection selecting the given elements.
+	 * 
+	 * @param selectors The element selectors like <code>id</code> or
+	 *            <code>link[rel=alternate]</code> (must not be null)
+	 * @return The projection
+	 * @throws IllegalArgumentException If a selector is not understood
+	 */
+	public static AtomProjection valueOf(String... selectors) {
+		AtomContractConstraint.notNull("selectors", selectors);
+		Set<String> elements = new LinkedHashSet<String>();
+		Set<String> linkRelations = null;
+		boolean allLinks = false;
+		for (String selector : selectors) {
+			String temp = AtomContractConstraint.mustNotBeEmptyString(selector, "selector").trim();
+			int filter = temp.indexOf('[');
+			if (filter < 0) {
+				elements.add(temp);
+				allLinks |= LINK.equals(temp);
+			} else if (temp.startsWith(LINK + "[rel=") && temp.endsWith("]")) {
+				elements.add(LINK);
+				if (linkRelations == null) {
+					linkRelations = new HashSet<String>();
+				}
+				linkRelations.add(unquote(temp.substring(LINK.length() + 5, temp.length() - 1)));
+			} else {
+				throw new IllegalArgumentException("Unsupported projection selector " + selector + " (only link[rel=...] can be filtered)");
+			}
+		}
+		return new AtomProjection(Collections.unmodifiableSet(elements), allLinks || linkRelations == null ? null : Collections
+				.unmodifiableSet(linkRelations));
+	}
+
+	/**
+	 * Returns the local names of the selected atom elements.
+	 * 
+	 * @return The selected elements
+	 */
+	public Set<String> getElements() {
+		return this.elements;
+	}
+
+	/**
+	 * Returns the link relations selected or null if all links are selected (or none if link is
+	 * not selected at all).
+	 * 
+	 * @return The selected link relations or null
+	 */
+	public Set<String> getLinkRelations() {
+		return this.linkRelations;
+	}
+
+	/**
+	 * Returns true if the child element with the given name the parser is positioned at is
+	 * selected.
+	 * 
+	 * @param name The name of the child element
+	 * @param parser The parser positioned at the start of the child element
+	 * @return True if the element is selected
+	 */
+	boolean isSelected(QName name, AtomStreamParser parser) {
+		if (!AtomConstants.ATOM_NS_URI.equals(name.getNamespaceURI()) || !this.elements.contains(name.getLocalPart())) {
+			return false;
+		}
+		if (this.linkRelations != null && LINK.equals(name.getLocalPart())) {
+			String rel = parser.getAttributeValue("rel");
+			return this.linkRelations.contains(rel == null ? DEFAULT_REL : rel);
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(new Object[] { this.elements, this.linkRelations });
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof AtomProjection)) {
+			return false;
+		}
+		AtomProjection other = (AtomProjection) obj;
+		return this.elements.equals(other.elements)
+				&& (this.linkRelations == null ? other.linkRelations == null : this.linkRelations.equals(other.linkRelations));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuilder().append("AtomProjection [elements=").append(this.elements).append(", linkRelations=").append(this.linkRelations)
+				.append("]").toString();
+	}
+
+	private static String unquote(String value) {
+		if (value.length() >= 2 && (value.charAt(0) == '"' || value.charAt(0) == '\'') && value.charAt(value.length() - 1) == value.charAt(0)) {
+			return value.substring(1, value.length() - 1);
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,759 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.AtomDocument;
+import org.atomify.model.AtomValueCache;
+import org.atomify.model.common.AtomStreamingContentBuilder;
+import org.atomify.model.common.XhtmlDivElement;
+import org.atomify.model.extension.AtomExtension;
+import org.atomify.model.extension.AtomExtensionContext;
+import org.atomify.model.extension.AtomExtensionRegistry;
+import org.atomify.model.extension.AtomForeignMarkup;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomSource;
+import org.xml.sax.InputSource;
+
+/**
+ * Streaming parser reading an {@link AtomDocument} from a StAX {@link XMLStreamReader}. Instead of
+ * resolving builders and invokers reflectively for each element the parser dispatches to the
+ * {@link ElementBinding}s resolved once by the {@link ElementBindings}. Text and comments are
+ * buffered and flushed exactly like the builder content handler does so both parsers produce equal
+ * documents.
+ * <p>
+ * With lazy content the atom:content and atom:summary elements of entries are not built but kept
+ * as raw markup which is turned into the model objects on first access (see
+ * {@link org.atomify.model.common.AtomLazyElement}).
+ * </p>
+ * <p>
+ * With raw markup the xhtml divs, structured extensions and other foreign markup keep their
+ * children as raw markup which is only turned into the model objects when the children are
+ * accessed. Serializing such an element writes the markup straight through.
+ * </p>
+ * <p>
+ * With an {@link AtomExtensionRegistry} the foreign elements of feeds, entries and the other
+ * registered parents are built by the binding registered for their name and parent.
+ * </p>
+ * <p>
+ * The builders are recycled after their value was built and reused for the next element of the
+ * same binding (see {@link ElementBinding#recycle(Object)}). A parser reading many documents only
+ * creates builders for the first few elements.
+ * </p>
+ * <p>
+ * An instance is not thread safe and can only parse one document at a time. It is cheap to create
+ * and can be reused for many documents.
+ * </p>
+ */
+public class AtomStreamParser {
+	private static final XMLInputFactory INPUT_FACTORY;
+
+	static {
+		INPUT_FACTORY = XMLInputFactory.newInstance();
+		INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		INPUT_FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, Boolean.TRUE);
+		INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+	}
+
+	private final ElementBindings bindings;
+	private final Map<ElementBinding<?, ?>, ElementBinding<?, ?>> substitutes;
+	private final StringBuilder textBuffer;
+	private final StringBuilder commentBuffer;
+	private final StringBuilder captureText;
+	private int capturedChildren;
+	private final AtomExtensionRegistry extensions;
+	private final ElementBinding<?, ?> extensionBinding;
+	private final Map<ElementBinding<?, ?>, AtomExtensionContext> extensionContexts;
+	private ElementBuilderPool builders;
+	private XMLStreamReader reader;
+	private ElementBinding<?, ?> parent;
+
+	public AtomStreamParser() {
+		this(ElementBindings.getDefault());
+	}
+
+	public AtomStreamParser(ElementBindings bindings) {
+		this(bindings, false);
+	}
+
+	public AtomStreamParser(ElementBindings bindings, boolean lazyContent) {
+		this(bindings, lazyContent, false, null, null);
+	}
+
+	/**
+	 * Creates a parser optionally keeping xhtml divs and foreign markup as raw markup.
+	 * 
+	 * @param bindings The bindings to use (must not be null)
+	 * @param lazyContent True to keep content and summary of entries as raw markup
+	 * @param rawMarkup True to keep the children of xhtml divs and foreign markup as raw markup
+	 */
+	public AtomStreamParser(ElementBindings bindings, boolean lazyContent, boolean rawMarkup) {
+		this(bindings, lazyContent, rawMarkup, null, null);
+	}
+
+	/**
+	 * Creates a parser building the extensions registered in the given registry as typed
+	 * extensions.
+	 * 
+	 * @param bindings The bindings to use (must not be null)
+	 * @param lazyContent True to keep content and summary of entries as raw markup
+	 * @param extensions The registry of typed extensions (must not be null)
+	 */
+	public AtomStreamParser(ElementBindings bindings, boolean lazyContent, AtomExtensionRegistry extensions) {
+		this(bindings, lazyContent, false, extensions);
+	}
+
+	/**
+	 * Creates a parser building the extensions registered in the given registry as typed
+	 * extensions and optionally keeping xhtml divs and foreign markup as raw markup.
+	 * 
+	 * @param bindings The bindings to use (must not be null)
+	 * @param lazyContent True to keep content and summary of entries as raw markup
+	 * @param rawMarkup True to keep the children of xhtml divs and foreign markup as raw markup
+	 * @param extensions The registry of typed extensions (must not be null)
+	 */
+	public AtomStreamParser(ElementBindings bindings, boolean lazyContent, boolean rawMarkup, AtomExtensionRegistry extensions) {
+		this(bindings, lazyContent, rawMarkup, null, AtomContractConstraint.notNull("extensions", extensions));
+	}
+
+	/**
+	 * Creates a parser reading only the elements of feeds, entries and sources selected by the
+	 * projection. The documents read are partial.
+	 * 
+	 * @param bindings The bindings to use (must not be null)
+	 * @param projection The elements to read (must not be null)
+	 */
+	public AtomStreamParser(ElementBindings bindings, AtomProjection projection) {
+		this(bindings, false, false, AtomContractConstraint.notNull("projection", projection), null);
+	}
+
+	private AtomStreamParser(ElementBindings bindings, boolean lazyContent, boolean rawMarkup, AtomProjection projection,
+			AtomExtensionRegistry extensions) {
+		this.bindings = AtomContractConstraint.notNull("bindings", bindings);
+		if (lazyContent || rawMarkup || projection != null) {
+			this.substitutes = new IdentityHashMap<ElementBinding<?, ?>, ElementBinding<?, ?>>();
+			if (rawMarkup) {
+				this.substitutes.put(bindings.forType(XhtmlDivElement.class), new RawMarkupBinding(bindings, RawMarkupBinding.Kind.XHTML_DIV));
+				this.substitutes.put(bindings.forType(AtomExtension.class), new RawMarkupBinding(bindings, RawMarkupBinding.Kind.EXTENSION));
+				this.substitutes.put(bindings.forType(AtomForeignMarkup.class), new RawMarkupBinding(bindings,
+						RawMarkupBinding.Kind.FOREIGN_MARKUP));
+			}
+			ElementBinding<?, AtomEntry> entryBinding = bindings.forType(AtomEntry.class);
+			if (projection != null) {
+				this.substitutes.put(entryBinding, new ProjectionBinding<AtomEntry>(entryBinding, projection));
+				ElementBinding<?, AtomFeed> feedBinding = bindings.forType(AtomFeed.class);
+				this.substitutes.put(feedBinding, new ProjectionBinding<AtomFeed>(feedBinding, projection));
+				ElementBinding<?, AtomSource> sourceBinding = bindings.forType(AtomSource.class);
+				this.substitutes.put(sourceBinding, new ProjectionBinding<AtomSource>(sourceBinding, projection));
+			} else if (lazyContent) {
+				this.substitutes.put(entryBinding, new LazyContentEntryBinding(bindings, entryBinding));
+			}
+		} else {
+			this.substitutes = null;
+		}
+		this.textBuffer = new StringBuilder();
+		this.commentBuffer = new StringBuilder();
+		this.captureText = new StringBuilder();
+		this.builders = new ElementBuilderPool();
+		this.extensions = extensions;
+		if (extensions != null) {
+			this.extensionBinding = bindings.forType(AtomExtension.class);
+			this.extensionContexts = new IdentityHashMap<ElementBinding<?, ?>, AtomExtensionContext>();
+			for (AtomExtensionContext context : AtomExtensionContext.values()) {
+				ElementBinding<?, ?> binding = bindings.forType(context.getElementType());
+				this.extensionContexts.put(binding, context);
+				this.extensionContexts.put(substitute(binding), context);
+			}
+		} else {
+			this.extensionBinding = null;
+			this.extensionContexts = null;
+		}
+	}
+
+	/**
+	 * Creates a {@link XMLStreamReader} for the given {@link InputSource} honoring the character
+	 * stream, the byte stream together with the encoding or the system id in that order.
+	 * 
+	 * @param source The source to read (must not be null)
+	 * @return The stream reader
+	 * @throws XMLStreamException If the reader could not be created
+	 */
+	public static XMLStreamReader createStreamReader(InputSource source) throws XMLStreamException {
+		AtomContractConstraint.notNull("source", source);
+		if (source.getCharacterStream() != null) {
+			return INPUT_FACTORY.createXMLStreamReader(source.getSystemId(), source.getCharacterStream());
+		} else if (source.getByteStream() != null) {
+			if (source.getEncoding() != null) {
+				return INPUT_FACTORY.createXMLStreamReader(source.getByteStream(), source.getEncoding());
+			}
+			return INPUT_FACTORY.createXMLStreamReader(source.getSystemId(), source.getByteStream());
+		} else if (source.getSystemId() != null) {
+			return INPUT_FACTORY.createXMLStreamReader(new StreamSource(source.getSystemId()));
+		}
+		throw new IllegalArgumentException("Input source has neither a character stream, a byte stream nor a system id");
+	}
+
+	/**
+	 * Parses the document from the given input source.
+	 * 
+	 * @param source The source to parse (must not be null)
+	 * @return The parsed document
+	 * @throws XMLStreamException If the document is not well formed or not a valid atom document
+	 */
+	public AtomDocument parse(InputSource source) throws XMLStreamException {
+		XMLStreamReader streamReader = createStreamReader(source);
+		try {
+			return parse(streamReader);
+		} finally {
+			streamReader.close();
+		}
+	}
+
+	/**
+	 * Parses the document from the given stream reader. The reader is expected to be positioned
+	 * before the root element and is read up to the end of the document. It is not closed.
+	 * 
+	 * @param streamReader The reader to parse (must not be null)
+	 * @return The parsed document
+	 * @throws XMLStreamException If the document is not well formed or not a valid atom document
+	 */
+	public AtomDocument parse(XMLStreamReader streamReader) throws XMLStreamException {
+		QName name = begin(streamReader);
+		try {
+			ElementBinding<?, ? extends AtomDocument> binding = this.bindings.forDocument(AtomDocument.class, name);
+			if (binding == null) {
+				throw new XMLStreamException("Unknown root element " + name, this.reader.getLocation());
+			}
+			AtomDocument result = read(binding, name);
+			while (this.reader.hasNext()) {
+				this.reader.next();
+			}
+			return result;
+		} catch (RuntimeException e) {
+			throw createParseException(e);
+		} finally {
+			end();
+		}
+	}
+
+	/**
+	 * Starts reading a document by moving the reader to the start of the root element. Comments
+	 * before the root element are kept and handed to the root element like the builder content
+	 * handler does. Every call must be paired with a call to {@link #end()}.
+	 * 
+	 * @param streamReader The reader to parse (must not be null)
+	 * @return The qualified name of the root element
+	 * @throws XMLStreamException If the document has no root element
+	 */
+	public QName begin(XMLStreamReader streamReader) throws XMLStreamException {
+		if (this.reader != null) {
+			throw new IllegalStateException("AtomStreamParser is already parsing another source");
+		}
+		this.reader = AtomContractConstraint.notNull("streamReader", streamReader);
+		try {
+			while (this.reader.hasNext()) {
+				int event = this.reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					return elementName();
+				} else if (event == XMLStreamConstants.COMMENT) {
+					this.commentBuffer.append(this.reader.getText());
+				}
+			}
+			throw new XMLStreamException("Document has no root element", this.reader.getLocation());
+		} catch (XMLStreamException e) {
+			end();
+			throw e;
+		} catch (RuntimeException e) {
+			end();
+			throw e;
+		}
+	}
+
+	/**
+	 * Turns the recycling of builders on or off. Recycling is on by default. Builders are only
+	 * recycled by bindings supporting it (see {@link ElementBinding#recycle(Object)}).
+	 * 
+	 * @param recycling True to reuse the builders
+	 */
+	public void setBuilderRecycling(boolean recycling) {
+		if (!recycling) {
+			this.builders = null;
+		} else if (this.builders == null) {
+			this.builders = new ElementBuilderPool();
+		}
+	}
+
+	/**
+	 * Returns the pool of builders or null if builders are not recycled.
+	 */
+	ElementBuilderPool getBuilderPool() {
+		return this.builders;
+	}
+
+	/**
+	 * Ends the parsing of the current document and releases the reader (it is not closed).
+	 */
+	public void end() {
+		this.reader = null;
+		this.parent = null;
+		this.textBuffer.setLength(0);
+		this.commentBuffer.setLength(0);
+	}
+
+	/**
+	 * Reads the element the reader is currently positioned at (start element event) up to its end
+	 * element event and returns the built value. Bindings call this method to read their child
+	 * elements.
+	 * 
+	 * @param binding The binding of the element
+	 * @param name The qualified name of the element
+	 * @return The value built by the binding
+	 * @throws XMLStreamException If the element cannot be read
+	 */
+	@SuppressWarnings("unchecked")
+	public <B, T> T read(ElementBinding<B, T> binding, QName name) throws XMLStreamException {
+		if (binding == this.extensionBinding) {
+			binding = extension(binding, name);
+		}
+		binding = substitute(binding);
+		if (binding instanceof RawMarkupBinding) {
+			return (T) ((RawMarkupBinding) binding).read(this, name);
+		}
+		B builder = start(binding, name);
+		QName childName;
+		while ((childName = nextChild(binding, builder)) != null) {
+			if (!binding.element(builder, childName, this)) {
+				throw new XMLStreamException("Unrecognized element " + childName, this.reader.getLocation());
+			}
+		}
+		T result = binding.build(builder);
+		if (this.builders != null) {
+			this.builders.release(binding, builder);
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the builder for the element the reader is currently positioned at and applies all
+	 * attributes. Together with {@link #nextChild(ElementBinding, Object)} this allows to read the
+	 * children of an element one by one instead of reading the whole element with
+	 * {@link #read(ElementBinding, QName)}.
+	 * 
+	 * @param binding The binding of the element
+	 * @param name The qualified name of the element
+	 * @return The builder with the attributes applied
+	 * @throws XMLStreamException If an attribute is unknown
+	 */
+	public <B> B start(ElementBinding<B, ?> binding, QName name) throws XMLStreamException {
+		B builder = this.builders == null ? binding.newBuilder(name) : this.builders.acquire(binding, name);
+		for (int i = 0, count = this.reader.getAttributeCount(); i < count; i++) {
+			QName attributeName = qualifiedName(this.reader.getAttributeNamespace(i), this.reader.getAttributeLocalName(i),
+					this.reader.getAttributePrefix(i));
+			if (!binding.attribute(builder, attributeName, this.reader.getAttributeValue(i))) {
+				throw new XMLStreamException("Unknown attribute " + attributeName + " on element " + name, this.reader.getLocation());
+			}
+		}
+		return builder;
+	}
+
+	/**
+	 * Advances to the next child element of the element started with
+	 * {@link #start(ElementBinding, QName)} handing text and comments in between to the binding.
+	 * Returns the name of the child element with the reader positioned at its start or null if the
+	 * element ended. The caller must consume the child element before calling this method again.
+	 * 
+	 * @param binding The binding of the element
+	 * @param builder The builder of the element
+	 * @return The name of the next child element or null if the element ended
+	 * @throws XMLStreamException If the document is not well formed
+	 */
+	public <B> QName nextChild(ElementBinding<B, ?> binding, B builder) throws XMLStreamException {
+		while (true) {
+			switch (this.reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					flushText(binding, builder);
+					flushComment(binding, builder);
+					this.parent = binding;
+					return elementName();
+				case XMLStreamConstants.END_ELEMENT:
+					flushText(binding, builder);
+					flushComment(binding, builder);
+					return null;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+					flushComment(binding, builder);
+					if (binding.hasText()) {
+						if (builder instanceof AtomStreamingContentBuilder && ((AtomStreamingContentBuilder) builder).isStreamingContent()) {
+							((AtomStreamingContentBuilder) builder).appendContent(this.reader.getTextCharacters(), this.reader.getTextStart(),
+									this.reader.getTextLength());
+						} else {
+							this.textBuffer.append(this.reader.getTextCharacters(), this.reader.getTextStart(), this.reader.getTextLength());
+						}
+					}
+					break;
+				case XMLStreamConstants.COMMENT:
+					flushText(binding, builder);
+					if (binding.hasComments()) {
+						this.commentBuffer.append(this.reader.getText());
+					}
+					break;
+				default:
+					// ignorable white space, processing instructions and such are not relevant
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Reads the element the reader is currently positioned at (start element event) up to its end
+	 * element event as raw markup. Namespaces declared outside of the element are declared on the
+	 * elements using them so the markup can be parsed on its own.
+	 * <p>
+	 * The children of the element are counted the way a builder receives them (runs of text,
+	 * runs of comments and elements) and the text and comments directly within the element are
+	 * kept for {@link #getCapturedText()}.
+	 * </p>
+	 * 
+	 * @return The markup of the element
+	 * @throws XMLStreamException If the document is not well formed
+	 */
+	public String capture() throws XMLStreamException {
+		StringBuilder markup = new StringBuilder(256);
+		List<String> declared = new ArrayList<String>();
+		int[] scopes = new int[16];
+		int depth = 0;
+		int lastChild = XMLStreamConstants.START_DOCUMENT;
+		this.captureText.setLength(0);
+		this.capturedChildren = 0;
+		int event = this.reader.getEventType();
+		while (true) {
+			switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+					if (depth == 1) {
+						this.capturedChildren++;
+						lastChild = XMLStreamConstants.START_ELEMENT;
+					}
+					if (depth == scopes.length) {
+						int[] temp = new int[depth * 2];
+						System.arraycopy(scopes, 0, temp, 0, depth);
+						scopes = temp;
+					}
+					scopes[depth++] = declared.size();
+					markup.append('<');
+					appendName(markup, this.reader.getPrefix(), this.reader.getLocalName());
+					for (int i = 0, count = this.reader.getNamespaceCount(); i < count; i++) {
+						appendNamespace(markup, declared, this.reader.getNamespacePrefix(i), this.reader.getNamespaceURI(i));
+					}
+					declareNamespace(markup, declared, this.reader.getPrefix(), this.reader.getNamespaceURI());
+					for (int i = 0, count = this.reader.getAttributeCount(); i < count; i++) {
+						String prefix = this.reader.getAttributePrefix(i);
+						if (prefix != null && prefix.length() > 0) {
+							declareNamespace(markup, declared, prefix, this.reader.getAttributeNamespace(i));
+						}
+						markup.append(' ');
+						appendName(markup, prefix, this.reader.getAttributeLocalName(i));
+						markup.append("=\"");
+						appendEscaped(markup, this.reader.getAttributeValue(i), true);
+						markup.append('"');
+					}
+					markup.append('>');
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					markup.append("</");
+					appendName(markup, this.reader.getPrefix(), this.reader.getLocalName());
+					markup.append('>');
+					int scope = scopes[--depth];
+					while (declared.size() > scope) {
+						declared.remove(declared.size() - 1);
+					}
+					if (depth == 0) {
+						return markup.toString();
+					}
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					String text = this.reader.getText();
+					appendEscaped(markup, text, false);
+					if (depth == 1 && event != XMLStreamConstants.SPACE) {
+						captured(XMLStreamConstants.CHARACTERS, lastChild, text);
+						lastChild = XMLStreamConstants.CHARACTERS;
+					}
+					break;
+				case XMLStreamConstants.COMMENT:
+					String comment = this.reader.getText();
+					markup.append("<!--").append(comment).append("-->");
+					if (depth == 1) {
+						captured(XMLStreamConstants.COMMENT, lastChild, comment);
+						lastChild = XMLStreamConstants.COMMENT;
+					}
+					break;
+				default:
+					// processing instructions are not relevant
+					break;
+			}
+			event = this.reader.next();
+		}
+	}
+
+	/**
+	 * Returns the number of children of the element last read by {@link #capture()}.
+	 * 
+	 * @return The number of children
+	 */
+	public int getCapturedChildCount() {
+		return this.capturedChildren;
+	}
+
+	/**
+	 * Returns the text and comments directly within the element last read by {@link #capture()}.
+	 * 
+	 * @return The text or null if the element has neither text nor comments
+	 */
+	public String getCapturedText() {
+		return this.captureText.length() == 0 ? null : this.captureText.toString();
+	}
+
+	/**
+	 * Returns the attributes of the element the reader is currently positioned at.
+	 * 
+	 * @return The attributes of the element which is empty if the element has none
+	 */
+	public Map<QName, String> getAttributes() {
+		int count = this.reader.getAttributeCount();
+		if (count == 0) {
+			return Collections.emptyMap();
+		}
+		Map<QName, String> result = new HashMap<QName, String>(count * 2);
+		for (int i = 0; i < count; i++) {
+			result.put(qualifiedName(this.reader.getAttributeNamespace(i), this.reader.getAttributeLocalName(i), this.reader.getAttributePrefix(i)),
+					this.reader.getAttributeValue(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Skips the element the reader is currently positioned at (start element event) up to its end
+	 * element event without building anything.
+	 * 
+	 * @throws XMLStreamException If the document is not well formed
+	 */
+	public void skip() throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = this.reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Returns the value of the unqualified attribute of the element the reader is currently
+	 * positioned at.
+	 * 
+	 * @param localName The local name of the attribute
+	 * @return The value of the attribute or null if the element has no such attribute
+	 */
+	public String getAttributeValue(String localName) {
+		return this.reader.getAttributeValue(null, localName);
+	}
+
+	/**
+	 * Returns the binding used in place of the given binding by this parser (like the binding
+	 * reading content lazy or the binding of a projection).
+	 */
+	@SuppressWarnings("unchecked")
+	<B, T> ElementBinding<B, T> substitute(ElementBinding<B, T> binding) {
+		if (this.substitutes != null) {
+			ElementBinding<?, ?> temp = this.substitutes.get(binding);
+			if (temp != null) {
+				return (ElementBinding<B, T>) temp;
+			}
+		}
+		return binding;
+	}
+
+	/**
+	 * Returns the binding registered for the extension element with the given name in the element
+	 * the last child was read from or the generic binding if none is registered.
+	 */
+	@SuppressWarnings("unchecked")
+	private <B, T> ElementBinding<B, T> extension(ElementBinding<B, T> binding, QName name) {
+		AtomExtensionContext context = this.extensionContexts.get(this.parent);
+		if (context != null) {
+			ElementBinding<?, ?> typed = this.extensions.lookup(context, name);
+			if (typed != null) {
+				return (ElementBinding<B, T>) typed;
+			}
+		}
+		return binding;
+	}
+
+	/**
+	 * Returns the location of the reader or null if no document is parsed.
+	 */
+	public Location getLocation() {
+		return this.reader == null ? null : this.reader.getLocation();
+	}
+
+	/**
+	 * Converts a runtime exception thrown by a builder into a {@link XMLStreamException} carrying
+	 * the current location.
+	 * 
+	 * @param e The exception thrown
+	 * @return The parse exception to throw
+	 */
+	public XMLStreamException createParseException(RuntimeException e) {
+		String message = "[" + e.getClass().getSimpleName() + "] " + e.getMessage();
+		Location location = getLocation();
+		return location == null ? new XMLStreamException(message, e) : new XMLStreamException(message, location, e);
+	}
+
+	private <B> void flushText(ElementBinding<B, ?> binding, B builder) {
+		if (this.textBuffer.length() > 0) {
+			binding.text(builder, this.textBuffer.toString());
+			this.textBuffer.setLength(0);
+		}
+	}
+
+	private <B> void flushComment(ElementBinding<B, ?> binding, B builder) {
+		if (this.commentBuffer.length() > 0) {
+			if (binding.hasComments()) {
+				binding.comment(builder, this.commentBuffer.toString());
+			}
+			this.commentBuffer.setLength(0);
+		}
+	}
+
+	private void captured(int kind, int lastChild, String text) {
+		if (kind != lastChild) {
+			this.capturedChildren++;
+		}
+		this.captureText.append(text);
+	}
+
+	private static void appendName(StringBuilder markup, String prefix, String localName) {
+		if (prefix != null && prefix.length() > 0) {
+			markup.append(prefix).append(':');
+		}
+		markup.append(localName);
+	}
+
+	private static void appendNamespace(StringBuilder markup, List<String> declared, String prefix, String namespace) {
+		prefix = prefix == null ? "" : prefix;
+		namespace = namespace == null ? "" : namespace;
+		declared.add(prefix);
+		declared.add(namespace);
+		markup.append(prefix.length() == 0 ? " xmlns" : " xmlns:").append(prefix).append("=\"");
+		appendEscaped(markup, namespace, true);
+		markup.append('"');
+	}
+
+	private static void declareNamespace(StringBuilder markup, List<String> declared, String prefix, String namespace) {
+		prefix = prefix == null ? "" : prefix;
+		namespace = namespace == null ? "" : namespace;
+		if ("xml".equals(prefix)) {
+			return;
+		}
+		for (int i = declared.size() - 2; i >= 0; i -= 2) {
+			if (prefix.equals(declared.get(i))) {
+				if (!namespace.equals(declared.get(i + 1))) {
+					appendNamespace(markup, declared, prefix, namespace);
+				}
+				return;
+			}
+		}
+		if (prefix.length() > 0 || namespace.length() > 0) {
+			appendNamespace(markup, declared, prefix, namespace);
+		}
+	}
+
+	private static void appendEscaped(StringBuilder markup, String value, boolean attribute) {
+		for (int i = 0, length = value.length(); i < length; i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '&':
+					markup.append("&amp;");
+					break;
+				case '<':
+					markup.append("&lt;");
+					break;
+				case '>':
+					markup.append("&gt;");
+					break;
+				case '\r':
+					markup.append("&#13;");
+					break;
+				case '"':
+					markup.append(attribute ? "&quot;" : "\"");
+					break;
+				case '\n':
+					markup.append(attribute ? "&#10;" : "\n");
+					break;
+				case '\t':
+					markup.append(attribute ? "&#9;" : "\t");
+					break;
+				default:
+					markup.append(c);
+					break;
+			}
+		}
+	}
+
+	private QName elementName() {
+		return qualifiedName(this.reader.getNamespaceURI(), this.reader.getLocalName(), this.reader.getPrefix());
+	}
+
+	/**
+	 * Creates the qualified name the same way the builder content handler does. A trailing slash
+	 * of the namespace is removed so that http://www.w3.org/2005/Atom/ is treated as the atom
+	 * namespace. The names are interned since the same few names repeat all over a document.
+	 */
+	static QName qualifiedName(String namespace, String localName, String prefix) {
+		if (namespace != null && namespace.endsWith("/")) {
+			namespace = namespace.substring(0, namespace.length() - 1);
+		}
+		return AtomValueCache.qualifiedName(namespace, localName, prefix);
+	}
+
+}
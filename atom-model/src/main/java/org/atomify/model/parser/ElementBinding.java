@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Binds one element type to its builder without going through the reflective builder layer. The
+ * {@link AtomStreamParser} creates the builder, feeds attributes, child elements, text and
+ * comments into it and finally builds the value once the element is closed.
+ * 
+ * @param <B> The builder type
+ * @param <T> The type of the value built
+ */
+public abstract class ElementBinding<B, T> {
+
+	/**
+	 * Creates a fresh builder for the element with the given name.
+	 * 
+	 * @param name The qualified name of the element (must not be null)
+	 * @return The builder to fill
+	 */
+	protected abstract B newBuilder(QName name);
+
+	/**
+	 * Applies an attribute to the builder. Returns false if the attribute is not known to the
+	 * element in which case the parser reports an unknown attribute.
+	 * 
+	 * @param builder The builder
+	 * @param name The qualified name of the attribute
+	 * @param value The attribute value
+	 * @return True if the attribute was consumed
+	 */
+	protected boolean attribute(B builder, QName name, String value) {
+		return false;
+	}
+
+	/**
+	 * Reads the child element with the given name (using {@link AtomStreamParser#read(ElementBinding, QName)}) and
+	 * adds the result to the builder. Returns false if the element is not allowed as a child.
+	 * 
+	 * @param builder The builder
+	 * @param name The qualified name of the child element
+	 * @param parser The parser to read the child with
+	 * @return True if the element was consumed
+	 * @throws XMLStreamException If reading the child failed
+	 */
+	protected boolean element(B builder, QName name, AtomStreamParser parser) throws XMLStreamException {
+		return false;
+	}
+
+	/**
+	 * Returns true if the element accepts text content. Only in that case the text is passed to
+	 * {@link #text(Object, String)}, otherwise it is dropped without creating a string.
+	 * 
+	 * @return True if the element has text content
+	 */
+	protected boolean hasText() {
+		return false;
+	}
+
+	protected void text(B builder, String text) {
+		// by default text is ignored
+	}
+
+	/**
+	 * Returns true if the element keeps comments. Only in that case comments are passed to
+	 * {@link #comment(Object, String)}.
+	 * 
+	 * @return True if the element keeps comments
+	 */
+	protected boolean hasComments() {
+		return false;
+	}
+
+	protected void comment(B builder, String comment) {
+		// by default comments are ignored
+	}
+
+	/**
+	 * Builds the final value once the element is closed.
+	 * 
+	 * @param builder The builder
+	 * @return The built value
+	 */
+	protected abstract T build(B builder);
+
+	/**
+	 * Resets a builder after its value was built so the parser can reuse it for the next element
+	 * of this binding. Returns false if the builder cannot be reused in which case it is dropped.
+	 * 
+	 * @param builder The builder whose value was built
+	 * @return True if the builder was reset and can be reused
+	 */
+	protected boolean recycle(B builder) {
+		return false;
+	}
+
+	/**
+	 * Prepares a recycled builder for the element with the given name. Bindings configuring the
+	 * builders in {@link #newBuilder(QName)} apply the same configuration here.
+	 * 
+	 * @param builder The recycled builder
+	 * @param name The qualified name of the element
+	 * @return The builder to fill
+	 */
+	protected B reuseBuilder(B builder, QName name) {
+		return builder;
+	}
+
+}
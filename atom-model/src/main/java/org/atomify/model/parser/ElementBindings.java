@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.namespace.QName;
+
+import org.jbasics.parser.annotations.ElementBuilder;
+import org.jbasics.parser.annotations.ElementImplementor;
+import org.jbasics.parser.annotations.ElementImplementors;
+
+/**
+ * Registry resolving the {@link ElementBinding} for an element type. The builder of a type is found
+ * the same way the builder parser does it: an {@link ElementBuilder} annotation on the type, a
+ * static newBuilder() method on the type or a simple type converted from its text.
+ * <p>
+ * For each builder the binding generated at build time by the
+ * {@link org.atomify.model.parser.processor.ElementBindingProcessor} is used if it is on the
+ * classpath (the builder class name with the suffix {@value #GENERATED_BINDING_SUFFIX}). Otherwise
+ * the builder is driven reflectively by its parser annotations.
+ * </p>
+ */
+public final class ElementBindings {
+	/**
+	 * Suffix appended to the builder class name to get the class name of the generated binding.
+	 */
+	public static final String GENERATED_BINDING_SUFFIX = "_Binding";
+	/**
+	 * The name of the static field holding the instance of a generated binding.
+	 */
+	public static final String GENERATED_BINDING_INSTANCE = "INSTANCE";
+
+	private static final ElementBindings DEFAULT = new ElementBindings(true);
+	private static final ElementBindings REFLECTIVE = new ElementBindings(false);
+
+	private final boolean useGenerated;
+	private final ConcurrentMap<Class<?>, ElementBinding<?, ?>> typeBindings;
+	private final ConcurrentMap<Class<?>, ElementBinding<?, ?>> builderBindings;
+	private final ConcurrentMap<Class<?>, Map<QName, ElementBinding<?, ?>>> documentBindings;
+
+	private ElementBindings(boolean useGenerated) {
+		this.useGenerated = useGenerated;
+		this.typeBindings = new ConcurrentHashMap<Class<?>, ElementBinding<?, ?>>();
+		this.builderBindings = new ConcurrentHashMap<Class<?>, ElementBinding<?, ?>>();
+		this.documentBindings = new ConcurrentHashMap<Class<?>, Map<QName, ElementBinding<?, ?>>>();
+	}
+
+	/**
+	 * Returns the bindings using generated bindings where available.
+	 * 
+	 * @return The default bindings
+	 */
+	public static ElementBindings getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Returns the bindings always driving the builders reflectively.
+	 * 
+	 * @return The reflective bindings
+	 */
+	public static ElementBindings getReflective() {
+		return REFLECTIVE;
+	}
+
+	/**
+	 * Returns the binding for the given element type.
+	 * 
+	 * @param type The type of the element value (must not be null)
+	 * @return The binding building values of the given type
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> ElementBinding<?, T> forType(Class<T> type) {
+		ElementBinding<?, ?> result = this.typeBindings.get(type);
+		if (result == null) {
+			result = resolveType(type);
+			ElementBinding<?, ?> temp = this.typeBindings.putIfAbsent(type, result);
+			if (temp != null) {
+				result = temp;
+			}
+		}
+		return (ElementBinding<?, T>) result;
+	}
+
+	/**
+	 * Returns the binding for the given builder type. The builder is created with a static
+	 * newInstance() method or the public default constructor.
+	 * 
+	 * @param builderType The builder type (must not be null)
+	 * @return The binding for the builder
+	 */
+	public ElementBinding<?, ?> forBuilder(Class<?> builderType) {
+		ElementBinding<?, ?> result = this.builderBindings.get(builderType);
+		if (result == null) {
+			Method factoryMethod = staticMethod(builderType, "newInstance");
+			Constructor<?> constructor = null;
+			if (factoryMethod == null) {
+				try {
+					constructor = builderType.getConstructor();
+				} catch (NoSuchMethodException e) {
+					throw new IllegalArgumentException("Neither a public static newInstance() method nor a public default constructor found for "
+							+ builderType);
+				}
+			}
+			result = createBinding(builderType, factoryMethod, constructor);
+			ElementBinding<?, ?> temp = this.builderBindings.putIfAbsent(builderType, result);
+			if (temp != null) {
+				result = temp;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the binding for the root element with the given name of a document type annotated
+	 * with {@link ElementImplementors} or {@link ElementImplementor}.
+	 * 
+	 * @param documentType The document type
+	 * @param name The name of the root element
+	 * @return The binding or null if the name is no root element of the document type
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> ElementBinding<?, ? extends T> forDocument(Class<T> documentType, QName name) {
+		Map<QName, ElementBinding<?, ?>> roots = this.documentBindings.get(documentType);
+		if (roots == null) {
+			Map<QName, ElementBinding<?, ?>> temp = new HashMap<QName, ElementBinding<?, ?>>();
+			ElementImplementors implementors = documentType.getAnnotation(ElementImplementors.class);
+			if (implementors != null) {
+				for (ElementImplementor implementor : implementors.value()) {
+					temp.put(new QName(implementor.namespace(), implementor.localName()), forType(implementor.builderClass()));
+				}
+			}
+			ElementImplementor implementor = documentType.getAnnotation(ElementImplementor.class);
+			if (implementor != null) {
+				temp.put(new QName(implementor.namespace(), implementor.localName()), forType(implementor.builderClass()));
+			}
+			roots = Collections.unmodifiableMap(temp);
+			this.documentBindings.putIfAbsent(documentType, roots);
+		}
+		return (ElementBinding<?, ? extends T>) roots.get(name);
+	}
+
+	/**
+	 * Returns true if the given binding was generated at build time.
+	 * 
+	 * @param binding The binding to check
+	 * @return True if the binding is a generated binding
+	 */
+	public static boolean isGenerated(ElementBinding<?, ?> binding) {
+		return binding != null && binding.getClass().getName().endsWith(GENERATED_BINDING_SUFFIX);
+	}
+
+	private ElementBinding<?, ?> resolveType(Class<?> type) {
+		ElementBuilder elementBuilder = type.getAnnotation(ElementBuilder.class);
+		if (elementBuilder != null) {
+			return forBuilder(elementBuilder.value());
+		}
+		Method newBuilder = staticMethod(type, "newBuilder");
+		if (newBuilder != null) {
+			Class<?> builderType = newBuilder.getReturnType();
+			ElementBinding<?, ?> result = this.builderBindings.get(builderType);
+			if (result == null) {
+				result = createBinding(builderType, newBuilder, null);
+				ElementBinding<?, ?> temp = this.builderBindings.putIfAbsent(builderType, result);
+				if (temp != null) {
+					result = temp;
+				}
+			}
+			return result;
+		}
+		return SimpleTypeBinding.forType(type);
+	}
+
+	private ElementBinding<?, ?> createBinding(Class<?> builderType, Method factoryMethod, Constructor<?> factoryConstructor) {
+		if (this.useGenerated) {
+			ElementBinding<?, ?> generated = loadGenerated(builderType);
+			if (generated != null) {
+				return generated;
+			}
+		}
+		return new ReflectiveElementBinding(this, builderType, factoryMethod, factoryConstructor);
+	}
+
+	private static ElementBinding<?, ?> loadGenerated(Class<?> builderType) {
+		try {
+			Class<?> bindingType = Class.forName(builderType.getName() + GENERATED_BINDING_SUFFIX, true, builderType.getClassLoader());
+			Field instance = bindingType.getField(GENERATED_BINDING_INSTANCE);
+			return (ElementBinding<?, ?>) instance.get(null);
+		} catch (ClassNotFoundException e) {
+			return null;
+		} catch (NoSuchFieldException e) {
+			return null;
+		} catch (IllegalAccessException e) {
+			return null;
+		} catch (ClassCastException e) {
+			return null;
+		}
+	}
+
+	private static Method staticMethod(Class<?> type, String name) {
+		try {
+			Method temp = type.getMethod(name);
+			return Modifier.isStatic(temp.getModifiers()) ? temp : null;
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+}
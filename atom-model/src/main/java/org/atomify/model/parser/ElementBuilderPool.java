@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Pool of the builders of one {@link AtomStreamParser}. The builders are kept per binding after
+ * their value was built and {@link ElementBinding#recycle(Object) recycled}. Since a binding only
+ * needs one builder per nesting level of its element, a few idle builders per binding are enough
+ * to parse any number of elements without creating new builders.
+ */
+final class ElementBuilderPool {
+	/**
+	 * The maximum number of idle builders kept per binding.
+	 */
+	static final int MAX_IDLE = 8;
+
+	private final Map<ElementBinding<?, ?>, Idle> idle;
+	private long created;
+	private long reused;
+
+	ElementBuilderPool() {
+		this.idle = new IdentityHashMap<ElementBinding<?, ?>, Idle>();
+	}
+
+	/**
+	 * Returns an idle builder of the binding prepared for the element or a new builder if there is
+	 * no idle one.
+	 * 
+	 * @param binding The binding of the element
+	 * @param name The qualified name of the element
+	 * @return The builder to fill
+	 */
+	@SuppressWarnings("unchecked")
+	<B> B acquire(ElementBinding<B, ?> binding, QName name) {
+		Idle temp = this.idle.get(binding);
+		if (temp != null && temp.count > 0) {
+			B builder = (B) temp.builders[--temp.count];
+			temp.builders[temp.count] = null;
+			this.reused++;
+			return binding.reuseBuilder(builder, name);
+		}
+		this.created++;
+		return binding.newBuilder(name);
+	}
+
+	/**
+	 * Recycles the builder once its value was built and keeps it for the next element of the
+	 * binding.
+	 * 
+	 * @param binding The binding of the element
+	 * @param builder The builder whose value was built
+	 */
+	<B> void release(ElementBinding<B, ?> binding, B builder) {
+		Idle temp = this.idle.get(binding);
+		if (temp != null && temp.count == MAX_IDLE || !binding.recycle(builder)) {
+			return;
+		}
+		if (temp == null) {
+			temp = new Idle();
+			this.idle.put(binding, temp);
+		}
+		temp.builders[temp.count++] = builder;
+	}
+
+	long getCreatedCount() {
+		return this.created;
+	}
+
+	long getReusedCount() {
+		return this.reused;
+	}
+
+	private static final class Idle {
+		private final Object[] builders = new Object[MAX_IDLE];
+		private int count;
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.atomify.model.AtomConstants;
+import org.atomify.model.syndication.AtomEntryBuilder;
+import org.atomify.model.syndication.AtomFeedBuilder;
+
+/**
+ * Feed, entry or source binding reading only the child elements selected by an
+ * {@link AtomProjection}. Other child elements are skipped by the parser without building them.
+ */
+final class ProjectionBinding<T> extends ElementBinding<Object, T> {
+	private final ElementBinding<Object, T> delegate;
+	private final AtomProjection projection;
+
+	@SuppressWarnings("unchecked")
+	ProjectionBinding(ElementBinding<?, T> delegate, AtomProjection projection) {
+		this.delegate = (ElementBinding<Object, T>) delegate;
+		this.projection = projection;
+	}
+
+	@Override
+	protected Object newBuilder(QName name) {
+		return partial(this.delegate.newBuilder(name));
+	}
+
+	@Override
+	protected Object reuseBuilder(Object builder, QName name) {
+		return partial(this.delegate.reuseBuilder(builder, name));
+	}
+
+	private static Object partial(Object builder) {
+		if (builder instanceof AtomEntryBuilder) {
+			((AtomEntryBuilder) builder).setPartial(true);
+		} else if (builder instanceof AtomFeedBuilder) {
+			((AtomFeedBuilder) builder).setPartial(true);
+		}
+		return builder;
+	}
+
+	@Override
+	protected boolean attribute(Object builder, QName name, String value) {
+		return this.delegate.attribute(builder, name, value);
+	}
+
+	@Override
+	protected boolean element(Object builder, QName name, AtomStreamParser parser) throws XMLStreamException {
+		if (this.projection.isSelected(name, parser)
+				|| (builder instanceof AtomFeedBuilder && AtomConstants.ATOM_NS_URI.equals(name.getNamespaceURI()) && "entry".equals(name
+						.getLocalPart()))) {
+			return this.delegate.element(builder, name, parser);
+		}
+		parser.skip();
+		return true;
+	}
+
+	@Override
+	protected boolean hasText() {
+		return this.delegate.hasText();
+	}
+
+	@Override
+	protected void text(Object builder, String text) {
+		this.delegate.text(builder, text);
+	}
+
+	@Override
+	protected boolean hasComments() {
+		return this.delegate.hasComments();
+	}
+
+	@Override
+	protected void comment(Object builder, String comment) {
+		this.delegate.comment(builder, comment);
+	}
+
+	@Override
+	protected T build(Object builder) {
+		return this.delegate.build(builder);
+	}
+
+	@Override
+	protected boolean recycle(Object builder) {
+		return this.delegate.recycle(builder);
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.atomify.model.common.XhtmlDivElement;
+import org.atomify.model.extension.AtomForeignElementContent;
+import org.atomify.model.extension.AtomForeignMarkup;
+import org.atomify.model.extension.AtomSimpleExtension;
+import org.atomify.model.extension.AtomStructuredExtension;
+
+/**
+ * Binding keeping xhtml divs, structured extensions and foreign markup as raw markup. The name and
+ * attributes of the element are read right away while the children are kept as the markup
+ * captured by {@link AtomStreamParser#capture()} and only built when they are accessed. An
+ * extension with nothing but text becomes a simple extension like the extension builder does.
+ */
+final class RawMarkupBinding extends ElementBinding<Object, Object> {
+
+	/**
+	 * The kind of element kept as raw markup.
+	 */
+	enum Kind {
+		XHTML_DIV,
+		EXTENSION,
+		FOREIGN_MARKUP;
+	}
+
+	private final Kind kind;
+	private final ElementBinding<?, AtomForeignMarkup> markupBinding;
+
+	RawMarkupBinding(ElementBindings bindings, Kind kind) {
+		this.kind = kind;
+		this.markupBinding = bindings.forType(AtomForeignMarkup.class);
+	}
+
+	/**
+	 * Reads the element the parser is positioned at.
+	 * 
+	 * @param parser The parser positioned at the start element
+	 * @param name The qualified name of the element
+	 * @return The element with its children kept as raw markup
+	 * @throws XMLStreamException If the document is not well formed
+	 */
+	Object read(AtomStreamParser parser, QName name) throws XMLStreamException {
+		Map<QName, String> attributes = parser.getAttributes();
+		String markup = parser.capture();
+		if (this.kind == Kind.EXTENSION && attributes.isEmpty()) {
+			int children = parser.getCapturedChildCount();
+			String text = parser.getCapturedText();
+			if (children == 0 || (children == 1 && text != null)) {
+				return new AtomSimpleExtension(name, text);
+			}
+		}
+		RawXmlElement<AtomForeignMarkup> content = new RawXmlElement<AtomForeignMarkup>(name, markup, this.markupBinding);
+		switch (this.kind) {
+			case XHTML_DIV:
+				return new XhtmlDivElement(attributes, content);
+			case EXTENSION:
+				return new AtomStructuredExtension(name, attributes, content);
+			default:
+				return new AtomForeignElementContent(name, attributes, content);
+		}
+	}
+
+	@Override
+	protected Object newBuilder(QName name) {
+		throw new UnsupportedOperationException("Raw markup is read with read(AtomStreamParser, QName)");
+	}
+
+	@Override
+	protected Object build(Object builder) {
+		throw new UnsupportedOperationException("Raw markup is read with read(AtomStreamParser, QName)");
+	}
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import java.io.StringReader;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.common.AtomLazyElement;
+import org.atomify.model.serializer.AtomXmlWriter;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * An element kept as the raw markup captured by {@link AtomStreamParser#capture()}. The model
+ * object is built with the element binding when requested and serializing replays the markup
+ * without building it.
+ * 
+ * @param <T> The type of the model object
+ */
+public final class RawXmlElement<T> implements AtomLazyElement<T> {
+	private final QName name;
+	private final String markup;
+	private final ElementBinding<?, T> binding;
+
+	RawXmlElement(QName name, String markup, ElementBinding<?, T> binding) {
+		this.name = AtomContractConstraint.notNull("name", name);
+		this.markup = AtomContractConstraint.notNull("markup", markup);
+		this.binding = AtomContractConstraint.notNull("binding", binding);
+	}
+
+	/**
+	 * Returns the qualified name of the element.
+	 * 
+	 * @return The name of the element
+	 */
+	public QName getName() {
+		return this.name;
+	}
+
+	/**
+	 * Returns the markup of the element. All namespaces used are declared within the markup.
+	 * 
+	 * @return The markup of the element
+	 */
+	public String getMarkup() {
+		return this.markup;
+	}
+
+	public T materialize() {
+		try {
+			XMLStreamReader reader = createReader();
+			try {
+				AtomStreamParser parser = new AtomStreamParser();
+				QName rootName = parser.begin(reader);
+				try {
+					return parser.read(this.binding, rootName);
+				} catch (RuntimeException e) {
+					throw parser.createParseException(e);
+				} finally {
+					parser.end();
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw createRuntimeException(e);
+		}
+	}
+
+	public void serialize(ContentHandler handler) throws SAXException {
+		if (handler instanceof AtomXmlWriter) {
+			((AtomXmlWriter) handler).writeMarkup(this.markup);
+			return;
+		}
+		try {
+			XMLStreamReader reader = createReader();
+			try {
+				AttributesImpl attributes = new AttributesImpl();
+				while (reader.hasNext()) {
+					switch (reader.next()) {
+						case XMLStreamConstants.START_ELEMENT:
+							for (int i = 0, count = reader.getNamespaceCount(); i < count; i++) {
+								String uri = reader.getNamespaceURI(i);
+								handler.startPrefixMapping(prefix(reader.getNamespacePrefix(i)), uri == null ? "" : uri);
+							}
+							attributes.clear();
+							for (int i = 0, count = reader.getAttributeCount(); i < count; i++) {
+								String uri = reader.getAttributeNamespace(i);
+								attributes.addAttribute(uri == null ? "" : uri, reader.getAttributeLocalName(i),
+										qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), "CDATA", reader.getAttributeValue(i));
+							}
+							handler.startElement(namespace(reader), reader.getLocalName(), qualifiedName(reader.getPrefix(), reader.getLocalName()),
+									attributes);
+							break;
+						case XMLStreamConstants.END_ELEMENT:
+							handler.endElement(namespace(reader), reader.getLocalName(), qualifiedName(reader.getPrefix(), reader.getLocalName()));
+							for (int i = 0, count = reader.getNamespaceCount(); i < count; i++) {
+								handler.endPrefixMapping(prefix(reader.getNamespacePrefix(i)));
+							}
+							break;
+						case XMLStreamConstants.CHARACTERS:
+						case XMLStreamConstants.CDATA:
+						case XMLStreamConstants.SPACE:
+							handler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+							break;
+						case XMLStreamConstants.COMMENT:
+							if (handler instanceof LexicalHandler) {
+								((LexicalHandler) handler).comment(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+							}
+							break;
+						default:
+							// the markup does not contain anything else
+							break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new SAXException(e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuilder().append("RawXmlElement [name=").append(this.name).append(", markup=").append(this.markup).append("]").toString();
+	}
+
+	private XMLStreamReader createReader() throws XMLStreamException {
+		return AtomStreamParser.createStreamReader(new InputSource(new StringReader(this.markup)));
+	}
+
+	private static String prefix(String prefix) {
+		return prefix == null ? "" : prefix;
+	}
+
+	private static String namespace(XMLStreamReader reader) {
+		String uri = reader.getNamespaceURI();
+		return uri == null ? "" : uri;
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		return prefix == null || prefix.length() == 0 ? localName : prefix + ":" + localName;
+	}
+
+	private RuntimeException createRuntimeException(Throwable t) {
+		assert t != null;
+		RuntimeException result = new RuntimeException("[" + t.getClass().getSimpleName() + "] " + t.getMessage());
+		result.setStackTrace(t.getStackTrace());
+		return result;
+	}
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import org.jbasics.parser.annotations.AnyAttribute;
+import org.jbasics.parser.annotations.AnyElement;
+import org.jbasics.parser.annotations.Attribute;
+import org.jbasics.parser.annotations.Comment;
+import org.jbasics.parser.annotations.Content;
+import org.jbasics.parser.annotations.Element;
+import org.jbasics.parser.annotations.ElementBuilder;
+import org.jbasics.parser.annotations.QualifiedName;
+import org.jbasics.pattern.builder.Builder;
+
+/**
+ * Binding driving a builder reflectively by its parser annotations. Used for all builders where no
+ * generated binding is available on the classpath. The annotations are scanned once when the
+ * binding is created, the builder methods are invoked by reflection.
+ */
+final class ReflectiveElementBinding extends ElementBinding<Object, Object> {
+	private final ElementBindings bindings;
+	private final Method factoryMethod;
+	private final Constructor<?> factoryConstructor;
+	private final Method buildMethod;
+	private final Map<QName, AttributeSetter> attributes;
+	private final Map<QName, ElementSetter> elements;
+	private Method qualifiedNameMethod;
+	private Method anyAttributeMethod;
+	private ElementSetter anyElement;
+	private Method contentMethod;
+	private Method commentMethod;
+
+	ReflectiveElementBinding(ElementBindings bindings, Class<?> builderType, Method factoryMethod, Constructor<?> factoryConstructor) {
+		this.bindings = bindings;
+		this.factoryMethod = factoryMethod;
+		this.factoryConstructor = factoryConstructor;
+		this.attributes = new HashMap<QName, AttributeSetter>();
+		this.elements = new HashMap<QName, ElementSetter>();
+		try {
+			this.buildMethod = builderType.getMethod("build");
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException("Builder " + builderType + " has no build() method");
+		}
+		for (Method m : builderType.getMethods()) {
+			if (Modifier.isStatic(m.getModifiers()) || m.isBridge()) {
+				continue;
+			}
+			if (m.isAnnotationPresent(QualifiedName.class)) {
+				this.qualifiedNameMethod = m;
+			} else if (m.isAnnotationPresent(Content.class)) {
+				this.contentMethod = m;
+			} else if (m.isAnnotationPresent(Comment.class)) {
+				this.commentMethod = m;
+			} else if (m.isAnnotationPresent(Attribute.class)) {
+				Attribute temp = m.getAnnotation(Attribute.class);
+				this.attributes.put(new QName(temp.namespace(), temp.name()), new AttributeSetter(m));
+			} else if (m.isAnnotationPresent(AnyAttribute.class)) {
+				this.anyAttributeMethod = m;
+			} else if (m.isAnnotationPresent(Element.class)) {
+				Element temp = m.getAnnotation(Element.class);
+				this.elements.put(new QName(temp.namespace(), temp.name()), new ElementSetter(m));
+			} else if (m.isAnnotationPresent(AnyElement.class)) {
+				this.anyElement = new ElementSetter(m);
+			}
+		}
+	}
+
+	@Override
+	protected Object newBuilder(QName name) {
+		try {
+			Object builder = this.factoryMethod != null ? this.factoryMethod.invoke(null) : this.factoryConstructor.newInstance();
+			if (this.qualifiedNameMethod != null) {
+				this.qualifiedNameMethod.invoke(builder, name);
+			}
+			return builder;
+		} catch (InstantiationException e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		} catch (InvocationTargetException e) {
+			throw ValueConverter.unwrap(e);
+		}
+	}
+
+	@Override
+	protected boolean attribute(Object builder, QName name, String value) {
+		AttributeSetter setter = this.attributes.get(name);
+		if (setter != null) {
+			invoke(setter.method, builder, setter.converter.convert(value));
+			return true;
+		} else if (this.anyAttributeMethod != null) {
+			invoke(this.anyAttributeMethod, builder, name, value);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	protected boolean element(Object builder, QName name, AtomStreamParser parser) throws XMLStreamException {
+		ElementSetter setter = this.elements.get(name);
+		if (setter == null) {
+			setter = this.anyElement;
+		}
+		if (setter == null) {
+			return false;
+		}
+		invoke(setter.method, builder, parser.read(setter.binding(), name));
+		return true;
+	}
+
+	@Override
+	protected boolean hasText() {
+		return this.contentMethod != null;
+	}
+
+	@Override
+	protected void text(Object builder, String text) {
+		invoke(this.contentMethod, builder, text);
+	}
+
+	@Override
+	protected boolean hasComments() {
+		return this.commentMethod != null;
+	}
+
+	@Override
+	protected void comment(Object builder, String comment) {
+		invoke(this.commentMethod, builder, comment);
+	}
+
+	@Override
+	protected Object build(Object builder) {
+		return invoke(this.buildMethod, builder);
+	}
+
+	@Override
+	protected boolean recycle(Object builder) {
+		if (builder instanceof Builder) {
+			((Builder<?>) builder).reset();
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	protected Object reuseBuilder(Object builder, QName name) {
+		if (this.qualifiedNameMethod != null) {
+			invoke(this.qualifiedNameMethod, builder, name);
+		}
+		return builder;
+	}
+
+	private static Object invoke(Method method, Object builder, Object... arguments) {
+		try {
+			return method.invoke(builder, arguments);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		} catch (InvocationTargetException e) {
+			throw ValueConverter.unwrap(e);
+		}
+	}
+
+	private static final class AttributeSetter {
+		private final Method method;
+		private final ValueConverter<?> converter;
+
+		AttributeSetter(Method method) {
+			Class<?>[] params = method.getParameterTypes();
+			if (params.length != 1) {
+				throw new IllegalArgumentException("Wrong signature for attribute method " + method);
+			}
+			this.method = method;
+			this.converter = ValueConverter.forType(params[0]);
+		}
+	}
+
+	private final class ElementSetter {
+		private final Method method;
+		private volatile ElementBinding<?, ?> binding;
+
+		ElementSetter(Method method) {
+			if (method.getParameterTypes().length != 1) {
+				throw new IllegalArgumentException("Wrong signature for element method " + method);
+			}
+			this.method = method;
+		}
+
+		/**
+		 * The binding of the child is resolved on first use since element types may refer to
+		 * themselves.
+		 */
+		ElementBinding<?, ?> binding() {
+			ElementBinding<?, ?> temp = this.binding;
+			if (temp == null) {
+				ElementBuilder elementBuilder = this.method.getAnnotation(ElementBuilder.class);
+				if (elementBuilder != null) {
+					temp = ReflectiveElementBinding.this.bindings.forBuilder(elementBuilder.value());
+				} else {
+					temp = ReflectiveElementBinding.this.bindings.forType(this.method.getParameterTypes()[0]);
+				}
+				this.binding = temp;
+			}
+			return temp;
+		}
+	}
+
+}
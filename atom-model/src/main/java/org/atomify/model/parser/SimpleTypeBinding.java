@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Binding for elements holding a simple typed value like a {@link String} or a
+ * {@link java.net.URI}. As with the simple type builder of the builder parser only the last text
+ * chunk is kept and attributes are ignored.
+ * 
+ * @param <T> The type of the value
+ */
+public final class SimpleTypeBinding<T> extends ElementBinding<String[], T> {
+	private final ValueConverter<T> converter;
+
+	private SimpleTypeBinding(ValueConverter<T> converter) {
+		this.converter = converter;
+	}
+
+	/**
+	 * Creates the binding for the given simple type.
+	 * 
+	 * @param type The type of the value (must have a static xmlValueOf(String) or valueOf(String)
+	 *            method or a string constructor)
+	 * @return The binding
+	 */
+	public static <T> SimpleTypeBinding<T> forType(Class<T> type) {
+		return new SimpleTypeBinding<T>(ValueConverter.forType(type));
+	}
+
+	@Override
+	protected String[] newBuilder(QName name) {
+		return new String[1];
+	}
+
+	@Override
+	protected boolean recycle(String[] builder) {
+		builder[0] = null;
+		return true;
+	}
+
+	@Override
+	protected boolean attribute(String[] builder, QName name, String value) {
+		return true;
+	}
+
+	@Override
+	protected boolean hasText() {
+		return true;
+	}
+
+	@Override
+	protected void text(String[] builder, String text) {
+		builder[0] = text;
+	}
+
+	@Override
+	protected T build(String[] builder) {
+		return builder[0] == null ? null : this.converter.convert(builder[0]);
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+
+import org.atomify.model.AtomValueCache;
+import org.jbasics.net.mediatype.MediaType;
+
+/**
+ * Converts the string value of an attribute or a simple typed element to the type required by the
+ * builder method. Like the builder parser a static xmlValueOf(String) method is used first, then a
+ * static valueOf(String) method and finally a constructor taking a string. URIs and media types
+ * are interned with the {@link AtomValueCache}.
+ * 
+ * @param <T> The type converted to
+ */
+abstract class ValueConverter<T> {
+	private static final ValueConverter<String> STRING = new ValueConverter<String>() {
+		@Override
+		public String convert(String value) {
+			return value;
+		}
+	};
+	private static final ValueConverter<URI> URI_REFERENCE = new ValueConverter<URI>() {
+		@Override
+		public URI convert(String value) {
+			return AtomValueCache.URIS.valueOf(value);
+		}
+	};
+	private static final ValueConverter<MediaType> MEDIA_TYPE = new ValueConverter<MediaType>() {
+		@Override
+		public MediaType convert(String value) {
+			return AtomValueCache.MEDIA_TYPES.valueOf(value);
+		}
+	};
+
+	public abstract T convert(String value);
+
+	@SuppressWarnings("unchecked")
+	public static <T> ValueConverter<T> forType(Class<T> type) {
+		if (type == String.class) {
+			return (ValueConverter<T>) STRING;
+		} else if (type == URI.class) {
+			return (ValueConverter<T>) URI_REFERENCE;
+		} else if (type == MediaType.class) {
+			return (ValueConverter<T>) MEDIA_TYPE;
+		}
+		Class<?> valueType = type.isPrimitive() ? wrapperType(type) : type;
+		Method factoryMethod = staticFactoryMethod(valueType, "xmlValueOf");
+		if (factoryMethod == null) {
+			factoryMethod = staticFactoryMethod(valueType, "valueOf");
+		}
+		if (factoryMethod != null) {
+			return (ValueConverter<T>) new FactoryMethodConverter<Object>(factoryMethod);
+		}
+		try {
+			return (ValueConverter<T>) new ConstructorConverter<Object>(valueType.getConstructor(String.class));
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException("Cannot find static xmlValueOf(String) or valueOf(String) method or string constructor ("
+					+ type + ")");
+		}
+	}
+
+	private static Method staticFactoryMethod(Class<?> type, String name) {
+		try {
+			Method temp = type.getMethod(name, String.class);
+			if (Modifier.isStatic(temp.getModifiers()) && type.isAssignableFrom(temp.getReturnType())) {
+				return temp;
+			}
+		} catch (NoSuchMethodException e) {
+			// no such factory method
+		}
+		return null;
+	}
+
+	private static Class<?> wrapperType(Class<?> primitive) {
+		if (primitive == Boolean.TYPE) {
+			return Boolean.class;
+		} else if (primitive == Integer.TYPE) {
+			return Integer.class;
+		} else if (primitive == Long.TYPE) {
+			return Long.class;
+		} else if (primitive == Short.TYPE) {
+			return Short.class;
+		} else if (primitive == Byte.TYPE) {
+			return Byte.class;
+		} else if (primitive == Double.TYPE) {
+			return Double.class;
+		} else if (primitive == Float.TYPE) {
+			return Float.class;
+		}
+		throw new IllegalArgumentException("Unsupported primitive type " + primitive);
+	}
+
+	static RuntimeException unwrap(InvocationTargetException e) {
+		Throwable cause = e.getCause() == null ? e : e.getCause();
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new IllegalArgumentException(cause.getMessage(), cause);
+	}
+
+	private static final class FactoryMethodConverter<T> extends ValueConverter<T> {
+		private final Method method;
+
+		FactoryMethodConverter(Method method) {
+			this.method = method;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T convert(String value) {
+			try {
+				return (T) this.method.invoke(null, value);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			} catch (InvocationTargetException e) {
+				throw unwrap(e);
+			}
+		}
+	}
+
+	private static final class ConstructorConverter<T> extends ValueConverter<T> {
+		private final Constructor<?> constructor;
+
+		ConstructorConverter(Constructor<?> constructor) {
+			this.constructor = constructor;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T convert(String value) {
+			try {
+				return (T) this.constructor.newInstance(value);
+			} catch (InstantiationException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			} catch (InvocationTargetException e) {
+				throw unwrap(e);
+			}
+		}
+	}
+
+}
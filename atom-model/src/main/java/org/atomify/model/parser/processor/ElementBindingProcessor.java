@@ -0,0 +1,579 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor generating an {@link org.atomify.model.parser.ElementBinding} for each
+ * builder reachable from a type annotated with the jbasics ElementImplementors or
+ * ElementImplementor annotation. The generated binding calls the builder methods annotated with
+ * the jbasics parser annotations directly, so parsing does not need to scan annotations or invoke
+ * methods reflectively. The binding is named like the builder with the suffix _Binding and is
+ * picked up by {@link org.atomify.model.parser.ElementBindings} at runtime.
+ * <p>
+ * The builders are resolved the same way the builder parser does it at runtime. Builders which
+ * cannot be generated (nested or generic builder classes or unsupported attribute types) are left
+ * to the reflective binding. Builders with a public reset() method are reset and reused by the
+ * parser after their value was built.
+ * </p>
+ */
+@SupportedAnnotationTypes({ ElementBindingProcessor.ELEMENT_IMPLEMENTORS, ElementBindingProcessor.ELEMENT_IMPLEMENTOR })
+public class ElementBindingProcessor extends AbstractProcessor {
+	static final String ANNOTATION_PACKAGE = "org.jbasics.parser.annotations.";
+	static final String ELEMENT_IMPLEMENTORS = ANNOTATION_PACKAGE + "ElementImplementors";
+	static final String ELEMENT_IMPLEMENTOR = ANNOTATION_PACKAGE + "ElementImplementor";
+	static final String ELEMENT_BUILDER = ANNOTATION_PACKAGE + "ElementBuilder";
+	static final String ELEMENT = ANNOTATION_PACKAGE + "Element";
+	static final String ANY_ELEMENT = ANNOTATION_PACKAGE + "AnyElement";
+	static final String ATTRIBUTE = ANNOTATION_PACKAGE + "Attribute";
+	static final String ANY_ATTRIBUTE = ANNOTATION_PACKAGE + "AnyAttribute";
+	static final String CONTENT = ANNOTATION_PACKAGE + "Content";
+	static final String COMMENT = ANNOTATION_PACKAGE + "Comment";
+	static final String QUALIFIED_NAME = ANNOTATION_PACKAGE + "QualifiedName";
+
+	static final String BINDING_SUFFIX = "_Binding";
+	static final String PARSER_PACKAGE = "org.atomify.model.parser.";
+
+	private final Set<String> generated = new HashSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Map<String, BuilderModel> builders = new LinkedHashMap<String, BuilderModel>();
+		Deque<BuilderModel> pending = new ArrayDeque<BuilderModel>();
+		for (TypeElement annotation : annotations) {
+			for (Element root : roundEnv.getElementsAnnotatedWith(annotation)) {
+				for (AnnotationMirror implementor : implementors(root)) {
+					TypeMirror type = (TypeMirror) value(implementor, "builderClass");
+					ChildModel child = resolve(type, null, builders, pending);
+					if (child.builder == null) {
+						warning(root, "Root element implementor " + type + " has no builder");
+					}
+				}
+			}
+		}
+		while (!pending.isEmpty()) {
+			BuilderModel builder = pending.poll();
+			scan(builder, builders, pending);
+		}
+		for (BuilderModel builder : builders.values()) {
+			if (builder.isGeneratable() && this.generated.add(builder.bindingName())) {
+				write(builder);
+			}
+		}
+		return false;
+	}
+
+	private List<AnnotationMirror> implementors(Element root) {
+		List<AnnotationMirror> result = new java.util.ArrayList<AnnotationMirror>();
+		AnnotationMirror multiple = annotation(root, ELEMENT_IMPLEMENTORS);
+		if (multiple != null) {
+			for (Object temp : (List<?>) value(multiple, "value")) {
+				result.add((AnnotationMirror) ((AnnotationValue) temp).getValue());
+			}
+		}
+		AnnotationMirror single = annotation(root, ELEMENT_IMPLEMENTOR);
+		if (single != null) {
+			result.add(single);
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the binding of an element type like the builder parser does: an ElementBuilder
+	 * annotation on the method or the type, a static newBuilder() method on the type or a simple
+	 * type created from the element text.
+	 */
+	private ChildModel resolve(TypeMirror type, ExecutableElement method, Map<String, BuilderModel> builders, Deque<BuilderModel> pending) {
+		AnnotationMirror elementBuilder = method == null ? null : annotation(method, ELEMENT_BUILDER);
+		TypeElement typeElement = type.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) type).asElement() : null;
+		if (elementBuilder == null && typeElement != null) {
+			elementBuilder = annotation(typeElement, ELEMENT_BUILDER);
+		}
+		if (elementBuilder != null) {
+			TypeElement builderType = (TypeElement) ((DeclaredType) value(elementBuilder, "value")).asElement();
+			String factory;
+			if (staticMethod(builderType, "newInstance") != null) {
+				factory = erasure(builderType.asType()) + ".newInstance()";
+			} else {
+				factory = "new " + erasure(builderType.asType()) + "()";
+			}
+			return new ChildModel(builder(builderType, factory, builders, pending), type);
+		}
+		ExecutableElement newBuilder = typeElement == null ? null : staticMethod(typeElement, "newBuilder");
+		if (newBuilder != null && newBuilder.getReturnType().getKind() == TypeKind.DECLARED) {
+			TypeElement builderType = (TypeElement) ((DeclaredType) newBuilder.getReturnType()).asElement();
+			return new ChildModel(builder(builderType, erasure(type) + ".newBuilder()", builders, pending), type);
+		}
+		return new ChildModel(null, type);
+	}
+
+	private BuilderModel builder(TypeElement builderType, String factory, Map<String, BuilderModel> builders, Deque<BuilderModel> pending) {
+		String name = builderType.getQualifiedName().toString();
+		BuilderModel result = builders.get(name);
+		if (result == null) {
+			result = new BuilderModel(builderType, factory);
+			builders.put(name, result);
+			pending.add(result);
+		}
+		return result;
+	}
+
+	private void scan(BuilderModel builder, Map<String, BuilderModel> builders, Deque<BuilderModel> pending) {
+		TypeElement type = builder.type;
+		if (type.getNestingKind() != NestingKind.TOP_LEVEL || !type.getTypeParameters().isEmpty()
+				|| !type.getModifiers().contains(Modifier.PUBLIC)) {
+			builder.unsupported = "builder " + type + " is not a public top level class without type parameters";
+			return;
+		}
+		DeclaredType declared = (DeclaredType) type.asType();
+		for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+			if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)) {
+				continue;
+			}
+			ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declared, method);
+			List<? extends TypeMirror> params = methodType.getParameterTypes();
+			String methodName = method.getSimpleName().toString();
+			if (method.getParameters().isEmpty()) {
+				if ("build".equals(methodName)) {
+					builder.builtType = erasure(methodType.getReturnType());
+				} else if ("reset".equals(methodName)) {
+					builder.resettable = true;
+				}
+				continue;
+			}
+			AnnotationMirror temp;
+			if (annotation(method, QUALIFIED_NAME) != null) {
+				builder.qualifiedNameMethod = methodName;
+			} else if (annotation(method, CONTENT) != null) {
+				builder.contentMethod = methodName;
+			} else if (annotation(method, COMMENT) != null) {
+				builder.commentMethod = methodName;
+			} else if ((temp = annotation(method, ATTRIBUTE)) != null) {
+				String conversion = conversion(params.get(0));
+				if (conversion == null) {
+					builder.unsupported = "attribute type " + params.get(0) + " of " + type + "." + methodName + " cannot be converted";
+					return;
+				}
+				builder.attribute((String) value(temp, "namespace"), (String) value(temp, "name"), methodName, conversion,
+						throwsChecked(params.get(0)));
+			} else if (annotation(method, ANY_ATTRIBUTE) != null) {
+				builder.anyAttributeMethod = methodName;
+			} else if ((temp = annotation(method, ELEMENT)) != null) {
+				builder.element((String) value(temp, "namespace"), (String) value(temp, "name"), methodName,
+						resolve(params.get(0), method, builders, pending));
+			} else if (annotation(method, ANY_ELEMENT) != null) {
+				builder.anyElementMethod = methodName;
+				builder.anyElement = resolve(params.get(0), method, builders, pending);
+			}
+		}
+		if (builder.builtType == null) {
+			builder.unsupported = "builder " + type + " has no build() method";
+		}
+	}
+
+	/**
+	 * Returns the java expression converting the string variable value to the given type or null
+	 * if the type cannot be converted.
+	 */
+	private String conversion(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			type = processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).asType();
+		}
+		if (type.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		String name = erasure(type);
+		if ("java.lang.String".equals(name)) {
+			return "value";
+		} else if ("java.net.URI".equals(name)) {
+			return "org.atomify.model.AtomValueCache.URIS.valueOf(value)";
+		} else if ("org.jbasics.net.mediatype.MediaType".equals(name)) {
+			return "org.atomify.model.AtomValueCache.MEDIA_TYPES.valueOf(value)";
+		}
+		TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+		if (valueOfMethod(typeElement, type, "xmlValueOf") != null) {
+			return name + ".xmlValueOf(value)";
+		} else if (valueOfMethod(typeElement, type, "valueOf") != null) {
+			return name + ".valueOf(value)";
+		} else if (stringConstructor(typeElement) != null) {
+			return "new " + name + "(value)";
+		}
+		return null;
+	}
+
+	private boolean throwsChecked(TypeMirror type) {
+		if (type.getKind() != TypeKind.DECLARED) {
+			return false;
+		}
+		String name = erasure(type);
+		if ("java.lang.String".equals(name) || "java.net.URI".equals(name) || "org.jbasics.net.mediatype.MediaType".equals(name)) {
+			return false;
+		}
+		TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+		ExecutableElement converter = valueOfMethod(typeElement, type, "xmlValueOf");
+		if (converter == null) {
+			converter = valueOfMethod(typeElement, type, "valueOf");
+		}
+		if (converter == null) {
+			converter = stringConstructor(typeElement);
+		}
+		TypeMirror runtimeException = processingEnv.getElementUtils().getTypeElement("java.lang.RuntimeException").asType();
+		TypeMirror error = processingEnv.getElementUtils().getTypeElement("java.lang.Error").asType();
+		for (TypeMirror thrown : converter.getThrownTypes()) {
+			if (!processingEnv.getTypeUtils().isSubtype(thrown, runtimeException) && !processingEnv.getTypeUtils().isSubtype(thrown, error)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private ExecutableElement valueOfMethod(TypeElement typeElement, TypeMirror type, String name) {
+		for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(typeElement))) {
+			if (method.getSimpleName().contentEquals(name) && method.getModifiers().contains(Modifier.STATIC)
+					&& method.getModifiers().contains(Modifier.PUBLIC) && isStringParameter(method)
+					&& processingEnv.getTypeUtils().isAssignable(method.getReturnType(), type)) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	private ExecutableElement stringConstructor(TypeElement typeElement) {
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(typeElement.getEnclosedElements())) {
+			if (constructor.getModifiers().contains(Modifier.PUBLIC) && isStringParameter(constructor)) {
+				return constructor;
+			}
+		}
+		return null;
+	}
+
+	private boolean isStringParameter(ExecutableElement method) {
+		return method.getParameters().size() == 1 && "java.lang.String".equals(erasure(method.getParameters().get(0).asType()));
+	}
+
+	private ExecutableElement staticMethod(TypeElement type, String name) {
+		for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+			if (method.getSimpleName().contentEquals(name) && method.getParameters().isEmpty() && method.getModifiers().contains(Modifier.STATIC)
+					&& method.getModifiers().contains(Modifier.PUBLIC)) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	private AnnotationMirror annotation(Element element, String annotationType) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	private Object value(AnnotationMirror mirror, String name) {
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : processingEnv.getElementUtils()
+				.getElementValuesWithDefaults(mirror).entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(name)) {
+				return entry.getValue().getValue();
+			}
+		}
+		return null;
+	}
+
+	private String erasure(TypeMirror type) {
+		return processingEnv.getTypeUtils().erasure(type).toString();
+	}
+
+	private void warning(Element element, String message) {
+		processingEnv.getMessager().printMessage(Kind.WARNING, message, element);
+	}
+
+	private void write(BuilderModel builder) {
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(builder.bindingName(), builder.type);
+			Writer out = file.openWriter();
+			try {
+				out.write(builder.source());
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR, "Cannot write binding " + builder.bindingName() + ": " + e.getMessage(),
+					builder.type);
+		}
+	}
+
+	/**
+	 * The binding of a child element type. Either a builder or a simple type if the builder is null.
+	 */
+	static final class ChildModel {
+		final BuilderModel builder;
+		final TypeMirror type;
+
+		ChildModel(BuilderModel builder, TypeMirror type) {
+			this.builder = builder;
+			this.type = type;
+		}
+	}
+
+	/**
+	 * Everything known about a builder to write its binding.
+	 */
+	final class BuilderModel {
+		final TypeElement type;
+		final String factory;
+		final Map<String, Map<String, String[]>> attributes = new LinkedHashMap<String, Map<String, String[]>>();
+		final Map<String, Map<String, Object[]>> elements = new LinkedHashMap<String, Map<String, Object[]>>();
+		String builtType;
+		boolean resettable;
+		String qualifiedNameMethod;
+		String contentMethod;
+		String commentMethod;
+		String anyAttributeMethod;
+		String anyElementMethod;
+		ChildModel anyElement;
+		String unsupported;
+
+		BuilderModel(TypeElement type, String factory) {
+			this.type = type;
+			this.factory = factory;
+		}
+
+		boolean isGeneratable() {
+			if (this.unsupported != null) {
+				warning(this.type, "No binding generated, " + this.unsupported);
+				return false;
+			}
+			return true;
+		}
+
+		String bindingName() {
+			return this.type.getQualifiedName() + BINDING_SUFFIX;
+		}
+
+		void attribute(String namespace, String localName, String method, String conversion, boolean checked) {
+			Map<String, String[]> temp = this.attributes.get(namespace);
+			if (temp == null) {
+				temp = new LinkedHashMap<String, String[]>();
+				this.attributes.put(namespace, temp);
+			}
+			if (!temp.containsKey(localName)) {
+				temp.put(localName, new String[] { method, conversion, Boolean.toString(checked) });
+			}
+		}
+
+		void element(String namespace, String localName, String method, ChildModel child) {
+			Map<String, Object[]> temp = this.elements.get(namespace);
+			if (temp == null) {
+				temp = new LinkedHashMap<String, Object[]>();
+				this.elements.put(namespace, temp);
+			}
+			if (!temp.containsKey(localName)) {
+				temp.put(localName, new Object[] { method, child });
+			}
+		}
+
+		String source() {
+			String builderName = this.type.getQualifiedName().toString();
+			String packageName = processingEnv.getElementUtils().getPackageOf(this.type).getQualifiedName().toString();
+			String simpleName = this.type.getSimpleName() + BINDING_SUFFIX;
+			Map<TypeMirror, String> simpleBindings = new LinkedHashMap<TypeMirror, String>();
+			StringBuilder body = new StringBuilder();
+
+			body.append("\t@Override\n\tprotected ").append(builderName).append(" newBuilder(javax.xml.namespace.QName name) {\n");
+			if (this.qualifiedNameMethod != null) {
+				body.append("\t\t").append(builderName).append(" builder = ").append(this.factory).append(";\n");
+				body.append("\t\tbuilder.").append(this.qualifiedNameMethod).append("(name);\n");
+				body.append("\t\treturn builder;\n");
+			} else {
+				body.append("\t\treturn ").append(this.factory).append(";\n");
+			}
+			body.append("\t}\n\n");
+
+			if (!this.attributes.isEmpty() || this.anyAttributeMethod != null) {
+				body.append("\t@Override\n\tprotected boolean attribute(").append(builderName)
+						.append(" builder, javax.xml.namespace.QName name, java.lang.String value) {\n");
+				if (!this.attributes.isEmpty()) {
+					body.append("\t\tjava.lang.String namespace = name.getNamespaceURI();\n");
+					for (Map.Entry<String, Map<String, String[]>> namespace : this.attributes.entrySet()) {
+						body.append("\t\tif (").append(literal(namespace.getKey())).append(".equals(namespace)) {\n");
+						body.append("\t\t\tswitch (name.getLocalPart()) {\n");
+						for (Map.Entry<String, String[]> attribute : namespace.getValue().entrySet()) {
+							String[] info = attribute.getValue();
+							String call = "builder." + info[0] + "(" + info[1] + ");\n";
+							body.append("\t\t\t\tcase ").append(literal(attribute.getKey())).append(":\n");
+							if (Boolean.parseBoolean(info[2])) {
+								body.append("\t\t\t\t\ttry {\n\t\t\t\t\t\t").append(call);
+								body.append("\t\t\t\t\t} catch (java.lang.RuntimeException e) {\n\t\t\t\t\t\tthrow e;\n");
+								body.append("\t\t\t\t\t} catch (java.lang.Exception e) {\n");
+								body.append("\t\t\t\t\t\tthrow new java.lang.IllegalArgumentException(e.getMessage(), e);\n\t\t\t\t\t}\n");
+							} else {
+								body.append("\t\t\t\t\t").append(call);
+							}
+							body.append("\t\t\t\t\treturn true;\n");
+						}
+						body.append("\t\t\t\tdefault:\n\t\t\t\t\tbreak;\n\t\t\t}\n\t\t}\n");
+					}
+				}
+				if (this.anyAttributeMethod != null) {
+					body.append("\t\tbuilder.").append(this.anyAttributeMethod).append("(name, value);\n\t\treturn true;\n");
+				} else {
+					body.append("\t\treturn false;\n");
+				}
+				body.append("\t}\n\n");
+			}
+
+			if (!this.elements.isEmpty() || this.anyElement != null) {
+				body.append("\t@Override\n\tprotected boolean element(").append(builderName).append(" builder, javax.xml.namespace.QName name, ")
+						.append(PARSER_PACKAGE).append("AtomStreamParser parser) throws javax.xml.stream.XMLStreamException {\n");
+				if (!this.elements.isEmpty()) {
+					body.append("\t\tjava.lang.String namespace = name.getNamespaceURI();\n");
+					for (Map.Entry<String, Map<String, Object[]>> namespace : this.elements.entrySet()) {
+						body.append("\t\tif (").append(literal(namespace.getKey())).append(".equals(namespace)) {\n");
+						body.append("\t\t\tswitch (name.getLocalPart()) {\n");
+						for (Map.Entry<String, Object[]> element : namespace.getValue().entrySet()) {
+							Object[] info = element.getValue();
+							body.append("\t\t\t\tcase ").append(literal(element.getKey())).append(":\n");
+							body.append("\t\t\t\t\tbuilder.").append(info[0]).append("(").append(read((ChildModel) info[1], simpleBindings))
+									.append(");\n");
+							body.append("\t\t\t\t\treturn true;\n");
+						}
+						body.append("\t\t\t\tdefault:\n\t\t\t\t\tbreak;\n\t\t\t}\n\t\t}\n");
+					}
+				}
+				if (this.anyElement != null) {
+					body.append("\t\tbuilder.").append(this.anyElementMethod).append("(").append(read(this.anyElement, simpleBindings))
+							.append(");\n\t\treturn true;\n");
+				} else {
+					body.append("\t\treturn false;\n");
+				}
+				body.append("\t}\n\n");
+			}
+
+			if (this.contentMethod != null) {
+				body.append("\t@Override\n\tprotected boolean hasText() {\n\t\treturn true;\n\t}\n\n");
+				body.append("\t@Override\n\tprotected void text(").append(builderName).append(" builder, java.lang.String text) {\n");
+				body.append("\t\tbuilder.").append(this.contentMethod).append("(text);\n\t}\n\n");
+			}
+			if (this.commentMethod != null) {
+				body.append("\t@Override\n\tprotected boolean hasComments() {\n\t\treturn true;\n\t}\n\n");
+				body.append("\t@Override\n\tprotected void comment(").append(builderName).append(" builder, java.lang.String comment) {\n");
+				body.append("\t\tbuilder.").append(this.commentMethod).append("(comment);\n\t}\n\n");
+			}
+			body.append("\t@Override\n\tprotected ").append(this.builtType).append(" build(").append(builderName).append(" builder) {\n");
+			body.append("\t\treturn builder.build();\n\t}\n\n");
+			if (this.resettable) {
+				body.append("\t@Override\n\tprotected boolean recycle(").append(builderName).append(" builder) {\n");
+				body.append("\t\tbuilder.reset();\n\t\treturn true;\n\t}\n\n");
+				if (this.qualifiedNameMethod != null) {
+					body.append("\t@Override\n\tprotected ").append(builderName).append(" reuseBuilder(").append(builderName)
+							.append(" builder, javax.xml.namespace.QName name) {\n");
+					body.append("\t\tbuilder.").append(this.qualifiedNameMethod).append("(name);\n\t\treturn builder;\n\t}\n\n");
+				}
+			}
+
+			StringBuilder result = new StringBuilder();
+			result.append("package ").append(packageName).append(";\n\n");
+			result.append("/**\n * Element binding for {@link ").append(builderName).append("} generated by the ")
+					.append(ElementBindingProcessor.class.getSimpleName()).append(" from the parser annotations. Do not edit.\n */\n");
+			result.append("public final class ").append(simpleName).append(" extends ").append(PARSER_PACKAGE).append("ElementBinding<")
+					.append(builderName).append(", ").append(this.builtType).append("> {\n");
+			result.append("\tpublic static final ").append(simpleName).append(" INSTANCE = new ").append(simpleName).append("();\n");
+			for (Map.Entry<TypeMirror, String> simple : simpleBindings.entrySet()) {
+				String simpleType = erasure(simple.getKey());
+				result.append("\tprivate static final ").append(PARSER_PACKAGE).append("SimpleTypeBinding<").append(simpleType).append("> ")
+						.append(simple.getValue()).append(" = ").append(PARSER_PACKAGE).append("SimpleTypeBinding.forType(").append(simpleType)
+						.append(".class);\n");
+			}
+			result.append("\n\tprivate ").append(simpleName).append("() {\n\t\t// singleton\n\t}\n\n");
+			result.append(body);
+			result.setLength(result.length() - 1);
+			result.append("}\n");
+			return result.toString();
+		}
+
+		private String read(ChildModel child, Map<TypeMirror, String> simpleBindings) {
+			if (child.builder == null) {
+				TypeMirror type = child.type;
+				if (type.getKind().isPrimitive()) {
+					type = processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).asType();
+				}
+				String field = null;
+				for (Map.Entry<TypeMirror, String> entry : simpleBindings.entrySet()) {
+					if (processingEnv.getTypeUtils().isSameType(entry.getKey(), type)) {
+						field = entry.getValue();
+					}
+				}
+				if (field == null) {
+					field = "SIMPLE_" + simpleBindings.size();
+					simpleBindings.put(type, field);
+				}
+				return "parser.read(" + field + ", name)";
+			} else if (child.builder.unsupported == null && child.builder.type.getKind() == ElementKind.CLASS) {
+				return "parser.read(" + child.builder.bindingName() + ".INSTANCE, name)";
+			}
+			// No generated binding, the binding is resolved at runtime
+			return "parser.read(" + PARSER_PACKAGE + "ElementBindings.getDefault().forType(" + erasure(child.type) + ".class), name)";
+		}
+
+		private String literal(String value) {
+			return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+		}
+	}
+
+}
@@ -25,6 +25,7 @@ package org.atomify.model.publishing;
 
 import org.atomify.model.AtomConstants;
 import org.atomify.model.common.AtomCommonAttributes;
+import org.atomify.model.serializer.SerializationSupport;
 import org.jbasics.net.mediatype.MediaType;
 import org.jbasics.net.mediatype.MediaTypeRange;
 import org.jbasics.pattern.builder.Builder;
@@ -138,8 +139,7 @@ public class AtomPubAccept extends AtomCommonAttributes {
 		attributes = initCommonAttributes(handler, attributes);
 		handler.startElement(AtomConstants.ATOM_PUB_NS_URI, "accept", AtomConstants.ATOM_PUB_NS_PREFIX + ":accept", attributes);
 		if (this.acceptMediaRange != null) {
-			char[] data = this.acceptMediaRange.toString().toCharArray();
-			handler.characters(data, 0, data.length);
+			SerializationSupport.characters(handler, this.acceptMediaRange.toString());
 		}
 		handler.endElement(AtomConstants.ATOM_PUB_NS_URI, "accept", AtomConstants.ATOM_PUB_NS_PREFIX + ":accept");
 	}
@@ -23,6 +23,7 @@
  */
 package org.atomify.model.publishing;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.net.URI;
 import java.util.ArrayList;
@@ -33,6 +34,7 @@ import java.util.List;
 import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.AtomDocument;
+import org.atomify.model.binary.AtomDocumentProxy;
 import org.atomify.model.extension.AtomForeignMarkup;
 import org.atomify.model.syndication.AtomCategory;
 import org.jbasics.net.mediatype.MediaType;
@@ -154,6 +156,13 @@ public class AtomPubCategories implements AtomDocument, Iterable<AtomCategory>,
 		return MEDIA_TYPE;
 	}
 
+	/**
+	 * Replaces the categories document by its {@link AtomDocumentProxy} when written by Java serialization.
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		return new AtomDocumentProxy(this);
+	}
+
 	/**
 	 * Returns true if the element or document is an inline category (meaning that the href is
 	 * null).
@@ -66,6 +66,20 @@ public class AtomPubCategoriesBuilder extends AtomCommonBuilder<AtomPubCategorie
 		}
 	}
 
+	@Override
+	public void reset() {
+		super.reset();
+		this.href = null;
+		this.fixed = null;
+		this.scheme = null;
+		if (this.categories != null) {
+			this.categories.clear();
+		}
+		if (this.undefinedContent != null) {
+			this.undefinedContent.clear();
+		}
+	}
+
 	@Attribute(name = "href", required = false)
 	public AtomPubCategoriesBuilder setOutOfLineCategories(URI href) {
 		this.href = href;
@@ -36,6 +36,7 @@ import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.common.AtomCommonAttributes;
 import org.atomify.model.extension.AtomExtension;
+import org.atomify.model.extension.AtomExtensionIndex;
 import org.atomify.model.syndication.AtomEntry;
 import org.atomify.model.syndication.AtomText;
 import org.jbasics.net.mediatype.AcceptMediaTypeRange;
@@ -77,6 +78,7 @@ public class AtomPubCollection extends AtomCommonAttributes {
 	private final List<AtomExtension> extensions;
 
 	private transient AcceptMediaTypeSet mediaTypeAcceptanceCache;
+	private transient volatile AtomExtensionIndex extensionIndex;
 
 	public static AtomPubCollectionBuilder newBuilder() {
 		return AtomPubCollectionBuilder.newInstance();
@@ -143,6 +145,34 @@ public class AtomPubCollection extends AtomCommonAttributes {
 		return this.extensions;
 	}
 
+	/**
+	 * Returns the first extension of the given type.
+	 * 
+	 * @param type The type of the extension (must not be null)
+	 * @return The extension or null if there is no extension of the type
+	 */
+	public <T extends AtomExtension> T getExtension(Class<T> type) {
+		return extensionIndex().get(type);
+	}
+
+	/**
+	 * Returns the first extension with the given qualified name.
+	 * 
+	 * @param name The qualified name of the extension element (must not be null)
+	 * @return The extension or null if there is no extension with the name
+	 */
+	public AtomExtension getExtension(QName name) {
+		return extensionIndex().get(name);
+	}
+
+	private AtomExtensionIndex extensionIndex() {
+		AtomExtensionIndex result = this.extensionIndex;
+		if (result == null) {
+			this.extensionIndex = result = AtomExtensionIndex.valueOf(this.extensions);
+		}
+		return result;
+	}
+
 	public MediaType matchAcceptedMediaType(MediaType defaultMediaType, MediaType... preferedTypes) {
 		AcceptMediaTypeSet temp = this.mediaTypeAcceptanceCache;
 		if (temp == null) {
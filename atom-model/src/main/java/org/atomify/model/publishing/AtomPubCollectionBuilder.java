@@ -76,6 +76,22 @@ public class AtomPubCollectionBuilder extends AtomCommonBuilder<AtomPubWorkspace
 		return temp;
 	}
 
+	@Override
+	public void reset() {
+		super.reset();
+		this.title = null;
+		this.href = null;
+		if (this.accepts != null) {
+			this.accepts.clear();
+		}
+		if (this.categories != null) {
+			this.categories.clear();
+		}
+		if (this.extensions != null) {
+			this.extensions.clear();
+		}
+	}
+
 	@Attribute(name = "href", required = true)
 	public AtomPubCollectionBuilder setHref(URI href) {
 		this.href = href;
@@ -32,6 +32,7 @@ import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomConstants;
 import org.atomify.model.extension.AtomExtension;
+import org.atomify.model.serializer.SerializationSupport;
 import org.jbasics.xml.types.XmlBooleanYesNoType;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -148,12 +149,11 @@ public class AtomPubControl implements AtomExtension {
 		QName name = EXTENSION_QNAME;
 		String namespace = name.getNamespaceURI();
 		String local = name.getLocalPart();
-		String qName = (name.getPrefix() != null && name.getPrefix().length() > 0 ? name.getPrefix() + ":" : "") + local;
+		String qName = SerializationSupport.qualifiedName(name);
 		handler.startElement(namespace, local, qName, attributes);
 		if (this.draft != null) {
 			handler.startElement(AtomConstants.ATOM_PUB_NS_URI, "draft", "app:draft", attributes);
-			char[] temp = this.draft.toXmlString().toCharArray();
-			handler.characters(temp, 0, temp.length);
+			SerializationSupport.characters(handler, this.draft.toXmlString());
 		}
 		for (AtomExtension child : this.extensions) {
 			child.serialize(handler, attributes);
@@ -23,16 +23,23 @@
  */
 package org.atomify.model.publishing;
 
+import java.io.ObjectStreamException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.AtomDocument;
+import org.atomify.model.binary.AtomDocumentProxy;
 import org.atomify.model.common.AtomCommonAttributes;
+import org.atomify.model.common.AtomXmlBase;
 import org.atomify.model.extension.AtomExtension;
+import org.atomify.model.extension.AtomExtensionIndex;
 import org.atomify.model.syndication.AtomPlainText;
 import org.atomify.model.syndication.AtomText;
 import org.jbasics.net.mediatype.MediaType;
@@ -71,6 +78,7 @@ public class AtomPubService extends AtomCommonAttributes implements AtomDocument
 
 	private final List<AtomPubWorkspace> workspaces;
 	private final List<AtomExtension> extensions;
+	private transient volatile AtomExtensionIndex extensionIndex;
 
 	public static AtomPubServiceBuilder newBuilder() {
 		return AtomPubServiceBuilder.newInstance();
@@ -90,6 +98,13 @@ public class AtomPubService extends AtomCommonAttributes implements AtomDocument
 		return MEDIA_TYPE;
 	}
 
+	/**
+	 * Replaces the service document by its {@link AtomDocumentProxy} when written by Java serialization.
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		return new AtomDocumentProxy(this);
+	}
+
 	public List<AtomPubWorkspace> getWorkspaces() {
 		return this.workspaces;
 	}
@@ -98,6 +113,34 @@ public class AtomPubService extends AtomCommonAttributes implements AtomDocument
 		return this.extensions;
 	}
 
+	/**
+	 * Returns the first extension of the given type.
+	 * 
+	 * @param type The type of the extension (must not be null)
+	 * @return The extension or null if there is no extension of the type
+	 */
+	public <T extends AtomExtension> T getExtension(Class<T> type) {
+		return extensionIndex().get(type);
+	}
+
+	/**
+	 * Returns the first extension with the given qualified name.
+	 * 
+	 * @param name The qualified name of the extension element (must not be null)
+	 * @return The extension or null if there is no extension with the name
+	 */
+	public AtomExtension getExtension(QName name) {
+		return extensionIndex().get(name);
+	}
+
+	private AtomExtensionIndex extensionIndex() {
+		AtomExtensionIndex result = this.extensionIndex;
+		if (result == null) {
+			this.extensionIndex = result = AtomExtensionIndex.valueOf(this.extensions);
+		}
+		return result;
+	}
+
 	public Iterator<AtomPubWorkspace> iterator() {
 		return this.workspaces.iterator();
 	}
@@ -163,6 +206,13 @@ public class AtomPubService extends AtomCommonAttributes implements AtomDocument
 		
 	}
 
+	@Override
+	public AtomXmlBase collectXmlBases(AtomXmlBase parent, Map<AtomCommonAttributes, AtomXmlBase> chains) {
+		AtomXmlBase chain = super.collectXmlBases(parent, chains);
+		collectXmlBases(chain, chains, this.workspaces);
+		return chain;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see java.lang.Object#hashCode()
@@ -27,13 +27,16 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.common.AtomCommonAttributes;
+import org.atomify.model.common.AtomXmlBase;
 import org.atomify.model.extension.AtomExtension;
+import org.atomify.model.extension.AtomExtensionIndex;
 import org.atomify.model.syndication.AtomPlainText;
 import org.atomify.model.syndication.AtomText;
 import org.jbasics.net.mediatype.MediaType;
@@ -53,6 +56,7 @@ public class AtomPubWorkspace extends AtomCommonAttributes implements Iterable<A
 	private final AtomText title;
 	private final List<AtomPubCollection> collections;
 	private final List<AtomExtension> extensions;
+	private transient volatile AtomExtensionIndex extensionIndex;
 
 	public static AtomPubWorkspaceBuilder newBuilder() {
 		return AtomPubWorkspaceBuilder.newInstance();
@@ -98,6 +102,34 @@ public class AtomPubWorkspace extends AtomCommonAttributes implements Iterable<A
 		return this.extensions;
 	}
 
+	/**
+	 * Returns the first extension of the given type.
+	 * 
+	 * @param type The type of the extension (must not be null)
+	 * @return The extension or null if there is no extension of the type
+	 */
+	public <T extends AtomExtension> T getExtension(Class<T> type) {
+		return extensionIndex().get(type);
+	}
+
+	/**
+	 * Returns the first extension with the given qualified name.
+	 * 
+	 * @param name The qualified name of the extension element (must not be null)
+	 * @return The extension or null if there is no extension with the name
+	 */
+	public AtomExtension getExtension(QName name) {
+		return extensionIndex().get(name);
+	}
+
+	private AtomExtensionIndex extensionIndex() {
+		AtomExtensionIndex result = this.extensionIndex;
+		if (result == null) {
+			this.extensionIndex = result = AtomExtensionIndex.valueOf(this.extensions);
+		}
+		return result;
+	}
+
 	public Iterator<AtomPubCollection> iterator() {
 		return this.collections.iterator();
 	}
@@ -124,6 +156,13 @@ public class AtomPubWorkspace extends AtomCommonAttributes implements Iterable<A
 		return null;
 	}
 
+	@Override
+	public AtomXmlBase collectXmlBases(AtomXmlBase parent, Map<AtomCommonAttributes, AtomXmlBase> chains) {
+		AtomXmlBase chain = super.collectXmlBases(parent, chains);
+		collectXmlBases(chain, chains, this.collections);
+		return chain;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see java.lang.Object#hashCode()
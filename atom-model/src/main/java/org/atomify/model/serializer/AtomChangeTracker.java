@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomId;
+
+/**
+ * Remembers the entity tag of entries by their id to skip entries which did not change since
+ * they were last stored or forwarded. The entity tags are computed by the
+ * {@link AtomContentDigest} directly from the model so entries do not need to be serialized to be
+ * compared. The tracker is thread safe.
+ */
+public class AtomChangeTracker {
+	private final ConcurrentMap<AtomId, String> etags = new ConcurrentHashMap<AtomId, String>();
+
+	/**
+	 * Records the entity tag of the given entry.
+	 * 
+	 * @param entry The entry to record (must not be null)
+	 * @return True if the entry is new or changed since it was recorded last
+	 */
+	public boolean update(AtomEntry entry) {
+		AtomContractConstraint.notNull("entry", entry);
+		String etag = AtomContentDigest.etag(entry);
+		return !etag.equals(this.etags.put(AtomContractConstraint.notNull("entry.id", entry.getId()), etag));
+	}
+
+	/**
+	 * Records the entity tags of all given entries and returns the entries which are new or changed.
+	 * 
+	 * @param entries The entries to record (must not be null)
+	 * @return The new or changed entries in the order given
+	 */
+	public <T extends AtomEntry> List<T> changed(Iterable<T> entries) {
+		List<T> result = new ArrayList<T>();
+		for (T entry : AtomContractConstraint.notNull("entries", entries)) {
+			if (update(entry)) {
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the entity tag last recorded for the entry with the given id.
+	 * 
+	 * @param id The id of the entry
+	 * @return The quoted entity tag or null if no entry with the id is recorded
+	 */
+	public String getETag(AtomId id) {
+		return id == null ? null : this.etags.get(id);
+	}
+
+	/**
+	 * Forgets the entry with the given id so it is reported as changed the next time.
+	 * 
+	 * @param id The id of the entry
+	 */
+	public void remove(AtomId id) {
+		if (id != null) {
+			this.etags.remove(id);
+		}
+	}
+
+	public void clear() {
+		this.etags.clear();
+	}
+
+	public int size() {
+		return this.etags.size();
+	}
+
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+
+import org.atomify.model.AtomContractConstraint;
+import org.jbasics.xml.XmlSerializable;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+
+/**
+ * Content handler computing a digest of the canonical form of the serialized events. The
+ * canonical form consists of the namespace and local names of the elements, their attributes
+ * ordered by namespace and local name, the text and the comments. Namespaces are written once
+ * and referenced by the order of their first occurrence afterwards. Prefixes, namespace
+ * declarations and the order of the attributes do not change the digest so two documents equal
+ * in the model have the same digest regardless of the way they are written.
+ * <p>
+ * A digest created with a delegate forwards all events to the delegate so the digest is computed
+ * while the document is written without buffering the output. The digest is no thread safe.
+ * </p>
+ */
+public class AtomContentDigest implements ContentHandler, LexicalHandler {
+	/**
+	 * The algorithm used if none is given.
+	 */
+	public static final String DEFAULT_ALGORITHM = "SHA-256";
+
+	private static final int START_ELEMENT = 1;
+	private static final int END_ELEMENT = 2;
+	private static final int TEXT = 3;
+	private static final int COMMENT = 4;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final MessageDigest digest;
+	private final ContentHandler delegate;
+	private final byte[] buffer = new byte[1024];
+	private final StringBuilder text = new StringBuilder();
+	private final Map<String, Integer> namespaces = new HashMap<String, Integer>();
+	private int position;
+	private int[] order = new int[8];
+
+	/**
+	 * Creates a digest using the {@link #DEFAULT_ALGORITHM}.
+	 */
+	public AtomContentDigest() {
+		this(DEFAULT_ALGORITHM, null);
+	}
+
+	/**
+	 * Creates a digest using the {@link #DEFAULT_ALGORITHM} forwarding all events to the given
+	 * content handler.
+	 * 
+	 * @param delegate The handler to forward the events to (must not be null)
+	 */
+	public AtomContentDigest(ContentHandler delegate) {
+		this(DEFAULT_ALGORITHM, AtomContractConstraint.notNull("delegate", delegate));
+	}
+
+	/**
+	 * Creates a digest using the given algorithm optionally forwarding all events to the given
+	 * content handler.
+	 * 
+	 * @param algorithm The name of the {@link MessageDigest} algorithm (must not be null)
+	 * @param delegate The handler to forward the events to or null if the events are only digested
+	 */
+	public AtomContentDigest(String algorithm, ContentHandler delegate) {
+		try {
+			this.digest = MessageDigest.getInstance(AtomContractConstraint.notNull("algorithm", algorithm));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalArgumentException("[AtomContentDigest] Unknown digest algorithm " + algorithm, e);
+		}
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Computes the digest of the given element with the {@link #DEFAULT_ALGORITHM}.
+	 * 
+	 * @param element The element to digest (must not be null)
+	 * @return The digest
+	 */
+	public static byte[] digest(XmlSerializable element) {
+		AtomContentDigest result = new AtomContentDigest();
+		try {
+			AtomContractConstraint.notNull("element", element).serialize(result, null);
+		} catch (SAXException e) {
+			RuntimeException er = new RuntimeException("[" + e.getClass().getSimpleName() + "] " + e.getMessage(), e);
+			er.setStackTrace(e.getStackTrace());
+			throw er;
+		}
+		return result.getDigest();
+	}
+
+	/**
+	 * Returns the strong entity tag of the given element. Elements with the same content have the
+	 * same entity tag.
+	 * 
+	 * @param element The element to create the entity tag for (must not be null)
+	 * @return The quoted entity tag
+	 */
+	public static String etag(XmlSerializable element) {
+		return toETag(digest(element));
+	}
+
+	/**
+	 * Returns the digest as quoted strong entity tag.
+	 * 
+	 * @param digest The digest (must not be null)
+	 * @return The quoted entity tag
+	 */
+	public static String toETag(byte[] digest) {
+		char[] result = new char[AtomContractConstraint.notNull("digest", digest).length * 2 + 2];
+		result[0] = '"';
+		for (int i = 0; i < digest.length; i++) {
+			result[i * 2 + 1] = HEX[digest[i] >> 4 & 0x0F];
+			result[i * 2 + 2] = HEX[digest[i] & 0x0F];
+		}
+		result[result.length - 1] = '"';
+		return new String(result);
+	}
+
+	/**
+	 * Completes the digest of the events received so far and resets the digest to be used again.
+	 * 
+	 * @return The digest
+	 */
+	public byte[] getDigest() {
+		flushText();
+		this.digest.update(this.buffer, 0, this.position);
+		this.position = 0;
+		this.namespaces.clear();
+		return this.digest.digest();
+	}
+
+	/**
+	 * Returns the strong entity tag of the events received so far and resets the digest.
+	 * 
+	 * @return The quoted entity tag
+	 */
+	public String getETag() {
+		return toETag(getDigest());
+	}
+
+	public void setDocumentLocator(Locator locator) {
+		if (this.delegate != null) {
+			this.delegate.setDocumentLocator(locator);
+		}
+	}
+
+	public void startDocument() throws SAXException {
+		if (this.delegate != null) {
+			this.delegate.startDocument();
+		}
+	}
+
+	public void endDocument() throws SAXException {
+		flushText();
+		if (this.delegate != null) {
+			this.delegate.endDocument();
+		}
+	}
+
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+		if (this.delegate != null) {
+			this.delegate.startPrefixMapping(prefix, uri);
+		}
+	}
+
+	public void endPrefixMapping(String prefix) throws SAXException {
+		if (this.delegate != null) {
+			this.delegate.endPrefixMapping(prefix);
+		}
+	}
+
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		flushText();
+		writeByte(START_ELEMENT);
+		writeNamespace(uri);
+		writeString(localName(localName, qName));
+		int count = 0;
+		int length = atts == null ? 0 : atts.getLength();
+		if (length > this.order.length) {
+			this.order = new int[length];
+		}
+		for (int i = 0; i < length; i++) {
+			String name = atts.getQName(i);
+			if (name != null && (name.equals(XMLConstants.XMLNS_ATTRIBUTE) || name.startsWith("xmlns:"))) {
+				continue;
+			}
+			// insertion sort by namespace and local name, elements rarely have many attributes
+			int j = count++;
+			while (j > 0 && compare(atts, this.order[j - 1], i) > 0) {
+				this.order[j] = this.order[j - 1];
+				j--;
+			}
+			this.order[j] = i;
+		}
+		writeInt(count);
+		for (int i = 0; i < count; i++) {
+			int index = this.order[i];
+			writeNamespace(atts.getURI(index));
+			writeString(localName(atts.getLocalName(index), atts.getQName(index)));
+			writeString(atts.getValue(index));
+		}
+		if (this.delegate != null) {
+			this.delegate.startElement(uri, localName, qName, atts);
+		}
+	}
+
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		flushText();
+		writeByte(END_ELEMENT);
+		if (this.delegate != null) {
+			this.delegate.endElement(uri, localName, qName);
+		}
+	}
+
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		this.text.append(ch, start, length);
+		if (this.delegate != null) {
+			this.delegate.characters(ch, start, length);
+		}
+	}
+
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		if (this.delegate != null) {
+			this.delegate.ignorableWhitespace(ch, start, length);
+		}
+	}
+
+	public void processingInstruction(String target, String data) throws SAXException {
+		if (this.delegate != null) {
+			this.delegate.processingInstruction(target, data);
+		}
+	}
+
+	public void skippedEntity(String name) throws SAXException {
+		if (this.delegate != null) {
+			this.delegate.skippedEntity(name);
+		}
+	}
+
+	public void comment(char[] ch, int start, int length) throws SAXException {
+		flushText();
+		writeByte(COMMENT);
+		writeInt(length);
+		for (int i = 0; i < length; i++) {
+			writeChar(ch[start + i]);
+		}
+		if (this.delegate instanceof LexicalHandler) {
+			((LexicalHandler) this.delegate).comment(ch, start, length);
+		}
+	}
+
+	public void startDTD(String name, String publicId, String systemId) throws SAXException {
+		if (this.delegate instanceof LexicalHandler) {
+			((LexicalHandler) this.delegate).startDTD(name, publicId, systemId);
+		}
+	}
+
+	public void endDTD() throws SAXException {
+		if (this.delegate instanceof LexicalHandler) {
+			((LexicalHandler) this.delegate).endDTD();
+		}
+	}
+
+	public void startEntity(String name) throws SAXException {
+		if (this.delegate instanceof LexicalHandler) {
+			((LexicalHandler) this.delegate).startEntity(name);
+		}
+	}
+
+	public void endEntity(String name) throws SAXException {
+		if (this.delegate instanceof LexicalHandler) {
+			((LexicalHandler) this.delegate).endEntity(name);
+		}
+	}
+
+	public void startCDATA() throws SAXException {
+		if (this.delegate instanceof LexicalHandler) {
+			((LexicalHandler) this.delegate).startCDATA();
+		}
+	}
+
+	public void endCDATA() throws SAXException {
+		if (this.delegate instanceof LexicalHandler) {
+			((LexicalHandler) this.delegate).endCDATA();
+		}
+	}
+
+	private static int compare(Attributes atts, int first, int second) {
+		String firstUri = atts.getURI(first);
+		String secondUri = atts.getURI(second);
+		int result = (firstUri == null ? "" : firstUri).compareTo(secondUri == null ? "" : secondUri);
+		return result != 0 ? result : localName(atts.getLocalName(first), atts.getQName(first)).compareTo(
+				localName(atts.getLocalName(second), atts.getQName(second)));
+	}
+
+	private static String localName(String localName, String qName) {
+		if (localName != null && localName.length() > 0) {
+			return localName;
+		}
+		int index = qName.indexOf(':');
+		return index < 0 ? qName : qName.substring(index + 1);
+	}
+
+	private void flushText() {
+		if (this.text.length() > 0) {
+			writeByte(TEXT);
+			writeString(this.text);
+			this.text.setLength(0);
+		}
+	}
+
+	/**
+	 * Writes the namespace by the index of its first occurrence. The first occurrence is written
+	 * with its index followed by the namespace so the index is given by the content only.
+	 */
+	private void writeNamespace(String uri) {
+		String value = uri == null ? "" : uri;
+		Integer index = this.namespaces.get(value);
+		if (index != null) {
+			writeInt(index.intValue() + 1);
+		} else {
+			this.namespaces.put(value, Integer.valueOf(this.namespaces.size()));
+			writeInt(0);
+			writeString(value);
+		}
+	}
+
+	/**
+	 * Writes the number of characters followed by the characters encoded in UTF-8.
+	 */
+	private void writeString(CharSequence value) {
+		int length = value.length();
+		writeInt(length);
+		for (int i = 0; i < length; i++) {
+			writeChar(value.charAt(i));
+		}
+	}
+
+	private void writeInt(int value) {
+		while ((value & ~0x7F) != 0) {
+			writeByte(value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		writeByte(value);
+	}
+
+	private void writeChar(char value) {
+		if (value < 0x80) {
+			writeByte(value);
+		} else if (value < 0x800) {
+			writeByte(0xC0 | value >> 6);
+			writeByte(0x80 | value & 0x3F);
+		} else {
+			writeByte(0xE0 | value >> 12);
+			writeByte(0x80 | value >> 6 & 0x3F);
+			writeByte(0x80 | value & 0x3F);
+		}
+	}
+
+	private void writeByte(int value) {
+		if (this.position == this.buffer.length) {
+			this.digest.update(this.buffer, 0, this.position);
+			this.position = 0;
+		}
+		this.buffer[this.position++] = (byte) value;
+	}
+
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.syndication.AtomEntry;
+import org.xml.sax.SAXException;
+
+/**
+ * Cache of serialized entries for the {@link AtomXmlWriter}. Unchanged entries sent again and
+ * again in feed pages and entry documents are copied from the cache instead of walking the entry
+ * again. The cache is bounded by the number of bytes it holds and evicts the least recently used
+ * entries first.
+ * <p>
+ * Entries are cached by identity or by their id together with the updated date (see
+ * {@link KeyMode}). Each entry is cached for the encoding and indentation of the cache as it is
+ * written inside a feed. The namespaces declared on the entry element are written when the entry
+ * is copied unless they are in scope already, so the cached entry is valid in a feed as well as on
+ * its own.
+ * </p>
+ */
+public class AtomEntryCache {
+	public static final long DEFAULT_MAX_BYTES = 16L * 1024L * 1024L;
+
+	/**
+	 * The way entries are identified in the cache.
+	 */
+	public enum KeyMode {
+		/**
+		 * The entry object itself is the key. Entries are immutable so an entry always serializes
+		 * the same way.
+		 */
+		IDENTITY,
+		/**
+		 * The id and the updated date of the entry are the key. Entries with the same id and updated
+		 * date are expected to be equal as required by RFC 4287.
+		 */
+		ID_AND_UPDATED;
+	}
+
+	private final Charset charset;
+	private final int indent;
+	private final long maxBytes;
+	private final KeyMode keyMode;
+	private final LinkedHashMap<Object, Fragment> fragments;
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public AtomEntryCache() {
+		this("UTF-8", AtomXmlWriter.NO_INDENT, DEFAULT_MAX_BYTES, KeyMode.IDENTITY);
+	}
+
+	/**
+	 * Creates an entry cache.
+	 * 
+	 * @param encoding The encoding the entries are cached in (must not be null)
+	 * @param indent The number of spaces to indent each level or {@link AtomXmlWriter#NO_INDENT}
+	 * @param maxBytes The maximum number of bytes cached (must be greater than zero)
+	 * @param keyMode The way entries are identified (must not be null)
+	 */
+	public AtomEntryCache(String encoding, int indent, long maxBytes, KeyMode keyMode) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("Cache size must be greater than zero: " + maxBytes);
+		}
+		this.charset = Charset.forName(AtomContractConstraint.notNull("encoding", encoding));
+		this.indent = indent < 0 ? AtomXmlWriter.NO_INDENT : indent;
+		this.maxBytes = maxBytes;
+		this.keyMode = AtomContractConstraint.notNull("keyMode", keyMode);
+		this.fragments = new LinkedHashMap<Object, Fragment>(256, 0.75f, true);
+	}
+
+	public Charset getCharset() {
+		return this.charset;
+	}
+
+	public int getIndent() {
+		return this.indent;
+	}
+
+	public long getMaxBytes() {
+		return this.maxBytes;
+	}
+
+	public KeyMode getKeyMode() {
+		return this.keyMode;
+	}
+
+	/**
+	 * Returns the serialized entry from the cache or serializes and caches it.
+	 */
+	Fragment get(AtomEntry entry) throws SAXException {
+		Object key = key(entry);
+		synchronized (this) {
+			Fragment result = this.fragments.get(key);
+			if (result != null) {
+				this.hits++;
+				return result;
+			}
+			this.misses++;
+		}
+		Fragment result = render(entry);
+		synchronized (this) {
+			Fragment previous = this.fragments.put(key, result);
+			if (previous != null) {
+				this.bytes -= previous.size();
+			}
+			this.bytes += result.size();
+			Iterator<Fragment> it = this.fragments.values().iterator();
+			while (this.bytes > this.maxBytes && it.hasNext()) {
+				Fragment eldest = it.next();
+				if (eldest == result) {
+					// keep the fragment just added even if it is larger than the cache
+					break;
+				}
+				it.remove();
+				this.bytes -= eldest.size();
+				this.evictions++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the given entry from the cache.
+	 * 
+	 * @param entry The entry to remove (must not be null)
+	 */
+	public synchronized void invalidate(AtomEntry entry) {
+		Fragment removed = this.fragments.remove(key(AtomContractConstraint.notNull("entry", entry)));
+		if (removed != null) {
+			this.bytes -= removed.size();
+		}
+	}
+
+	/**
+	 * Removes all entries from the cache and resets the statistics.
+	 */
+	public synchronized void clear() {
+		this.fragments.clear();
+		this.bytes = 0;
+		this.hits = 0;
+		this.misses = 0;
+		this.evictions = 0;
+	}
+
+	public synchronized int getEntryCount() {
+		return this.fragments.size();
+	}
+
+	public synchronized long getByteCount() {
+		return this.bytes;
+	}
+
+	public synchronized long getHitCount() {
+		return this.hits;
+	}
+
+	public synchronized long getMissCount() {
+		return this.misses;
+	}
+
+	public synchronized long getEvictionCount() {
+		return this.evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "AtomEntryCache [keyMode=" + this.keyMode + ", entries=" + this.fragments.size() + ", bytes=" + this.bytes + ", maxBytes="
+				+ this.maxBytes + ", hits=" + this.hits + ", misses=" + this.misses + ", evictions=" + this.evictions + "]";
+	}
+
+	private Object key(AtomEntry entry) {
+		if (this.keyMode == KeyMode.IDENTITY) {
+			return new IdentityKey(entry);
+		}
+		return Arrays.asList(entry.getId(), Long.valueOf(entry.getUpdated().getTime()));
+	}
+
+	private Fragment render(AtomEntry entry) throws SAXException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+		AtomXmlWriter writer = new AtomXmlWriter(out, this.charset.name(), this.indent);
+		writer.startFragment();
+		entry.serialize(writer, null);
+		writer.flush();
+		byte[] data = out.toByteArray();
+		int start = (int) writer.getRootDeclarationStart();
+		int end = (int) writer.getRootDeclarationEnd();
+		int[] lineStarts = writer.getLineStarts();
+		for (int i = 0; i < lineStarts.length; i++) {
+			// the root start tag with its declarations is on the first line
+			lineStarts[i] -= end;
+		}
+		return new Fragment(this.charset, Arrays.copyOfRange(data, 0, start), Arrays.copyOfRange(data, end, data.length), lineStarts,
+				writer.getRootPrefixes(), writer.getRootNamespaces());
+	}
+
+	/**
+	 * A serialized entry split around the namespace declarations of the entry element. The entry is
+	 * indented as a root element with the offsets of the indented lines in the tail.
+	 */
+	static final class Fragment {
+		final Charset charset;
+		final byte[] head;
+		final byte[] tail;
+		final int[] lineStarts;
+		final String[] prefixes;
+		final String[] uris;
+		private volatile String headText;
+		private volatile String tailText;
+		private volatile String[] tailLines;
+
+		Fragment(Charset charset, byte[] head, byte[] tail, int[] lineStarts, String[] prefixes, String[] uris) {
+			this.charset = charset;
+			this.head = head;
+			this.tail = tail;
+			this.lineStarts = lineStarts;
+			this.prefixes = prefixes;
+			this.uris = uris;
+		}
+
+		int size() {
+			return this.head.length + this.tail.length;
+		}
+
+		String getHeadText() {
+			String result = this.headText;
+			if (result == null) {
+				this.headText = result = new String(this.head, this.charset);
+			}
+			return result;
+		}
+
+		String getTailText() {
+			String result = this.tailText;
+			if (result == null) {
+				this.tailText = result = new String(this.tail, this.charset);
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the tail split at the start of each indented line.
+		 */
+		String[] getTailLines() {
+			String[] result = this.tailLines;
+			if (result == null) {
+				result = new String[this.lineStarts.length + 1];
+				int offset = 0;
+				for (int i = 0; i < this.lineStarts.length; i++) {
+					result[i] = new String(this.tail, offset, this.lineStarts[i] - offset, this.charset);
+					offset = this.lineStarts[i];
+				}
+				result[this.lineStarts.length] = new String(this.tail, offset, this.tail.length - offset, this.charset);
+				this.tailLines = result;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Key comparing the entry by identity.
+	 */
+	private static final class IdentityKey {
+		private final AtomEntry entry;
+
+		IdentityKey(AtomEntry entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.entry);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof IdentityKey && ((IdentityKey) obj).entry == this.entry;
+		}
+	}
+
+}
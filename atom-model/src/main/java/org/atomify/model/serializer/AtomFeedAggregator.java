@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomEntryBuilder;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomFeedBuilder;
+import org.atomify.model.syndication.AtomId;
+import org.atomify.model.syndication.AtomSource;
+
+/**
+ * Combines the entries of many feeds into one feed ordered by the updated date, newest first. The
+ * entries of each source are merged (k-way merge) so only the next entry of every source is held
+ * in memory. Entries with the same id are written once, the one updated last wins. Sources with
+ * unsorted entries are sorted when added, which holds all their entries (or the newest of them if
+ * the number of entries is limited) until they are merged.
+ * <p>
+ * The ids of the entries written are kept to write each id once. Without a limit this holds one
+ * id per distinct entry of all sources until the merge ends.
+ * </p>
+ * <p>
+ * With a limit only the newest entries up to the limit are written and the sources are read no
+ * further than needed. If sources are attached the entries without an atom:source get the
+ * metadata of the feed they come from as source. The entries are merged once into either an
+ * {@link AtomFeed} or an {@link AtomFeedWriter}. An instance is not thread safe.
+ * </p>
+ */
+public class AtomFeedAggregator {
+	/**
+	 * The limit merging all entries of all sources.
+	 */
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	private static final Comparator<AtomEntry> NEWEST_FIRST = new Comparator<AtomEntry>() {
+		public int compare(AtomEntry first, AtomEntry second) {
+			return second.getUpdated().compareTo(first.getUpdated());
+		}
+	};
+
+	private final int limit;
+	private final boolean attachSource;
+	private final List<Source> sources;
+	private boolean merged;
+
+	public AtomFeedAggregator() {
+		this(UNLIMITED, false);
+	}
+
+	/**
+	 * Creates an aggregator writing up to the given number of entries.
+	 * 
+	 * @param limit The maximum number of entries to write or {@link #UNLIMITED}
+	 * @param attachSource True to set the metadata of the origin feed as source of the entries
+	 *            without source
+	 */
+	public AtomFeedAggregator(int limit, boolean attachSource) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("[AtomFeedAggregator] The limit must be positive: " + limit);
+		}
+		this.limit = limit;
+		this.attachSource = attachSource;
+		this.sources = new ArrayList<Source>();
+	}
+
+	public int getLimit() {
+		return this.limit;
+	}
+
+	public boolean isAttachSource() {
+		return this.attachSource;
+	}
+
+	/**
+	 * Adds the entries of the given feed.
+	 * 
+	 * @param feed The feed (must not be null)
+	 * @param sorted True if the entries are sorted by their updated date, newest first
+	 * @return This aggregator
+	 */
+	public AtomFeedAggregator add(AtomFeed feed, boolean sorted) {
+		return add(AtomContractConstraint.notNull("feed", feed), feed.getEntries().iterator(), sorted);
+	}
+
+	/**
+	 * Adds the entries of the given iterator like an {@link org.atomify.model.parser.AtomFeedReader}
+	 * with {@link org.atomify.model.parser.AtomFeedReader#getFeed()} as origin. Sorted entries are
+	 * read while merging.
+	 * 
+	 * @param origin The feed the entries come from or null if the entries get no source
+	 * @param entries The entries (must not be null)
+	 * @param sorted True if the entries are sorted by their updated date, newest first
+	 * @return This aggregator
+	 */
+	public AtomFeedAggregator add(AtomFeed origin, Iterator<? extends AtomEntry> entries, boolean sorted) {
+		AtomContractConstraint.notNull("entries", entries);
+		if (this.merged) {
+			throw new IllegalStateException("[AtomFeedAggregator] The entries are already merged");
+		}
+		this.sources.add(new Source(this.sources.size(), origin, sorted ? entries : sort(entries)));
+		return this;
+	}
+
+	/**
+	 * Merges the entries of all sources into the given feed builder and builds the feed.
+	 * 
+	 * @param feed The builder with the metadata of the aggregated feed (must not be null)
+	 * @return The aggregated feed
+	 */
+	public AtomFeed aggregate(AtomFeedBuilder feed) {
+		AtomContractConstraint.notNull("feed", feed);
+		Iterator<AtomEntry> entries = merge();
+		while (entries.hasNext()) {
+			feed.addEntry(entries.next());
+		}
+		return feed.build();
+	}
+
+	/**
+	 * Merges the entries of all sources into the given feed writer. The writer is not closed.
+	 * 
+	 * @param writer The writer of the aggregated feed (must not be null)
+	 * @return The number of entries written
+	 */
+	public long aggregate(AtomFeedWriter writer) {
+		return AtomContractConstraint.notNull("writer", writer).write(merge());
+	}
+
+	/**
+	 * Returns the merged entries of all sources. The entries are merged while iterating so the
+	 * sources are read as far as the iterator is consumed. The entries can only be merged once.
+	 * 
+	 * @return The merged entries, newest first
+	 */
+	public Iterator<AtomEntry> merge() {
+		if (this.merged) {
+			throw new IllegalStateException("[AtomFeedAggregator] The entries are already merged");
+		}
+		this.merged = true;
+		return new MergeIterator();
+	}
+
+	private Iterator<AtomEntry> sort(Iterator<? extends AtomEntry> entries) {
+		List<AtomEntry> result;
+		if (this.limit == UNLIMITED) {
+			result = new ArrayList<AtomEntry>();
+			while (entries.hasNext()) {
+				result.add(checked(entries.next()));
+			}
+		} else {
+			// only the newest entries up to the limit can be written so an older one is dropped, an
+			// entry replaces the one with the same id so the dropped entries are no duplicates
+			PriorityQueue<AtomEntry> newest = new PriorityQueue<AtomEntry>(Math.min(this.limit, 64), Collections.reverseOrder(NEWEST_FIRST));
+			Map<AtomId, AtomEntry> byId = new HashMap<AtomId, AtomEntry>();
+			while (entries.hasNext()) {
+				AtomEntry entry = checked(entries.next());
+				AtomEntry previous = byId.get(entry.getId());
+				if (previous != null) {
+					if (NEWEST_FIRST.compare(entry, previous) >= 0) {
+						continue;
+					}
+					newest.remove(previous);
+				}
+				byId.put(entry.getId(), entry);
+				newest.add(entry);
+				if (newest.size() > this.limit) {
+					byId.remove(newest.poll().getId());
+				}
+			}
+			result = new ArrayList<AtomEntry>(newest);
+		}
+		Collections.sort(result, NEWEST_FIRST);
+		return result.iterator();
+	}
+
+	private static AtomEntry checked(AtomEntry entry) {
+		AtomContractConstraint.notNull("entry", entry);
+		AtomContractConstraint.notNull("entry.id", entry.getId());
+		AtomContractConstraint.notNull("entry.updated", entry.getUpdated());
+		return entry;
+	}
+
+	private final class Source implements Comparable<Source> {
+		private final int index;
+		private final AtomFeed origin;
+		private final Iterator<? extends AtomEntry> entries;
+		private AtomSource source;
+		private AtomEntry head;
+
+		Source(int index, AtomFeed origin, Iterator<? extends AtomEntry> entries) {
+			this.index = index;
+			this.origin = origin;
+			this.entries = entries;
+		}
+
+		boolean advance() {
+			AtomEntry previous = this.head;
+			this.head = this.entries.hasNext() ? checked(this.entries.next()) : null;
+			if (previous != null && this.head != null && this.head.getUpdated().compareTo(previous.getUpdated()) > 0) {
+				throw new IllegalStateException("[AtomFeedAggregator] The entries of source " + this.index
+						+ " are not sorted by updated: " + this.head.getId());
+			}
+			return this.head != null;
+		}
+
+		AtomEntry attach(AtomEntry entry) {
+			if (!AtomFeedAggregator.this.attachSource || this.origin == null || entry.getSource() != null) {
+				return entry;
+			}
+			if (this.source == null) {
+				this.source = AtomSource.newBuilder().addAndSetAllFromFeed(this.origin).build();
+			}
+			return AtomEntryBuilder.newInstance(entry).setSource(this.source).build();
+		}
+
+		public int compareTo(Source other) {
+			int result = NEWEST_FIRST.compare(this.head, other.head);
+			return result != 0 ? result : (this.index < other.index ? -1 : (this.index == other.index ? 0 : 1));
+		}
+	}
+
+	private final class MergeIterator implements Iterator<AtomEntry> {
+		private final PriorityQueue<Source> heads;
+		private final Set<AtomId> written;
+		private AtomEntry next;
+		private int count;
+
+		MergeIterator() {
+			this.heads = new PriorityQueue<Source>(Math.max(1, AtomFeedAggregator.this.sources.size()));
+			this.written = new HashSet<AtomId>();
+			for (Source source : AtomFeedAggregator.this.sources) {
+				if (source.advance()) {
+					this.heads.add(source);
+				}
+			}
+		}
+
+		public boolean hasNext() {
+			while (this.next == null && this.count < AtomFeedAggregator.this.limit && !this.heads.isEmpty()) {
+				Source source = this.heads.poll();
+				AtomEntry entry = source.head;
+				if (source.advance()) {
+					this.heads.add(source);
+				}
+				// the first entry with an id is the one updated last
+				if (this.written.add(entry.getId())) {
+					this.next = source.attach(entry);
+					this.count++;
+				}
+			}
+			return this.next != null;
+		}
+
+		public AtomEntry next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			AtomEntry result = this.next;
+			this.next = null;
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.AtomDocumentSerializer;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.jbasics.xml.XmlStylesheetLinks;
+import org.jbasics.xml.types.XmlStylesheetProcessInstruction;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Writes an atom feed document entry by entry without ever holding the whole feed in memory. The
+ * feed level metadata is taken from an {@link AtomFeed} (usually without entries like the one
+ * returned by {@link org.atomify.model.parser.AtomFeedReader#getFeed()}) and written as soon as the
+ * writer is created. Entries are written one at a time by {@link #write(AtomEntry)} or taken from
+ * an {@link Iterator} or {@link Iterable}. Output is passed to the underlying stream whenever the
+ * internal buffer is full so memory stays bounded by the size of a single entry.
+ * <p>
+ * Entries contained in the metadata feed are written right after the metadata. {@link #close()}
+ * ends the feed document. The underlying stream or writer is never closed.
+ * </p>
+ */
+public class AtomFeedWriter implements Closeable, Flushable {
+	private final AtomXmlWriter writer;
+	private final AtomFeed feed;
+	private final AttributesImpl attributes;
+	private Map<String, String> namespaces;
+	private long entryCount;
+	private boolean closed;
+
+	public AtomFeedWriter(OutputStream out, AtomFeed feed) {
+		this(out, "UTF-8", AtomDocumentSerializer.DEFAULT_INDENT, feed);
+	}
+
+	/**
+	 * Creates a feed writer encoding the feed to the given stream and writes the feed metadata.
+	 * 
+	 * @param out The stream to write to (must not be null)
+	 * @param encoding The encoding to use (must not be null)
+	 * @param indent The number of spaces to indent each level or {@link AtomXmlWriter#NO_INDENT}
+	 * @param feed The feed metadata (must not be null)
+	 */
+	public AtomFeedWriter(OutputStream out, String encoding, int indent, AtomFeed feed) {
+		this(new AtomXmlWriter(out, encoding, indent), feed);
+	}
+
+	/**
+	 * Creates a feed writer writing the feed to the given character stream and writes the feed
+	 * metadata.
+	 * 
+	 * @param out The character stream to write to (must not be null)
+	 * @param encoding The encoding of the stream (must not be null)
+	 * @param indent The number of spaces to indent each level or {@link AtomXmlWriter#NO_INDENT}
+	 * @param feed The feed metadata (must not be null)
+	 */
+	public AtomFeedWriter(Writer out, String encoding, int indent, AtomFeed feed) {
+		this(new AtomXmlWriter(out, encoding, indent), feed);
+	}
+
+	/**
+	 * Creates a feed writer copying entries from the given cache where possible. The feed is
+	 * written with the encoding and indentation of the cache.
+	 * 
+	 * @param out The stream to write to (must not be null)
+	 * @param entryCache The cache of serialized entries (must not be null)
+	 * @param feed The feed metadata (must not be null)
+	 */
+	public AtomFeedWriter(OutputStream out, AtomEntryCache entryCache, AtomFeed feed) {
+		this(new AtomXmlWriter(out, AtomContractConstraint.notNull("entryCache", entryCache).getCharset().name(), entryCache.getIndent()),
+				feed);
+		this.writer.setEntryCache(entryCache);
+	}
+
+	private AtomFeedWriter(AtomXmlWriter writer, AtomFeed feed) {
+		this.writer = writer;
+		this.feed = AtomContractConstraint.notNull("feed", feed);
+		this.attributes = new AttributesImpl();
+		try {
+			writer.startDocument();
+			if (feed instanceof XmlStylesheetLinks) {
+				for (XmlStylesheetProcessInstruction stylesheet : ((XmlStylesheetLinks) feed).getStylesheetLinks()) {
+					stylesheet.serialize(writer, null);
+				}
+			}
+			this.namespaces = feed.serializeHead(writer, this.attributes);
+			writer.flush();
+		} catch (SAXException e) {
+			throw createRuntimeException(e);
+		}
+		write(feed.getEntries());
+	}
+
+	public AtomFeed getFeed() {
+		return this.feed;
+	}
+
+	/**
+	 * Returns the number of entries written so far.
+	 */
+	public long getEntryCount() {
+		return this.entryCount;
+	}
+
+	/**
+	 * Writes the given entry to the feed.
+	 * 
+	 * @param entry The entry to write (must not be null)
+	 */
+	public void write(AtomEntry entry) {
+		AtomContractConstraint.notNull("entry", entry);
+		if (this.closed) {
+			throw new IllegalStateException("AtomFeedWriter is already closed");
+		}
+		try {
+			this.writer.writeEntry(entry, this.attributes);
+		} catch (SAXException e) {
+			throw createRuntimeException(e);
+		}
+		this.entryCount++;
+	}
+
+	/**
+	 * Writes all remaining entries of the given iterator and flushes the output afterwards.
+	 * 
+	 * @param entries The entries to write (must not be null)
+	 * @return The number of entries written
+	 */
+	public long write(Iterator<? extends AtomEntry> entries) {
+		AtomContractConstraint.notNull("entries", entries);
+		long count = 0;
+		while (entries.hasNext()) {
+			write(entries.next());
+			count++;
+		}
+		flush();
+		return count;
+	}
+
+	/**
+	 * Writes all given entries and flushes the output afterwards.
+	 * 
+	 * @param entries The entries to write (must not be null)
+	 * @return The number of entries written
+	 */
+	public long write(Iterable<? extends AtomEntry> entries) {
+		return write(AtomContractConstraint.notNull("entries", entries).iterator());
+	}
+
+	/**
+	 * Passes everything written so far to the underlying stream and flushes it.
+	 */
+	public void flush() {
+		try {
+			this.writer.flush();
+		} catch (SAXException e) {
+			throw createRuntimeException(e);
+		}
+	}
+
+	/**
+	 * Ends the feed document and flushes the output. Closing an already closed writer has no
+	 * effect.
+	 */
+	public void close() {
+		if (!this.closed) {
+			this.closed = true;
+			try {
+				this.feed.serializeEnd(this.writer, this.namespaces);
+				this.writer.endDocument();
+			} catch (SAXException e) {
+				throw createRuntimeException(e);
+			}
+		}
+	}
+
+	private RuntimeException createRuntimeException(Exception e) {
+		RuntimeException er = new RuntimeException("[" + e.getClass().getSimpleName() + "] " + e.getMessage(), e);
+		er.setStackTrace(e.getStackTrace());
+		return er;
+	}
+
+}
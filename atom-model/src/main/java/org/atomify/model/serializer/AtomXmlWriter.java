@@ -0,0 +1,802 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Map;
+
+import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.AtomDocument;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * SAX content handler writing the events of the model straight to a character or byte stream
+ * without going through a JAXP transformer.
+ * <p>
+ * The writer keeps track of the namespaces in scope. A prefix mapping is only declared if it is
+ * not already in scope and prefixes used by elements or attributes without a mapping are declared
+ * on the element using them. Text and attribute values are escaped and characters the encoding
+ * cannot represent are written as character references. With an indentation of zero or more
+ * elements not mixed with text start on a new line indented by the given number of spaces per
+ * level.
+ * </p>
+ * <p>
+ * With an {@link AtomEntryCache} set entries written by {@link #writeDocument(AtomDocument)} or
+ * {@link #writeEntry(AtomEntry, AttributesImpl)} are copied from the cache instead of being
+ * serialized again. Namespaces declared on a cached entry are left out if they are in scope already
+ * and the lines of the entry are indented at the depth it is written.
+ * </p>
+ * <p>
+ * The writer is not thread safe. It is flushed but never closed at the end of the document.
+ * </p>
+ */
+public class AtomXmlWriter implements ContentHandler, LexicalHandler {
+	/**
+	 * Indentation writing the whole document on a single line.
+	 */
+	public static final int NO_INDENT = -1;
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final String XML_NS_URI = "http://www.w3.org/XML/1998/namespace";
+
+	private final Writer out;
+	private final OutputStream stream;
+	private final Charset charset;
+	private final CharsetEncoder streamEncoder;
+	private final ByteBuffer bytes;
+	private final String encoding;
+	private final CharsetEncoder encoder;
+	private final int indent;
+	private final char[] buffer;
+	private final char[] surrogatePair = new char[2];
+	private int position;
+	private long flushed;
+	private AtomEntryCache entryCache;
+	private boolean fragment;
+	private int[] lineStarts;
+	private int lineCount;
+	private long rootDeclarationStart = -1;
+	private long rootDeclarationEnd;
+	private String[] rootPrefixes;
+	private String[] rootUris;
+
+	private String[] prefixes = new String[16];
+	private String[] uris = new String[16];
+	private int namespaceCount;
+	private int pendingCount;
+	private int[] scopes = new int[16];
+	private boolean[] mixed = new boolean[16];
+	private int depth;
+	private boolean startTagOpen;
+	private boolean childElements;
+
+	/**
+	 * Creates a writer encoding the document to the given stream.
+	 * 
+	 * @param out The stream to write to (must not be null)
+	 * @param encoding The encoding to use (must not be null)
+	 * @param indent The number of spaces to indent each level or {@link #NO_INDENT}
+	 */
+	public AtomXmlWriter(OutputStream out, String encoding, int indent) {
+		this(null, AtomContractConstraint.notNull("out", out), encoding, indent);
+	}
+
+	/**
+	 * Creates a writer writing the document to the given character stream. The encoding is only
+	 * used in the XML declaration and to decide which characters need a character reference.
+	 * 
+	 * @param out The character stream to write to (must not be null)
+	 * @param encoding The encoding of the stream (must not be null)
+	 * @param indent The number of spaces to indent each level or {@link #NO_INDENT}
+	 */
+	public AtomXmlWriter(Writer out, String encoding, int indent) {
+		this(AtomContractConstraint.notNull("out", out), null, encoding, indent);
+	}
+
+	private AtomXmlWriter(Writer out, OutputStream stream, String encoding, int indent) {
+		this.out = out;
+		this.stream = stream;
+		this.charset = Charset.forName(AtomContractConstraint.notNull("encoding", encoding));
+		this.encoding = this.charset.name();
+		this.encoder = this.charset.name().startsWith("UTF-") ? null : this.charset.newEncoder();
+		if (stream != null) {
+			this.streamEncoder = this.charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(
+					CodingErrorAction.REPLACE);
+			this.bytes = ByteBuffer.allocate(BUFFER_SIZE * 2);
+		} else {
+			this.streamEncoder = null;
+			this.bytes = null;
+		}
+		this.indent = indent < 0 ? NO_INDENT : indent;
+		this.buffer = new char[BUFFER_SIZE];
+	}
+
+	/**
+	 * Sets the cache of serialized entries. Entries are written from the cache if the cache is
+	 * written with the same encoding and indentation as this writer.
+	 * 
+	 * @param entryCache The cache to use or null to serialize all entries
+	 */
+	public void setEntryCache(AtomEntryCache entryCache) {
+		this.entryCache = entryCache;
+	}
+
+	/**
+	 * Writes the given document. The entries of a feed and a root entry are copied from the entry
+	 * cache if one is set.
+	 * 
+	 * @param document The document to write (must not be null)
+	 * @throws SAXException If the document cannot be written
+	 */
+	public void writeDocument(AtomDocument document) throws SAXException {
+		AtomContractConstraint.notNull("document", document);
+		if (this.entryCache != null && document instanceof AtomFeed) {
+			AtomFeed feed = (AtomFeed) document;
+			AttributesImpl attributes = new AttributesImpl();
+			Map<String, String> namespaces = feed.serializeHead(this, attributes);
+			for (AtomEntry entry : feed.getEntries()) {
+				if (!writeCachedEntry(entry)) {
+					entry.serialize(this, attributes, false);
+				}
+			}
+			feed.serializeEnd(this, namespaces);
+		} else if (document instanceof AtomEntry) {
+			writeEntry((AtomEntry) document, null);
+		} else {
+			document.serialize(this, null);
+		}
+	}
+
+	/**
+	 * Writes the given entry. The entry is copied from the entry cache if one is set.
+	 * 
+	 * @param entry The entry to write (must not be null)
+	 * @param attributes The attributes to reuse or null
+	 * @throws SAXException If the entry cannot be written
+	 */
+	public void writeEntry(AtomEntry entry, AttributesImpl attributes) throws SAXException {
+		if (!writeCachedEntry(AtomContractConstraint.notNull("entry", entry))) {
+			entry.serialize(this, attributes);
+		}
+	}
+
+	private boolean writeCachedEntry(AtomEntry entry) throws SAXException {
+		AtomEntryCache cache = this.entryCache;
+		if (cache == null || entry.isPartial() || cache.getIndent() != this.indent || !cache.getCharset().equals(this.charset)) {
+			return false;
+		}
+		AtomEntryCache.Fragment fragment = cache.get(entry);
+		closeStartTag();
+		newLine(this.depth);
+		if (this.stream != null) {
+			writeBytes(fragment.head, 0, fragment.head.length);
+		} else {
+			write(fragment.getHeadText());
+		}
+		for (int i = 0; i < fragment.prefixes.length; i++) {
+			if (!fragment.uris[i].equals(lookup(fragment.prefixes[i]))) {
+				writeDeclaration(fragment.prefixes[i], fragment.uris[i]);
+			}
+		}
+		// the fragment is indented as a root element so each line is moved to the current depth
+		int shift = this.indent == NO_INDENT ? 0 : this.depth * this.indent;
+		int[] lines = fragment.lineStarts;
+		if (this.stream != null) {
+			int offset = 0;
+			for (int i = 0; i < lines.length && shift > 0; i++) {
+				writeBytes(fragment.tail, offset, lines[i] - offset);
+				writeSpaces(shift);
+				offset = lines[i];
+			}
+			writeBytes(fragment.tail, offset, fragment.tail.length - offset);
+		} else if (shift == 0) {
+			write(fragment.getTailText());
+		} else {
+			String[] parts = fragment.getTailLines();
+			write(parts[0]);
+			for (int i = 1; i < parts.length; i++) {
+				writeSpaces(shift);
+				write(parts[i]);
+			}
+		}
+		this.childElements = true;
+		return true;
+	}
+
+	public void setDocumentLocator(Locator locator) {
+		// not needed
+	}
+
+	public void startDocument() throws SAXException {
+		write("<?xml version=\"1.0\" encoding=\"");
+		write(this.encoding);
+		write("\" standalone=\"yes\"?>");
+	}
+
+	public void endDocument() throws SAXException {
+		closeStartTag();
+		if (this.indent != NO_INDENT) {
+			write('\n');
+		}
+		flush();
+	}
+
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+		// declared with the next element unless already in scope
+		declare(prefix == null ? "" : prefix, uri == null ? "" : uri, true);
+	}
+
+	public void endPrefixMapping(String prefix) throws SAXException {
+		// the mappings go out of scope with the element they are declared on
+	}
+
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		closeStartTag();
+		newLine(this.depth);
+		push();
+		String name = qName == null || qName.length() == 0 ? localName : qName;
+		write('<');
+		write(name);
+		declareUsed(prefixOf(name), uri);
+		for (int i = 0, count = atts.getLength(); i < count; i++) {
+			String attributeName = atts.getQName(i);
+			String prefix = prefixOf(attributeName);
+			if ("xmlns".equals(attributeName)) {
+				declare("", atts.getValue(i), true);
+			} else if ("xmlns".equals(prefix)) {
+				declare(attributeName.substring(6), atts.getValue(i), true);
+			} else if (prefix.length() > 0) {
+				declareUsed(prefix, atts.getURI(i));
+			}
+		}
+		if (this.fragment && this.rootDeclarationStart < 0) {
+			this.rootDeclarationStart = getByteCount();
+			this.rootPrefixes = new String[this.pendingCount];
+			this.rootUris = new String[this.pendingCount];
+			System.arraycopy(this.prefixes, this.namespaceCount - this.pendingCount, this.rootPrefixes, 0, this.pendingCount);
+			System.arraycopy(this.uris, this.namespaceCount - this.pendingCount, this.rootUris, 0, this.pendingCount);
+			writePendingDeclarations();
+			this.rootDeclarationEnd = getByteCount();
+		} else {
+			writePendingDeclarations();
+		}
+		for (int i = 0, count = atts.getLength(); i < count; i++) {
+			String attributeName = atts.getQName(i);
+			if (attributeName == null || attributeName.length() == 0) {
+				attributeName = atts.getLocalName(i);
+			}
+			if ("xmlns".equals(attributeName) || attributeName.startsWith("xmlns:")) {
+				continue;
+			}
+			write(' ');
+			write(attributeName);
+			write("=\"");
+			writeEscaped(atts.getValue(i), true);
+			write('"');
+		}
+		this.startTagOpen = true;
+		this.childElements = false;
+	}
+
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		this.depth--;
+		if (this.startTagOpen) {
+			write("/>");
+			this.startTagOpen = false;
+		} else {
+			if (this.childElements && !this.mixed[this.depth]) {
+				newLine(this.depth);
+			}
+			write("</");
+			write(qName == null || qName.length() == 0 ? localName : qName);
+			write('>');
+		}
+		this.namespaceCount = this.scopes[this.depth];
+		this.childElements = true;
+	}
+
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (length == 0) {
+			return;
+		}
+		closeStartTag();
+		if (this.depth > 0) {
+			this.mixed[this.depth - 1] = true;
+		}
+		writeEscaped(ch, start, length, false);
+	}
+
+	/**
+	 * Writes the given text like {@link #characters(char[], int, int)} without copying it.
+	 * 
+	 * @param text The text to write (must not be null)
+	 * @throws SAXException If writing fails
+	 */
+	public void characters(String text) throws SAXException {
+		if (text.length() == 0) {
+			return;
+		}
+		closeStartTag();
+		if (this.depth > 0) {
+			this.mixed[this.depth - 1] = true;
+		}
+		writeEscaped(text, false);
+	}
+
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		characters(ch, start, length);
+	}
+
+	public void processingInstruction(String target, String data) throws SAXException {
+		closeStartTag();
+		newLine(this.depth);
+		write("<?");
+		write(target);
+		if (data != null && data.length() > 0) {
+			write(' ');
+			write(data);
+		}
+		write("?>");
+	}
+
+	public void skippedEntity(String name) throws SAXException {
+		// entities are resolved by the model
+	}
+
+	public void comment(char[] ch, int start, int length) throws SAXException {
+		closeStartTag();
+		if (this.depth == 0 || !this.mixed[this.depth - 1]) {
+			newLine(this.depth);
+		}
+		write("<!--");
+		write(ch, start, length);
+		write("-->");
+		this.childElements = true;
+	}
+
+	public void startDTD(String name, String publicId, String systemId) throws SAXException {
+		// documents are written without DTD
+	}
+
+	public void endDTD() throws SAXException {
+		// documents are written without DTD
+	}
+
+	public void startEntity(String name) throws SAXException {
+		// entities are resolved by the model
+	}
+
+	public void endEntity(String name) throws SAXException {
+		// entities are resolved by the model
+	}
+
+	public void startCDATA() throws SAXException {
+		// CDATA sections are written as escaped text
+	}
+
+	public void endCDATA() throws SAXException {
+		// CDATA sections are written as escaped text
+	}
+
+	/**
+	 * Writes the given markup as it is at the current position. The markup must be a well formed
+	 * element declaring all the namespaces it uses.
+	 * 
+	 * @param markup The markup to write
+	 * @throws SAXException If the markup cannot be written
+	 */
+	public void writeMarkup(CharSequence markup) throws SAXException {
+		closeStartTag();
+		if (this.depth == 0 || !this.mixed[this.depth - 1]) {
+			newLine(this.depth);
+		}
+		int length = markup.length();
+		for (int i = 0; i < length;) {
+			int count = Math.min(length - i, this.buffer.length - this.position);
+			if (markup instanceof String) {
+				((String) markup).getChars(i, i + count, this.buffer, this.position);
+			} else {
+				for (int j = 0; j < count; j++) {
+					this.buffer[this.position + j] = markup.charAt(i + j);
+				}
+			}
+			this.position += count;
+			i += count;
+			if (this.position == this.buffer.length) {
+				flushBuffer();
+			}
+		}
+		this.childElements = true;
+	}
+
+	/**
+	 * Writes all buffered characters to the underlying stream and flushes it.
+	 * 
+	 * @throws SAXException If the stream cannot be written
+	 */
+	public void flush() throws SAXException {
+		flushBuffer();
+		try {
+			if (this.stream != null) {
+				drainBytes();
+				this.stream.flush();
+			} else {
+				this.out.flush();
+			}
+		} catch (IOException e) {
+			throw new SAXException(e);
+		}
+	}
+
+	/**
+	 * Renders entries for the entry cache. Fragments are indented as root elements and the start
+	 * of each indented line is recorded so the fragment can be indented at any depth.
+	 */
+	void startFragment() {
+		this.fragment = true;
+		this.lineStarts = new int[16];
+	}
+
+	/**
+	 * Returns the number of bytes written so far by a writer writing to a byte stream.
+	 */
+	long getByteCount() throws SAXException {
+		flushBuffer();
+		return this.flushed + this.bytes.position();
+	}
+
+	/**
+	 * Returns the byte offset of the namespace declarations of the fragment root element.
+	 */
+	long getRootDeclarationStart() {
+		return this.rootDeclarationStart;
+	}
+
+	/**
+	 * Returns the byte offset following the namespace declarations of the fragment root element.
+	 */
+	long getRootDeclarationEnd() {
+		return this.rootDeclarationEnd;
+	}
+
+	/**
+	 * Returns the byte offsets following the line breaks written before indenting a line.
+	 */
+	int[] getLineStarts() {
+		int[] result = new int[this.lineCount];
+		System.arraycopy(this.lineStarts, 0, result, 0, this.lineCount);
+		return result;
+	}
+
+	/**
+	 * Returns the prefixes declared on the fragment root element.
+	 */
+	String[] getRootPrefixes() {
+		return this.rootPrefixes;
+	}
+
+	/**
+	 * Returns the namespaces declared on the fragment root element.
+	 */
+	String[] getRootNamespaces() {
+		return this.rootUris;
+	}
+
+	private void push() {
+		if (this.depth == this.scopes.length) {
+			int[] temp = new int[this.depth * 2];
+			System.arraycopy(this.scopes, 0, temp, 0, this.depth);
+			this.scopes = temp;
+			boolean[] tempMixed = new boolean[this.depth * 2];
+			System.arraycopy(this.mixed, 0, tempMixed, 0, this.depth);
+			this.mixed = tempMixed;
+		}
+		// pending declarations belong to the element started
+		this.scopes[this.depth] = this.namespaceCount - this.pendingCount;
+		this.mixed[this.depth] = false;
+		this.depth++;
+	}
+
+	/**
+	 * Adds the mapping to the namespace context unless the prefix is already bound to the uri.
+	 */
+	private void declare(String prefix, String uri, boolean pending) {
+		if ("xml".equals(prefix) || uri.equals(lookup(prefix))) {
+			return;
+		}
+		if (this.namespaceCount == this.prefixes.length) {
+			String[] temp = new String[this.namespaceCount * 2];
+			System.arraycopy(this.prefixes, 0, temp, 0, this.namespaceCount);
+			this.prefixes = temp;
+			temp = new String[this.namespaceCount * 2];
+			System.arraycopy(this.uris, 0, temp, 0, this.namespaceCount);
+			this.uris = temp;
+		}
+		this.prefixes[this.namespaceCount] = prefix;
+		this.uris[this.namespaceCount] = uri;
+		this.namespaceCount++;
+		if (pending) {
+			this.pendingCount++;
+		}
+	}
+
+	private void declareUsed(String prefix, String uri) {
+		if (uri == null || XML_NS_URI.equals(uri)) {
+			return;
+		}
+		if (!uri.equals(lookup(prefix)) && (uri.length() > 0 || lookup(prefix) != null)) {
+			declare(prefix, uri, true);
+		}
+	}
+
+	private String lookup(String prefix) {
+		for (int i = this.namespaceCount - 1; i >= 0; i--) {
+			if (this.prefixes[i].equals(prefix)) {
+				return this.uris[i];
+			}
+		}
+		return null;
+	}
+
+	private void writePendingDeclarations() throws SAXException {
+		for (int i = this.namespaceCount - this.pendingCount; i < this.namespaceCount; i++) {
+			writeDeclaration(this.prefixes[i], this.uris[i]);
+		}
+		this.pendingCount = 0;
+	}
+
+	private void writeDeclaration(String prefix, String uri) throws SAXException {
+		if (prefix.length() == 0) {
+			write(" xmlns=\"");
+		} else {
+			write(" xmlns:");
+			write(prefix);
+			write("=\"");
+		}
+		writeEscaped(uri, true);
+		write('"');
+	}
+
+	private void closeStartTag() throws SAXException {
+		if (this.startTagOpen) {
+			write('>');
+			this.startTagOpen = false;
+		}
+	}
+
+	private void newLine(int level) throws SAXException {
+		if (this.indent != NO_INDENT && (level == 0 || !this.mixed[level - 1]) && !isEmpty()) {
+			write('\n');
+			if (this.fragment) {
+				if (this.lineCount == this.lineStarts.length) {
+					int[] temp = new int[this.lineCount * 2];
+					System.arraycopy(this.lineStarts, 0, temp, 0, this.lineCount);
+					this.lineStarts = temp;
+				}
+				this.lineStarts[this.lineCount++] = (int) getByteCount();
+			}
+			writeSpaces(level * this.indent);
+		}
+	}
+
+	private void writeSpaces(int count) throws SAXException {
+		for (int i = count; i > 0; i--) {
+			write(' ');
+		}
+	}
+
+	private boolean isEmpty() {
+		return this.position == 0 && this.flushed == 0 && (this.bytes == null || this.bytes.position() == 0);
+	}
+
+	private String prefixOf(String qName) {
+		int index = qName.indexOf(':');
+		if (index < 0) {
+			return "";
+		}
+		// reuse the prefix of the namespace context instead of cutting a new one
+		for (int i = this.namespaceCount - 1; i >= 0; i--) {
+			String prefix = this.prefixes[i];
+			if (prefix.length() == index && qName.startsWith(prefix)) {
+				return prefix;
+			}
+		}
+		return qName.substring(0, index);
+	}
+
+	private void writeEscaped(String value, boolean attribute) throws SAXException {
+		for (int i = 0, length = value.length(); i < length; i++) {
+			char c = value.charAt(i);
+			if (this.encoder != null && Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				writeSurrogatePair(c, value.charAt(++i));
+			} else {
+				writeEscaped(c, attribute);
+			}
+		}
+	}
+
+	private void writeEscaped(char[] ch, int start, int length, boolean attribute) throws SAXException {
+		for (int i = start, end = start + length; i < end; i++) {
+			char c = ch[i];
+			if (this.encoder != null && Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(ch[i + 1])) {
+				writeSurrogatePair(c, ch[++i]);
+			} else {
+				writeEscaped(c, attribute);
+			}
+		}
+	}
+
+	private void writeSurrogatePair(char high, char low) throws SAXException {
+		this.surrogatePair[0] = high;
+		this.surrogatePair[1] = low;
+		if (this.encoder.canEncode(CharBuffer.wrap(this.surrogatePair))) {
+			write(high);
+			write(low);
+		} else {
+			write("&#");
+			write(Integer.toString(Character.toCodePoint(high, low)));
+			write(';');
+		}
+	}
+
+	private void writeEscaped(char c, boolean attribute) throws SAXException {
+		switch (c) {
+			case '&':
+				write("&amp;");
+				break;
+			case '<':
+				write("&lt;");
+				break;
+			case '>':
+				write("&gt;");
+				break;
+			case '"':
+				if (attribute) {
+					write("&quot;");
+				} else {
+					write(c);
+				}
+				break;
+			case '\n':
+			case '\t':
+				if (attribute) {
+					writeReference(c);
+				} else {
+					write(c);
+				}
+				break;
+			case '\r':
+				writeReference(c);
+				break;
+			default:
+				if (c >= 0x80 && this.encoder != null && !Character.isSurrogate(c) && !this.encoder.canEncode(c)) {
+					writeReference(c);
+				} else {
+					write(c);
+				}
+				break;
+		}
+	}
+
+	private void writeReference(char c) throws SAXException {
+		write("&#");
+		write(Integer.toString(c));
+		write(';');
+	}
+
+	private void write(char c) throws SAXException {
+		if (this.position == this.buffer.length) {
+			flushBuffer();
+		}
+		this.buffer[this.position++] = c;
+	}
+
+	private void write(String value) throws SAXException {
+		int length = value.length();
+		if (this.position + length <= this.buffer.length) {
+			value.getChars(0, length, this.buffer, this.position);
+			this.position += length;
+			return;
+		}
+		// flushing can keep a high surrogate at the start of the buffer so fill behind it
+		for (int offset = 0; offset < length;) {
+			if (this.position == this.buffer.length) {
+				flushBuffer();
+			}
+			int count = Math.min(this.buffer.length - this.position, length - offset);
+			value.getChars(offset, offset + count, this.buffer, this.position);
+			this.position += count;
+			offset += count;
+		}
+	}
+
+	private void write(char[] ch, int start, int length) throws SAXException {
+		for (int i = start, end = start + length; i < end; i++) {
+			write(ch[i]);
+		}
+	}
+
+	private void flushBuffer() throws SAXException {
+		if (this.position > 0) {
+			try {
+				if (this.stream != null) {
+					CharBuffer chars = CharBuffer.wrap(this.buffer, 0, this.position);
+					while (this.streamEncoder.encode(chars, this.bytes, false).isOverflow()) {
+						drainBytes();
+					}
+					// an unpaired high surrogate at the end waits for the next chunk
+					int remaining = chars.remaining();
+					System.arraycopy(this.buffer, chars.position(), this.buffer, 0, remaining);
+					this.position = remaining;
+				} else {
+					this.out.write(this.buffer, 0, this.position);
+					this.flushed += this.position;
+					this.position = 0;
+				}
+			} catch (IOException e) {
+				throw new SAXException(e);
+			}
+		}
+	}
+
+	private void writeBytes(byte[] data, int offset, int length) throws SAXException {
+		flushBuffer();
+		try {
+			if (length > this.bytes.remaining()) {
+				drainBytes();
+				if (length > this.bytes.capacity()) {
+					this.stream.write(data, offset, length);
+					this.flushed += length;
+					return;
+				}
+			}
+			this.bytes.put(data, offset, length);
+		} catch (IOException e) {
+			throw new SAXException(e);
+		}
+	}
+
+	private void drainBytes() throws IOException {
+		if (this.bytes.position() > 0) {
+			this.stream.write(this.bytes.array(), 0, this.bytes.position());
+			this.flushed += this.bytes.position();
+			this.bytes.clear();
+		}
+	}
+
+}
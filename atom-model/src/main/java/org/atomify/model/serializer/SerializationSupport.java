@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import javax.xml.namespace.QName;
+
+import org.atomify.model.AtomConstants;
+import org.atomify.model.AtomValueCache;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Helpers used by the model to serialize without allocating per element. Qualified names are
+ * taken from a cache and text is handed to the {@link AtomXmlWriter} as it is or copied into a
+ * reusable buffer for any other content handler.
+ */
+public final class SerializationSupport {
+	private static final int BUFFER_SIZE = 1024;
+	/**
+	 * The prefix written instead of the atom prefix bound to another namespace.
+	 */
+	public static final String RENAMED_ATOM_PREFIX = "atomext";
+
+	/**
+	 * The cache for the prefixed names of qualified names. Qualified names are equal regardless of
+	 * their prefix so a cached name is only used if its prefix matches.
+	 */
+	private static final AtomValueCache<QName, String> QUALIFIED_NAMES = new AtomValueCache<QName, String>("QualifiedName") {
+		@Override
+		protected String create(QName key) {
+			return prefix(key) + ":" + key.getLocalPart();
+		}
+	};
+
+	private static final ThreadLocal<char[]> BUFFERS = new ThreadLocal<char[]>() {
+		@Override
+		protected char[] initialValue() {
+			return new char[BUFFER_SIZE];
+		}
+	};
+
+	private SerializationSupport() {
+		// no instances
+	}
+
+	/**
+	 * Returns the name of the given qualified name as written in XML (prefix:local or local if
+	 * the name has no prefix).
+	 * 
+	 * @param name The qualified name (must not be null)
+	 * @return The name as written in XML
+	 */
+	public static String qualifiedName(QName name) {
+		String prefix = prefix(name);
+		if (prefix == null || prefix.length() == 0) {
+			return name.getLocalPart();
+		}
+		String result = QUALIFIED_NAMES.valueOf(name);
+		if (result.length() != prefix.length() + 1 + name.getLocalPart().length() || !result.startsWith(prefix)) {
+			// same name cached with another prefix
+			result = prefix + ":" + name.getLocalPart();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the prefix the given qualified name is written with. The atom prefix is reserved for
+	 * the atom namespace declared on the root element so a name using it for another namespace is
+	 * written with {@value #RENAMED_ATOM_PREFIX} instead.
+	 * 
+	 * @param name The qualified name (must not be null)
+	 * @return The prefix to write
+	 */
+	public static String prefix(QName name) {
+		String prefix = name.getPrefix();
+		if (AtomConstants.ATOM_NS_PREFIX.equals(prefix) && !AtomConstants.ATOM_NS_URI.equals(name.getNamespaceURI())) {
+			return RENAMED_ATOM_PREFIX;
+		}
+		return prefix;
+	}
+
+	/**
+	 * Passes the given text to the handler without copying it into a new array.
+	 * 
+	 * @param handler The handler to write to (must not be null)
+	 * @param text The text to write (must not be null)
+	 * @throws SAXException If the handler fails
+	 */
+	public static void characters(ContentHandler handler, String text) throws SAXException {
+		if (handler instanceof AtomXmlWriter) {
+			((AtomXmlWriter) handler).characters(text);
+			return;
+		}
+		char[] buffer = BUFFERS.get();
+		for (int i = 0, length = text.length(); i < length; i += buffer.length) {
+			int count = Math.min(buffer.length, length - i);
+			text.getChars(i, i + count, buffer, 0);
+			handler.characters(buffer, 0, count);
+		}
+	}
+
+}
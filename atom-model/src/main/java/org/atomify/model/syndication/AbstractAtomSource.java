@@ -26,12 +26,14 @@ package org.atomify.model.syndication;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomConstants;
 import org.atomify.model.common.AtomCommonAttributes;
 import org.atomify.model.common.AtomExtendable;
+import org.atomify.model.common.AtomXmlBase;
 import org.atomify.model.extension.AtomExtension;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -243,6 +245,18 @@ public class AbstractAtomSource extends AtomExtendable {
 		}
 	}
 
+	/**
+	 * Takes the lists of a builder without copying them. The builder must not modify the lists
+	 * afterwards.
+	 */
+	protected void adoptCollections(List<AtomCategory> categories, List<AtomPerson> authors, List<AtomPerson> contributors,
+			List<AtomLink> links) {
+		this.categories = adopt(categories);
+		this.authors = adopt(authors);
+		this.contributors = adopt(contributors);
+		this.links = adopt(links);
+	}
+
 	protected void setSubtitle(final AtomText subtitle) {
 		this.subtitle = subtitle;
 	}
@@ -404,6 +418,32 @@ public class AbstractAtomSource extends AtomExtendable {
 
 	// --- FIXME: From here all is serialization. We Still need to think about a good way to do so.
 
+	@Override
+	public void collectNamespaces(Map<String, String> namespaces) {
+		super.collectNamespaces(namespaces);
+		collectNamespaces(namespaces, this.id);
+		collectNamespaces(namespaces, this.title);
+		collectNamespaces(namespaces, this.subtitle);
+		collectNamespaces(namespaces, this.updated);
+		collectNamespaces(namespaces, this.links);
+		collectNamespaces(namespaces, this.authors);
+		collectNamespaces(namespaces, this.contributors);
+		collectNamespaces(namespaces, this.categories);
+		collectNamespaces(namespaces, this.generator);
+		collectNamespaces(namespaces, this.logo);
+		collectNamespaces(namespaces, this.icon);
+		collectNamespaces(namespaces, this.rights);
+	}
+
+	@Override
+	public AtomXmlBase collectXmlBases(AtomXmlBase parent, Map<AtomCommonAttributes, AtomXmlBase> chains) {
+		AtomXmlBase chain = super.collectXmlBases(parent, chains);
+		collectXmlBases(chain, chains, this.links);
+		collectXmlBases(chain, chains, this.authors);
+		collectXmlBases(chain, chains, this.contributors);
+		return chain;
+	}
+
 	protected void serializeContent(ContentHandler handler, AttributesImpl attributes) throws SAXException {
 		if (this.id != null) {
 			this.id.serialize(handler, attributes);
@@ -417,16 +457,20 @@ public class AbstractAtomSource extends AtomExtendable {
 		if (this.updated != null) {
 			this.updated.serialize(UPDATED_QNAME, handler, attributes);
 		}
-		for (AtomLink link : this.links) {
+		for (int i = 0, n = this.links.size(); i < n; i++) {
+			AtomLink link = this.links.get(i);
 			link.serialize(handler, attributes);
 		}
-		for (AtomPerson author : this.authors) {
+		for (int i = 0, n = this.authors.size(); i < n; i++) {
+			AtomPerson author = this.authors.get(i);
 			author.serialize(AUTHOR_QNAME, handler, attributes);
 		}
-		for (AtomPerson contributor : this.contributors) {
+		for (int i = 0, n = this.contributors.size(); i < n; i++) {
+			AtomPerson contributor = this.contributors.get(i);
 			contributor.serialize(CONTRIBUTOR_QNAME, handler, attributes);
 		}
-		for (AtomCategory category : this.categories) {
+		for (int i = 0, n = this.categories.size(); i < n; i++) {
+			AtomCategory category = this.categories.get(i);
 			category.serialize(handler, attributes);
 		}
 		if (this.generator != null) {
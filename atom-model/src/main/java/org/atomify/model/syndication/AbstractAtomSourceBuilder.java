@@ -30,7 +30,6 @@ import java.util.List;
 import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.common.AtomExtendableBuilder;
-import org.atomify.model.extension.AtomExtension;
 import org.jbasics.parser.annotations.AnyElement;
 import org.jbasics.parser.annotations.Element;
 
@@ -83,10 +82,6 @@ public abstract class AbstractAtomSourceBuilder<T extends AbstractAtomSourceBuil
 	 * <b>Optional:</b> atom:rights element.
 	 */
 	protected AtomText rights;
-	/**
-	 * <b>Optional:</b> atom extensions.
-	 */
-	protected List<AtomExtension> extensions;
 
 	@Override
 	public void reset() {
@@ -99,21 +94,24 @@ public abstract class AbstractAtomSourceBuilder<T extends AbstractAtomSourceBuil
 		this.logo = null;
 		this.rights = null;
 		this.generator = null;
-		if (this.authors != null) {
-			this.authors.clear();
-		}
-		if (this.contributors != null) {
-			this.contributors.clear();
-		}
-		if (this.categories != null) {
-			this.categories.clear();
-		}
-		if (this.extensions != null) {
-			this.extensions.clear();
-		}
-		if (this.links != null) {
-			this.links.clear();
-		}
+	}
+
+	@Override
+	protected void recycleCollections() {
+		super.recycleCollections();
+		this.authors = recycle(this.authors);
+		this.contributors = recycle(this.contributors);
+		this.categories = recycle(this.categories);
+		this.links = recycle(this.links);
+	}
+
+	@Override
+	protected void copyCollections() {
+		super.copyCollections();
+		this.authors = copy(this.authors);
+		this.contributors = copy(this.contributors);
+		this.categories = copy(this.categories);
+		this.links = copy(this.links);
 	}
 
 	@Element(name = "id", namespace = AtomConstants.ATOM_NS_URI, minOccurs = 1, maxOccurs = 1)
@@ -175,6 +173,7 @@ public abstract class AbstractAtomSourceBuilder<T extends AbstractAtomSourceBuil
 	@Element(name = "category", namespace = AtomConstants.ATOM_NS_URI, minOccurs = 0, maxOccurs = Element.UNBOUND)
 	@SuppressWarnings("unchecked")
 	public T addCategory(AtomCategory category) {
+		beforeModify();
 		if (this.categories == null) {
 			this.categories = new ArrayList<AtomCategory>();
 		}
@@ -184,6 +183,7 @@ public abstract class AbstractAtomSourceBuilder<T extends AbstractAtomSourceBuil
 
 	@SuppressWarnings("unchecked")
 	public T addCategories(Collection<AtomCategory> categories) {
+		beforeModify();
 		if (this.categories == null) {
 			this.categories = new ArrayList<AtomCategory>();
 		}
@@ -194,6 +194,7 @@ public abstract class AbstractAtomSourceBuilder<T extends AbstractAtomSourceBuil
 	@Element(name = "author", namespace = AtomConstants.ATOM_NS_URI, minOccurs = 0, maxOccurs = Element.UNBOUND)
 	@SuppressWarnings("unchecked")
 	public T addAuthor(AtomPerson author) {
+		beforeModify();
 		if (this.authors == null) {
 			this.authors = new ArrayList<AtomPerson>();
 		}
@@ -203,6 +204,7 @@ public abstract class AbstractAtomSourceBuilder<T extends AbstractAtomSourceBuil
 
 	@SuppressWarnings("unchecked")
 	public T addAuthors(Collection<AtomPerson> authors) {
+		beforeModify();
 		if (this.authors == null) {
 			this.authors = new ArrayList<AtomPerson>();
 		}
@@ -213,6 +215,7 @@ public abstract class AbstractAtomSourceBuilder<T extends AbstractAtomSourceBuil
 	@Element(name = "contributor", namespace = AtomConstants.ATOM_NS_URI, minOccurs = 0, maxOccurs = Element.UNBOUND)
 	@SuppressWarnings("unchecked")
 	public T addContributor(AtomPerson contributor) {
+		beforeModify();
 		if (this.contributors == null) {
 			this.contributors = new ArrayList<AtomPerson>();
 		}
@@ -222,6 +225,7 @@ public abstract class AbstractAtomSourceBuilder<T extends AbstractAtomSourceBuil
 
 	@SuppressWarnings("unchecked")
 	public T addContributors(Collection<AtomPerson> contributors) {
+		beforeModify();
 		if (this.contributors == null) {
 			this.contributors = new ArrayList<AtomPerson>();
 		}
@@ -232,6 +236,7 @@ public abstract class AbstractAtomSourceBuilder<T extends AbstractAtomSourceBuil
 	@Element(name = "link", namespace = AtomConstants.ATOM_NS_URI, minOccurs = 0, maxOccurs = Element.UNBOUND)
 	@SuppressWarnings("unchecked")
 	public T addLink(AtomLink link) {
+		beforeModify();
 		if (this.links == null) {
 			this.links = new ArrayList<AtomLink>();
 		}
@@ -241,6 +246,7 @@ public abstract class AbstractAtomSourceBuilder<T extends AbstractAtomSourceBuil
 	
 	@SuppressWarnings("unchecked")
 	public T addLinks(Collection<AtomLink> links) {
+		beforeModify();
 		if (this.links == null) {
 			this.links = new ArrayList<AtomLink>();
 		}
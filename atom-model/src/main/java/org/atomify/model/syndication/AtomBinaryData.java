@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.syndication;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.atomify.model.AtomContractConstraint;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Immutable binary payload of an {@link AtomContentBinary} stored in fixed size chunks. The data
+ * is decoded from base64 chunk by chunk while it is read with a {@link Base64Decoder} and encoded
+ * block by block while serialized so a large payload never needs a copy as one base64 string or
+ * one contiguous array.
+ */
+public final class AtomBinaryData implements Serializable {
+	private static final long serialVersionUID = 6118392640576532149L;
+	private static final int CHUNK_SIZE = 16 * 1024;
+	/**
+	 * Bytes encoded at once while serializing. Must be a multiple of the base64 input block (3).
+	 */
+	private static final int ENCODE_BLOCK_SIZE = 3 * 1024;
+	private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+	private static final byte[] DECODE_TABLE = new byte[128];
+
+	static {
+		Arrays.fill(DECODE_TABLE, (byte) -1);
+		for (int i = 0; i < ALPHABET.length; i++) {
+			DECODE_TABLE[ALPHABET[i]] = (byte) i;
+		}
+	}
+
+	private final byte[][] chunks;
+	private final long length;
+	private transient int hashCode;
+
+	private AtomBinaryData(byte[][] chunks, long length) {
+		this.chunks = chunks;
+		this.length = length;
+	}
+
+	/**
+	 * Creates the binary data holding a copy of the given bytes.
+	 * 
+	 * @param data The data (must not be null)
+	 * @return The binary data
+	 */
+	public static AtomBinaryData valueOf(byte[] data) {
+		AtomContractConstraint.notNull("data", data);
+		List<byte[]> chunks = new ArrayList<byte[]>();
+		for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+			chunks.add(Arrays.copyOfRange(data, offset, Math.min(data.length, offset + CHUNK_SIZE)));
+		}
+		return new AtomBinaryData(chunks.toArray(new byte[chunks.size()][]), data.length);
+	}
+
+	/**
+	 * Decodes the given base64 text. White space is ignored.
+	 * 
+	 * @param base64 The base64 text (must not be null)
+	 * @return The decoded binary data
+	 */
+	public static AtomBinaryData decodeBase64(CharSequence base64) {
+		return new Base64Decoder().append(AtomContractConstraint.notNull("base64", base64)).build();
+	}
+
+	/**
+	 * Returns the number of bytes.
+	 * 
+	 * @return The length of the data
+	 */
+	public long length() {
+		return this.length;
+	}
+
+	/**
+	 * Returns a stream reading the data. The stream does not copy the data.
+	 * 
+	 * @return The stream reading the data
+	 */
+	public InputStream openStream() {
+		return new ChunkInputStream();
+	}
+
+	/**
+	 * Copies the data into one array.
+	 * 
+	 * @return The data as one array
+	 */
+	public byte[] toByteArray() {
+		if (this.length > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Binary data of " + this.length + " bytes does not fit into an array");
+		}
+		byte[] result = new byte[(int) this.length];
+		int offset = 0;
+		for (byte[] chunk : this.chunks) {
+			System.arraycopy(chunk, 0, result, offset, chunk.length);
+			offset += chunk.length;
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the data base64 encoded to the given handler. The data is encoded in blocks of a few
+	 * kilobytes each handed to the handler as characters.
+	 * 
+	 * @param handler The handler to write to (must not be null)
+	 * @throws SAXException If the handler fails
+	 */
+	public void encodeBase64(ContentHandler handler) throws SAXException {
+		AtomContractConstraint.notNull("handler", handler);
+		byte[] block = new byte[ENCODE_BLOCK_SIZE];
+		char[] encoded = new char[ENCODE_BLOCK_SIZE / 3 * 4];
+		int blockLength = 0;
+		for (byte[] chunk : this.chunks) {
+			int offset = 0;
+			while (offset < chunk.length) {
+				int count = Math.min(chunk.length - offset, block.length - blockLength);
+				System.arraycopy(chunk, offset, block, blockLength, count);
+				offset += count;
+				blockLength += count;
+				if (blockLength == block.length) {
+					handler.characters(encoded, 0, encode(block, blockLength, encoded));
+					blockLength = 0;
+				}
+			}
+		}
+		if (blockLength > 0) {
+			handler.characters(encoded, 0, encode(block, blockLength, encoded));
+		}
+	}
+
+	/**
+	 * Returns the data base64 encoded.
+	 * 
+	 * @return The base64 encoded data
+	 */
+	public String toBase64() {
+		final StringBuilder result = new StringBuilder((int) Math.min(Integer.MAX_VALUE, (this.length + 2) / 3 * 4));
+		byte[] block = new byte[ENCODE_BLOCK_SIZE];
+		char[] encoded = new char[ENCODE_BLOCK_SIZE / 3 * 4];
+		InputStream in = openStream();
+		try {
+			int count;
+			while ((count = readFully(in, block)) > 0) {
+				result.append(encoded, 0, encode(block, count, encoded));
+			}
+		} catch (IOException e) {
+			// cannot happen while reading from memory
+			throw new IllegalStateException(e);
+		}
+		return result.toString();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int result = this.hashCode;
+		if (result == 0) {
+			result = 1;
+			for (byte[] chunk : this.chunks) {
+				for (byte b : chunk) {
+					result = 31 * result + b;
+				}
+			}
+			this.hashCode = result;
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof AtomBinaryData)) {
+			return false;
+		}
+		AtomBinaryData other = (AtomBinaryData) obj;
+		if (this.length != other.length || hashCode() != other.hashCode()) {
+			return false;
+		}
+		InputStream left = openStream();
+		InputStream right = other.openStream();
+		try {
+			int b;
+			while ((b = left.read()) >= 0) {
+				if (b != right.read()) {
+					return false;
+				}
+			}
+		} catch (IOException e) {
+			// cannot happen while reading from memory
+			throw new IllegalStateException(e);
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuilder().append("AtomBinaryData [length=").append(this.length).append("]").toString();
+	}
+
+	private static int readFully(InputStream in, byte[] buffer) throws IOException {
+		int count = 0;
+		int temp;
+		while (count < buffer.length && (temp = in.read(buffer, count, buffer.length - count)) > 0) {
+			count += temp;
+		}
+		return count;
+	}
+
+	private static int encode(byte[] data, int length, char[] out) {
+		int o = 0;
+		int i = 0;
+		for (; i + 2 < length; i += 3) {
+			int bits = (data[i] & 0xff) << 16 | (data[i + 1] & 0xff) << 8 | data[i + 2] & 0xff;
+			out[o++] = ALPHABET[bits >>> 18];
+			out[o++] = ALPHABET[bits >>> 12 & 0x3f];
+			out[o++] = ALPHABET[bits >>> 6 & 0x3f];
+			out[o++] = ALPHABET[bits & 0x3f];
+		}
+		int rest = length - i;
+		if (rest > 0) {
+			int bits = (data[i] & 0xff) << 16 | (rest > 1 ? (data[i + 1] & 0xff) << 8 : 0);
+			out[o++] = ALPHABET[bits >>> 18];
+			out[o++] = ALPHABET[bits >>> 12 & 0x3f];
+			out[o++] = rest > 1 ? ALPHABET[bits >>> 6 & 0x3f] : '=';
+			out[o++] = '=';
+		}
+		return o;
+	}
+
+	/**
+	 * Decodes base64 text appended in pieces of any size into {@link AtomBinaryData}. White space
+	 * is skipped and padding ends the data. An instance can be used to build exactly one binary
+	 * data.
+	 */
+	public static final class Base64Decoder {
+		private final List<byte[]> chunks = new ArrayList<byte[]>();
+		private byte[] current = new byte[CHUNK_SIZE];
+		private int position;
+		private long length;
+		private int bits;
+		private int bitCount;
+		private boolean padded;
+
+		/**
+		 * Decodes the given characters.
+		 * 
+		 * @param ch The characters
+		 * @param start The offset of the first character
+		 * @param count The number of characters
+		 * @return This decoder
+		 */
+		public Base64Decoder append(char[] ch, int start, int count) {
+			for (int i = start, end = start + count; i < end; i++) {
+				decode(ch[i]);
+			}
+			return this;
+		}
+
+		/**
+		 * Decodes the given characters.
+		 * 
+		 * @param text The characters
+		 * @return This decoder
+		 */
+		public Base64Decoder append(CharSequence text) {
+			for (int i = 0, end = text.length(); i < end; i++) {
+				decode(text.charAt(i));
+			}
+			return this;
+		}
+
+		/**
+		 * Returns the decoded data.
+		 * 
+		 * @return The decoded data
+		 * @throws IllegalArgumentException If the base64 text is incomplete
+		 */
+		public AtomBinaryData build() {
+			if (this.bitCount >= 6) {
+				throw new IllegalArgumentException("Base64 text ends within an encoded block");
+			}
+			if (this.position > 0) {
+				this.chunks.add(Arrays.copyOf(this.current, this.position));
+			}
+			this.current = null;
+			return new AtomBinaryData(this.chunks.toArray(new byte[this.chunks.size()][]), this.length);
+		}
+
+		private void decode(char c) {
+			if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+				return;
+			}
+			if (c == '=') {
+				this.padded = true;
+				this.bitCount = 0;
+				return;
+			}
+			int value = c < 128 ? DECODE_TABLE[c] : -1;
+			if (value < 0) {
+				throw new IllegalArgumentException("Illegal base64 character " + c);
+			}
+			if (this.padded) {
+				throw new IllegalArgumentException("Base64 data after padding");
+			}
+			this.bits = this.bits << 6 | value;
+			this.bitCount += 6;
+			if (this.bitCount >= 8) {
+				this.bitCount -= 8;
+				if (this.position == this.current.length) {
+					this.chunks.add(this.current);
+					this.current = new byte[CHUNK_SIZE];
+					this.position = 0;
+				}
+				this.current[this.position++] = (byte) (this.bits >>> this.bitCount);
+				this.bits &= (1 << this.bitCount) - 1;
+				this.length++;
+			}
+		}
+	}
+
+	private final class ChunkInputStream extends InputStream {
+		private int chunk;
+		private int offset;
+		private int markChunk;
+		private int markOffset;
+
+		@Override
+		public int read() {
+			if (!nextChunk()) {
+				return -1;
+			}
+			return AtomBinaryData.this.chunks[this.chunk][this.offset++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!nextChunk()) {
+				return -1;
+			}
+			byte[] data = AtomBinaryData.this.chunks[this.chunk];
+			int count = Math.min(len, data.length - this.offset);
+			System.arraycopy(data, this.offset, b, off, count);
+			this.offset += count;
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return nextChunk() ? AtomBinaryData.this.chunks[this.chunk].length - this.offset : 0;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return true;
+		}
+
+		@Override
+		public synchronized void mark(int readlimit) {
+			this.markChunk = this.chunk;
+			this.markOffset = this.offset;
+		}
+
+		@Override
+		public synchronized void reset() {
+			this.chunk = this.markChunk;
+			this.offset = this.markOffset;
+		}
+
+		private boolean nextChunk() {
+			byte[][] chunks = AtomBinaryData.this.chunks;
+			while (this.chunk < chunks.length && this.offset >= chunks[this.chunk].length) {
+				this.chunk++;
+				this.offset = 0;
+			}
+			return this.chunk < chunks.length;
+		}
+	}
+
+}
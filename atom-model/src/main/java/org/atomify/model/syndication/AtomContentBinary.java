@@ -23,9 +23,10 @@
  */
 package org.atomify.model.syndication;
 
+import java.io.InputStream;
+
 import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
-import org.jbasics.codec.RFC3548Base64Codec;
 import org.jbasics.net.mediatype.MediaType;
 import org.jbasics.net.mediatype.RFC3023XMLMediaTypes;
 import org.xml.sax.ContentHandler;
@@ -34,26 +35,53 @@ import org.xml.sax.helpers.AttributesImpl;
 
 public class AtomContentBinary extends AtomContent {
 	private final MediaType mediaType;
-	private final byte[] data;
+	private final AtomBinaryData data;
 
 	public AtomContentBinary(MediaType mediaType, String base64Content) {
-		this(mediaType, RFC3548Base64Codec.INSTANCE.decode(AtomContractConstraint.mustNotBeEmptyString(base64Content, "base64Content")));
+		this(mediaType, AtomBinaryData.decodeBase64(AtomContractConstraint.mustNotBeEmptyString(base64Content, "base64Content")));
 	}
 
 	public AtomContentBinary(MediaType mediaType, byte[] data) {
+		this(mediaType, AtomBinaryData.valueOf(AtomContractConstraint.notNull("data", data)));
+	}
+
+	public AtomContentBinary(MediaType mediaType, AtomBinaryData data) {
 		this.mediaType = AtomContractConstraint.notNull("mediaType", mediaType);
 		if (RFC3023XMLMediaTypes.isXmlMediaType(mediaType) || "text".equals(mediaType.getType())) {
 			throw new IllegalArgumentException("[AtomContractViolation] Binary content cannot be a text or xml media type");
 		}
 		this.data = AtomContractConstraint.notNull("data", data);
-
 	}
 
 	public MediaType getMediaType() {
 		return this.mediaType;
 	}
 
+	/**
+	 * Returns a copy of the payload as one array. For large payloads prefer
+	 * {@link #getDataStream()}.
+	 * 
+	 * @return The payload
+	 */
 	public byte[] getData() {
+		return this.data.toByteArray();
+	}
+
+	/**
+	 * Returns a stream reading the payload without copying it.
+	 * 
+	 * @return The stream reading the payload
+	 */
+	public InputStream getDataStream() {
+		return this.data.openStream();
+	}
+
+	/**
+	 * Returns the chunked payload.
+	 * 
+	 * @return The payload
+	 */
+	public AtomBinaryData getBinaryData() {
 		return this.data;
 	}
 
@@ -67,6 +95,35 @@ public class AtomContentBinary extends AtomContent {
 		return this.mediaType.isMediaTypeMatching(type);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = super.hashCode();
+		result = prime * result + this.mediaType.hashCode();
+		result = prime * result + this.data.hashCode();
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!super.equals(obj) || !(obj instanceof AtomContentBinary)) {
+			return false;
+		}
+		AtomContentBinary other = (AtomContentBinary) obj;
+		return this.mediaType.equals(other.mediaType) && this.data.equals(other.data);
+	}
+
 	// FIXME: Write a much better way of serialization
 
 	@SuppressWarnings("all")
@@ -75,13 +132,9 @@ public class AtomContentBinary extends AtomContent {
 		addAttribute(attributes, TYPE_QNAME, this.mediaType.toString());
 		String namespace = AtomConstants.ATOM_NS_URI;
 		String local = "content";
-		String qName = AtomConstants.ATOM_NS_PREFIX + ":" + local;
+		String qName = AtomConstants.ATOM_NS_PREFIX + ":content";
 		handler.startElement(namespace, local, qName, attributes);
-		// This is awkward since it really uses quite a bit of memory need to do some streaming like
-		// splitting the array into
-		// smaller chunks to encode (must be a multiple of one encode block
-		char[] data = new StringBuilder().append(RFC3548Base64Codec.INSTANCE.encode(this.data)).toString().toCharArray();
-		handler.characters(data, 0, data.length);
+		this.data.encodeBase64(handler);
 		handler.endElement(namespace, local, qName);
 	}
 
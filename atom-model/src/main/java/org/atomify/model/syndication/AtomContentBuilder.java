@@ -26,6 +26,7 @@ package org.atomify.model.syndication;
 import java.net.URI;
 
 import org.atomify.model.common.AtomCommonBuilder;
+import org.atomify.model.common.AtomStreamingContentBuilder;
 import org.atomify.model.common.XhtmlDivElement;
 import org.atomify.model.extension.AtomForeignMarkup;
 import org.jbasics.net.mediatype.MediaType;
@@ -36,7 +37,7 @@ import org.jbasics.parser.annotations.Content;
 import org.jbasics.parser.annotations.Element;
 import org.jbasics.pattern.builder.Builder;
 
-public class AtomContentBuilder extends AtomCommonBuilder<AtomContentBuilder> implements Builder<AtomContent> {
+public class AtomContentBuilder extends AtomCommonBuilder<AtomContentBuilder> implements Builder<AtomContent>, AtomStreamingContentBuilder {
 	private static final MediaType ATOM_TEXT = new MediaType("text", null);
 	private static final MediaType ATOM_XHTML = new MediaType("xhtml", null);
 	private static final MediaType ATOM_HTML = new MediaType("html", null);
@@ -45,6 +46,7 @@ public class AtomContentBuilder extends AtomCommonBuilder<AtomContentBuilder> im
 	private String content;
 	private XhtmlDivElement xhtmlContent;
 	private AtomForeignMarkup xmlContent;
+	private AtomBinaryData.Base64Decoder binaryContent;
 
 	public static AtomContentBuilder newInstance() {
 		return new AtomContentBuilder();
@@ -66,11 +68,9 @@ public class AtomContentBuilder extends AtomCommonBuilder<AtomContentBuilder> im
 			result = new AtomContentXhtml(this.xhtmlContent);
 		} else if (RFC3023XMLMediaTypes.isXmlMediaType(this.type)) {
 			result = new AtomContentGenericXml(this.type, this.xmlContent);
+		} else if (this.binaryContent != null) {
+			result = new AtomContentBinary(this.type, this.binaryContent.build());
 		} else {
-			// This is awkward and pretty much very memory intesiv. We need a more streaming way of
-			// actually
-			// reading the binary data. Possible by using a direct reader to transform it with a
-			// custom parser
 			result = new AtomContentBinary(this.type, this.content);
 		}
 		return attachParentBuilder(result);
@@ -79,6 +79,12 @@ public class AtomContentBuilder extends AtomCommonBuilder<AtomContentBuilder> im
 	@Override
 	public void reset() {
 		super.reset();
+		this.type = null;
+		this.source = null;
+		this.content = null;
+		this.xhtmlContent = null;
+		this.xmlContent = null;
+		this.binaryContent = null;
 	}
 
 	@Attribute(name = "type", required = true)
@@ -99,6 +105,22 @@ public class AtomContentBuilder extends AtomCommonBuilder<AtomContentBuilder> im
 		return this;
 	}
 
+	/**
+	 * Returns true for binary content so the base64 text is decoded piece by piece while it is read
+	 * instead of being collected into one string first.
+	 */
+	public boolean isStreamingContent() {
+		return this.source == null && this.type != null && !"text".equals(this.type.getType()) && !ATOM_HTML.equals(this.type)
+				&& !ATOM_XHTML.equals(this.type) && !RFC3023XMLMediaTypes.isXmlMediaType(this.type);
+	}
+
+	public void appendContent(char[] ch, int start, int length) {
+		if (this.binaryContent == null) {
+			this.binaryContent = new AtomBinaryData.Base64Decoder();
+		}
+		this.binaryContent.append(ch, start, length);
+	}
+
 	@Element(name = "div", namespace = "http://www.w3.org/1999/xhtml", minOccurs = 0, maxOccurs = 1)
 	public AtomContentBuilder setXhtmlContent(XhtmlDivElement content) {
 		this.xhtmlContent = content;
@@ -49,7 +49,7 @@ public class AtomContentGenericXml extends AtomContentXml {
 		addAttribute(attributes, TYPE_QNAME, getMediaType().toString());
 		String namespace = AtomConstants.ATOM_NS_URI;
 		String local = "content";
-		String qName = AtomConstants.ATOM_NS_PREFIX + ":" + local;
+		String qName = AtomConstants.ATOM_NS_PREFIX + ":content";
 		handler.startElement(namespace, local, qName, attributes);
 		this.xmlContent.serialize(handler, attributes);
 		handler.endElement(namespace, local, qName);
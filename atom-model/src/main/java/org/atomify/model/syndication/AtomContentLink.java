@@ -71,7 +71,7 @@ public class AtomContentLink extends AtomContent {
 		}
 		String namespace = AtomConstants.ATOM_NS_URI;
 		String local = "content";
-		String qName = AtomConstants.ATOM_NS_PREFIX + ":" + local;
+		String qName = AtomConstants.ATOM_NS_PREFIX + ":content";
 		handler.startElement(namespace, local, qName, attributes);
 		handler.endElement(namespace, local, qName);
 	}
@@ -24,6 +24,7 @@
 package org.atomify.model.syndication;
 
 import org.atomify.model.AtomConstants;
+import org.atomify.model.serializer.SerializationSupport;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -133,10 +134,9 @@ public class AtomContentPlainText extends AtomContent {
 		addAttribute(attributes, TYPE_QNAME, this.html ? "html" : "text");
 		String namespace = AtomConstants.ATOM_NS_URI;
 		String local = "content";
-		String qName = AtomConstants.ATOM_NS_PREFIX + ":" + local;
+		String qName = AtomConstants.ATOM_NS_PREFIX + ":content";
 		handler.startElement(namespace, local, qName, attributes);
-		char[] data = this.value.toCharArray();
-		handler.characters(data, 0, data.length);
+		SerializationSupport.characters(handler, this.value);
 		handler.endElement(namespace, local, qName);
 	}
 
@@ -98,7 +98,7 @@ public class AtomContentXhtml extends AtomContent {
 		addAttribute(attributes, TYPE_QNAME, "xhtml");
 		String namespace = AtomConstants.ATOM_NS_URI;
 		String local = "content";
-		String qName = AtomConstants.ATOM_NS_PREFIX + ":" + local;
+		String qName = AtomConstants.ATOM_NS_PREFIX + ":content";
 		handler.startElement(namespace, local, qName, attributes);
 		this.content.serialize(handler, attributes);
 		handler.endElement(namespace, local, qName);
@@ -23,9 +23,8 @@
  */
 package org.atomify.model.syndication;
 
-import java.util.Calendar;
 import java.util.Date;
-import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
@@ -34,20 +33,46 @@ import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.common.AtomCommonAttributes;
+import org.atomify.model.serializer.SerializationSupport;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
 /**
  * Atom date construct.
+ * <p>
+ * The date is kept as milliseconds since the epoch together with the offset of the time zone it
+ * was written in. Parsing and formatting follow RFC 3339 (the date-time production of xsd:dateTime
+ * atom requires) without going through {@link DatatypeFactory}. Fractions of a second are kept up
+ * to milliseconds. A date-time without offset is read as UTC and written without offset again.
+ * </p>
  * 
  * @author Stephan Schloepke
  */
-public class AtomDate extends AtomCommonAttributes {
+public class AtomDate extends AtomCommonAttributes implements Comparable<AtomDate> {
+	private static final int NO_OFFSET = Integer.MIN_VALUE;
+	private static final long MILLIS_PER_MINUTE = 60L * 1000L;
+	private static final long MILLIS_PER_DAY = 24L * 60L * MILLIS_PER_MINUTE;
+	private static final int[] DAYS_IN_MONTH = { 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+	private static volatile DatatypeFactory datatypeFactory;
+
+	/**
+	 * <b>Required:</b> the date-time as milliseconds since 1970-01-01T00:00:00Z.
+	 */
+	private final long time;
+	/**
+	 * The offset of the time zone in minutes or {@link #NO_OFFSET} if the date-time has none.
+	 */
+	private final int offset;
+	/**
+	 * The number of fraction digits written (0 to 3).
+	 */
+	private final int precision;
 	/**
-	 * <b>Required:</b> the xsd:date content.
+	 * The RFC 3339 form created on first use.
 	 */
-	private final XMLGregorianCalendar value;
+	private transient volatile String lexical;
 
 	public static AtomDateBuilder newBuilder() {
 		return AtomDateBuilder.newInstance();
@@ -56,19 +81,54 @@ public class AtomDate extends AtomCommonAttributes {
 	/**
 	 * Creates a date with the given date content.
 	 * 
-	 * @param date The date content.
+	 * @param time The milliseconds since the epoch.
+	 * @param offset The offset in minutes or {@link #NO_OFFSET}.
+	 * @param precision The number of fraction digits.
 	 */
-	private AtomDate(final XMLGregorianCalendar date) {
-		this.value = AtomContractConstraint.notNull("date", date);
+	private AtomDate(final long time, final int offset, final int precision) {
+		this.time = time;
+		this.offset = offset;
+		this.precision = precision;
 	}
 
 	/**
 	 * Returns the date value.
+	 * <p>
+	 * The calendar is created on every call so changing it does not change this date. Use
+	 * {@link #getTime()} and {@link #getOffset()} to access the value without creating a calendar.
+	 * </p>
 	 * 
 	 * @return The date value
 	 */
 	public XMLGregorianCalendar getValue() {
-		return this.value;
+		DatatypeFactory factory = datatypeFactory;
+		if (factory == null) {
+			try {
+				factory = DatatypeFactory.newInstance();
+			} catch (DatatypeConfigurationException e) {
+				throw new RuntimeException(e.getMessage(), e);
+			}
+			datatypeFactory = factory;
+		}
+		return factory.newXMLGregorianCalendar(toRfc3339String());
+	}
+
+	/**
+	 * Returns the date value as milliseconds since 1970-01-01T00:00:00Z.
+	 * 
+	 * @return The milliseconds since the epoch
+	 */
+	public long getTime() {
+		return this.time;
+	}
+
+	/**
+	 * Returns the offset of the time zone the date was written in.
+	 * 
+	 * @return The offset in minutes east of UTC (0 if the date has no offset)
+	 */
+	public int getOffset() {
+		return this.offset == NO_OFFSET ? 0 : this.offset;
 	}
 
 	/**
@@ -77,30 +137,118 @@ public class AtomDate extends AtomCommonAttributes {
 	 * @return The date value as date instance.
 	 */
 	public Date toDate() {
-		return this.value.toGregorianCalendar().getTime();
+		return new Date(this.time);
 	}
 
+	/**
+	 * Parses the given RFC 3339 date-time like 2016-01-01T12:00:00.123+02:00.
+	 * 
+	 * @param dateValue The date-time (must not be null)
+	 * @return The date
+	 * @throws IllegalArgumentException If the value is no valid date-time
+	 */
 	public static AtomDate valueOf(String dateValue) {
-		try {
-			return new AtomDate(DatatypeFactory.newInstance().newXMLGregorianCalendar(AtomContractConstraint.notNull("dateValue", dateValue)));
-		} catch (DatatypeConfigurationException e) {
-			throw new RuntimeException(e.getMessage(), e);
+		String value = AtomContractConstraint.notNull("dateValue", dateValue).trim();
+		int length = value.length();
+		if (length < 19 || value.charAt(4) != '-' || value.charAt(7) != '-' || (value.charAt(10) != 'T' && value.charAt(10) != 't')
+				|| value.charAt(13) != ':' || value.charAt(16) != ':') {
+			throw invalidDate(value);
+		}
+		int year = digits(value, 0, 4);
+		int month = digits(value, 5, 2);
+		int day = digits(value, 8, 2);
+		int hour = digits(value, 11, 2);
+		int minute = digits(value, 14, 2);
+		int second = digits(value, 17, 2);
+		if (month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1] || (month == 2 && day == 29 && !isLeapYear(year))
+				|| hour > 23 || minute > 59 || second > 60) {
+			throw invalidDate(value);
+		}
+		int position = 19;
+		int millis = 0;
+		int precision = 0;
+		if (position < length && value.charAt(position) == '.') {
+			int start = ++position;
+			while (position < length && value.charAt(position) >= '0' && value.charAt(position) <= '9') {
+				if (position - start < 3) {
+					millis = millis * 10 + value.charAt(position) - '0';
+				}
+				position++;
+			}
+			precision = Math.min(position - start, 3);
+			if (precision == 0) {
+				throw invalidDate(value);
+			}
+			for (int i = precision; i < 3; i++) {
+				millis *= 10;
+			}
+		}
+		int offset = NO_OFFSET;
+		if (position < length) {
+			char c = value.charAt(position);
+			if ((c == 'Z' || c == 'z') && position + 1 == length) {
+				offset = 0;
+			} else if ((c == '+' || c == '-') && position + 6 == length && value.charAt(position + 3) == ':') {
+				int offsetHours = digits(value, position + 1, 2);
+				int offsetMinutes = digits(value, position + 4, 2);
+				if (offsetHours > 23 || offsetMinutes > 59) {
+					throw invalidDate(value);
+				}
+				offset = (c == '-' ? -1 : 1) * (offsetHours * 60 + offsetMinutes);
+			} else {
+				throw invalidDate(value);
+			}
 		}
+		long time = daysFromCivil(year, month, day) * MILLIS_PER_DAY + ((hour * 60L + minute) * 60L + second) * 1000L + millis;
+		if (offset != NO_OFFSET) {
+			time -= offset * MILLIS_PER_MINUTE;
+		}
+		return new AtomDate(time, offset, precision);
 	}
 
 	/**
-	 * Creates a date construct with the given java date.
+	 * Creates a date construct with the given java date in the default time zone.
 	 * 
 	 * @param date The java date.
 	 */
 	public static AtomDate valueOf(final Date date) {
-		try {
-			GregorianCalendar cal = (GregorianCalendar) Calendar.getInstance();
-			cal.setTime(date);
-			return new AtomDate(DatatypeFactory.newInstance().newXMLGregorianCalendar(cal));
-		} catch (DatatypeConfigurationException e) {
-			throw new RuntimeException(e.getMessage(), e);
+		long time = AtomContractConstraint.notNull("date", date).getTime();
+		return valueOf(time, (int) (TimeZone.getDefault().getOffset(time) / MILLIS_PER_MINUTE));
+	}
+
+	/**
+	 * Creates a date construct for the given milliseconds since the epoch written with the given
+	 * offset.
+	 * 
+	 * @param time The milliseconds since 1970-01-01T00:00:00Z
+	 * @param offset The offset of the time zone in minutes east of UTC
+	 * @return The date
+	 */
+	public static AtomDate valueOf(final long time, final int offset) {
+		if (offset <= -24 * 60 || offset >= 24 * 60) {
+			throw new IllegalArgumentException("Offset out of range: " + offset);
 		}
+		return new AtomDate(time, offset, time % 1000 == 0 ? 0 : 3);
+	}
+
+	/**
+	 * Returns the date-time as RFC 3339 string in the offset it was written in.
+	 * 
+	 * @return The date-time string
+	 */
+	public String toRfc3339String() {
+		String result = this.lexical;
+		if (result == null) {
+			this.lexical = result = new String(format());
+		}
+		return result;
+	}
+
+	/**
+	 * Compares the instants of both dates regardless of their offsets.
+	 */
+	public int compareTo(AtomDate other) {
+		return this.time < other.time ? -1 : (this.time == other.time ? 0 : 1);
 	}
 
 	/*
@@ -111,7 +259,7 @@ public class AtomDate extends AtomCommonAttributes {
 	public int hashCode() {
 		final int prime = 31;
 		int result = super.hashCode();
-		result = prime * result + ((this.value == null) ? 0 : this.value.hashCode());
+		result = prime * result + (int) (this.time ^ (this.time >>> 32));
 		return result;
 	}
 
@@ -130,15 +278,7 @@ public class AtomDate extends AtomCommonAttributes {
 		if (!(obj instanceof AtomDate)) {
 			return false;
 		}
-		AtomDate other = (AtomDate) obj;
-		if (this.value == null) {
-			if (other.value != null) {
-				return false;
-			}
-		} else if (!this.value.equals(other.value)) {
-			return false;
-		}
-		return true;
+		return this.time == ((AtomDate) obj).time;
 	}
 
 	/*
@@ -147,21 +287,116 @@ public class AtomDate extends AtomCommonAttributes {
 	 */
 	@Override
 	public String toString() {
-		return new StringBuilder().append("AtomDate [value=").append(this.value).append(", ").append(super.toString()).append("]").toString();
+		return new StringBuilder().append("AtomDate [value=").append(toRfc3339String()).append(", ").append(super.toString()).append("]").toString();
 	}
 
-	// FIXME: Write a much better way of serialization
-
 	@SuppressWarnings("all")
 	public void serialize(QName name, ContentHandler handler, AttributesImpl attributes) throws SAXException {
 		attributes = initCommonAttributes(handler, attributes);
 		String namespace = name.getNamespaceURI();
 		String local = name.getLocalPart();
-		String qName = (name.getPrefix() != null && name.getPrefix().length() > 0 ? name.getPrefix() + ":" : "") + local;
+		String qName = SerializationSupport.qualifiedName(name);
 		handler.startElement(namespace, local, qName, attributes);
-		char[] data = this.value.toXMLFormat().toCharArray();
-		handler.characters(data, 0, data.length);
+		SerializationSupport.characters(handler, toRfc3339String());
 		handler.endElement(namespace, local, qName);
 	}
 
+	private char[] format() {
+		long local = this.offset == NO_OFFSET ? this.time : this.time + this.offset * MILLIS_PER_MINUTE;
+		long days = floorDiv(local, MILLIS_PER_DAY);
+		int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+		char[] result = new char[19 + (this.precision > 0 ? this.precision + 1 : 0) + (this.offset == NO_OFFSET ? 0 : this.offset == 0 ? 1 : 6)];
+		civilFromDays(days, result);
+		result[10] = 'T';
+		append(result, 11, millisOfDay / 3600000, 2);
+		result[13] = ':';
+		append(result, 14, millisOfDay / 60000 % 60, 2);
+		result[16] = ':';
+		append(result, 17, millisOfDay / 1000 % 60, 2);
+		int position = 19;
+		if (this.precision > 0) {
+			result[position++] = '.';
+			int fraction = millisOfDay % 1000;
+			for (int i = this.precision; i < 3; i++) {
+				fraction /= 10;
+			}
+			append(result, position, fraction, this.precision);
+			position += this.precision;
+		}
+		if (this.offset == 0) {
+			result[position] = 'Z';
+		} else if (this.offset != NO_OFFSET) {
+			int temp = Math.abs(this.offset);
+			result[position] = this.offset < 0 ? '-' : '+';
+			append(result, position + 1, temp / 60, 2);
+			result[position + 3] = ':';
+			append(result, position + 4, temp % 60, 2);
+		}
+		return result;
+	}
+
+	private static void append(char[] buffer, int position, int value, int width) {
+		for (int i = position + width - 1; i >= position; i--) {
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	private static int digits(String value, int start, int count) {
+		int result = 0;
+		for (int i = start; i < start + count; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				throw invalidDate(value);
+			}
+			result = result * 10 + c - '0';
+		}
+		return result;
+	}
+
+	private static long floorDiv(long x, long y) {
+		long result = x / y;
+		return (x % y != 0 && (x ^ y) < 0) ? result - 1 : result;
+	}
+
+	private static boolean isLeapYear(int year) {
+		return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+	}
+
+	/**
+	 * Returns the days since 1970-01-01 of the given date in the proleptic gregorian calendar.
+	 */
+	private static long daysFromCivil(int year, int month, int day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	/**
+	 * Writes the date (yyyy-MM-dd) of the given days since 1970-01-01 to the start of the buffer.
+	 */
+	private static void civilFromDays(long days, char[] buffer) {
+		long z = days + 719468;
+		long era = floorDiv(z, 146097);
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long mp = (5 * dayOfYear + 2) / 153;
+		int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+		int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+		append(buffer, 0, year, 4);
+		buffer[4] = '-';
+		append(buffer, 5, month, 2);
+		buffer[7] = '-';
+		append(buffer, 8, day, 2);
+	}
+
+	private static IllegalArgumentException invalidDate(String value) {
+		return new IllegalArgumentException("Invalid RFC 3339 date-time: " + value);
+	}
+
 }
@@ -23,13 +23,16 @@
  */
 package org.atomify.model.syndication;
 
+import java.io.ObjectStreamException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.namespace.QName;
 
 import org.atomify.model.common.AtomExtendable;
+import org.atomify.model.common.AtomLazyElement;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -39,7 +42,9 @@ import org.jbasics.net.mediatype.MediaType;
 import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.AtomDocument;
+import org.atomify.model.binary.AtomDocumentProxy;
 import org.atomify.model.common.AtomCommonAttributes;
+import org.atomify.model.common.AtomXmlBase;
 import org.atomify.model.extension.AtomExtension;
 
 /**
@@ -73,10 +78,18 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 	 * <b>Optional:</b> atom:published element.
 	 */
 	private final AtomDate published;
+	/**
+	 * True if the entry was read with a projection and only contains the selected elements.
+	 */
+	private final boolean partial;
 	/**
 	 * <b>Optional:</b> atom:summary element.
 	 */
 	private AtomText summary;
+	/**
+	 * The atom:summary element in its raw form until the summary is accessed the first time.
+	 */
+	private volatile AtomLazyElement<AtomText> lazySummary;
 	/**
 	 * <b>Optional:</b> atom:rights element.
 	 */
@@ -102,6 +115,10 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 	 * <b>Optional/Required depending on other states:</b> atom:content element.
 	 */
 	private AtomContent content;
+	/**
+	 * The atom:content element in its raw form until the content is accessed the first time.
+	 */
+	private volatile AtomLazyElement<AtomContent> lazyContent;
 	/**
 	 * <b>Optional:</b> atom:source element.
 	 */
@@ -115,6 +132,13 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 		return AtomEntry.MEDIA_TYPE;
 	}
 
+	/**
+	 * Replaces the entry by its {@link AtomDocumentProxy} when written by Java serialization.
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		return new AtomDocumentProxy(this);
+	}
+
 	/**
 	 * Creates an atom entry for the given id, title and the updated date.
 	 * 
@@ -123,10 +147,41 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 	 * @param updated The updated date (must not be null).
 	 */
 	public AtomEntry(final AtomId id, final AtomText title, final AtomDate updated, final AtomDate published) {
-		this.id = AtomContractConstraint.notNull("id", id);
-		this.title = AtomContractConstraint.notNull("title", title);
-		this.updated = AtomContractConstraint.notNull("updated", updated);
+		this(id, title, updated, published, false);
+	}
+
+	/**
+	 * Creates an atom entry which is partial if it was read with a projection. A partial entry
+	 * does not require the id, title and updated date and cannot be serialized.
+	 * 
+	 * @param id The id of the entry (must not be null unless partial).
+	 * @param title The title of the entry (must not be null unless partial).
+	 * @param updated The updated date (must not be null unless partial).
+	 * @param published The published date.
+	 * @param partial True if the entry only contains a projection of its elements.
+	 */
+	protected AtomEntry(final AtomId id, final AtomText title, final AtomDate updated, final AtomDate published, final boolean partial) {
+		if (partial) {
+			this.id = id;
+			this.title = title;
+			this.updated = updated;
+		} else {
+			this.id = AtomContractConstraint.notNull("id", id);
+			this.title = AtomContractConstraint.notNull("title", title);
+			this.updated = AtomContractConstraint.notNull("updated", updated);
+		}
 		this.published = published;
+		this.partial = partial;
+	}
+
+	/**
+	 * Returns true if the entry was read with a projection. Elements not selected by the
+	 * projection are null or empty.
+	 * 
+	 * @return True if the entry only contains a projection of its elements.
+	 */
+	public boolean isPartial() {
+		return this.partial;
 	}
 
 	/**
@@ -166,11 +221,17 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 	}
 
 	/**
-	 * Returns the summary of the entry (in some cases this is required).
+	 * Returns the summary of the entry (in some cases this is required). A summary kept in its raw
+	 * form is built on the first call.
 	 * 
 	 * @return The summary of the entry.
 	 */
 	public AtomText getSummary() {
+		AtomLazyElement<AtomText> lazy = this.lazySummary;
+		if (lazy != null) {
+			this.summary = lazy.materialize();
+			this.lazySummary = null;
+		}
 		return this.summary;
 	}
 
@@ -220,11 +281,16 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 	}
 
 	/**
-	 * Returns the content of the entry.
+	 * Returns the content of the entry. A content kept in its raw form is built on the first call.
 	 * 
 	 * @return The content of the entry.
 	 */
 	public AtomContent getContent() {
+		AtomLazyElement<AtomContent> lazy = this.lazyContent;
+		if (lazy != null) {
+			this.content = lazy.materialize();
+			this.lazyContent = null;
+		}
 		return this.content;
 	}
 
@@ -247,14 +313,16 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 		int result = super.hashCode();
 		result = prime * result + ((this.authors == null) ? 0 : this.authors.hashCode());
 		result = prime * result + ((this.categories == null) ? 0 : this.categories.hashCode());
-		result = prime * result + ((this.content == null) ? 0 : this.content.hashCode());
+		AtomContent tempContent = getContent();
+		result = prime * result + ((tempContent == null) ? 0 : tempContent.hashCode());
 		result = prime * result + ((this.contributors == null) ? 0 : this.contributors.hashCode());
 		result = prime * result + ((this.id == null) ? 0 : this.id.hashCode());
 		result = prime * result + ((this.links == null) ? 0 : this.links.hashCode());
 		result = prime * result + ((this.published == null) ? 0 : this.published.hashCode());
 		result = prime * result + ((this.rights == null) ? 0 : this.rights.hashCode());
 		result = prime * result + ((this.source == null) ? 0 : this.source.hashCode());
-		result = prime * result + ((this.summary == null) ? 0 : this.summary.hashCode());
+		AtomText tempSummary = getSummary();
+		result = prime * result + ((tempSummary == null) ? 0 : tempSummary.hashCode());
 		result = prime * result + ((this.title == null) ? 0 : this.title.hashCode());
 		result = prime * result + ((this.updated == null) ? 0 : this.updated.hashCode());
 		return result;
@@ -290,11 +358,11 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 		} else if (!this.categories.equals(other.categories)) {
 			return false;
 		}
-		if (this.content == null) {
-			if (other.content != null) {
+		if (getContent() == null) {
+			if (other.getContent() != null) {
 				return false;
 			}
-		} else if (!this.content.equals(other.content)) {
+		} else if (!this.content.equals(other.getContent())) {
 			return false;
 		}
 		if (this.contributors == null) {
@@ -339,11 +407,11 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 		} else if (!this.source.equals(other.source)) {
 			return false;
 		}
-		if (this.summary == null) {
-			if (other.summary != null) {
+		if (getSummary() == null) {
+			if (other.getSummary() != null) {
 				return false;
 			}
-		} else if (!this.summary.equals(other.summary)) {
+		} else if (!this.summary.equals(other.getSummary())) {
 			return false;
 		}
 		if (this.title == null) {
@@ -370,18 +438,66 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 	@Override
 	public String toString() {
 		String builder = "AtomEntry [authors=" + this.authors + ", categories=" + this.categories + ", content=" +
-				this.content + ", contributors=" + this.contributors + ", id=" +
+				getContent() + ", contributors=" + this.contributors + ", id=" +
 				this.id + ", links=" + this.links + ", published=" + this.published + ", rights=" +
-				this.rights + ", source=" + this.source + ", summary=" + this.summary + ", title=" +
+				this.rights + ", source=" + this.source + ", summary=" + getSummary() + ", title=" +
 				this.title + ", updated=" + this.updated + "]";
 		return builder;
 	}
 
 	// --- FIXME: From here all is serialization. We Still need to think about a good way to do so.
 
+	@Override
+	public void collectNamespaces(Map<String, String> namespaces) {
+		super.collectNamespaces(namespaces);
+		collectNamespaces(namespaces, this.id);
+		collectNamespaces(namespaces, this.title);
+		collectNamespaces(namespaces, this.updated);
+		collectNamespaces(namespaces, this.published);
+		collectNamespaces(namespaces, this.links);
+		collectNamespaces(namespaces, this.authors);
+		collectNamespaces(namespaces, this.contributors);
+		collectNamespaces(namespaces, this.categories);
+		collectNamespaces(namespaces, this.rights);
+		collectNamespaces(namespaces, this.source);
+		collectNamespaces(namespaces, this.summary);
+		collectNamespaces(namespaces, this.content);
+	}
+
+	@Override
+	public AtomXmlBase collectXmlBases(AtomXmlBase parent, Map<AtomCommonAttributes, AtomXmlBase> chains) {
+		AtomXmlBase chain = super.collectXmlBases(parent, chains);
+		collectXmlBases(chain, chains, this.links);
+		collectXmlBases(chain, chains, this.authors);
+		collectXmlBases(chain, chains, this.contributors);
+		collectXmlBases(chain, chains, this.source);
+		collectXmlBases(chain, chains, getContent());
+		return chain;
+	}
+
 	@SuppressWarnings("all")
 	public void serialize(final ContentHandler handler, AttributesImpl attributes) throws SAXException {
-		handler.startPrefixMapping(AtomConstants.ATOM_NS_PREFIX, AtomConstants.ATOM_NS_URI);
+		serialize(handler, attributes, true);
+	}
+
+	/**
+	 * Serializes the entry. A root entry declares the atom namespace and the namespaces collected
+	 * by {@link #collectNamespaces(Map)}. An entry inside a feed relies on the feed declaring them.
+	 * 
+	 * @param handler The handler to write to
+	 * @param attributes The attributes to reuse or null
+	 * @param root True to declare the namespaces or false if the enclosing feed declared them
+	 * @throws SAXException If writing fails
+	 */
+	public void serialize(final ContentHandler handler, AttributesImpl attributes, boolean root) throws SAXException {
+		if (this.partial) {
+			throw new IllegalStateException("A partial entry read with a projection cannot be serialized");
+		}
+		Map<String, String> namespaces = null;
+		if (root) {
+			handler.startPrefixMapping(AtomConstants.ATOM_NS_PREFIX, AtomConstants.ATOM_NS_URI);
+			namespaces = startPrefixMappings(handler, this);
+		}
 		attributes = initCommonAttributes(handler, attributes);
 		handler.startElement(AtomConstants.ATOM_NS_URI, "entry", AtomConstants.ATOM_NS_PREFIX + ":entry", attributes);
 		this.id.serialize(handler, attributes);
@@ -390,35 +506,48 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 		if (this.published != null) {
 			this.published.serialize(AtomEntry.PUBLISHED_QNAME, handler, attributes);
 		}
-		for (AtomLink link : this.links) {
+		for (int i = 0, n = this.links.size(); i < n; i++) {
+			AtomLink link = this.links.get(i);
 			link.serialize(handler, attributes);
 		}
-		for (AtomPerson author : this.authors) {
+		for (int i = 0, n = this.authors.size(); i < n; i++) {
+			AtomPerson author = this.authors.get(i);
 			author.serialize(AtomEntry.AUTHOR_QNAME, handler, attributes);
 		}
-		for (AtomPerson contributor : this.contributors) {
+		for (int i = 0, n = this.contributors.size(); i < n; i++) {
+			AtomPerson contributor = this.contributors.get(i);
 			contributor.serialize(AtomEntry.CONTRIBUTOR_QNAME, handler, attributes);
 		}
-		for (AtomCategory category : this.categories) {
+		for (int i = 0, n = this.categories.size(); i < n; i++) {
+			AtomCategory category = this.categories.get(i);
 			category.serialize(handler, attributes);
 		}
 		if (this.rights != null) {
 			this.rights.serialize(AtomEntry.RIGHTS_QNAME, handler, attributes);
 		}
 		if (this.source != null) {
-			this.source.serialize(handler, attributes);
+			this.source.serialize(handler, attributes, false);
 		}
 		serializeExtensions(handler, attributes);
-		if (this.summary != null) {
+		AtomLazyElement<AtomText> tempSummary = this.lazySummary;
+		if (tempSummary != null) {
+			tempSummary.serialize(handler);
+		} else if (this.summary != null) {
 			this.summary.serialize(AtomEntry.SUMMARY_QNAME, handler, attributes);
 		}
-		if (this.content != null) {
+		AtomLazyElement<AtomContent> tempContent = this.lazyContent;
+		if (tempContent != null) {
+			tempContent.serialize(handler);
+		} else if (this.content != null) {
 			this.content.serialize(handler, attributes);
 		} else {
 			// TODO: we need to make sure there is an alternate link and a summary available!
 		}
 		handler.endElement(AtomConstants.ATOM_NS_URI, "entry", AtomConstants.ATOM_NS_PREFIX + ":entry");
-		handler.endPrefixMapping(AtomConstants.ATOM_NS_PREFIX);
+		if (root) {
+			endPrefixMappings(handler, namespaces);
+			handler.endPrefixMapping(AtomConstants.ATOM_NS_PREFIX);
+		}
 	}
 
 	private static final QName TITLE_QNAME = new QName(AtomConstants.ATOM_NS_URI, "title", AtomConstants.ATOM_NS_PREFIX);
@@ -438,6 +567,26 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 	 */
 	protected void setSummary(final AtomText summary) {
 		this.summary = summary;
+		this.lazySummary = null;
+	}
+
+	/**
+	 * Sets the summary of the entry in its raw form.
+	 * 
+	 * @param summary The raw summary of the entry.
+	 */
+	protected void setLazySummary(final AtomLazyElement<AtomText> summary) {
+		this.summary = null;
+		this.lazySummary = summary;
+	}
+
+	/**
+	 * Returns the summary in its raw form if it was not accessed yet.
+	 * 
+	 * @return The raw summary or null if there is none or it is built already.
+	 */
+	AtomLazyElement<AtomText> getLazySummary() {
+		return this.lazySummary;
 	}
 
 	/**
@@ -456,6 +605,26 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 	 */
 	protected void setContent(final AtomContent content) {
 		this.content = content;
+		this.lazyContent = null;
+	}
+
+	/**
+	 * Sets the content of the entry in its raw form.
+	 * 
+	 * @param content The raw content of the entry.
+	 */
+	protected void setLazyContent(final AtomLazyElement<AtomContent> content) {
+		this.content = null;
+		this.lazyContent = content;
+	}
+
+	/**
+	 * Returns the content in its raw form if it was not accessed yet.
+	 * 
+	 * @return The raw content or null if there is none or it is built already.
+	 */
+	AtomLazyElement<AtomContent> getLazyContent() {
+		return this.lazyContent;
 	}
 
 	/**
@@ -467,6 +636,18 @@ public class AtomEntry extends AtomExtendable implements AtomDocument {
 		this.source = source;
 	}
 
+	/**
+	 * Takes the lists of a builder without copying them. The builder must not modify the lists
+	 * afterwards.
+	 */
+	protected void adoptCollections(final List<AtomPerson> authors, final List<AtomCategory> categories,
+			final List<AtomPerson> contributors, final List<AtomLink> links) {
+		this.authors = adopt(authors);
+		this.categories = adopt(categories);
+		this.contributors = adopt(contributors);
+		this.links = adopt(links);
+	}
+
 	/**
 	 * Returns the lazy initialized list of links.
 	 * 
@@ -32,7 +32,7 @@ import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.common.AtomCommonBuilder;
 import org.atomify.model.common.AtomExtendable;
 import org.atomify.model.common.AtomExtendableBuilder;
-import org.atomify.model.extension.AtomExtension;
+import org.atomify.model.common.AtomLazyElement;
 import org.jbasics.parser.annotations.Element;
 import org.jbasics.pattern.builder.Builder;
 
@@ -57,6 +57,10 @@ public class AtomEntryBuilder extends AtomExtendableBuilder<AtomEntryBuilder> im
 	 * <b>Optional:</b> atom:summary element.
 	 */
 	private AtomText summary;
+	/**
+	 * <b>Optional:</b> atom:summary element in its raw form.
+	 */
+	private AtomLazyElement<AtomText> lazySummary;
 	/**
 	 * <b>Optional:</b> atom:rights element.
 	 */
@@ -82,12 +86,16 @@ public class AtomEntryBuilder extends AtomExtendableBuilder<AtomEntryBuilder> im
 	 * <b>Optional/Required depending on other states:</b> atom:content element.
 	 */
 	private AtomContent content;
+	/**
+	 * <b>Optional/Required depending on other states:</b> atom:content element in its raw form.
+	 */
+	private AtomLazyElement<AtomContent> lazyContent;
 	/**
 	 * <b>Optional:</b> atom:source element.
 	 */
 	private AtomSource source;
 
-	private List<AtomExtension> extensions;
+	private boolean partial;
 
 	public static AtomEntryBuilder newInstance() {
 		return new AtomEntryBuilder();
@@ -103,14 +111,24 @@ public class AtomEntryBuilder extends AtomExtendableBuilder<AtomEntryBuilder> im
 		builder.setTitle(entry.getTitle());
 		builder.setUpdated(entry.getUpdated());
 		builder.setPublished(entry.getPublished());
-		builder.setSummary(entry.getSummary());
+		if (entry.getLazySummary() != null) {
+			builder.setLazySummary(entry.getLazySummary());
+		} else {
+			builder.setSummary(entry.getSummary());
+		}
 		builder.setRights(entry.getRights());
 		builder.setSource(entry.getSource());
-		builder.setContent(entry.getContent());
+		if (entry.getLazyContent() != null) {
+			builder.setLazyContent(entry.getLazyContent());
+		} else {
+			builder.setContent(entry.getContent());
+		}
 		builder.addAuthors(entry.getAuthors());
 		builder.addContributors(entry.getContributors());
 		builder.addCategories(entry.getCategories());
 		builder.addLinks(entry.getLinks());
+		builder.addExtensions(entry.getExtensions());
+		builder.setPartial(entry.isPartial());
 		return builder;
 	}
 
@@ -119,15 +137,20 @@ public class AtomEntryBuilder extends AtomExtendableBuilder<AtomEntryBuilder> im
 	}
 
 	public AtomEntry build() {
-		AtomEntry result = new AtomEntry(this.id, this.title, this.updated, this.published);
-		result.setAuthors(this.authors);
-		result.setCategories(this.categories);
-		result.setContributors(this.contributors);
-		result.setContent(this.content);
-		result.setLinks(this.links);
+		AtomEntry result = new AtomEntry(this.id, this.title, this.updated, this.published, this.partial);
+		result.adoptCollections(this.authors, this.categories, this.contributors, this.links);
+		if (this.lazyContent != null) {
+			result.setLazyContent(this.lazyContent);
+		} else {
+			result.setContent(this.content);
+		}
 		result.setRights(this.rights);
 		result.setSource(this.source);
-		result.setSummary(this.summary);
+		if (this.lazySummary != null) {
+			result.setLazySummary(this.lazySummary);
+		} else {
+			result.setSummary(this.summary);
+		}
 		attachParentBuilder(result);
 		return result;
 	}
@@ -140,24 +163,33 @@ public class AtomEntryBuilder extends AtomExtendableBuilder<AtomEntryBuilder> im
 		this.published = null;
 		this.updated = null;
 		this.content = null;
+		this.lazyContent = null;
 		this.rights = null;
 		this.source = null;
 		this.summary = null;
-		if (this.authors != null) {
-			this.authors.clear();
-		}
-		if (this.categories != null) {
-			this.categories.clear();
-		}
-		if (this.contributors != null) {
-			this.contributors.clear();
-		}
-		if (this.links != null) {
-			this.links.clear();
-		}
-		if (this.extensions != null) {
-			this.extensions.clear();
-		}
+		this.lazySummary = null;
+		this.partial = false;
+	}
+
+	@Override
+	protected void recycleCollections() {
+		super.recycleCollections();
+		this.authors = recycle(this.authors);
+		this.categories = recycle(this.categories);
+		this.contributors = recycle(this.contributors);
+		this.links = recycle(this.links);
+	}
+
+	/**
+	 * Marks the entry as partial if it is built from a projection so the required elements are
+	 * not enforced.
+	 * 
+	 * @param partial True if the entry only contains a projection of its elements
+	 * @return This builder
+	 */
+	public AtomEntryBuilder setPartial(boolean partial) {
+		this.partial = partial;
+		return this;
 	}
 
 	@Element(name = "id", namespace = AtomConstants.ATOM_NS_URI, minOccurs = 1, maxOccurs = 1)
@@ -187,6 +219,20 @@ public class AtomEntryBuilder extends AtomExtendableBuilder<AtomEntryBuilder> im
 	@Element(name = "summary", namespace = AtomConstants.ATOM_NS_URI, minOccurs = 0, maxOccurs = 1)
 	public AtomEntryBuilder setSummary(AtomText summary) {
 		this.summary = summary;
+		this.lazySummary = null;
+		return this;
+	}
+
+	/**
+	 * Sets the summary in its raw form. It is built when the summary of the entry is accessed the
+	 * first time.
+	 * 
+	 * @param summary The raw summary
+	 * @return This builder
+	 */
+	public AtomEntryBuilder setLazySummary(AtomLazyElement<AtomText> summary) {
+		this.summary = null;
+		this.lazySummary = summary;
 		return this;
 	}
 
@@ -205,10 +251,34 @@ public class AtomEntryBuilder extends AtomExtendableBuilder<AtomEntryBuilder> im
 	@Element(name = "content", namespace = AtomConstants.ATOM_NS_URI, minOccurs = 0, maxOccurs = 1)
 	public AtomEntryBuilder setContent(AtomContent content) {
 		this.content = content;
+		this.lazyContent = null;
 		return this;
 	}
 
+	/**
+	 * Sets the content in its raw form. It is built when the content of the entry is accessed the
+	 * first time.
+	 * 
+	 * @param content The raw content
+	 * @return This builder
+	 */
+	public AtomEntryBuilder setLazyContent(AtomLazyElement<AtomContent> content) {
+		this.content = null;
+		this.lazyContent = content;
+		return this;
+	}
+
+	@Override
+	protected void copyCollections() {
+		super.copyCollections();
+		this.authors = copy(this.authors);
+		this.categories = copy(this.categories);
+		this.contributors = copy(this.contributors);
+		this.links = copy(this.links);
+	}
+
 	public List<AtomPerson> getAuthors() {
+		beforeModify();
 		if (this.authors == null) {
 			this.authors = new ArrayList<AtomPerson>();
 		}
@@ -227,6 +297,7 @@ public class AtomEntryBuilder extends AtomExtendableBuilder<AtomEntryBuilder> im
 	}
 
 	public List<AtomCategory> getCategories() {
+		beforeModify();
 		if (this.categories == null) {
 			this.categories = new ArrayList<AtomCategory>();
 		}
@@ -245,6 +316,7 @@ public class AtomEntryBuilder extends AtomExtendableBuilder<AtomEntryBuilder> im
 	}
 
 	public List<AtomPerson> getContributors() {
+		beforeModify();
 		if (this.contributors == null) {
 			this.contributors = new ArrayList<AtomPerson>();
 		}
@@ -267,6 +339,7 @@ public class AtomEntryBuilder extends AtomExtendableBuilder<AtomEntryBuilder> im
 	// order to supply method for quick access to the links
 
 	public List<AtomLink> getLinks() {
+		beforeModify();
 		if (this.links == null) {
 			this.links = new ArrayList<AtomLink>();
 		}
@@ -23,13 +23,18 @@
  */
 package org.atomify.model.syndication;
 
+import java.io.ObjectStreamException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.AtomDocument;
+import org.atomify.model.binary.AtomDocumentProxy;
+import org.atomify.model.common.AtomCommonAttributes;
+import org.atomify.model.common.AtomXmlBase;
 import org.jbasics.net.mediatype.MediaType;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -65,6 +70,10 @@ public class AtomFeed extends AbstractAtomSource implements AtomDocument {
 	 * <b>Optional:</b> any number of entry elements.
 	 */
 	private final List<AtomEntry> entries;
+	/**
+	 * True if the feed was read with a projection and only contains the selected elements.
+	 */
+	private final boolean partial;
 
 	public static AtomFeedBuilder newBuilder() {
 		return AtomFeedBuilder.newInstance();
@@ -78,8 +87,23 @@ public class AtomFeed extends AbstractAtomSource implements AtomDocument {
 	 * @param updated The updated date (must not be null).
 	 */
 	public AtomFeed(final AtomId id, final AtomText title, final AtomDate updated, List<AtomEntry> entries) {
-		super(AtomContractConstraint.notNull("id", id), AtomContractConstraint.notNull("title", title), AtomContractConstraint.notNull("updated",
-				updated));
+		this(id, title, updated, entries, false);
+	}
+
+	/**
+	 * Creates an atom feed which is partial if it was read with a projection. A partial feed does
+	 * not require the id, title and updated date and cannot be serialized.
+	 * 
+	 * @param id The id of the atom feed (Must not be null unless partial).
+	 * @param title The title of the atom feed (Must not be null unless partial).
+	 * @param updated The updated date (must not be null unless partial).
+	 * @param entries The entries of the feed.
+	 * @param partial True if the feed only contains a projection of its elements.
+	 */
+	protected AtomFeed(final AtomId id, final AtomText title, final AtomDate updated, List<AtomEntry> entries, boolean partial) {
+		super(partial ? id : AtomContractConstraint.notNull("id", id), partial ? title : AtomContractConstraint.notNull("title", title),
+				partial ? updated : AtomContractConstraint.notNull("updated", updated));
+		this.partial = partial;
 		if (entries == null || entries.isEmpty()) {
 			this.entries = Collections.emptyList();
 		} else {
@@ -87,6 +111,23 @@ public class AtomFeed extends AbstractAtomSource implements AtomDocument {
 		}
 	}
 
+	/**
+	 * Creates a feed taking the entries of a builder without copying them. The builder checked the
+	 * entries when they were added and must not modify the list afterwards.
+	 * 
+	 * @param id The id of the atom feed (Must not be null unless partial).
+	 * @param title The title of the atom feed (Must not be null unless partial).
+	 * @param updated The updated date (must not be null unless partial).
+	 * @param partial True if the feed only contains a projection of its elements.
+	 * @param entries The entries of the feed.
+	 */
+	AtomFeed(final AtomId id, final AtomText title, final AtomDate updated, boolean partial, List<AtomEntry> entries) {
+		super(partial ? id : AtomContractConstraint.notNull("id", id), partial ? title : AtomContractConstraint.notNull("title", title),
+				partial ? updated : AtomContractConstraint.notNull("updated", updated));
+		this.partial = partial;
+		this.entries = adopt(entries);
+	}
+
 	/**
 	 * Returns the lazy initialized list of entries.
 	 * 
@@ -100,6 +141,23 @@ public class AtomFeed extends AbstractAtomSource implements AtomDocument {
 		return MEDIA_TYPE;
 	}
 
+	/**
+	 * Replaces the feed by its {@link AtomDocumentProxy} when written by Java serialization.
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		return new AtomDocumentProxy(this);
+	}
+
+	/**
+	 * Returns true if the feed was read with a projection. Elements not selected by the projection
+	 * are null or empty.
+	 * 
+	 * @return True if the feed only contains a projection of its elements.
+	 */
+	public boolean isPartial() {
+		return this.partial;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see java.lang.Object#hashCode()
@@ -149,16 +207,69 @@ public class AtomFeed extends AbstractAtomSource implements AtomDocument {
 
 	// --- FIXME: From here all is serialization. We Still need to think about a good way to do so.
 
+	@Override
+	public void collectNamespaces(Map<String, String> namespaces) {
+		super.collectNamespaces(namespaces);
+		collectNamespaces(namespaces, this.entries);
+	}
+
+	@Override
+	public AtomXmlBase collectXmlBases(AtomXmlBase parent, Map<AtomCommonAttributes, AtomXmlBase> chains) {
+		AtomXmlBase chain = super.collectXmlBases(parent, chains);
+		collectXmlBases(chain, chains, this.entries);
+		return chain;
+	}
+
 	@SuppressWarnings("all")
 	public void serialize(ContentHandler handler, AttributesImpl attributes) throws SAXException {
+		Map<String, String> namespaces = startFeed(handler, attributes);
+		for (int i = 0, n = this.entries.size(); i < n; i++) {
+			AtomEntry entry = this.entries.get(i);
+			entry.serialize(handler, attributes, false);
+		}
+		endFeed(handler, namespaces);
+	}
+
+	/**
+	 * Starts the feed element and writes the metadata of the feed without the entries. Used to
+	 * write the entries of a feed one by one followed by {@link #serializeEnd(ContentHandler)}.
+	 * The namespaces of the feed and its entries are declared on the feed element.
+	 * 
+	 * @param handler The handler to write to
+	 * @param attributes The attributes to reuse or null
+	 * @return The namespaces declared to pass to {@link #serializeEnd(ContentHandler, Map)}
+	 * @throws SAXException If writing fails
+	 */
+	public Map<String, String> serializeHead(ContentHandler handler, AttributesImpl attributes) throws SAXException {
+		return startFeed(handler, attributes);
+	}
+
+	/**
+	 * Ends the feed element started by {@link #serializeHead(ContentHandler, AttributesImpl)}.
+	 * 
+	 * @param handler The handler to write to
+	 * @param namespaces The namespaces returned by the head
+	 * @throws SAXException If writing fails
+	 */
+	public void serializeEnd(ContentHandler handler, Map<String, String> namespaces) throws SAXException {
+		endFeed(handler, AtomContractConstraint.notNull("namespaces", namespaces));
+	}
+
+	private Map<String, String> startFeed(ContentHandler handler, AttributesImpl attributes) throws SAXException {
+		if (this.partial) {
+			throw new IllegalStateException("A partial feed read with a projection cannot be serialized");
+		}
 		handler.startPrefixMapping(AtomConstants.ATOM_NS_PREFIX, AtomConstants.ATOM_NS_URI);
+		Map<String, String> namespaces = startPrefixMappings(handler, this);
 		attributes = initCommonAttributes(handler, attributes);
 		handler.startElement(AtomConstants.ATOM_NS_URI, "feed", AtomConstants.ATOM_NS_PREFIX + ":feed", attributes);
 		super.serializeContent(handler, attributes);
-		for (AtomEntry entry : this.entries) {
-			entry.serialize(handler, attributes);
-		}
+		return namespaces;
+	}
+
+	private void endFeed(ContentHandler handler, Map<String, String> namespaces) throws SAXException {
 		handler.endElement(AtomConstants.ATOM_NS_URI, "feed", AtomConstants.ATOM_NS_PREFIX + ":feed");
+		endPrefixMappings(handler, namespaces);
 		handler.endPrefixMapping(AtomConstants.ATOM_NS_PREFIX);
 	}
 
@@ -37,6 +37,8 @@ public class AtomFeedBuilder extends AbstractAtomSourceBuilder<AtomFeedBuilder>
 	 */
 	private List<AtomEntry> entries;
 
+	private boolean partial;
+
 	public static AtomFeedBuilder newInstance() {
 		return new AtomFeedBuilder();
 	}
@@ -46,11 +48,8 @@ public class AtomFeedBuilder extends AbstractAtomSourceBuilder<AtomFeedBuilder>
 	}
 
 	public AtomFeed build() {
-		AtomFeed temp = new AtomFeed(this.id, this.title, this.updated, this.entries);
-		temp.setCategories(this.categories);
-		temp.setAuthors(this.authors);
-		temp.setContributors(this.contributors);
-		temp.setLinks(this.links);
+		AtomFeed temp = new AtomFeed(this.id, this.title, this.updated, this.partial, this.entries);
+		temp.adoptCollections(this.categories, this.authors, this.contributors, this.links);
 		temp.setSubtitle(this.subtitle);
 		temp.setGenerator(this.generator);
 		temp.setIcon(this.icon);
@@ -63,9 +62,31 @@ public class AtomFeedBuilder extends AbstractAtomSourceBuilder<AtomFeedBuilder>
 	@Override
 	public void reset() {
 		super.reset();
-		if (this.entries != null) {
-			this.entries.clear();
-		}
+		this.partial = false;
+	}
+
+	@Override
+	protected void recycleCollections() {
+		super.recycleCollections();
+		this.entries = recycle(this.entries);
+	}
+
+	@Override
+	protected void copyCollections() {
+		super.copyCollections();
+		this.entries = copy(this.entries);
+	}
+
+	/**
+	 * Marks the feed as partial if it is built from a projection so the required elements are not
+	 * enforced.
+	 * 
+	 * @param partial True if the feed only contains a projection of its elements
+	 * @return This builder
+	 */
+	public AtomFeedBuilder setPartial(boolean partial) {
+		this.partial = partial;
+		return this;
 	}
 
 	@Element(name = "entry", namespace = AtomConstants.ATOM_NS_URI, minOccurs = 0, maxOccurs = Element.UNBOUND)
@@ -75,6 +96,7 @@ public class AtomFeedBuilder extends AbstractAtomSourceBuilder<AtomFeedBuilder>
 	}
 
 	public List<AtomEntry> getEntries() {
+		beforeModify();
 		if (this.entries == null) {
 			this.entries = new ArrayList<AtomEntry>();
 		}
@@ -30,6 +30,7 @@ import javax.xml.namespace.QName;
 import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.common.AtomCommonAttributes;
+import org.atomify.model.serializer.SerializationSupport;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -175,10 +176,9 @@ public class AtomGenerator extends AtomCommonAttributes {
 		}
 		String namespace = AtomConstants.ATOM_NS_URI;
 		String local = "generator";
-		String qName = AtomConstants.ATOM_NS_PREFIX + ":" + local;
+		String qName = AtomConstants.ATOM_NS_PREFIX + ":generator";
 		handler.startElement(namespace, local, qName, attributes);
-		char[] data = this.description.toCharArray();
-		handler.characters(data, 0, data.length);
+		SerializationSupport.characters(handler, this.description);
 		handler.endElement(namespace, local, qName);
 	}
 
@@ -59,6 +59,14 @@ public class AtomGeneratorBuilder extends AtomCommonBuilder<AtomGeneratorBuilder
 		return attachParentBuilder(new AtomGenerator(this.description, this.version, this.uri));
 	}
 
+	@Override
+	public void reset() {
+		super.reset();
+		this.description = null;
+		this.uri = null;
+		this.version = null;
+	}
+
 	@Content
 	public AtomGeneratorBuilder setDescription(String description) {
 		this.description = description;
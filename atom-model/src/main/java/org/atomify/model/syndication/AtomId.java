@@ -29,6 +29,7 @@ import java.util.UUID;
 import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.common.AtomCommonAttributes;
+import org.atomify.model.serializer.SerializationSupport;
 import org.jbasics.checker.ContractCheck;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -141,8 +142,7 @@ public class AtomId extends AtomCommonAttributes {
 	public void serialize(ContentHandler handler, AttributesImpl attributes) throws SAXException {
 		attributes = initCommonAttributes(handler, attributes);
 		handler.startElement(AtomConstants.ATOM_NS_URI, "id", AtomConstants.ATOM_NS_PREFIX + ":id", attributes);
-		char[] data = this.id.toASCIIString().toCharArray();
-		handler.characters(data, 0, data.length);
+		SerializationSupport.characters(handler, this.id.toASCIIString());
 		handler.endElement(AtomConstants.ATOM_NS_URI, "id", AtomConstants.ATOM_NS_PREFIX + ":id");
 	}
 
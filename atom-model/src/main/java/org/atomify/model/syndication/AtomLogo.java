@@ -28,6 +28,7 @@ import java.net.URI;
 import org.atomify.model.AtomConstants;
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.common.AtomCommonAttributes;
+import org.atomify.model.serializer.SerializationSupport;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -121,8 +122,7 @@ public class AtomLogo extends AtomCommonAttributes {
 	public void serialize(ContentHandler handler, AttributesImpl attributes) throws SAXException {
 		attributes = initCommonAttributes(handler, attributes);
 		handler.startElement(AtomConstants.ATOM_NS_URI, "logo", AtomConstants.ATOM_NS_PREFIX + ":logo", attributes);
-		char[] data = this.uri.toASCIIString().toCharArray();
-		handler.characters(data, 0, data.length);
+		SerializationSupport.characters(handler, this.uri.toASCIIString());
 		handler.endElement(AtomConstants.ATOM_NS_URI, "logo", AtomConstants.ATOM_NS_PREFIX + ":logo");
 	}
 
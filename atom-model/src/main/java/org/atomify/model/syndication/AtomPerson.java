@@ -34,6 +34,7 @@ import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.common.AtomCommonAttributes;
 import org.atomify.model.common.AtomExtendable;
 import org.atomify.model.extension.AtomExtension;
+import org.atomify.model.serializer.SerializationSupport;
 import org.jbasics.checker.ContractCheck;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -199,25 +200,24 @@ public class AtomPerson extends AtomExtendable {
 		attributes = initCommonAttributes(handler, attributes);
 		String namespace = name.getNamespaceURI();
 		String local = name.getLocalPart();
-		String qName = (name.getPrefix() != null && name.getPrefix().length() > 0 ? name.getPrefix() + ":" : "") + local;
+		String qName = SerializationSupport.qualifiedName(name);
 		handler.startElement(namespace, local, qName, attributes);
-		serializeElement("name", this.name, handler, attributes);
+		serializeElement("name", AtomConstants.ATOM_NS_PREFIX + ":name", this.name, handler, attributes);
 		if (this.email != null) {
-			serializeElement("email", this.email, handler, attributes);
+			serializeElement("email", AtomConstants.ATOM_NS_PREFIX + ":email", this.email, handler, attributes);
 		}
 		if (this.uri != null) {
-			serializeElement("uri", this.uri.toASCIIString(), handler, attributes);
+			serializeElement("uri", AtomConstants.ATOM_NS_PREFIX + ":uri", this.uri.toASCIIString(), handler, attributes);
 		}
 		serializeExtensions(handler, attributes);
 		handler.endElement(namespace, local, qName);
 	}
 
-	private void serializeElement(String name, String content, ContentHandler handler, AttributesImpl attributes) throws SAXException {
+	private void serializeElement(String name, String qName, String content, ContentHandler handler, AttributesImpl attributes) throws SAXException {
 		attributes.clear();
-		handler.startElement(AtomConstants.ATOM_NS_URI, name, AtomConstants.ATOM_NS_PREFIX + ":" + name, attributes);
-		char[] temp = content.toCharArray();
-		handler.characters(temp, 0, temp.length);
-		handler.endElement(AtomConstants.ATOM_NS_URI, name, AtomConstants.ATOM_NS_PREFIX + ":" + name);
+		handler.startElement(AtomConstants.ATOM_NS_URI, name, qName, attributes);
+		SerializationSupport.characters(handler, content);
+		handler.endElement(AtomConstants.ATOM_NS_URI, name, qName);
 	}
 
 }
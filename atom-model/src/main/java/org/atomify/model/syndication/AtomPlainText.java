@@ -26,6 +26,7 @@ package org.atomify.model.syndication;
 import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomContractConstraint;
+import org.atomify.model.serializer.SerializationSupport;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -182,10 +183,9 @@ public class AtomPlainText extends AtomText {
 		addAttribute(attributes, TYPE_QNAME, getType().toXmlString());
 		String namespace = name.getNamespaceURI();
 		String local = name.getLocalPart();
-		String qName = (name.getPrefix() != null && name.getPrefix().length() > 0 ? name.getPrefix() + ":" : "") + local;
+		String qName = SerializationSupport.qualifiedName(name);
 		handler.startElement(namespace, local, qName, attributes);
-		char[] data = this.value.toCharArray();
-		handler.characters(data, 0, data.length);
+		SerializationSupport.characters(handler, this.value);
 		handler.endElement(namespace, local, qName);
 	}
 
@@ -23,6 +23,8 @@
  */
 package org.atomify.model.syndication;
 
+import java.util.Map;
+
 import org.atomify.model.AtomConstants;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -85,12 +87,23 @@ public class AtomSource extends AbstractAtomSource {
 
 	@SuppressWarnings("all")
 	public void serialize(ContentHandler handler, AttributesImpl attributes) throws SAXException {
-		handler.startPrefixMapping(AtomConstants.ATOM_NS_PREFIX, AtomConstants.ATOM_NS_URI);
+		serialize(handler, attributes, true);
+	}
+
+	void serialize(ContentHandler handler, AttributesImpl attributes, boolean root) throws SAXException {
+		Map<String, String> namespaces = null;
+		if (root) {
+			handler.startPrefixMapping(AtomConstants.ATOM_NS_PREFIX, AtomConstants.ATOM_NS_URI);
+			namespaces = startPrefixMappings(handler, this);
+		}
 		attributes = initCommonAttributes(handler, attributes);
 		handler.startElement(AtomConstants.ATOM_NS_URI, "source", AtomConstants.ATOM_NS_PREFIX + ":source", attributes);
 		super.serializeContent(handler, attributes);
 		handler.endElement(AtomConstants.ATOM_NS_URI, "source", AtomConstants.ATOM_NS_PREFIX + ":source");
-		handler.endPrefixMapping(AtomConstants.ATOM_NS_PREFIX);
+		if (root) {
+			endPrefixMappings(handler, namespaces);
+			handler.endPrefixMapping(AtomConstants.ATOM_NS_PREFIX);
+		}
 	}
 
 }
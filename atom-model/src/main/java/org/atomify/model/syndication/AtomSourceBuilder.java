@@ -38,10 +38,7 @@ public class AtomSourceBuilder extends AbstractAtomSourceBuilder<AtomSourceBuild
 
 	public AtomSource build() {
 		AtomSource temp = new AtomSource(this.id, this.title, this.updated);
-		temp.setCategories(this.categories);
-		temp.setAuthors(this.authors);
-		temp.setContributors(this.contributors);
-		temp.setLinks(this.links);
+		temp.adoptCollections(this.categories, this.authors, this.contributors, this.links);
 		temp.setSubtitle(this.subtitle);
 		temp.setGenerator(this.generator);
 		temp.setIcon(this.icon);
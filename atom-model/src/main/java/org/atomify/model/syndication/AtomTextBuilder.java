@@ -60,6 +60,7 @@ public class AtomTextBuilder extends AtomCommonBuilder<AtomTextBuilder> implemen
 		super.reset();
 		this.type = null;
 		this.textOrHtmlContent = null;
+		this.xhtmlContent = null;
 	}
 
 	@Attribute(namespace = "", name = "type", required = true)
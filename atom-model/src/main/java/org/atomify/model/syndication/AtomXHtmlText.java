@@ -27,6 +27,7 @@ import javax.xml.namespace.QName;
 
 import org.atomify.model.AtomContractConstraint;
 import org.atomify.model.common.XhtmlDivElement;
+import org.atomify.model.serializer.SerializationSupport;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -119,7 +120,7 @@ public class AtomXHtmlText extends AtomText {
 		addAttribute(attributes, TYPE_QNAME, getType().toXmlString());
 		String namespace = name.getNamespaceURI();
 		String local = name.getLocalPart();
-		String qName = (name.getPrefix() != null && name.getPrefix().length() > 0 ? name.getPrefix() + ":" : "") + local;
+		String qName = SerializationSupport.qualifiedName(name);
 		handler.startElement(namespace, local, qName, attributes);
 		this.content.serialize(handler, attributes);
 		handler.endElement(namespace, local, qName);
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Assume;
+
+/**
+ * Measures the bytes the current thread allocates while running a task. Skips the calling test if the
+ * JVM cannot report the allocations per thread.
+ */
+public final class AllocationMeter {
+
+	/**
+	 * The work to measure.
+	 */
+	public interface Task {
+
+		void run() throws Exception;
+
+	}
+
+	private AllocationMeter() {
+		// static helper
+	}
+
+	/**
+	 * Runs the task the given number of times to warm up and then the same number of times measured.
+	 *
+	 * @param iterations The number of warm up and of measured runs.
+	 * @param task The task to measure.
+	 * @return The average number of bytes allocated per measured run.
+	 * @throws Exception If the task fails.
+	 */
+	public static long bytesPerRun(int iterations, Task task) throws Exception {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported());
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		long thread = Thread.currentThread().getId();
+		for (int i = 0; i < iterations; i++) {
+			task.run();
+		}
+		long start = allocations.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < iterations; i++) {
+			task.run();
+		}
+		return (allocations.getThreadAllocatedBytes(thread) - start) / iterations;
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomPlainText;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AtomDocumentParserFileTest {
+	private static final String TITLE = "Grüße aus Köln €";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testEncodingDetectedFromDocument() throws Exception {
+		for (String encoding : new String[] { "UTF-8", "UTF-16", "ISO-8859-15" }) {
+			Path file = writeFeed(this.folder.getRoot().toPath().resolve("feed-" + encoding + ".xml"), encoding, 1);
+			for (AtomDocumentParser.Engine engine : AtomDocumentParser.Engine.values()) {
+				AtomDocumentParser parser = new AtomDocumentParser(engine);
+				assertEquals(encoding + " " + engine, TITLE, ((AtomPlainText) ((AtomFeed) parser.parse(file)).getTitle()).getValue());
+				assertEquals(encoding + " " + engine, TITLE, ((AtomPlainText) ((AtomFeed) parser.parse(file.toFile())).getTitle()).getValue());
+			}
+		}
+	}
+
+	@Test
+	public void testParseDirectory() throws Exception {
+		Path root = this.folder.getRoot().toPath();
+		Path nested = Files.createDirectories(root.resolve("a/b"));
+		writeFeed(root.resolve("one.xml"), "UTF-8", 2);
+		writeFeed(nested.resolve("two.xml"), "UTF-16", 3);
+		writeFeed(nested.resolve("three.atom"), "UTF-8", 4);
+		Files.write(nested.resolve("broken.xml"), "<feed xmlns=\"http://www.w3.org/2005/Atom\">".getBytes("UTF-8"));
+		final List<Path> parsed = new ArrayList<Path>();
+		final List<Path> failed = new ArrayList<Path>();
+		long count = new AtomDocumentParser(AtomDocumentParser.Engine.STAX_STREAMING).parseDirectory(root, "*.xml",
+				new AtomDocumentParser.BatchHandler() {
+					public boolean handleDocument(Path file, AtomDocument document) {
+						parsed.add(file);
+						return true;
+					}
+
+					public boolean handleFailure(Path file, RuntimeException e) {
+						failed.add(file);
+						return true;
+					}
+				});
+		assertEquals(2, count);
+		assertEquals(2, parsed.size());
+		assertEquals(1, failed.size());
+		assertEquals(nested.resolve("broken.xml"), failed.get(0));
+	}
+
+	@Test
+	public void testLargeFile() throws Exception {
+		Path file = writeFeed(this.folder.getRoot().toPath().resolve("large.xml"), "UTF-8", 2000);
+		for (AtomDocumentParser.Engine engine : AtomDocumentParser.Engine.values()) {
+			AtomDocumentParser parser = new AtomDocumentParser(engine);
+			AtomFeed feed = (AtomFeed) parser.parse(file);
+			assertEquals(2000, feed.getEntries().size());
+			assertEquals(feed, parser.parse(file.toUri().toURL()));
+		}
+	}
+
+	private static Path writeFeed(Path file, String encoding, int entries) throws IOException {
+		StringBuilder document = new StringBuilder();
+		document.append("<?xml version=\"1.0\" encoding=\"").append(encoding).append("\"?>\n");
+		document.append("<feed xmlns=\"http://www.w3.org/2005/Atom\"><id>urn:uuid:feed</id><title>").append(TITLE).append("</title>");
+		document.append("<updated>2010-01-01T00:00:00Z</updated><author><name>Stephan</name></author>\n");
+		for (int i = 0; i < entries; i++) {
+			document.append("<entry><id>urn:uuid:entry-").append(i).append("</id><title>Entry ").append(i).append("</title>");
+			document.append("<updated>2010-01-01T00:00:00Z</updated><link rel=\"alternate\" href=\"http://example.org/").append(i);
+			document.append("\"/><summary>").append(TITLE).append("</summary><content type=\"html\">&lt;p&gt;");
+			document.append("Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt");
+			document.append("&lt;/p&gt;</content></entry>\n");
+		}
+		document.append("</feed>");
+		return Files.write(file, document.toString().getBytes(Charset.forName(encoding)));
+	}
+
+}
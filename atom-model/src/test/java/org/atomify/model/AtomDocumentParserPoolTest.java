@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.atomify.model.syndication.AtomFeed;
+import org.junit.Test;
+
+public class AtomDocumentParserPoolTest {
+
+	@Test
+	public void testConcurrentParsing() throws Exception {
+		final AtomDocumentParserPool pool = new AtomDocumentParserPool(2, 10, TimeUnit.SECONDS, AtomDocumentParser.Engine.SAX_BUILDER);
+		final URL resource = getClass().getResource("syndication/atom-feed-document.xml");
+		final AtomDocument expected = new AtomDocumentParser().parse(resource);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<AtomDocument>> results = new ArrayList<Future<AtomDocument>>();
+			for (int i = 0; i < 20; i++) {
+				results.add(executor.submit(new Callable<AtomDocument>() {
+					public AtomDocument call() throws Exception {
+						return pool.parse(resource);
+					}
+				}));
+			}
+			for (Future<AtomDocument> result : results) {
+				assertEquals(expected, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue(pool.getCreatedCount() <= 2);
+		assertEquals(20, pool.getBorrowedCount());
+		assertEquals(0, pool.getActiveCount());
+		assertEquals(pool.getCreatedCount(), pool.getIdleCount());
+		assertTrue(pool.parse(resource) instanceof AtomFeed);
+	}
+
+	@Test
+	public void testFailedParserIsDiscarded() throws Exception {
+		AtomDocumentParserPool pool = new AtomDocumentParserPool(1);
+		try {
+			pool.parse(new StringReader("<unknown/>"));
+			fail("Parsing an unknown root element must fail");
+		} catch (RuntimeException e) {
+			// expected
+		}
+		assertEquals(1, pool.getDiscardedCount());
+		assertEquals(0, pool.getIdleCount());
+		assertTrue(pool.parse(getClass().getResource("syndication/atom-entry-document.xml")) != null);
+		assertEquals(2, pool.getCreatedCount());
+	}
+
+	@Test
+	public void testBorrowTimeout() throws Exception {
+		final AtomDocumentParserPool pool = new AtomDocumentParserPool(1, 50, TimeUnit.MILLISECONDS, AtomDocumentParser.Engine.STAX_STREAMING);
+		final BlockingReader blocking = new BlockingReader();
+		Thread holder = new Thread() {
+			@Override
+			public void run() {
+				try {
+					pool.parse(blocking);
+				} catch (RuntimeException e) {
+					// we do not care about the result
+				}
+			}
+		};
+		holder.start();
+		blocking.awaitRead();
+		try {
+			pool.parse(new StringReader("<atom:feed xmlns:atom=\"http://www.w3.org/2005/Atom\"/>"));
+			fail("Borrowing from an exhausted pool must time out");
+		} catch (IllegalStateException e) {
+			assertEquals(1, pool.getTimeoutCount());
+		} finally {
+			blocking.release();
+			holder.join();
+		}
+	}
+
+	private static class BlockingReader extends StringReader {
+		private final Object lock = new Object();
+		private boolean read;
+		private boolean released;
+
+		public BlockingReader() {
+			super("<atom:feed xmlns:atom=\"http://www.w3.org/2005/Atom\"/>");
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			synchronized (this.lock) {
+				this.read = true;
+				this.lock.notifyAll();
+				while (!this.released) {
+					try {
+						this.lock.wait();
+					} catch (InterruptedException e) {
+						throw new InterruptedIOException();
+					}
+				}
+			}
+			return super.read(cbuf, off, len);
+		}
+
+		public void awaitRead() throws InterruptedException {
+			synchronized (this.lock) {
+				while (!this.read) {
+					this.lock.wait();
+				}
+			}
+		}
+
+		public void release() {
+			synchronized (this.lock) {
+				this.released = true;
+				this.lock.notifyAll();
+			}
+		}
+	}
+
+}
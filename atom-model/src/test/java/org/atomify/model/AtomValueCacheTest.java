@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.net.URI;
+
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.junit.After;
+import org.junit.Test;
+
+public class AtomValueCacheTest {
+
+	@After
+	public void enableCaches() {
+		AtomValueCache.setEnabled(true);
+	}
+
+	@Test
+	public void testBoundedCache() {
+		AtomValueCache<String, URI> cache = new AtomValueCache<String, URI>("test", 10) {
+			@Override
+			protected URI create(String key) {
+				return URI.create(key);
+			}
+		};
+		assertEquals(16, cache.getSize());
+		URI first = cache.valueOf("http://example.org/0");
+		assertSame(first, cache.valueOf("http://example.org/0"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(0.5, cache.getHitRate(), 0.0);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals("http://example.org/" + i, cache.valueOf("http://example.org/" + i).toString());
+		}
+		assertTrue(AtomValueCache.getCaches().contains(cache));
+		cache.clear();
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	@Test
+	public void testParsedValuesAreShared() throws Exception {
+		AtomFeed feed = parse(50);
+		AtomEntry first = feed.getEntries().get(0);
+		AtomEntry last = feed.getEntries().get(49);
+		assertSame(first.getLinks().get(0).getRel(), last.getLinks().get(0).getRel());
+		assertSame(first.getLinks().get(0).getType(), last.getLinks().get(0).getType());
+		assertSame(first.getXmlLang(), last.getXmlLang());
+		assertSame(first.getAuthors().get(0).getUri(), last.getAuthors().get(0).getUri());
+		assertSame(first.getCategories().get(0).getScheme(), last.getCategories().get(0).getScheme());
+		// only leaf values are interned, elements are never shared
+		assertNotSame(first.getAuthors().get(0), last.getAuthors().get(0));
+		assertTrue(AtomValueCache.URIS.getHitRate() > 0.5);
+	}
+
+	@Test
+	public void testDisabledCache() throws Exception {
+		AtomValueCache.setEnabled(false);
+		AtomFeed feed = parse(2);
+		AtomEntry first = feed.getEntries().get(0);
+		AtomEntry last = feed.getEntries().get(1);
+		assertNotSame(first.getLinks().get(0).getRel(), last.getLinks().get(0).getRel());
+		assertNotSame(first.getAuthors().get(0), last.getAuthors().get(0));
+		assertEquals(first.getAuthors().get(0), last.getAuthors().get(0));
+		assertEquals(0, AtomValueCache.URIS.getHitCount() + AtomValueCache.URIS.getMissCount());
+	}
+
+	private static AtomFeed parse(int entries) throws Exception {
+		StringBuilder document = new StringBuilder("<feed xmlns=\"http://www.w3.org/2005/Atom\"><id>urn:uuid:feed</id>"
+				+ "<title>Feed</title><updated>2016-01-01T00:00:00Z</updated>");
+		for (int i = 0; i < entries; i++) {
+			document.append("<entry xml:lang=\"en-US\"><id>urn:uuid:entry-").append(i).append("</id><title>Entry</title>")
+					.append("<updated>2016-01-01T00:00:00Z</updated><author><name>Author</name><uri>http://example.org/author</uri></author>")
+					.append("<category term=\"news\" scheme=\"http://example.org/categories\"/>")
+					.append("<link rel=\"alternate\" type=\"text/html\" href=\"http://example.org/entry/").append(i).append("\"/></entry>");
+		}
+		document.append("</feed>");
+		return (AtomFeed) new AtomDocumentParser(AtomDocumentParser.Engine.STAX_STREAMING).parse(new StringReader(document.toString()));
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.xml.namespace.QName;
+
+import org.atomify.model.AtomDocument;
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentSerializer;
+import org.atomify.model.extension.AtomSimpleExtension;
+import org.atomify.model.serializer.AtomXmlWriter;
+import org.atomify.model.syndication.AtomDate;
+import org.atomify.model.syndication.AtomEntryBuilder;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomFeedBuilder;
+import org.atomify.model.syndication.AtomId;
+import org.atomify.model.syndication.AtomPlainText;
+import org.junit.Test;
+
+public class AtomBinaryCodecTest {
+	private static final String[] RESOURCES = { "/org/atomify/model/publishing/atom-service-document.xml",
+			"/org/atomify/model/publishing/atom-categories-document.xml", "/org/atomify/model/syndication/atom-feed-document.xml",
+			"/org/atomify/model/syndication/atom-entry-document.xml" };
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		AtomBinaryCodec codec = new AtomBinaryCodec();
+		for (String resource : RESOURCES) {
+			AtomDocument document = new AtomDocumentParser().parse(getClass().getResource(resource));
+			byte[] data = codec.encode(document);
+			assertEquals(resource, document, codec.decode(data));
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			codec.encode(document, out);
+			assertEquals(resource, document, codec.decode(new ByteArrayInputStream(out.toByteArray())));
+		}
+	}
+
+	@Test
+	public void testSize() throws Exception {
+		AtomFeed feed = createFeed(1000);
+		AtomBinaryCodec codec = new AtomBinaryCodec();
+		byte[] data = codec.encode(feed);
+		byte[] xml = toXml(feed);
+		assertEquals(feed, codec.decode(data));
+		assertTrue(data.length + " bytes encoded, " + xml.length + " bytes XML", data.length * 2 < xml.length);
+	}
+
+	@Test
+	public void testRejectForeignData() throws Exception {
+		AtomBinaryCodec codec = new AtomBinaryCodec();
+		byte[] data = codec.encode(createFeed(1));
+		data[AtomBinaryCodec.MAGIC.length] = AtomBinaryCodec.VERSION + 1;
+		try {
+			codec.decode(data);
+			fail("Unsupported version decoded");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("version"));
+		}
+		try {
+			codec.decode("<feed/>".getBytes("UTF-8"));
+			fail("XML decoded");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		data[AtomBinaryCodec.MAGIC.length] = AtomBinaryCodec.VERSION;
+		byte[] truncated = new byte[data.length / 2];
+		System.arraycopy(data, 0, truncated, 0, truncated.length);
+		try {
+			codec.decode(truncated);
+			fail("Truncated data decoded");
+		} catch (RuntimeException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRejectCorruptCounts() throws Exception {
+		AtomBinaryCodec codec = new AtomBinaryCodec();
+		// start element feed declaring 2^31 - 1 namespaces
+		byte[] namespaces = { 'A', 'T', 'O', 'M', AtomBinaryCodec.VERSION, AtomBinaryCodec.START_ELEMENT, 0, 1, 0, 1, 4, 'f', 'e', 'e',
+				'd', 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 };
+		// start element with a negative length of its local name
+		byte[] length = { 'A', 'T', 'O', 'M', AtomBinaryCodec.VERSION, AtomBinaryCodec.START_ELEMENT, 0, 1, 0, 1, (byte) 0xFF,
+				(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F };
+		// start element with more attributes than bytes left
+		byte[] attributes = { 'A', 'T', 'O', 'M', AtomBinaryCodec.VERSION, AtomBinaryCodec.START_ELEMENT, 0, 1, 0, 1, 4, 'f', 'e', 'e',
+				'd', 1, 0, 0, 100, 0 };
+		for (byte[] data : new byte[][] { namespaces, length, attributes }) {
+			try {
+				codec.decode(new ByteArrayInputStream(data));
+				fail("Corrupt data decoded");
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("[AtomBinaryCodec] Corrupt encoded document"));
+			}
+		}
+	}
+
+	private static AtomFeed createFeed(int entries) throws Exception {
+		AtomFeedBuilder builder = AtomFeedBuilder.newInstance().setId(AtomId.valueOf("urn:uuid:binary"))
+				.setTitle(new AtomPlainText("Binary")).setUpdated(AtomDate.valueOf("2016-01-01T00:00:00Z"));
+		QName point = new QName("http://www.georss.org/georss", "point", "georss");
+		QName rank = new QName("urn:example:rank", "rank", "rk");
+		for (int i = 0; i < entries; i++) {
+			builder.addEntry(AtomEntryBuilder.newInstance().setId(AtomId.valueOf("urn:uuid:entry-" + i))
+					.setTitle(new AtomPlainText("Entry " + i)).setUpdated(AtomDate.valueOf("2016-01-01T00:00:00Z"))
+					.setSummary(new AtomPlainText("Summary of entry " + i)).setUndefinedAttribute(rank, Integer.toString(i))
+					.addExtension(new AtomSimpleExtension(point, "45.256 -71.92")).build());
+		}
+		return builder.build();
+	}
+
+	private static byte[] toXml(AtomDocument document) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new AtomDocumentSerializer("UTF-8", AtomXmlWriter.NO_INDENT).serialize(document, out);
+		return out.toByteArray();
+	}
+
+}
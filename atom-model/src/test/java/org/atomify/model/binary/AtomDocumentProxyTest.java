@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+
+import javax.xml.namespace.QName;
+
+import org.atomify.model.AtomDocument;
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.common.AtomLanguage;
+import org.atomify.model.extension.AtomSimpleExtension;
+import org.atomify.model.syndication.AtomDate;
+import org.atomify.model.syndication.AtomEntryBuilder;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomFeedBuilder;
+import org.atomify.model.syndication.AtomId;
+import org.atomify.model.syndication.AtomPerson;
+import org.atomify.model.syndication.AtomPersonBuilder;
+import org.atomify.model.syndication.AtomPlainText;
+import org.junit.Test;
+
+public class AtomDocumentProxyTest {
+	private static final String[] RESOURCES = { "/org/atomify/model/publishing/atom-service-document.xml",
+			"/org/atomify/model/publishing/atom-categories-document.xml", "/org/atomify/model/syndication/atom-feed-document.xml",
+			"/org/atomify/model/syndication/atom-entry-document.xml" };
+
+	@Test
+	public void testDocuments() throws Exception {
+		for (String resource : RESOURCES) {
+			AtomDocument document = new AtomDocumentParser().parse(getClass().getResource(resource));
+			byte[] data = write(document);
+			assertEquals(resource, document, read(data));
+		}
+	}
+
+	@Test
+	public void testElement() throws Exception {
+		AtomPerson person = AtomPersonBuilder.newInstance().setName("Stephan").setUri(URI.create("http://www.schloepke.de/"))
+				.setXmlLang(AtomLanguage.valueOf("de-DE")).setXmlBase(URI.create("http://www.schloepke.de/"))
+				.setUndefinedAttribute(new QName("urn:example:rank", "rank", "rk"), "1").build();
+		Object result = read(write(person));
+		assertEquals(person, result);
+		assertTrue(((AtomPerson) result).getXmlLang() == person.getXmlLang());
+	}
+
+	@Test
+	public void testLargeFeed() throws Exception {
+		AtomFeed feed = createFeed(1000);
+		assertEquals(feed, read(write(feed)));
+	}
+
+	@Test
+	public void testRejectCorruptData() throws Exception {
+		byte[] data = write(createFeed(3));
+		int offset = indexOf(data, new byte[] { 'A', 'T', 'O', 'M', AtomBinaryCodec.VERSION });
+		byte[] oversized = data.clone();
+		oversized[offset - 4] = 0x7F;
+		byte[] negative = data.clone();
+		negative[offset - 4] = (byte) 0x80;
+		byte[] corrupt = data.clone();
+		corrupt[offset + 5] = 99;
+		for (byte[] temp : new byte[][] { oversized, negative, corrupt }) {
+			try {
+				read(temp);
+				fail("Corrupt data read");
+			} catch (InvalidObjectException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("[AtomDocumentProxy]"));
+			}
+		}
+	}
+
+	private static int indexOf(byte[] data, byte[] part) {
+		for (int i = 0; i + part.length <= data.length; i++) {
+			int j = 0;
+			while (j < part.length && data[i + j] == part[j]) {
+				j++;
+			}
+			if (j == part.length) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static AtomFeed createFeed(int entries) throws Exception {
+		AtomFeedBuilder builder = AtomFeedBuilder.newInstance().setId(AtomId.valueOf("urn:uuid:serialized"))
+				.setTitle(new AtomPlainText("Serialized")).setUpdated(AtomDate.valueOf("2016-01-01T00:00:00Z"));
+		QName point = new QName("http://www.georss.org/georss", "point", "georss");
+		QName rank = new QName("urn:example:rank", "rank", "rk");
+		for (int i = 0; i < entries; i++) {
+			builder.addEntry(AtomEntryBuilder.newInstance().setId(AtomId.valueOf("urn:uuid:entry-" + i))
+					.setTitle(new AtomPlainText("Entry " + i)).setUpdated(AtomDate.valueOf("2016-01-01T00:00:00Z"))
+					.setSummary(new AtomPlainText("Summary of entry " + i)).setUndefinedAttribute(rank, Integer.toString(i))
+					.addExtension(new AtomSimpleExtension(point, "45.256 -71.92")).build());
+		}
+		return builder.build();
+	}
+
+	private static byte[] write(Object value) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream objects = new ObjectOutputStream(out);
+		objects.writeObject(value);
+		objects.close();
+		return out.toByteArray();
+	}
+
+	private static Object read(byte[] data) throws Exception {
+		return new ObjectInputStream(new ByteArrayInputStream(data)).readObject();
+	}
+
+}
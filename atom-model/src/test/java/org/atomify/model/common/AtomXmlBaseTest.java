@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentParser.Engine;
+import org.atomify.model.AtomResolvedDocument;
+import org.atomify.model.parser.AtomFeedReader;
+import org.atomify.model.publishing.AtomPubService;
+import org.atomify.model.syndication.AtomContentLink;
+import org.atomify.model.syndication.AtomDate;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomFeedBuilder;
+import org.atomify.model.syndication.AtomId;
+import org.atomify.model.syndication.AtomLink;
+import org.atomify.model.syndication.AtomPlainText;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+public class AtomXmlBaseTest {
+	private static final String FEED = "<feed xmlns=\"http://www.w3.org/2005/Atom\" xml:base=\"http://example.org/blog/\">"
+			+ "<id>urn:uuid:feed</id><title>Feed</title><updated>2016-01-01T00:00:00Z</updated>"
+			+ "<link rel=\"next\" href=\"?page=2\"/>"
+			+ "<author><name>Author</name><uri>/people/author</uri></author>"
+			+ "<entry xml:base=\"2016/\"><id>urn:uuid:entry</id><title>Entry</title><updated>2016-01-01T00:00:00Z</updated>"
+			+ "<link rel=\"self\" href=\"entry.atom\"/><link rel=\"alternate\" href=\"http://example.com/entry\"/>"
+			+ "<content xml:base=\"media/\" src=\"image.png\" type=\"image/png\"/></entry></feed>";
+	private static final String SERVICE = "<service xmlns=\"http://www.w3.org/2007/app\" xmlns:atom=\"http://www.w3.org/2005/Atom\""
+			+ " xml:base=\"http://example.org/\"><workspace xml:base=\"a/\"><atom:title>A</atom:title>"
+			+ "<collection href=\"entries\"><atom:title>Entries</atom:title></collection></workspace>"
+			+ "<workspace xml:base=\"b/\"><atom:title>B</atom:title>"
+			+ "<collection href=\"entries\"><atom:title>Entries</atom:title></collection></workspace></service>";
+
+	@Test
+	public void testResolveParsedDocument() throws Exception {
+		for (Engine engine : Engine.values()) {
+			AtomResolvedDocument resolved = new AtomDocumentParser(engine).parseResolved(source(FEED));
+			AtomFeed feed = (AtomFeed) resolved.delegate();
+			assertResolved(resolved, feed.getEntries().get(0));
+			AtomLink next = feed.getLinks().get(0);
+			assertEquals(URI.create("http://example.org/blog/?page=2"), resolved.getResolvedHref(next));
+			assertEquals(URI.create("http://example.org/people/author"), resolved.getResolvedUri(feed.getAuthors().get(0)));
+			// elements without xml:base share the chain of their parent and the resolved URIs are cached
+			assertSame(resolved.getXmlBaseChain(feed), resolved.getXmlBaseChain(next));
+			assertSame(resolved.getResolvedHref(next), resolved.getResolvedHref(next));
+		}
+	}
+
+	@Test
+	public void testResolveAgainstLocation() throws Exception {
+		File file = File.createTempFile("atom-xml-base", ".xml");
+		try {
+			OutputStream out = new FileOutputStream(file);
+			try {
+				out.write(FEED.replace(" xml:base=\"http://example.org/blog/\"", "").getBytes("UTF-8"));
+			} finally {
+				out.close();
+			}
+			AtomResolvedDocument resolved = new AtomDocumentParser().parseResolved(file.toURI().toURL());
+			AtomEntry entry = ((AtomFeed) resolved.delegate()).getEntries().get(0);
+			assertEquals(file.toURI().resolve("2016/"), resolved.getEffectiveXmlBase(entry));
+			assertEquals(file.toURI().resolve("2016/entry.atom"), resolved.getResolvedHref(entry.getLinks().get(0)));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testResolveStreamedEntries() throws Exception {
+		AtomFeedReader reader = new AtomFeedReader(new ByteArrayInputStream(FEED.getBytes("UTF-8")));
+		try {
+			AtomEntry entry = reader.next();
+			assertResolved(reader.resolve(entry), entry);
+			assertSame(reader.getXmlBaseChain(), reader.getXmlBaseChain());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testResolveSharedElements() throws Exception {
+		AtomResolvedDocument first = new AtomDocumentParser().parseResolved(source(FEED));
+		AtomEntry entry = ((AtomFeed) first.delegate()).getEntries().get(0);
+		AtomFeed other = AtomFeedBuilder.newInstance().setXmlBase(URI.create("http://b.example/")).setId(AtomId.valueOf("urn:uuid:other"))
+				.setTitle(new AtomPlainText("Other")).setUpdated(AtomDate.valueOf("2016-01-01T00:00:00Z")).addEntry(entry).build();
+		AtomResolvedDocument second = new AtomResolvedDocument(other, null);
+		assertEquals(URI.create("http://b.example/2016/entry.atom"), second.getResolvedHref(entry.getLinks().get(0)));
+		assertResolved(first, entry);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testResolveForeignElement() throws Exception {
+		AtomResolvedDocument first = new AtomDocumentParser().parseResolved(source(FEED));
+		AtomFeed second = (AtomFeed) new AtomDocumentParser().parse(source(FEED));
+		first.getResolvedHref(second.getLinks().get(0));
+	}
+
+	@Test
+	public void testResolveCollectionsOfWorkspaces() throws Exception {
+		AtomResolvedDocument resolved = new AtomDocumentParser().parseResolved(source(SERVICE));
+		AtomPubService service = (AtomPubService) resolved.delegate();
+		// the collections are equal but resolve against the base of their own workspace
+		assertEquals(service.findCollection("A", "Entries"), service.findCollection("B", "Entries"));
+		assertNotSame(service.findCollection("A", "Entries"), service.findCollection("B", "Entries"));
+		assertEquals(URI.create("http://example.org/a/entries"), resolved.getResolvedHref(service.findCollection("A", "Entries")));
+		assertEquals(URI.create("http://example.org/b/entries"), resolved.getResolvedHref(service.findCollection("B", "Entries")));
+	}
+
+	@Test
+	public void testResolve() {
+		assertEquals(URI.create("http://example.org/entry"), AtomXmlBase.resolve(URI.create("http://example.org"), URI.create("entry")));
+		assertEquals(URI.create("entry"), AtomXmlBase.resolve(null, URI.create("entry")));
+		assertNull(AtomXmlBase.resolve(URI.create("http://example.org/"), null));
+		AtomXmlBase chain = new AtomXmlBase(new AtomXmlBase(null, URI.create("http://example.org/a/")), URI.create("b/"));
+		assertEquals(URI.create("http://example.org/a/b/"), chain.getEffectiveBase());
+		assertEquals(URI.create("http://example.org/a/b/c"), chain.resolve(URI.create("c")));
+		assertNull(AtomXmlBase.forLocation("not a uri"));
+	}
+
+	private static InputSource source(String xml) throws Exception {
+		return new InputSource(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+	}
+
+	private static void assertResolved(AtomResolvedDocument resolved, AtomEntry entry) {
+		assertEquals(URI.create("http://example.org/blog/2016/"), resolved.getEffectiveXmlBase(entry));
+		assertEquals(URI.create("http://example.org/blog/2016/entry.atom"), resolved.getResolvedHref(entry.getLinks().get(0)));
+		assertEquals(URI.create("http://example.com/entry"), resolved.getResolvedHref(entry.getLinks().get(1)));
+		AtomContentLink content = (AtomContentLink) entry.getContent();
+		assertEquals(URI.create("http://example.org/blog/2016/media/image.png"), resolved.getResolvedSource(content));
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.extension;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentParser.Engine;
+import org.atomify.model.parser.AtomFeedReader;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.jbasics.parser.annotations.Content;
+import org.jbasics.parser.annotations.QualifiedName;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+public class AtomExtensionRegistryTest {
+	private static final String THREAD_NS = "http://purl.org/syndication/thread/1.0";
+	private static final QName TOTAL = new QName(THREAD_NS, "total", "thr");
+	private static final String FEED = "<feed xmlns=\"http://www.w3.org/2005/Atom\" xmlns:thr=\"" + THREAD_NS + "\">"
+			+ "<id>urn:uuid:feed</id><title>Feed</title><updated>2016-01-01T00:00:00Z</updated><thr:total>7</thr:total>"
+			+ "<entry><id>urn:uuid:entry</id><title>Entry</title><updated>2016-01-01T00:00:00Z</updated>"
+			+ "<thr:total>3</thr:total><thr:other>x</thr:other></entry></feed>";
+
+	@Test
+	public void testParseTypedExtension() throws Exception {
+		AtomExtensionRegistry registry = new AtomExtensionRegistry().register(TOTAL, ThreadTotal.class, AtomExtensionContext.ENTRY);
+		AtomFeed feed = (AtomFeed) new AtomDocumentParser(Engine.STAX_STREAMING, registry).parse(new ByteArrayInputStream(FEED
+				.getBytes("UTF-8")));
+		AtomEntry entry = feed.getEntries().get(0);
+		assertEquals(3, entry.getExtension(ThreadTotal.class).getTotal());
+		assertSame(entry.getExtension(ThreadTotal.class), entry.getExtension(TOTAL));
+		assertTrue(entry.getExtension(new QName(THREAD_NS, "other")) instanceof AtomSimpleExtension);
+		assertNull(feed.getExtension(ThreadTotal.class));
+		assertEquals("7", feed.getExtension(TOTAL).getSimpleContent());
+		assertEquals(new AtomDocumentParser().parse(new ByteArrayInputStream(FEED.getBytes("UTF-8"))), feed);
+	}
+
+	@Test
+	public void testReadTypedExtension() throws Exception {
+		AtomExtensionRegistry registry = new AtomExtensionRegistry().register(TOTAL, ThreadTotal.class, AtomExtensionContext.FEED,
+				AtomExtensionContext.ENTRY);
+		AtomFeedReader reader = new AtomFeedReader(new InputSource(new ByteArrayInputStream(FEED.getBytes("UTF-8"))), registry);
+		try {
+			assertEquals(3, reader.next().getExtension(ThreadTotal.class).getTotal());
+			assertEquals(7, reader.getFeed().getExtension(ThreadTotal.class).getTotal());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testIndex() {
+		List<AtomExtension> extensions = new ArrayList<AtomExtension>();
+		for (int i = 0; i <= AtomExtensionIndex.SCAN_LIMIT; i++) {
+			extensions.add(new AtomSimpleExtension(new QName(THREAD_NS, "ext" + i), Integer.toString(i)));
+		}
+		extensions.add(new ThreadTotal(TOTAL, "5"));
+		extensions.add(new ThreadTotal(TOTAL, "6"));
+		AtomExtensionIndex index = AtomExtensionIndex.valueOf(extensions);
+		assertEquals(5, index.get(ThreadTotal.class).getTotal());
+		assertEquals("5", index.get(TOTAL).getSimpleContent());
+		assertEquals("0", index.get(AtomSimpleExtension.class).getSimpleContent());
+		assertEquals("0", index.get(AtomExtension.class).getSimpleContent());
+		assertNull(index.get(AtomStructuredExtension.class));
+		assertEquals(2, index.getAll(ThreadTotal.class).size());
+		assertNull(AtomExtensionIndex.valueOf(new ArrayList<AtomExtension>()).get(TOTAL));
+	}
+
+	public static class ThreadTotal extends AtomSimpleExtension {
+
+		public ThreadTotal(QName name, String value) {
+			super(name, value);
+		}
+
+		public static Builder newBuilder() {
+			return new Builder();
+		}
+
+		public int getTotal() {
+			return Integer.parseInt(getSimpleContent().trim());
+		}
+
+	}
+
+	public static class Builder {
+		private QName name;
+		private String text;
+
+		@QualifiedName
+		public Builder setQualifiedName(QName name) {
+			this.name = name;
+			return this;
+		}
+
+		@Content
+		public Builder setText(String text) {
+			this.text = text;
+			return this;
+		}
+
+		public ThreadTotal build() {
+			return new ThreadTotal(this.name, this.text);
+		}
+
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.jaxrs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.UriBuilder;
+
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentSerializer;
+import org.atomify.model.syndication.AtomFeed;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.grizzly.http.SelectorThread;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.api.container.grizzly.GrizzlyWebContainerFactory;
+
+public class AtomDocumentResponseCacheTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final AtomDocumentResponseCache CACHE = new AtomDocumentResponseCache();
+	private static AtomFeed feed;
+	private static SelectorThread selectorThread;
+	private static URI baseUri;
+
+	@BeforeClass
+	public static void startServer() throws Exception {
+		feed = (AtomFeed) new AtomDocumentParser().parse(AtomDocumentResponseCacheTest.class
+				.getResource("/org/atomify/model/syndication/atom-feed-document.xml"));
+		final Map<String, String> initParams = new HashMap<String, String>();
+		initParams.put("javax.ws.rs.Application", CachedApplication.class.getName());
+		ServerSocket socket = new ServerSocket(0);
+		int port = socket.getLocalPort();
+		socket.close();
+		baseUri = UriBuilder.fromUri("http://localhost/").port(port).build();
+		selectorThread = GrizzlyWebContainerFactory.create(baseUri, initParams);
+	}
+
+	@AfterClass
+	public static void stopServer() throws Exception {
+		selectorThread.stopEndpoint();
+	}
+
+	@Test
+	public void testCachedResponses() throws Exception {
+		WebResource resource = Client.create().resource(UriBuilder.fromUri(baseUri).path("cached").build());
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		new AtomDocumentSerializer().serialize(feed, expected);
+
+		ClientResponse response = resource.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate").get(ClientResponse.class);
+		assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		byte[] compressed = response.getEntity(byte[].class);
+		assertEquals(Integer.toString(compressed.length), response.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH));
+		assertArrayEquals(expected.toByteArray(), gunzip(compressed));
+		assertEquals(1, CACHE.getMissCount());
+
+		response = resource.header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0").get(ClientResponse.class);
+		assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		byte[] plain = response.getEntity(byte[].class);
+		assertEquals(Integer.toString(plain.length), response.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH));
+		assertArrayEquals(expected.toByteArray(), plain);
+		assertEquals(feed, new AtomDocumentParser().parse(new ByteArrayInputStream(plain)));
+
+		resource.header(HttpHeaders.ACCEPT_ENCODING, "gzip").get(ClientResponse.class).getEntity(byte[].class);
+		assertEquals(1, CACHE.getMissCount());
+		assertEquals(2, CACHE.getHitCount());
+		assertEquals(1, CACHE.getDocumentCount());
+		assertEquals(plain.length + compressed.length, CACHE.getByteCount());
+		CACHE.invalidate(feed);
+		assertEquals(0, CACHE.getDocumentCount());
+		assertEquals(0, CACHE.getByteCount());
+	}
+
+	@Test
+	public void testDigestKeyAndEviction() throws Exception {
+		AtomDocumentResponseCache cache = new AtomDocumentResponseCache(AtomDocumentSerializer.DEFAULT_INDENT, 4000,
+				AtomDocumentResponseCache.KeyMode.DIGEST);
+		AtomFeed copy = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource("/org/atomify/model/syndication/atom-feed-document.xml"));
+		AtomDocumentResponseCache.Representation first = cache.get(feed, UTF8);
+		assertTrue(first == cache.get(copy, UTF8));
+		assertEquals(1, cache.getHitCount());
+		cache.gzip(first);
+		assertEquals(first.identity.length + first.gzip.length, cache.getByteCount());
+		cache.get(feed, Charset.forName("UTF-16"));
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(1, cache.getDocumentCount());
+	}
+
+	private static byte[] gunzip(byte[] data) throws Exception {
+		InputStream in = new GZIPInputStream(new ByteArrayInputStream(data));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	public static class CachedApplication extends Application {
+		@Override
+		public Set<Object> getSingletons() {
+			Set<Object> result = new HashSet<Object>();
+			result.add(new AtomDocumentCachingProvider(CACHE));
+			result.add(new CachedResource());
+			return result;
+		}
+	}
+
+	@Path("cached")
+	public static class CachedResource {
+		@GET
+		@Produces("application/atom+xml;type=feed")
+		public AtomFeed getFeed() {
+			return feed;
+		}
+	}
+
+}
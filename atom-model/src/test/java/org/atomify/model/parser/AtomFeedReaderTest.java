@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+public class AtomFeedReaderTest {
+	private static final String FEED_RESOURCE = "/org/atomify/model/syndication/atom-feed-document.xml";
+
+	@Test
+	public void testReadFeedEntryByEntry() throws Exception {
+		AtomFeed expected = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		InputStream in = getClass().getResourceAsStream(FEED_RESOURCE);
+		try {
+			AtomFeedReader reader = new AtomFeedReader(in);
+			AtomFeed metadata = reader.getFeed();
+			assertEquals(expected.getId(), metadata.getId());
+			assertEquals(expected.getTitle(), metadata.getTitle());
+			assertEquals(expected.getLinks(), metadata.getLinks());
+			assertTrue(metadata.getEntries().isEmpty());
+			List<AtomEntry> entries = new ArrayList<AtomEntry>();
+			while (reader.hasNext()) {
+				entries.add(reader.next());
+			}
+			assertEquals(expected.getEntries(), entries);
+			assertFalse(reader.hasNext());
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testReadFeedWithLazyContent() throws Exception {
+		AtomFeed expected = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		InputStream in = getClass().getResourceAsStream(FEED_RESOURCE);
+		try {
+			AtomFeedReader reader = new AtomFeedReader(new InputSource(in), true);
+			List<AtomEntry> entries = new ArrayList<AtomEntry>();
+			while (reader.hasNext()) {
+				entries.add(reader.next());
+			}
+			assertEquals(expected.getEntries().size(), entries.size());
+			for (int i = 0; i < entries.size(); i++) {
+				assertEquals(expected.getEntries().get(i).getSummary(), entries.get(i).getSummary());
+				assertEquals(expected.getEntries().get(i).getContent(), entries.get(i).getContent());
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testReadLargeFeedWithCallback() throws Exception {
+		final int entryCount = 20000;
+		AtomFeedReader reader = new AtomFeedReader(new GeneratedFeedReader(entryCount));
+		try {
+			assertEquals("urn:uuid:generated-feed", reader.getFeed().getId().getId().toString());
+			final long[] last = new long[1];
+			long count = reader.readEntries(new AtomFeedReader.EntryHandler() {
+				public boolean handleEntry(AtomFeed feed, AtomEntry entry) {
+					assertEquals("urn:uuid:entry-" + last[0]++, entry.getId().getId().toString());
+					return true;
+				}
+			});
+			assertEquals(entryCount, count);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testStopReadingWithCallback() throws Exception {
+		AtomFeedReader reader = new AtomFeedReader(new GeneratedFeedReader(10));
+		try {
+			long count = reader.readEntries(new AtomFeedReader.EntryHandler() {
+				public boolean handleEntry(AtomFeed feed, AtomEntry entry) {
+					return !entry.getId().getId().toString().endsWith("-2");
+				}
+			});
+			assertEquals(3, count);
+			assertTrue(reader.hasNext());
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Produces a feed with the given number of entries on the fly without keeping the document in
+	 * memory.
+	 */
+	private static class GeneratedFeedReader extends Reader {
+		private final int entries;
+		private int current = -1;
+		private String chunk = "<feed xmlns=\"http://www.w3.org/2005/Atom\"><id>urn:uuid:generated-feed</id>"
+				+ "<title>Generated</title><updated>2016-01-01T00:00:00Z</updated><link rel=\"self\" href=\"http://example.org/feed\"/>";
+		private int position;
+
+		public GeneratedFeedReader(int entries) {
+			this.entries = entries;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) {
+			if (this.chunk == null) {
+				return -1;
+			}
+			int count = Math.min(len, this.chunk.length() - this.position);
+			this.chunk.getChars(this.position, this.position + count, cbuf, off);
+			this.position += count;
+			if (this.position == this.chunk.length()) {
+				this.position = 0;
+				this.current++;
+				if (this.current < this.entries) {
+					this.chunk = "<entry><id>urn:uuid:entry-" + this.current + "</id><title>Entry " + this.current
+							+ "</title><updated>2016-01-01T00:00:00Z</updated><summary>Some summary</summary></entry>";
+				} else if (this.current == this.entries) {
+					this.chunk = "</feed>";
+				} else {
+					this.chunk = null;
+				}
+			}
+			return count;
+		}
+
+		@Override
+		public void close() {
+			this.chunk = null;
+		}
+	}
+
+}
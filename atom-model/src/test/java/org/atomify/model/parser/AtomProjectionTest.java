@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomLink;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+public class AtomProjectionTest {
+	private static final String FEED_RESOURCE = "/org/atomify/model/syndication/atom-feed-document.xml";
+
+	@Test
+	public void testValueOf() {
+		AtomProjection projection = AtomProjection.valueOf("id", "updated", "link[rel=alternate]", "category");
+		assertEquals(4, projection.getElements().size());
+		assertEquals(1, projection.getLinkRelations().size());
+		assertTrue(projection.getLinkRelations().contains("alternate"));
+		assertNull(AtomProjection.valueOf("id", "link").getLinkRelations());
+		assertEquals(projection, AtomProjection.valueOf("id", "updated", "link[rel='alternate']", "category"));
+		try {
+			AtomProjection.valueOf("category[term=test]");
+			fail("Only links can be filtered");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testProjectedFeed() throws Exception {
+		AtomFeed expected = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		AtomFeed feed = (AtomFeed) new AtomDocumentParser(AtomProjection.valueOf("id", "updated", "link[rel=alternate]", "category")).parse(
+				getClass().getResource(FEED_RESOURCE));
+		assertTrue(feed.isPartial());
+		assertEquals(expected.getId(), feed.getId());
+		assertEquals(expected.getUpdated(), feed.getUpdated());
+		assertNull(feed.getTitle());
+		assertEquals(alternateLinks(expected.getLinks()), feed.getLinks());
+		assertEquals(expected.getEntries().size(), feed.getEntries().size());
+		for (int i = 0; i < feed.getEntries().size(); i++) {
+			AtomEntry expectedEntry = expected.getEntries().get(i);
+			AtomEntry entry = feed.getEntries().get(i);
+			assertTrue(entry.isPartial());
+			assertEquals(expectedEntry.getId(), entry.getId());
+			assertEquals(expectedEntry.getUpdated(), entry.getUpdated());
+			assertEquals(expectedEntry.getCategories(), entry.getCategories());
+			assertEquals(alternateLinks(expectedEntry.getLinks()), entry.getLinks());
+			assertNull(entry.getTitle());
+			assertNull(entry.getContent());
+			assertNull(entry.getSummary());
+			assertTrue(entry.getAuthors().isEmpty());
+		}
+		try {
+			feed.serialize(newHandler(), null);
+			fail("A partial feed must not be serializable");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testProjectedFeedReader() throws Exception {
+		AtomFeed expected = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		InputStream in = getClass().getResourceAsStream(FEED_RESOURCE);
+		try {
+			AtomFeedReader reader = new AtomFeedReader(new InputSource(in), AtomProjection.valueOf("id"));
+			assertTrue(reader.getFeed().isPartial());
+			assertEquals(expected.getId(), reader.getFeed().getId());
+			assertTrue(reader.getFeed().getLinks().isEmpty());
+			List<AtomEntry> entries = new ArrayList<AtomEntry>();
+			while (reader.hasNext()) {
+				entries.add(reader.next());
+			}
+			assertEquals(expected.getEntries().size(), entries.size());
+			for (int i = 0; i < entries.size(); i++) {
+				assertEquals(expected.getEntries().get(i).getId(), entries.get(i).getId());
+				assertNull(entries.get(i).getUpdated());
+			}
+			assertFalse(reader.hasNext());
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testLinkRelationFilter() throws Exception {
+		String document = "<entry xmlns=\"http://www.w3.org/2005/Atom\" xmlns:ext=\"urn:test:ext\"><id>urn:uuid:entry</id>"
+				+ "<title>Entry</title><updated>2016-01-01T00:00:00Z</updated><link rel=\"self\" href=\"http://example.org/self\"/>"
+				+ "<link href=\"http://example.org/default\"/><ext:data><ext:nested>ignored</ext:nested></ext:data>"
+				+ "<link rel=\"alternate\" href=\"http://example.org/alternate\"/></entry>";
+		AtomEntry entry = (AtomEntry) new AtomDocumentParser(AtomProjection.valueOf("link[rel=alternate]")).parse(new StringReader(document));
+		assertNull(entry.getId());
+		assertEquals(2, entry.getLinks().size());
+		assertEquals("http://example.org/default", entry.getLinks().get(0).getHref().toString());
+		assertEquals("http://example.org/alternate", entry.getLinks().get(1).getHref().toString());
+		assertTrue(entry.getExtensions().isEmpty());
+	}
+
+	private static List<AtomLink> alternateLinks(List<AtomLink> links) {
+		List<AtomLink> result = new ArrayList<AtomLink>();
+		for (AtomLink link : links) {
+			if (link.getRel() == null || "alternate".equals(link.getRel().toString())) {
+				result.add(link);
+			}
+		}
+		return result;
+	}
+
+	private static TransformerHandler newHandler() throws Exception {
+		TransformerHandler handler = ((SAXTransformerFactory) SAXTransformerFactory.newInstance()).newTransformerHandler();
+		handler.getTransformer().setOutputProperty(OutputKeys.INDENT, "no");
+		handler.setResult(new StreamResult(new StringWriter()));
+		return handler;
+	}
+
+}
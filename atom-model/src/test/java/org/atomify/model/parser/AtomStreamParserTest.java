@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.atomify.model.AtomDocument;
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentSerializer;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.xml.sax.InputSource;
+
+@RunWith(Parameterized.class)
+public class AtomStreamParserTest {
+	private static AtomDocumentParser builderParser;
+	private static AtomDocumentParser streamingParser;
+	private static AtomDocumentParser lazyParser;
+	private static AtomDocumentParser rawParser;
+
+	private String resource;
+
+	@Parameters
+	public static Collection<Object[]> parameters() {
+		return Arrays.asList(new Object[][] { // DocumentResouce
+				{ "/org/atomify/model/publishing/atom-service-document.xml" }, // AtomPubService
+						{ "/org/atomify/model/publishing/atom-categories-document.xml" }, // AtomPubCategories
+						{ "/org/atomify/model/syndication/atom-feed-document.xml" }, // AtomFeed
+						{ "/org/atomify/model/syndication/atom-entry-document.xml" } // AtomEntry
+				});
+	}
+
+	public AtomStreamParserTest(String resource) {
+		assert resource != null;
+		this.resource = resource;
+	}
+
+	@BeforeClass
+	public static void createParsers() throws Exception {
+		builderParser = new AtomDocumentParser(AtomDocumentParser.Engine.SAX_BUILDER);
+		streamingParser = new AtomDocumentParser(AtomDocumentParser.Engine.STAX_STREAMING);
+		lazyParser = new AtomDocumentParser(AtomDocumentParser.Engine.STAX_LAZY_CONTENT);
+		rawParser = new AtomDocumentParser(AtomDocumentParser.Engine.STAX_RAW_MARKUP);
+	}
+
+	@Test
+	public void testStreamingEqualsBuilderResult() throws Exception {
+		URL url = getClass().getResource(this.resource);
+		AtomDocument expected = builderParser.parse(url);
+		AtomDocument result = streamingParser.parse(url);
+		assertNotNull(result);
+		assertEquals(expected.getClass(), result.getClass());
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void testStreamingParserReusable() throws Exception {
+		AtomStreamParser parser = new AtomStreamParser();
+		URL url = getClass().getResource(this.resource);
+		AtomDocument first = parser.parse(new InputSource(url.toExternalForm()));
+		AtomDocument second = parser.parse(new InputSource(url.toExternalForm()));
+		assertEquals(first, second);
+	}
+
+	@Test
+	public void testReflectiveBindingsEqualBuilderResult() throws Exception {
+		AtomStreamParser parser = new AtomStreamParser(ElementBindings.getReflective());
+		URL url = getClass().getResource(this.resource);
+		AtomDocument expected = builderParser.parse(url);
+		AtomDocument result = parser.parse(new InputSource(url.toExternalForm()));
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void testLazyContentEqualsBuilderResult() throws Exception {
+		URL url = getClass().getResource(this.resource);
+		AtomDocument expected = builderParser.parse(url);
+		AtomDocument result = lazyParser.parse(url);
+		assertEquals(expected.getClass(), result.getClass());
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void testLazyContentSerializedUnchanged() throws Exception {
+		URL url = getClass().getResource(this.resource);
+		AtomDocument expected = builderParser.parse(url);
+		StringWriter data = new StringWriter();
+		new AtomDocumentSerializer().serialize(lazyParser.parse(url), new StreamResult(data));
+		AtomDocument result = builderParser.parse(new InputSource(new StringReader(data.toString())));
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void testRawMarkupEqualsBuilderResult() throws Exception {
+		URL url = getClass().getResource(this.resource);
+		AtomDocument expected = builderParser.parse(url);
+		AtomDocument result = rawParser.parse(url);
+		assertEquals(expected.getClass(), result.getClass());
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void testRawMarkupSerializedUnchanged() throws Exception {
+		URL url = getClass().getResource(this.resource);
+		AtomDocument expected = builderParser.parse(url);
+		StringWriter data = new StringWriter();
+		new AtomDocumentSerializer().serialize(rawParser.parse(url), new StreamResult(data));
+		AtomDocument result = builderParser.parse(new InputSource(new StringReader(data.toString())));
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void testGeneratedBindingsUsed() {
+		assertTrue(ElementBindings.isGenerated(ElementBindings.getDefault().forType(AtomFeed.class)));
+		assertTrue(ElementBindings.isGenerated(ElementBindings.getDefault().forType(AtomEntry.class)));
+		assertFalse(ElementBindings.isGenerated(ElementBindings.getReflective().forType(AtomFeed.class)));
+	}
+
+}
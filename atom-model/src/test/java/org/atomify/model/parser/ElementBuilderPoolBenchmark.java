@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.atomify.model.AllocationMeter;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+/**
+ * Compares the allocations of parsing with recycled builders against parsing with new builders. Runs
+ * only with the benchmark profile since the numbers depend on the JVM.
+ */
+public class ElementBuilderPoolBenchmark {
+
+	@Test
+	public void testAllocationPerEntry() throws Exception {
+		final int entries = 1000;
+		final String xml = ElementBuilderPoolTest.createFeed(entries);
+		final AtomStreamParser recycling = new AtomStreamParser();
+		final AtomStreamParser creating = new AtomStreamParser();
+		creating.setBuilderRecycling(false);
+		long pooled = AllocationMeter.bytesPerRun(20, new AllocationMeter.Task() {
+			@Override
+			public void run() throws Exception {
+				recycling.parse(new InputSource(new StringReader(xml)));
+			}
+		}) / entries;
+		long unpooled = AllocationMeter.bytesPerRun(20, new AllocationMeter.Task() {
+			@Override
+			public void run() throws Exception {
+				creating.parse(new InputSource(new StringReader(xml)));
+			}
+		}) / entries;
+		assertTrue(pooled + " bytes/entry with recycled builders, " + unpooled + " bytes/entry with new builders", pooled < unpooled);
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.atomify.model.AtomDocument;
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.syndication.AtomFeed;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+public class ElementBuilderPoolTest {
+
+	@Test
+	public void testRecycledBuildersBuildEqualDocuments() throws Exception {
+		String xml = createFeed(50);
+		AtomDocument expected = new AtomDocumentParser().parse(new InputSource(new StringReader(xml)));
+		AtomStreamParser parser = new AtomStreamParser();
+		AtomFeed first = (AtomFeed) parser.parse(new InputSource(new StringReader(xml)));
+		AtomFeed second = (AtomFeed) parser.parse(new InputSource(new StringReader(xml)));
+		assertEquals(expected, first);
+		assertEquals(expected, second);
+		assertEquals(50, first.getEntries().size());
+		assertTrue(parser.getBuilderPool().getReusedCount() > 50 * 8);
+		assertTrue(parser.getBuilderPool().getCreatedCount() < 50);
+	}
+
+	@Test
+	public void testNestedElementsOfOneBinding() throws Exception {
+		String xml = "<entry xmlns=\"http://www.w3.org/2005/Atom\" xmlns:x=\"urn:x\"><id>urn:uuid:nested</id><title>Nested</title>"
+				+ "<updated>2016-01-01T00:00:00Z</updated><x:a><x:b><x:c>one</x:c></x:b><x:b>two</x:b></x:a><x:a>three</x:a></entry>";
+		AtomDocument expected = new AtomDocumentParser().parse(new InputSource(new StringReader(xml)));
+		AtomStreamParser parser = new AtomStreamParser();
+		for (int i = 0; i < 3; i++) {
+			assertEquals(expected, parser.parse(new InputSource(new StringReader(xml))));
+		}
+	}
+
+	static String createFeed(int entries) {
+		StringBuilder xml = new StringBuilder("<feed xmlns=\"http://www.w3.org/2005/Atom\" xmlns:r=\"urn:example:rating\">");
+		xml.append("<id>urn:uuid:pool</id><title>Pool</title><updated>2016-01-01T00:00:00Z</updated>");
+		xml.append("<author><name>Author</name><uri>http://example.org/author</uri></author>");
+		for (int i = 0; i < entries; i++) {
+			xml.append("<entry><id>urn:uuid:entry-").append(i).append("</id><title type=\"text\">Entry ").append(i).append("</title>");
+			xml.append("<updated>2016-01-01T00:00:00Z</updated><published>2015-12-31T12:00:00Z</published>");
+			xml.append("<link rel=\"alternate\" href=\"http://example.org/entries/").append(i).append("\"/>");
+			xml.append("<category term=\"news\"/><r:rating>5</r:rating>");
+			xml.append("<summary type=\"xhtml\"><div xmlns=\"http://www.w3.org/1999/xhtml\">Summary <b>of</b> entry ").append(i)
+					.append("</div></summary></entry>");
+		}
+		return xml.append("</feed>").toString();
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentSerializer;
+import org.atomify.model.common.XhtmlDivElement;
+import org.atomify.model.extension.AtomExtension;
+import org.atomify.model.extension.AtomSimpleExtension;
+import org.atomify.model.extension.AtomStructuredExtension;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomXHtmlText;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+public class RawMarkupTest {
+	private static final String FEED = "<feed xmlns=\"http://www.w3.org/2005/Atom\" xmlns:x=\"urn:test:x\">"
+			+ "<id>urn:uuid:60a76c80-d399-11d9-b93C-0003939e0af6</id><title>Raw</title>"
+			+ "<subtitle type=\"xhtml\"><div xmlns=\"http://www.w3.org/1999/xhtml\">Some <b>bold</b> text<!-- note --></div></subtitle>"
+			+ "<updated>2016-01-01T00:00:00Z</updated><author><name>Test</name></author>"
+			+ "<x:simple>value</x:simple>"
+			+ "<x:structured x:kind=\"a\"><x:item>one</x:item><x:item>two</x:item></x:structured>"
+			+ "</feed>";
+
+	@Test
+	public void testRawMarkupKeptUntilAccessed() throws Exception {
+		AtomFeed raw = parse(AtomDocumentParser.Engine.STAX_RAW_MARKUP);
+		XhtmlDivElement div = ((AtomXHtmlText) raw.getSubtitle()).getContent();
+		assertTrue(div.isRawMarkup());
+		List<AtomExtension> extensions = raw.getExtensions();
+		assertEquals(2, extensions.size());
+		assertTrue(extensions.get(0) instanceof AtomSimpleExtension);
+		AtomStructuredExtension structured = (AtomStructuredExtension) extensions.get(1);
+		assertTrue(structured.isRawMarkup());
+		assertEquals("a", structured.getAttributes().values().iterator().next());
+		assertEquals(2, structured.getComplexContent().size());
+		assertEquals(4, div.getComplexContent().size());
+		assertEquals(parse(AtomDocumentParser.Engine.SAX_BUILDER), raw);
+	}
+
+	@Test
+	public void testRawMarkupSerialized() throws Exception {
+		AtomFeed expected = parse(AtomDocumentParser.Engine.SAX_BUILDER);
+		StringWriter out = new StringWriter();
+		new AtomDocumentSerializer().serialize(parse(AtomDocumentParser.Engine.STAX_RAW_MARKUP), out);
+		assertTrue(out.toString(), out.toString().contains("<!-- note -->"));
+		assertEquals(expected, new AtomDocumentParser().parse(new InputSource(new StringReader(out.toString()))));
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		ObjectOutputStream objects = new ObjectOutputStream(data);
+		objects.writeObject(parse(AtomDocumentParser.Engine.STAX_RAW_MARKUP));
+		objects.close();
+		AtomFeed copy = (AtomFeed) new ObjectInputStream(new ByteArrayInputStream(data.toByteArray())).readObject();
+		assertFalse(((AtomXHtmlText) copy.getSubtitle()).getContent().isRawMarkup());
+		assertEquals(expected, copy);
+	}
+
+	private static AtomFeed parse(AtomDocumentParser.Engine engine) throws Exception {
+		return (AtomFeed) new AtomDocumentParser(engine).parse(new InputSource(new StringReader(FEED)));
+	}
+
+}
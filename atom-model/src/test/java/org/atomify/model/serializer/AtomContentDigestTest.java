@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.atomify.model.AtomDocument;
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentSerializer;
+import org.atomify.model.syndication.AtomDate;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomId;
+import org.atomify.model.syndication.AtomPlainText;
+import org.junit.Test;
+
+public class AtomContentDigestTest {
+	private static final String FEED_RESOURCE = "/org/atomify/model/syndication/atom-feed-document.xml";
+
+	@Test
+	public void testIgnorePrefixesAndAttributeOrder() throws Exception {
+		AtomDocument first = parse("<feed xmlns='http://www.w3.org/2005/Atom' xml:lang='en'><id>urn:uuid:feed</id>"
+				+ "<title type='text'>Feed</title><updated>2016-01-01T00:00:00Z</updated>"
+				+ "<link rel='self' href='http://example.org/feed'/></feed>");
+		AtomDocument second = parse("<a:feed xml:lang='en' xmlns:a='http://www.w3.org/2005/Atom'><a:id>urn:uuid:feed</a:id>"
+				+ "<a:title type='text'>Feed</a:title><a:updated>2016-01-01T00:00:00Z</a:updated>"
+				+ "<a:link href='http://example.org/feed' rel='self'/></a:feed>");
+		AtomDocument third = parse("<feed xmlns='http://www.w3.org/2005/Atom' xml:lang='en'><id>urn:uuid:feed</id>"
+				+ "<title type='text'>Feed</title><updated>2016-01-01T00:00:00Z</updated>"
+				+ "<link rel='alternate' href='http://example.org/feed'/></feed>");
+		assertArrayEquals(AtomContentDigest.digest(first), AtomContentDigest.digest(second));
+		assertEquals(AtomContentDigest.etag(first), AtomContentDigest.etag(second));
+		assertFalse(AtomContentDigest.etag(first).equals(AtomContentDigest.etag(third)));
+		assertTrue(AtomContentDigest.etag(first).matches("\"[0-9a-f]{64}\""));
+	}
+
+	@Test
+	public void testSerializeWithETag() throws Exception {
+		AtomFeed feed = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		AtomDocumentSerializer serializer = new AtomDocumentSerializer();
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		serializer.serialize(feed, expected);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		String etag = serializer.serializeWithETag(feed, out);
+		assertArrayEquals(expected.toByteArray(), out.toByteArray());
+		assertEquals(AtomContentDigest.etag(feed), etag);
+		assertEquals(etag, AtomContentDigest.etag(new AtomDocumentParser().parse(new ByteArrayInputStream(out.toByteArray()))));
+	}
+
+	@Test
+	public void testChangeTracker() throws Exception {
+		AtomChangeTracker tracker = new AtomChangeTracker();
+		AtomEntry one = createEntry("urn:uuid:one", "One");
+		AtomEntry two = createEntry("urn:uuid:two", "Two");
+		assertEquals(Arrays.asList(one, two), tracker.changed(Arrays.asList(one, two)));
+		assertEquals(2, tracker.size());
+		AtomEntry changed = createEntry("urn:uuid:two", "Two changed");
+		List<AtomEntry> result = tracker.changed(Arrays.asList(createEntry("urn:uuid:one", "One"), changed));
+		assertEquals(Arrays.asList(changed), result);
+		assertFalse(tracker.update(one));
+		assertEquals(AtomContentDigest.etag(changed), tracker.getETag(changed.getId()));
+		tracker.remove(one.getId());
+		assertNull(tracker.getETag(one.getId()));
+		assertTrue(tracker.update(one));
+	}
+
+	private static AtomEntry createEntry(String id, String title) throws Exception {
+		return new AtomEntry(AtomId.valueOf(id), new AtomPlainText(title), AtomDate.valueOf("2016-01-01T00:00:00Z"), null);
+	}
+
+	private static AtomDocument parse(String xml) throws Exception {
+		return new AtomDocumentParser().parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+	}
+
+}
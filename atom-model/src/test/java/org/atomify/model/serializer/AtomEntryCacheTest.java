@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import org.atomify.model.AtomDocument;
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentSerializer;
+import org.atomify.model.syndication.AtomDate;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomId;
+import org.atomify.model.syndication.AtomPlainText;
+import org.junit.Test;
+
+public class AtomEntryCacheTest {
+	private static final String FEED_RESOURCE = "/org/atomify/model/syndication/atom-feed-document.xml";
+
+	@Test
+	public void testFeedFromCache() throws Exception {
+		AtomFeed feed = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		AtomEntryCache cache = new AtomEntryCache("UTF-8", 2, AtomEntryCache.DEFAULT_MAX_BYTES, AtomEntryCache.KeyMode.IDENTITY);
+		byte[] expected = serialize(new AtomDocumentSerializer("UTF-8", 2), feed);
+		byte[] first = serialize(new AtomDocumentSerializer(cache), feed);
+		assertEquals(feed.getEntries().size(), cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+		byte[] second = serialize(new AtomDocumentSerializer(cache), feed);
+		assertEquals(feed.getEntries().size(), cache.getHitCount());
+		assertArrayEquals(expected, first);
+		assertArrayEquals(expected, second);
+		assertEquals(feed, parse(second));
+	}
+
+	@Test
+	public void testStandaloneEntryFromCache() throws Exception {
+		AtomFeed feed = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		AtomEntryCache cache = new AtomEntryCache("UTF-8", AtomXmlWriter.NO_INDENT, AtomEntryCache.DEFAULT_MAX_BYTES,
+				AtomEntryCache.KeyMode.IDENTITY);
+		AtomDocumentSerializer serializer = new AtomDocumentSerializer(cache);
+		serialize(serializer, feed);
+		AtomEntry entry = feed.getEntries().get(0);
+		String xml = new String(serialize(serializer, entry), "UTF-8");
+		assertEquals(feed.getEntries().size(), cache.getHitCount() + cache.getMissCount() - 1);
+		assertEquals(1, cache.getHitCount());
+		assertTrue(xml, xml.contains("<atom:entry xmlns:atom=\"http://www.w3.org/2005/Atom\""));
+		assertEquals(entry, parse(xml.getBytes("UTF-8")));
+		StringWriter out = new StringWriter();
+		serializer.serialize(feed, out);
+		assertFalse(out.toString(), out.toString().contains("<atom:entry xmlns:atom="));
+		assertEquals(feed, parse(out.toString().getBytes("UTF-8")));
+	}
+
+	@Test
+	public void testIndentedAtAnyDepth() throws Exception {
+		AtomFeed feed = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		AtomEntryCache cache = new AtomEntryCache("UTF-8", 2, AtomEntryCache.DEFAULT_MAX_BYTES, AtomEntryCache.KeyMode.IDENTITY);
+		AtomDocumentSerializer plain = new AtomDocumentSerializer("UTF-8", 2);
+		AtomDocumentSerializer cached = new AtomDocumentSerializer(cache);
+		AtomEntry entry = feed.getEntries().get(0);
+		serialize(cached, feed);
+		assertArrayEquals(serialize(plain, entry), serialize(cached, entry));
+		assertEquals(1, cache.getHitCount());
+		StringWriter expected = new StringWriter();
+		plain.serialize(feed, expected);
+		StringWriter out = new StringWriter();
+		cached.serialize(feed, out);
+		assertEquals(expected.toString(), out.toString());
+		expected = new StringWriter();
+		plain.serialize(entry, expected);
+		out = new StringWriter();
+		cached.serialize(entry, out);
+		assertEquals(expected.toString(), out.toString());
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() throws Exception {
+		AtomEntryCache cache = new AtomEntryCache("UTF-8", AtomXmlWriter.NO_INDENT, 400, AtomEntryCache.KeyMode.ID_AND_UPDATED);
+		AtomEntry one = createEntry("urn:uuid:one", "2016-01-01T00:00:00Z");
+		AtomEntry two = createEntry("urn:uuid:two", "2016-01-01T00:00:00Z");
+		AtomEntry three = createEntry("urn:uuid:three", "2016-01-01T00:00:00Z");
+		cache.get(one);
+		cache.get(two);
+		cache.get(one);
+		long size = cache.getByteCount();
+		assertTrue(size + " bytes", size > 200 && size <= 400);
+		cache.get(three);
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(2, cache.getEntryCount());
+		cache.get(createEntry("urn:uuid:one", "2016-01-01T00:00:00Z"));
+		assertEquals(2, cache.getHitCount());
+		cache.get(createEntry("urn:uuid:one", "2016-01-02T00:00:00Z"));
+		assertEquals(2, cache.getHitCount());
+		cache.invalidate(one);
+		cache.clear();
+		assertEquals(0, cache.getEntryCount());
+		assertEquals(0, cache.getByteCount());
+	}
+
+	private static AtomEntry createEntry(String id, String updated) throws Exception {
+		return new AtomEntry(AtomId.valueOf(id), new AtomPlainText("Entry " + id), AtomDate.valueOf(updated), null);
+	}
+
+	private static byte[] serialize(AtomDocumentSerializer serializer, AtomDocument document) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.serialize(document, out);
+		return out.toByteArray();
+	}
+
+	private static AtomDocument parse(byte[] xml) throws Exception {
+		return new AtomDocumentParser().parse(new ByteArrayInputStream(xml));
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.atomify.model.parser.AtomFeedReader;
+import org.atomify.model.syndication.AtomDate;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomFeedBuilder;
+import org.atomify.model.syndication.AtomId;
+import org.atomify.model.syndication.AtomPlainText;
+import org.junit.Test;
+
+public class AtomFeedAggregatorTest {
+
+	@Test
+	public void testMergeNewestFirst() {
+		AtomFeed first = feed("first", entry("a", 5), entry("b", 3), entry("c", 1));
+		AtomFeed second = feed("second", entry("d", 4), entry("b", 2), entry("e", 0));
+		AtomFeed third = feed("third", entry("f", 6), entry("g", 2));
+		AtomFeed result = new AtomFeedAggregator().add(first, true).add(second, false).add(third, false).aggregate(target());
+		assertEquals(Arrays.asList("f", "a", "d", "b", "g", "c", "e"), ids(result.getEntries()));
+		// the entry updated last wins
+		assertSame(first.getEntries().get(1), result.getEntries().get(3));
+		assertNull(result.getEntries().get(0).getSource());
+	}
+
+	@Test
+	public void testAttachSource() {
+		AtomFeed first = feed("first", entry("a", 2));
+		AtomFeed second = feed("second", entry("b", 1));
+		AtomFeed result = new AtomFeedAggregator(AtomFeedAggregator.UNLIMITED, true).add(first, true).add(second, true).aggregate(target());
+		assertEquals(Arrays.asList("a", "b"), ids(result.getEntries()));
+		assertEquals(first.getId(), result.getEntries().get(0).getSource().getId());
+		assertEquals(second.getId(), result.getEntries().get(1).getSource().getId());
+		assertEquals(first.getEntries().get(0).getTitle(), result.getEntries().get(0).getTitle());
+	}
+
+	@Test
+	public void testLimit() {
+		List<AtomEntry> many = new ArrayList<AtomEntry>();
+		for (int i = 0; i < 1000; i++) {
+			many.add(entry("x" + i, (i * 7919) % 1000));
+		}
+		AtomFeed unsorted = new AtomFeed(AtomId.valueOf("urn:feed:many"), new AtomPlainText("many"), date(0), many);
+		AtomFeed sorted = feed("sorted", entry("y", 1500), entry("x999", 2000));
+		AtomFeed result = new AtomFeedAggregator(3, false).add(unsorted, false).add(sorted, false).aggregate(target());
+		assertEquals(Arrays.asList("x999", "y", "x" + indexOf(many, 999)), ids(result.getEntries()));
+	}
+
+	@Test
+	public void testStreamToWriter() throws Exception {
+		AtomFeed first = feed("first", entry("a", 5), entry("c", 1));
+		AtomFeed second = feed("second", entry("b", 3), entry("a", 2));
+		AtomFeed expected = new AtomFeedAggregator(AtomFeedAggregator.UNLIMITED, true).add(first, true).add(second, true).aggregate(target());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AtomFeedWriter writer = new AtomFeedWriter(out, target().build());
+		assertEquals(3, new AtomFeedAggregator(AtomFeedAggregator.UNLIMITED, true).add(first, true).add(second, true).aggregate(writer));
+		writer.close();
+		AtomFeedReader reader = new AtomFeedReader(new ByteArrayInputStream(out.toByteArray()));
+		try {
+			for (AtomEntry entry : expected.getEntries()) {
+				assertEquals(entry, reader.next());
+			}
+			assertEquals(false, reader.hasNext());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testLimitWithDuplicateIds() {
+		AtomFeed versions = feed("versions", entry("a", 9), entry("a", 8), entry("a", 7), entry("b", 1), entry("c", 2), entry("a", 10));
+		AtomFeed result = new AtomFeedAggregator(3, false).add(versions, false).aggregate(target());
+		assertEquals(Arrays.asList("a", "c", "b"), ids(result.getEntries()));
+		assertSame(versions.getEntries().get(5), result.getEntries().get(0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSortedSourceOutOfOrder() {
+		Iterator<AtomEntry> entries = new AtomFeedAggregator().add(feed("wrong", entry("a", 1), entry("b", 2)), true).merge();
+		while (entries.hasNext()) {
+			entries.next();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMergeOnce() {
+		AtomFeedAggregator aggregator = new AtomFeedAggregator().add(feed("first", entry("a", 1)), true);
+		aggregator.merge();
+		aggregator.merge();
+	}
+
+	private static int indexOf(List<AtomEntry> entries, int updated) {
+		for (int i = 0; i < entries.size(); i++) {
+			if (entries.get(i).getUpdated().equals(date(updated))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static List<String> ids(List<AtomEntry> entries) {
+		List<String> result = new ArrayList<String>();
+		for (AtomEntry entry : entries) {
+			result.add(entry.getId().getId().toString().substring("urn:entry:".length()));
+		}
+		return result;
+	}
+
+	private static AtomFeedBuilder target() {
+		return AtomFeedBuilder.newInstance().setId(AtomId.valueOf("urn:feed:aggregated")).setTitle(new AtomPlainText("aggregated")).setUpdated(date(10000));
+	}
+
+	private static AtomFeed feed(String name, AtomEntry... entries) {
+		return new AtomFeed(AtomId.valueOf("urn:feed:" + name), new AtomPlainText(name), date(0), Arrays.asList(entries));
+	}
+
+	private static AtomEntry entry(String name, int updated) {
+		return new AtomEntry(AtomId.valueOf("urn:entry:" + name), new AtomPlainText("Entry " + name + " " + updated), date(updated), null);
+	}
+
+	private static AtomDate date(int seconds) {
+		return AtomDate.valueOf(new Date(1451606400000L + seconds * 1000L));
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentSerializer;
+import org.atomify.model.parser.AtomFeedReader;
+import org.atomify.model.syndication.AtomDate;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomId;
+import org.atomify.model.syndication.AtomPlainText;
+import org.junit.Test;
+
+public class AtomFeedWriterTest {
+	private static final String FEED_RESOURCE = "/org/atomify/model/syndication/atom-feed-document.xml";
+
+	@Test
+	public void testSameAsSerializer() throws Exception {
+		AtomFeed feed = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		new AtomDocumentSerializer().serialize(feed, expected);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AtomFeedReader reader = new AtomFeedReader(getClass().getResourceAsStream(FEED_RESOURCE));
+		try {
+			AtomFeedWriter writer = new AtomFeedWriter(out, reader.getFeed());
+			assertEquals(feed.getEntries().size(), writer.write(reader));
+			writer.close();
+		} finally {
+			reader.close();
+		}
+		assertArrayEquals(expected.toByteArray(), out.toByteArray());
+	}
+
+	@Test
+	public void testWriteLargeFeedIncrementally() throws Exception {
+		final int entryCount = 20000;
+		AtomFeed feed = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		feed = new AtomFeed(feed.getId(), feed.getTitle(), feed.getUpdated(), null);
+		final CountingOutputStream out = new CountingOutputStream();
+		AtomFeedWriter writer = new AtomFeedWriter(out, "UTF-8", AtomXmlWriter.NO_INDENT, feed);
+		final long head = out.count;
+		assertTrue(head > 0);
+		final AtomDate updated = AtomDate.valueOf("2016-01-01T00:00:00Z");
+		writer.write(new Iterator<AtomEntry>() {
+			private int current;
+
+			public boolean hasNext() {
+				return this.current < entryCount;
+			}
+
+			public AtomEntry next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				int index = this.current++;
+				if (index == entryCount / 2) {
+					// half of the entries must already be out
+					assertTrue(out.count > head + index * 100L);
+				}
+				return new AtomEntry(AtomId.valueOf("urn:uuid:entry-" + index), new AtomPlainText("Entry " + index), updated, null);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		});
+		assertEquals(entryCount, writer.getEntryCount());
+		writer.close();
+		writer.close();
+		AtomFeedReader reader = new AtomFeedReader(new ByteArrayInputStream(out.toByteArray()));
+		try {
+			assertEquals(feed.getId(), reader.getFeed().getId());
+			long count = 0;
+			while (reader.hasNext()) {
+				assertEquals("urn:uuid:entry-" + count++, reader.next().getId().getId().toString());
+			}
+			assertEquals(entryCount, count);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWriteAfterClose() throws Exception {
+		AtomFeed feed = (AtomFeed) new AtomDocumentParser().parse(getClass().getResource(FEED_RESOURCE));
+		AtomFeedWriter writer = new AtomFeedWriter(new ByteArrayOutputStream(), feed);
+		writer.close();
+		writer.write(feed.getEntries().get(0));
+	}
+
+	/**
+	 * Keeps the bytes written and counts them as they arrive.
+	 */
+	private static class CountingOutputStream extends OutputStream {
+		private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+		private long count;
+
+		@Override
+		public void write(int b) {
+			this.data.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			this.data.write(b, off, len);
+			this.count += len;
+		}
+
+		public byte[] toByteArray() {
+			return this.data.toByteArray();
+		}
+	}
+
+}
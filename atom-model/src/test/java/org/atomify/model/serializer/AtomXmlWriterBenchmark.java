@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import static org.junit.Assert.assertTrue;
+
+import org.atomify.model.AllocationMeter;
+import org.atomify.model.syndication.AtomFeed;
+import org.junit.Test;
+
+/**
+ * Compares the allocations of the serializer writing the XML itself with those of the transformer it
+ * replaced. Runs only with the benchmark profile since the numbers depend on the JVM.
+ */
+public class AtomXmlWriterBenchmark {
+
+	@Test
+	public void testAllocationAgainstTransformer() throws Exception {
+		final AtomFeed feed = AtomXmlWriterTest.createFeed(1000);
+		long direct = AllocationMeter.bytesPerRun(20, new AllocationMeter.Task() {
+			@Override
+			public void run() throws Exception {
+				AtomXmlWriterTest.serialize(feed);
+			}
+		});
+		long transformed = AllocationMeter.bytesPerRun(20, new AllocationMeter.Task() {
+			@Override
+			public void run() throws Exception {
+				AtomXmlWriterTest.transform(feed);
+			}
+		});
+		assertTrue(direct + " bytes/feed written directly, " + transformed + " bytes/feed transformed", direct < transformed);
+	}
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.serializer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.atomify.model.AtomDocument;
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentSerializer;
+import org.atomify.model.extension.AtomSimpleExtension;
+import org.atomify.model.syndication.AtomDate;
+import org.atomify.model.syndication.AtomEntry;
+import org.atomify.model.syndication.AtomEntryBuilder;
+import org.atomify.model.syndication.AtomFeed;
+import org.atomify.model.syndication.AtomFeedBuilder;
+import org.atomify.model.syndication.AtomId;
+import org.atomify.model.syndication.AtomPlainText;
+import org.junit.Test;
+import org.xml.sax.helpers.AttributesImpl;
+
+public class AtomXmlWriterTest {
+	private static final String[] RESOURCES = { "/org/atomify/model/publishing/atom-service-document.xml",
+			"/org/atomify/model/publishing/atom-categories-document.xml", "/org/atomify/model/syndication/atom-feed-document.xml",
+			"/org/atomify/model/syndication/atom-entry-document.xml" };
+
+	@Test
+	public void testSameDocumentAsTransformer() throws Exception {
+		for (String resource : RESOURCES) {
+			AtomDocument document = new AtomDocumentParser().parse(getClass().getResource(resource));
+			ByteArrayOutputStream direct = new ByteArrayOutputStream();
+			new AtomDocumentSerializer().serialize(document, direct);
+			assertEquals(resource, document, new AtomDocumentParser().parse(new ByteArrayInputStream(direct.toByteArray())));
+			assertEquals(resource, document, new AtomDocumentParser().parse(new ByteArrayInputStream(transform(document))));
+		}
+	}
+
+	@Test
+	public void testEscapingAndEncoding() throws Exception {
+		AtomEntry entry = new AtomEntry(AtomId.valueOf("urn:uuid:escaping"), new AtomPlainText("<a href=\"x\">Fish & Chips</a> é €"),
+				AtomDate.valueOf("2016-01-01T00:00:00Z"), null);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new AtomDocumentSerializer("ISO-8859-1", AtomXmlWriter.NO_INDENT).serialize(entry, out);
+		String xml = new String(out.toByteArray(), "ISO-8859-1");
+		assertTrue(xml, xml.startsWith("<?xml version=\"1.0\" encoding=\"ISO-8859-1\" standalone=\"yes\"?><atom:entry"));
+		assertTrue(xml, xml.contains("&lt;a href=\"x\"&gt;Fish &amp; Chips&lt;/a&gt; é &#8364;"));
+		assertFalse(xml, xml.contains("\n"));
+		assertEquals(entry, new AtomDocumentParser().parse(new ByteArrayInputStream(out.toByteArray())));
+	}
+
+	@Test
+	public void testSupplementaryCharacterReference() throws Exception {
+		AtomEntry entry = new AtomEntry(AtomId.valueOf("urn:uuid:smile"), new AtomPlainText("Smile \uD83D\uDE00 \u00e9"),
+				AtomDate.valueOf("2016-01-01T00:00:00Z"), null);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new AtomDocumentSerializer("ISO-8859-1", AtomXmlWriter.NO_INDENT).serialize(entry, out);
+		String xml = new String(out.toByteArray(), "ISO-8859-1");
+		assertTrue(xml, xml.contains("Smile &#128512; \u00e9"));
+		assertEquals(entry, new AtomDocumentParser().parse(new ByteArrayInputStream(out.toByteArray())));
+		StringWriter text = new StringWriter();
+		new AtomDocumentSerializer("ISO-8859-1", AtomXmlWriter.NO_INDENT).serialize(entry, text);
+		assertTrue(text.toString(), text.toString().contains("Smile &#128512; \u00e9"));
+	}
+
+	@Test
+	public void testSurrogatePairAcrossBuffers() throws Exception {
+		StringBuilder data = new StringBuilder("a");
+		for (int i = 0; i < 10000; i++) {
+			data.append("\uD83D\uDE00");
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AtomXmlWriter writer = new AtomXmlWriter(out, "UTF-8", AtomXmlWriter.NO_INDENT);
+		writer.startDocument();
+		writer.startElement("", "root", "root", new AttributesImpl());
+		writer.processingInstruction("data", data.toString());
+		writer.characters(data.toString());
+		writer.endElement("", "root", "root");
+		writer.endDocument();
+		String xml = new String(out.toByteArray(), "UTF-8");
+		assertTrue(xml.endsWith("<root><?data " + data + "?>" + data + "</root>"));
+	}
+
+	@Test
+	public void testNamespaces() throws Exception {
+		StringWriter out = new StringWriter();
+		AtomXmlWriter writer = new AtomXmlWriter(out, "UTF-8", AtomXmlWriter.NO_INDENT);
+		AttributesImpl attributes = new AttributesImpl();
+		writer.startPrefixMapping("a", "urn:a");
+		writer.startElement("urn:a", "root", "a:root", attributes);
+		writer.startPrefixMapping("a", "urn:a");
+		writer.startElement("urn:a", "child", "a:child", attributes);
+		attributes.addAttribute("urn:c", "attr", "c:attr", "CDATA", "1 < \"2\"");
+		writer.startElement("urn:b", "ext", "b:ext", attributes);
+		writer.endElement("urn:b", "ext", "b:ext");
+		writer.endElement("urn:a", "child", "a:child");
+		attributes.clear();
+		writer.startPrefixMapping("", "urn:d");
+		writer.startElement("urn:d", "default", "default", attributes);
+		writer.startElement("", "plain", "plain", attributes);
+		writer.characters("text".toCharArray(), 0, 4);
+		writer.endElement("", "plain", "plain");
+		writer.endElement("urn:d", "default", "default");
+		writer.startElement("urn:b", "ext", "b:ext", attributes);
+		writer.endElement("urn:b", "ext", "b:ext");
+		writer.endElement("urn:a", "root", "a:root");
+		writer.flush();
+		assertEquals("<a:root xmlns:a=\"urn:a\"><a:child><b:ext xmlns:b=\"urn:b\" xmlns:c=\"urn:c\" c:attr=\"1 &lt; &quot;2&quot;\"/></a:child>"
+				+ "<default xmlns=\"urn:d\"><plain xmlns=\"\">text</plain></default><b:ext xmlns:b=\"urn:b\"/></a:root>", out.toString());
+	}
+
+	@Test
+	public void testNamespacesDeclaredOnce() throws Exception {
+		AtomFeed feed = createFeed(1000);
+		String xml = new String(serialize(feed), "UTF-8");
+		assertEquals(1, count(xml, "xmlns:georss="));
+		assertEquals(1, count(xml, "xmlns:r="));
+		assertEquals(1, count(xml, "xmlns:rk="));
+		assertEquals(1, count(xml, "xmlns:atom="));
+		assertEquals(feed, new AtomDocumentParser().parse(new ByteArrayInputStream(xml.getBytes("UTF-8"))));
+		assertEquals(feed, new AtomDocumentParser().parse(new ByteArrayInputStream(transform(feed))));
+		AtomEntry entry = feed.getEntries().get(0);
+		xml = new String(serialize(entry), "UTF-8");
+		assertEquals(1, count(xml, "xmlns:georss="));
+		assertTrue(xml, xml.contains("<atom:entry xmlns:atom=\"http://www.w3.org/2005/Atom\" xmlns:rk=\"urn:example:rank\" "
+				+ "xmlns:georss=\"http://www.georss.org/georss\" xmlns:r=\"urn:example:rating\""));
+		assertEquals(entry, new AtomDocumentParser().parse(new ByteArrayInputStream(xml.getBytes("UTF-8"))));
+	}
+
+	@Test
+	public void testAtomPrefixReserved() throws Exception {
+		String document = "<feed xmlns=\"http://www.w3.org/2005/Atom\" xmlns:atom=\"urn:example:other\" atom:flag=\"1\">"
+				+ "<id>urn:uuid:feed</id><title>Feed</title><updated>2016-01-01T00:00:00Z</updated><atom:ext>value</atom:ext>"
+				+ "<entry><id>urn:uuid:entry</id><title>Entry</title><updated>2016-01-01T00:00:00Z</updated>"
+				+ "<atom:ext>entry</atom:ext></entry></feed>";
+		AtomFeed feed = (AtomFeed) new AtomDocumentParser().parse(new ByteArrayInputStream(document.getBytes("UTF-8")));
+		String xml = new String(serialize(feed), "UTF-8");
+		assertEquals(xml, 1, count(xml, "xmlns:atom="));
+		assertEquals(xml, 1, count(xml, "xmlns:atomext=\"urn:example:other\""));
+		assertTrue(xml, xml.contains("<atomext:ext>entry</atomext:ext>"));
+		assertEquals(feed, new AtomDocumentParser().parse(new ByteArrayInputStream(xml.getBytes("UTF-8"))));
+		assertEquals(feed, new AtomDocumentParser().parse(new ByteArrayInputStream(transform(feed))));
+	}
+
+	static byte[] serialize(AtomDocument document) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new AtomDocumentSerializer().serialize(document, out);
+		return out.toByteArray();
+	}
+
+	static AtomFeed createFeed(int entries) throws Exception {
+		AtomFeedBuilder builder = AtomFeedBuilder.newInstance().setId(AtomId.valueOf("urn:uuid:namespaces"))
+				.setTitle(new AtomPlainText("Namespaces")).setUpdated(AtomDate.valueOf("2016-01-01T00:00:00Z"));
+		QName point = new QName("http://www.georss.org/georss", "point", "georss");
+		QName rating = new QName("urn:example:rating", "rating", "r");
+		QName rank = new QName("urn:example:rank", "rank", "rk");
+		for (int i = 0; i < entries; i++) {
+			builder.addEntry(AtomEntryBuilder.newInstance().setId(AtomId.valueOf("urn:uuid:entry-" + i))
+					.setTitle(new AtomPlainText("Entry " + i)).setUpdated(AtomDate.valueOf("2016-01-01T00:00:00Z"))
+					.setSummary(new AtomPlainText("Summary of entry " + i)).setUndefinedAttribute(rank, Integer.toString(i))
+					.addExtension(new AtomSimpleExtension(point, "45.256 -71.92")).addExtension(new AtomSimpleExtension(rating, "5")).build());
+		}
+		return builder.build();
+	}
+
+	private static int count(String text, String part) {
+		int result = 0;
+		for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+			result++;
+		}
+		return result;
+	}
+
+	/**
+	 * Serializes the document the way the serializer did before it got its own writer.
+	 */
+	static byte[] transform(AtomDocument document) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TransformerHandler handler = ((SAXTransformerFactory) TransformerFactory.newInstance()).newTransformerHandler();
+		handler.getTransformer().setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+		handler.getTransformer().setOutputProperty(OutputKeys.INDENT, "no");
+		handler.setResult(new StreamResult(out));
+		handler.startDocument();
+		document.serialize(handler, null);
+		handler.endDocument();
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.syndication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.atomify.model.AtomDocumentParser;
+import org.atomify.model.AtomDocumentSerializer;
+import org.jbasics.codec.RFC3548Base64Codec;
+import org.jbasics.net.mediatype.MediaType;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+public class AtomContentBinaryTest {
+
+	@Test
+	public void testDecodeInPieces() {
+		byte[] data = randomData(100000);
+		String base64 = RFC3548Base64Codec.INSTANCE.encode(data).toString();
+		AtomBinaryData.Base64Decoder decoder = new AtomBinaryData.Base64Decoder();
+		char[] chars = base64.toCharArray();
+		for (int offset = 0, piece = 1; offset < chars.length; offset += piece, piece = piece % 97 + 1) {
+			decoder.append(chars, offset, Math.min(piece, chars.length - offset));
+		}
+		AtomBinaryData result = decoder.build();
+		assertEquals(data.length, result.length());
+		assertArrayEquals(data, result.toByteArray());
+		assertEquals(base64, result.toBase64());
+		assertEquals(AtomBinaryData.valueOf(data), result);
+	}
+
+	@Test
+	public void testPaddingAndWhitespace() {
+		for (int length = 0; length < 8; length++) {
+			byte[] data = randomData(length);
+			String base64 = RFC3548Base64Codec.INSTANCE.encode(data).toString();
+			assertArrayEquals(data, AtomBinaryData.decodeBase64("\n  " + base64.replaceAll("(.{2})", "$1\n\t") + "  \n").toByteArray());
+			assertEquals(base64, AtomBinaryData.valueOf(data).toBase64());
+		}
+	}
+
+	@Test
+	public void testParseAndSerializeLargeContent() throws Exception {
+		byte[] data = randomData(3 * 1024 * 1024 + 17);
+		String document = "<entry xmlns=\"http://www.w3.org/2005/Atom\"><id>urn:uuid:binary</id><title>Binary</title>"
+				+ "<updated>2010-01-01T00:00:00Z</updated><content type=\"application/pdf\">"
+				+ RFC3548Base64Codec.INSTANCE.encode(data) + "</content></entry>";
+		AtomEntry entry = (AtomEntry) new AtomDocumentParser(AtomDocumentParser.Engine.STAX_STREAMING).parse(new StringReader(document));
+		assertTrue(entry.getContent().isBinary());
+		AtomContentBinary content = (AtomContentBinary) entry.getContent();
+		assertEquals(data.length, content.getBinaryData().length());
+		assertArrayEquals(data, readAll(content.getDataStream()));
+
+		AtomEntry builderEntry = (AtomEntry) new AtomDocumentParser().parse(new StringReader(document));
+		assertEquals(builderEntry, entry);
+
+		StringWriter serialized = new StringWriter();
+		new AtomDocumentSerializer().serialize(entry, new StreamResult(serialized));
+		AtomEntry result = (AtomEntry) new AtomDocumentParser(AtomDocumentParser.Engine.STAX_STREAMING).parse(new InputSource(
+				new StringReader(serialized.toString())));
+		assertEquals(entry, result);
+	}
+
+	@Test
+	public void testJavaSerialization() throws Exception {
+		AtomContentBinary content = new AtomContentBinary(MediaType.valueOf("image/png"), randomData(40000));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(content);
+		out.close();
+		AtomContentBinary result = (AtomContentBinary) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertEquals(content, result);
+		assertEquals(content.hashCode(), result.hashCode());
+		assertArrayEquals(content.getData(), result.getData());
+	}
+
+	private static byte[] readAll(InputStream in) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		int count;
+		while ((count = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] randomData(int length) {
+		byte[] result = new byte[length];
+		new Random(length).nextBytes(result);
+		return result;
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.syndication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.junit.Test;
+
+public class AtomDateTest {
+
+	@Test
+	public void testParseAndFormat() {
+		assertRoundTrip("2009-08-11T12:22:30+02:00", 1249986150000L, 120);
+		assertRoundTrip("2026-10-18T01:50:31.731Z", 1792288231731L, 0);
+		assertRoundTrip("1969-12-31T23:59:59.5-05:30", 19799500L, -330);
+		assertRoundTrip("2000-02-29T00:00:00Z", 951782400000L, 0);
+		assertEquals("2016-01-01T10:00:00.123Z", AtomDate.valueOf("2016-01-01t10:00:00.123456z").toRfc3339String());
+		assertEquals("2016-01-01T10:00:00", AtomDate.valueOf("2016-01-01T10:00:00").toRfc3339String());
+		assertEquals(AtomDate.valueOf("2016-01-01T12:00:00+02:00"), AtomDate.valueOf("2016-01-01T10:00:00Z"));
+	}
+
+	@Test
+	public void testInvalidDates() {
+		for (String value : new String[] { "2016-01-01", "2016-13-01T00:00:00Z", "2015-02-29T00:00:00Z", "2016-01-01T24:00:00Z",
+				"2016-01-01T00:00:00.Z", "2016-01-01T00:00:00+2:00", "2016-01-01 00:00:00Z", "2016-01-01T00:00:00Zulu" }) {
+			try {
+				AtomDate.valueOf(value);
+				fail("Accepted invalid date " + value);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testMatchesXmlCalendar() throws Exception {
+		DatatypeFactory factory = DatatypeFactory.newInstance();
+		Random random = new Random(4711);
+		for (int i = 0; i < 2000; i++) {
+			long time = (random.nextLong() % 4000000000000L) + 1000000000000L;
+			int offset = (random.nextInt(28 * 4) - 14 * 4) * 15;
+			AtomDate date = AtomDate.valueOf(time, offset);
+			XMLGregorianCalendar expected = factory.newXMLGregorianCalendar(date.toRfc3339String());
+			assertEquals(date.toRfc3339String(), expected.toGregorianCalendar().getTimeInMillis(), time);
+			assertEquals(expected, date.getValue());
+			assertEquals(date, AtomDate.valueOf(expected.toXMLFormat()));
+		}
+	}
+
+	@Test
+	public void testCompareAndDate() {
+		Date now = new Date();
+		AtomDate date = AtomDate.valueOf(now);
+		assertEquals(now, date.toDate());
+		assertEquals(now.getTime(), date.getTime());
+		List<AtomDate> dates = new ArrayList<AtomDate>();
+		dates.add(AtomDate.valueOf("2016-01-01T12:00:00+02:00"));
+		dates.add(AtomDate.valueOf("2016-01-01T11:00:00Z"));
+		dates.add(AtomDate.valueOf("2015-12-31T23:00:00-08:00"));
+		Collections.sort(dates);
+		assertEquals(AtomDate.valueOf("2016-01-01T07:00:00Z"), dates.get(0));
+		assertEquals(-480, dates.get(0).getOffset());
+		assertEquals(120, dates.get(1).getOffset());
+		assertTrue(dates.get(1).compareTo(dates.get(2)) < 0);
+		assertEquals(0, dates.get(1).compareTo(AtomDate.valueOf("2016-01-01T10:00:00Z")));
+	}
+
+	@Test
+	public void testAgainstXmlGregorianCalendar() throws Exception {
+		DatatypeFactory factory = DatatypeFactory.newInstance();
+		for (int i = 0; i < 1000; i++) {
+			String value = AtomDate.valueOf(1451606400000L + i * 7919000L, 60).toRfc3339String();
+			assertEquals(value, factory.newXMLGregorianCalendar(value).toXMLFormat(), AtomDate.valueOf(value).toRfc3339String());
+		}
+	}
+
+	private static void assertRoundTrip(String value, long time, int offset) {
+		AtomDate date = AtomDate.valueOf(value);
+		assertEquals(value, time, date.getTime());
+		assertEquals(offset, date.getOffset());
+		assertEquals(value, date.toRfc3339String());
+		assertEquals(date, AtomDate.valueOf(date.toRfc3339String()));
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2009-2016 Stephan Schloepke
+ *
+ * Stephan Schloepke: http://www.schloepke.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.atomify.model.syndication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.atomify.model.extension.AtomSimpleExtension;
+import org.junit.Test;
+
+public class AtomEntryBuilderTest {
+	private static final QName RANK = new QName("urn:example:rank", "rank", "rk");
+	private static final QName RATING = new QName("urn:example:rating", "rating", "r");
+
+	@Test
+	public void testModifyAfterBuild() throws Exception {
+		AtomEntryBuilder builder = fill(AtomEntryBuilder.newInstance(), 1);
+		AtomEntry first = builder.build();
+		AtomEntry second = builder.build();
+		assertEquals(first, second);
+		builder.addLink(AtomLink.newBuilder().setHref(URI.create("http://example.org/2")).build());
+		builder.setUndefinedAttribute(RATING, "5");
+		AtomEntry third = builder.build();
+		assertEquals(1, first.getLinks().size());
+		assertEquals(1, first.getUndefinedAttributes().size());
+		assertEquals(2, third.getLinks().size());
+		assertEquals(2, third.getUndefinedAttributes().size());
+		builder.reset();
+		assertEquals(first, second);
+		assertEquals(2, third.getLinks().size());
+		assertEquals(1, third.getExtensions().size());
+		AtomEntry fourth = fill(builder, 2).build();
+		assertEquals(1, fourth.getLinks().size());
+		assertEquals(first.getLinks(), fourth.getLinks());
+	}
+
+	@Test
+	public void testRecycleAfterBuild() throws Exception {
+		AtomEntryBuilder builder = fill(AtomEntryBuilder.newInstance(), 1);
+		AtomEntry first = builder.build();
+		builder.reset();
+		List<AtomLink> links = fill(builder, 2).getLinks();
+		List<AtomPerson> authors = builder.getAuthors();
+		builder.reset();
+		assertTrue(links.isEmpty());
+		fill(builder, 3).addLink(AtomLink.newBuilder().setHref(URI.create("http://example.org/3")).build());
+		assertSame(links, builder.getLinks());
+		assertSame(authors, builder.getAuthors());
+		AtomEntry third = builder.build();
+		builder.reset();
+		fill(builder, 4).build();
+		assertEquals(1, first.getLinks().size());
+		assertEquals(1, first.getAuthors().size());
+		assertEquals(2, third.getLinks().size());
+		assertEquals(URI.create("http://example.org/3"), third.getLinks().get(1).getHref());
+		assertEquals(AtomId.valueOf("urn:uuid:entry-3"), third.getId());
+	}
+
+	@Test
+	public void testFeedEntriesHandedOver() throws Exception {
+		AtomFeedBuilder builder = AtomFeedBuilder.newInstance().setId(AtomId.valueOf("urn:uuid:feed"))
+				.setTitle(new AtomPlainText("Feed")).setUpdated(AtomDate.valueOf("2016-01-01T00:00:00Z"));
+		builder.addEntry(fill(AtomEntryBuilder.newInstance(), 1).build());
+		AtomFeed feed = builder.build();
+		List<AtomEntry> entries = builder.getEntries();
+		entries.clear();
+		assertEquals(1, feed.getEntries().size());
+		builder.reset();
+		assertEquals(1, feed.getEntries().size());
+	}
+
+	@Test
+	public void testCollectionsHandedOver() throws Exception {
+		AtomEntryBuilder builder = fill(AtomEntryBuilder.newInstance(), 1);
+		List<AtomLink> links = builder.getLinks();
+		Map<QName, String> attributes = builder.getUndefinedAttributes();
+		AtomEntry entry = builder.build();
+		// the entry wraps the collections of the builder instead of copies
+		links.add(AtomLink.newBuilder().setHref(URI.create("http://example.org/2")).build());
+		attributes.put(RATING, "5");
+		assertEquals(2, entry.getLinks().size());
+		assertEquals("5", entry.getUndefinedAttributes().get(RATING));
+		// modifying the builder after building copies the collections first
+		builder.addLink(AtomLink.newBuilder().setHref(URI.create("http://example.org/3")).build());
+		builder.setUndefinedAttribute(RATING, "4");
+		assertNotSame(links, builder.getLinks());
+		assertNotSame(attributes, builder.getUndefinedAttributes());
+		assertEquals(2, entry.getLinks().size());
+		assertEquals("5", entry.getUndefinedAttributes().get(RATING));
+		assertEquals(3, builder.build().getLinks().size());
+	}
+
+	private static AtomEntryBuilder fill(AtomEntryBuilder builder, int i) throws Exception {
+		return builder.setId(AtomId.valueOf("urn:uuid:entry-" + i)).setTitle(new AtomPlainText("Entry " + i))
+				.setUpdated(AtomDate.valueOf("2016-01-01T00:00:00Z")).setUndefinedAttribute(RANK, "1")
+				.addAuthor(AtomPerson.newBuilder().setName("Author").build())
+				.addLink(AtomLink.newBuilder().setHref(URI.create("http://example.org/1")).build())
+				.addCategory(AtomCategory.newBuilder().setTerm("term").build()).addExtension(new AtomSimpleExtension(RATING, "5"));
+	}
+
+}
@@ -26,11 +26,13 @@ package org.atomify.model.syndication;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.Locale;
 
+import org.atomify.model.AtomValueCache;
 import org.atomify.model.common.AtomLanguage;
 import org.junit.Test;
 
@@ -87,8 +89,15 @@ public class AtomLanguageTest {
 	public void testHashCodeAndEquals() {
 		AtomLanguage testOne = AtomLanguage.valueOf("de");
 		AtomLanguage testTwo = AtomLanguage.valueOf("fr");
-		AtomLanguage testThree = AtomLanguage.valueOf("de");
+		AtomLanguage testThree;
+		AtomValueCache.setEnabled(false);
+		try {
+			testThree = AtomLanguage.valueOf("de");
+		} finally {
+			AtomValueCache.setEnabled(true);
+		}
 		assertNotSame(testOne, testThree);
+		assertSame(AtomLanguage.valueOf("de"), AtomLanguage.valueOf("de"));
 		assertEquals(testOne, testThree);
 		assertEquals(testOne, testOne);
 		assertFalse(testOne.equals(testTwo));